@@ -0,0 +1,88 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.rsf.bare.ActionResponse;
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.benchmarks.beans.FormBean;
+import uk.org.ponder.rsf.benchmarks.producers.FormProducer;
+import uk.org.ponder.rsf.components.UICommand;
+import uk.org.ponder.rsf.components.UIForm;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+
+/**
+ * Times a complete ACTION cycle submitting the many-input form of
+ * {@link FormProducer} - request parsing, conversion and application of every
+ * bound value to the request beans, the action method and the ARI result.
+ * <p>
+ * The form is submitted from a component tree freshly rendered before each
+ * invocation, which is excluded from the measurement. Since each invocation
+ * spans hundreds of microseconds, the overhead of per-invocation setup is
+ * insignificant.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActionCycleBenchmark {
+
+  private BenchmarkEnvironment environment;
+  private SimpleViewParameters location;
+  private UIForm form;
+  private UICommand command;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    environment = new BenchmarkEnvironment();
+    environment.start();
+    location = new SimpleViewParameters(FormProducer.VIEW_ID);
+    prepareForm();
+    ActionResponse response = submit();
+    FormBean formbean = (FormBean) response.requestContext
+        .locateBean("formBean");
+    if (!"saved".equals(response.actionResult) || formbean.saved != FormBean.FIELDS) {
+      throw new IllegalStateException("Benchmark form failed to submit");
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void prepareForm() {
+    RenderResponse render = environment.getRequestLauncher().renderView(
+        location);
+    form = (UIForm) render.viewWrapper.queryComponent(new UIForm());
+    command = (UICommand) render.viewWrapper.queryComponent(new UICommand(),
+        FormProducer.SUBMIT_ID);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    environment.stop();
+  }
+
+  @Benchmark
+  public ActionResponse submit() {
+    return environment.getRequestLauncher().submitForm(location, form,
+        command);
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks;
+
+import java.util.Properties;
+
+import org.apache.log4j.PropertyConfigurator;
+import org.springframework.context.ApplicationContext;
+
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+
+/**
+ * The RSF application driven by the benchmarks in this package. This is the
+ * standard "bare" environment of {@link MultipleRSFTests}, with the producers,
+ * beans and templates of this package contributed to it. Unless it is
+ * constructed as single-shot, each call to {@link #getRequestLauncher()}
+ * begins a fresh RSAC request which is ended by the cycle it launches.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class BenchmarkEnvironment extends MultipleRSFTests {
+  public static final String CONFIG_BASE = "classpath:uk/org/ponder/rsf/benchmarks/";
+
+  private boolean singleshot;
+
+  public BenchmarkEnvironment() {
+    this(false);
+  }
+
+  /**
+   * @param singleshot If <code>true</code>, a single RSAC request will be
+   *          held open from {@link #start()} until {@link #stop()}, for
+   *          benchmarks which operate on request beans directly.
+   */
+  public BenchmarkEnvironment(boolean singleshot) {
+    this.singleshot = singleshot;
+    contributeRequestConfigLocation(CONFIG_BASE
+        + "benchmark-request-context.xml");
+    contributeConfigLocation(CONFIG_BASE + "benchmark-application-context.xml");
+  }
+
+  protected boolean isSingleShot() {
+    return singleshot;
+  }
+
+  // Logging at the usual test levels would dominate the measurements
+  protected void initLogging() {
+    Properties props = new Properties();
+    props.put("log4j.rootLogger", "error, stdout");
+    props.put("log4j.logger.PonderUtilCore", "error");
+    props.put("log4j.appender.stdout", "org.apache.log4j.ConsoleAppender");
+    props.put("log4j.appender.stdout.layout", "org.apache.log4j.PatternLayout");
+    props.put("log4j.appender.stdout.layout.ConversionPattern",
+        "%d %p (%F:%L) - <%m>%n");
+    PropertyConfigurator.configure(props);
+  }
+
+  public void start() throws Exception {
+    setUp();
+  }
+
+  public void stop() throws Exception {
+    tearDown();
+  }
+
+  public ApplicationContext getApplicationContext() {
+    return applicationContext;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.mapping.DAREnvironment;
+import uk.org.ponder.mapping.DARList;
+import uk.org.ponder.mapping.DataAlterationRequest;
+import uk.org.ponder.mapping.support.DARApplier;
+import uk.org.ponder.messageutil.TargettedMessageList;
+import uk.org.ponder.rsf.benchmarks.beans.ChainBean;
+import uk.org.ponder.rsf.benchmarks.beans.FormBean;
+
+/**
+ * Times the application by {@link DARApplier} of a batch of data alterations
+ * of the kind produced by a form submission - one for each field of a
+ * {@link FormBean}, and one to each writeable property along a nested
+ * {@link ChainBean} path requiring conversion.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DARApplierBenchmark {
+  public static final int CHAIN_LENGTH = 8;
+
+  private BenchmarkEnvironment environment;
+  private DARApplier darapplier;
+  private FormBean formbean;
+  private ChainBean chainbean;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    environment = new BenchmarkEnvironment();
+    environment.start();
+    darapplier = (DARApplier) environment.getApplicationContext().getBean(
+        "DARApplier");
+    formbean = new FormBean();
+    chainbean = new ChainBean();
+    ChainBean link = chainbean;
+    for (int i = 1; i < CHAIN_LENGTH; ++i) {
+      ChainBean next = new ChainBean();
+      link.setNext(next);
+      link = next;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    environment.stop();
+  }
+
+  // DataAlterationRequests are consumed by application and must be remade
+  private static DARList formDARs() {
+    DARList togo = new DARList();
+    for (int i = 0; i < FormBean.FIELDS; ++i) {
+      togo.add(new DataAlterationRequest("fields." + FormBean.fieldKey(i),
+          "Submitted " + i));
+    }
+    return togo;
+  }
+
+  private static DARList chainDARs() {
+    DARList togo = new DARList();
+    String path = "";
+    for (int i = 0; i < CHAIN_LENGTH; ++i) {
+      togo.add(new DataAlterationRequest(path + "name", "Chain " + i));
+      togo.add(new DataAlterationRequest(path + "weight", Integer.toString(i)));
+      path = path + "next.";
+    }
+    return togo;
+  }
+
+  @Benchmark
+  public FormBean applyFormFields() {
+    darapplier.applyAlterations(formbean, formDARs(), new DAREnvironment(
+        new TargettedMessageList()));
+    return formbean;
+  }
+
+  @Benchmark
+  public ChainBean applyNestedPaths() {
+    darapplier.applyAlterations(chainbean, chainDARs(), new DAREnvironment(
+        new TargettedMessageList()));
+    return chainbean;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.beanutil.BeanLocator;
+import uk.org.ponder.rsac.RSACBeanLocator;
+
+/**
+ * Times the request-scope container in isolation - starting a request,
+ * creating a chain of eight request beans with value and reference
+ * dependencies, repeatedly fetching the created beans, and ending the
+ * request.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RSACBenchmark {
+  public static final String[] CHAIN_NAMES = { "chain0", "chain1", "chain2",
+      "chain3", "chain4", "chain5", "chain6", "chain7" };
+
+  private BenchmarkEnvironment environment;
+  private RSACBeanLocator rsacbl;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    environment = new BenchmarkEnvironment();
+    environment.start();
+    rsacbl = environment.getRSACBeanLocator();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    environment.stop();
+  }
+
+  @Benchmark
+  public Object createChain() {
+    rsacbl.startRequest();
+    try {
+      return rsacbl.getBeanLocator().locateBean(CHAIN_NAMES[0]);
+    }
+    finally {
+      rsacbl.endRequest();
+    }
+  }
+
+  @Benchmark
+  public int createAndFetchChain() {
+    rsacbl.startRequest();
+    try {
+      BeanLocator locator = rsacbl.getBeanLocator();
+      int togo = 0;
+      for (int pass = 0; pass < 10; ++pass) {
+        for (int i = 0; i < CHAIN_NAMES.length; ++i) {
+          togo += System.identityHashCode(locator.locateBean(CHAIN_NAMES[i]));
+        }
+      }
+      return togo;
+    }
+    finally {
+      rsacbl.endRequest();
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.benchmarks.producers.FormProducer;
+import uk.org.ponder.rsf.benchmarks.producers.NestedProducer;
+import uk.org.ponder.rsf.benchmarks.producers.TableProducer;
+import uk.org.ponder.rsf.processor.support.DefaultFatalErrorHandler;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+
+/**
+ * Times a complete RENDER cycle - RSAC startup, producers, fixups, branch
+ * resolution and rendering to markup - for each of the benchmark views.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderCycleBenchmark {
+
+  @Param( { TableProducer.VIEW_ID, NestedProducer.VIEW_ID,
+      FormProducer.VIEW_ID })
+  public String viewID;
+
+  private BenchmarkEnvironment environment;
+  private SimpleViewParameters viewparams;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    environment = new BenchmarkEnvironment();
+    environment.start();
+    viewparams = new SimpleViewParameters(viewID);
+    checkMarkup(render());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    environment.stop();
+  }
+
+  @Benchmark
+  public String render() {
+    RenderResponse response = environment.getRequestLauncher().renderView(
+        viewparams);
+    return response.markup;
+  }
+
+  // A benchmark of the error page would be of little use
+  static void checkMarkup(String markup) {
+    if (markup == null || markup.indexOf(DefaultFatalErrorHandler.ERROR_STRING) != -1) {
+      throw new IllegalStateException("Benchmark view failed to render: "
+          + markup);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.rsf.request.RequestSubmittedValueCache;
+import uk.org.ponder.rsf.request.SVESorter;
+import uk.org.ponder.rsf.request.SubmittedValueEntry;
+
+/**
+ * Times the topological sorting by {@link SVESorter} of very large
+ * submissions, to show how it scales with the number of fields. The "rows"
+ * submission is made up of rows each with two plain fields and a date
+ * assembled through a transit bean by fast EL, submitted in the reverse of
+ * dependency order. The "plain" submission is a flat form of fields all
+ * bound to the same bean.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SVESorterBenchmark {
+  @Param({"1000", "10000"})
+  public int fields;
+
+  private RequestSubmittedValueCache rows;
+  private RequestSubmittedValueCache plain;
+
+  private static SubmittedValueEntry component(String componentid,
+      String valuebinding) {
+    SubmittedValueEntry sve = new SubmittedValueEntry();
+    sve.componentid = componentid;
+    sve.valuebinding = valuebinding;
+    sve.newvalue = "value";
+    return sve;
+  }
+
+  private static SubmittedValueEntry fastEL(String valuebinding, String readEL) {
+    SubmittedValueEntry sve = new SubmittedValueEntry();
+    sve.valuebinding = valuebinding;
+    sve.newvalue = readEL;
+    sve.isEL = true;
+    return sve;
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    rows = new RequestSubmittedValueCache();
+    for (int row = 0; rows.getEntries() < fields; ++row) {
+      String rowpath = "items." + row;
+      rows.addEntry(fastEL(rowpath + ".date", "dateTransit" + row + ".date"));
+      rows.addEntry(component("date" + row, "dateTransit" + row + ".short"));
+      rows.addEntry(component("title" + row, rowpath + ".title"));
+      rows.addEntry(component("label" + row, rowpath + ".label"));
+    }
+    plain = new RequestSubmittedValueCache();
+    for (int i = 0; i < fields; ++i) {
+      plain.addEntry(component("field" + i, "form.field" + i));
+    }
+  }
+
+  @Benchmark
+  public List sortRows() {
+    return new SVESorter(rows).getSortedRSVC();
+  }
+
+  @Benchmark
+  public List sortPlainForm() {
+    return new SVESorter(plain).getSortedRSVC();
+  }
+}
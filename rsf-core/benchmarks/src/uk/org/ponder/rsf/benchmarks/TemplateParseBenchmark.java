@@ -0,0 +1,69 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.rsf.benchmarks.producers.FormProducer;
+import uk.org.ponder.rsf.benchmarks.producers.NestedProducer;
+import uk.org.ponder.rsf.benchmarks.producers.TableProducer;
+import uk.org.ponder.rsf.template.XMLViewTemplateParser;
+import uk.org.ponder.rsf.view.ViewTemplate;
+import uk.org.ponder.streamutil.StreamCopyUtil;
+
+/**
+ * Times the parsing of each of the benchmark templates into lumps by
+ * {@link XMLViewTemplateParser}, including the pre-encoding of its text as
+ * configured by default. No parse interceptors are applied.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateParseBenchmark {
+
+  @Param( { TableProducer.VIEW_ID, NestedProducer.VIEW_ID,
+      FormProducer.VIEW_ID })
+  public String viewID;
+
+  private byte[] template;
+  private XMLViewTemplateParser parser;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    String path = "uk/org/ponder/rsf/benchmarks/templates/" + viewID + ".html";
+    InputStream is = getClass().getClassLoader().getResourceAsStream(path);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    StreamCopyUtil.inputToOutput(is, bytes, null);
+    template = bytes.toByteArray();
+    parser = new XMLViewTemplateParser();
+    parser.setEncoding("UTF-8");
+  }
+
+  @Benchmark
+  public ViewTemplate parse() {
+    return parser.parse(new ByteArrayInputStream(template));
+  }
+}
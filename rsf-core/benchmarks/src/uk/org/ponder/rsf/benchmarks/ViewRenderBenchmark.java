@@ -0,0 +1,85 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.benchmarks.producers.FormProducer;
+import uk.org.ponder.rsf.benchmarks.producers.NestedProducer;
+import uk.org.ponder.rsf.benchmarks.producers.TableProducer;
+import uk.org.ponder.rsf.renderer.ViewRender;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+import uk.org.ponder.streamutil.write.OutputStreamPOS;
+
+/**
+ * Times {@link ViewRender#render} alone - branch resolution and the
+ * rendering of an already produced and fixed-up component tree against its
+ * template - by repeatedly re-rendering the view of a single held-open
+ * request to a discarding UTF-8 stream.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewRenderBenchmark {
+
+  @Param( { TableProducer.VIEW_ID, NestedProducer.VIEW_ID,
+      FormProducer.VIEW_ID })
+  public String viewID;
+
+  private BenchmarkEnvironment environment;
+  private ViewRender viewrender;
+  private OutputStreamPOS pos;
+
+  private static class NullOutputStream extends OutputStream {
+    public void write(int b) {
+    }
+
+    public void write(byte[] b, int off, int len) {
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    environment = new BenchmarkEnvironment(true);
+    environment.start();
+    RenderResponse response = environment.getRequestLauncher().renderView(
+        new SimpleViewParameters(viewID));
+    RenderCycleBenchmark.checkMarkup(response.markup);
+    viewrender = (ViewRender) response.requestContext.locateBean("viewRender");
+    pos = new OutputStreamPOS(new NullOutputStream(), "UTF-8");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    environment.stop();
+  }
+
+  @Benchmark
+  public void render() {
+    viewrender.render(pos);
+    pos.flush();
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks.beans;
+
+/**
+ * A trivial request-scope bean, a chain of which exercises RSAC bean
+ * construction and dependency delivery.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class ChainBean {
+  private ChainBean next;
+  private String name;
+  private int weight;
+
+  public void setNext(ChainBean next) {
+    this.next = next;
+  }
+
+  public ChainBean getNext() {
+    return next;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setWeight(int weight) {
+    this.weight = weight;
+  }
+
+  public int getWeight() {
+    return weight;
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks.beans;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A request-scope bean receiving the submissions of the FormProducer view.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class FormBean {
+  public static final int FIELDS = 100;
+
+  public Map fields = new HashMap();
+  public int saved;
+
+  public FormBean() {
+    for (int i = 0; i < FIELDS; ++i) {
+      fields.put(fieldKey(i), "Value " + i);
+    }
+  }
+
+  public static String fieldKey(int i) {
+    return "f" + i;
+  }
+
+  public String save() {
+    saved = fields.size();
+    return "saved";
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks.producers;
+
+import uk.org.ponder.rsf.benchmarks.beans.FormBean;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UICommand;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIForm;
+import uk.org.ponder.rsf.components.UIInput;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/**
+ * Renders a form with many inputs bound to the request-scope
+ * {@link FormBean}, submitted by a single method-bound command.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class FormProducer implements ViewComponentProducer {
+  public static final String VIEW_ID = "form";
+  public static final String FORM_ID = "bench-form";
+  public static final String SUBMIT_ID = "submit";
+
+  public String getViewID() {
+    return VIEW_ID;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    UIForm form = UIForm.make(tofill, FORM_ID);
+    for (int i = 0; i < FormBean.FIELDS; ++i) {
+      String key = FormBean.fieldKey(i);
+      UIBranchContainer row = UIBranchContainer.make(form, "field-row:", key);
+      UIOutput.make(row, "field-label", "Field " + i);
+      UIInput.make(row, "field", "#{formBean.fields." + key + "}");
+    }
+    UICommand.make(form, SUBMIT_ID, "#{formBean.save}");
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks.producers;
+
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/**
+ * Renders a deeply nested tree of branch containers, each level repeating
+ * the next, stressing branch resolution and container recursion.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class NestedProducer implements ViewComponentProducer {
+  public static final String VIEW_ID = "nested";
+  public static final int DEPTH = 5;
+  public static final int FANOUT = 4;
+
+  public String getViewID() {
+    return VIEW_ID;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    fillLevel(tofill, 1, "");
+  }
+
+  private void fillLevel(UIContainer parent, int level, String path) {
+    for (int i = 0; i < FANOUT; ++i) {
+      String childpath = path + "." + i;
+      UIBranchContainer branch = UIBranchContainer.make(parent, "level" + level
+          + ":", Integer.toString(i));
+      UIOutput.make(branch, "label", "Node" + childpath);
+      if (level < DEPTH) {
+        fillLevel(branch, level + 1, childpath);
+      }
+    }
+  }
+}
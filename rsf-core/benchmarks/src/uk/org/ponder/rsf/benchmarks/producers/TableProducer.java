@@ -0,0 +1,44 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.benchmarks.producers;
+
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIInternalLink;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/**
+ * Renders a large table - a repeated row branch each holding a run of
+ * repeated cells and a link, as for a typical listing view.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class TableProducer implements ViewComponentProducer {
+  public static final String VIEW_ID = "table";
+  public static final int ROWS = 500;
+  public static final int COLUMNS = 6;
+
+  public String getViewID() {
+    return VIEW_ID;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    UIOutput.make(tofill, "title", "Table of " + ROWS + " rows");
+    for (int i = 0; i < ROWS; ++i) {
+      UIBranchContainer row = UIBranchContainer.make(tofill, "row:", Integer
+          .toString(i));
+      for (int j = 0; j < COLUMNS; ++j) {
+        UIOutput.make(row, "cell:", "Cell " + i + "." + j);
+      }
+      UIInternalLink.make(row, "view", "View " + i, new SimpleViewParameters(
+          VIEW_ID));
+    }
+  }
+}
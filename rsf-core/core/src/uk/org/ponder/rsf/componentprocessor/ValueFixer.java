@@ -3,6 +3,9 @@
  */
 package uk.org.ponder.rsf.componentprocessor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import uk.org.ponder.beanutil.BeanLocator;
 import uk.org.ponder.beanutil.BeanModelAlterer;
 import uk.org.ponder.beanutil.BeanResolver;
@@ -10,9 +13,11 @@ import uk.org.ponder.mapping.ShellInfo;
 import uk.org.ponder.mapping.support.ConverterConverter;
 import uk.org.ponder.mapping.support.DataConverterRegistry;
 import uk.org.ponder.messageutil.MessageLocator;
+import uk.org.ponder.rsf.components.ComponentList;
 import uk.org.ponder.rsf.components.ELReference;
 import uk.org.ponder.rsf.components.UIBound;
 import uk.org.ponder.rsf.components.UIComponent;
+import uk.org.ponder.rsf.components.UIContainer;
 import uk.org.ponder.rsf.components.UIForm;
 import uk.org.ponder.rsf.components.UIMessage;
 import uk.org.ponder.rsf.components.UIParameter;
@@ -21,8 +26,11 @@ import uk.org.ponder.rsf.request.EarlyRequestParser;
 import uk.org.ponder.rsf.request.FossilizedConverter;
 import uk.org.ponder.rsf.request.RequestSubmittedValueCache;
 import uk.org.ponder.rsf.request.SubmittedValueEntry;
+import uk.org.ponder.rsf.state.entity.support.EntityPrefetcher;
 import uk.org.ponder.rsf.state.support.ErrorStateManager;
 import uk.org.ponder.rsf.uitype.UITypes;
+import uk.org.ponder.rsf.view.View;
+import uk.org.ponder.rsf.view.ViewReceiver;
 import uk.org.ponder.util.Logger;
 import uk.org.ponder.util.UniversalRuntimeException;
 
@@ -35,7 +43,7 @@ import uk.org.ponder.util.UniversalRuntimeException;
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  */
 
-public class ValueFixer implements ComponentProcessor {
+public class ValueFixer implements ComponentProcessor, ViewReceiver {
   private BeanLocator beanlocator;
   private BeanModelAlterer alterer;
   private RequestSubmittedValueCache rsvc;
@@ -88,6 +96,48 @@ public class ValueFixer implements ComponentProcessor {
     this.fossilizedconverter = fossilizedconverter;
   }
 
+  private EntityPrefetcher entityprefetcher;
+
+  public void setEntityPrefetcher(EntityPrefetcher entityprefetcher) {
+    this.entityprefetcher = entityprefetcher;
+  }
+
+  // Before any component is processed, fetch together all entities whose
+  // values will be read from the model
+  public void setView(View view) {
+    if (entityprefetcher != null) {
+      List paths = new ArrayList();
+      collectPaths(view.viewroot, paths);
+      entityprefetcher.prefetch(paths, beanlocator);
+    }
+  }
+
+  private static void collectPaths(UIContainer container, List paths) {
+    ComponentList children = container.flattenChildren();
+    for (int i = 0; i < children.size(); ++i) {
+      UIComponent child = children.componentAt(i);
+      if (child instanceof UIMessage) {
+        Object[] arguments = ((UIMessage) child).arguments;
+        for (int j = 0; arguments != null && j < arguments.length; ++j) {
+          if (arguments[j] instanceof ELReference) {
+            paths.add(((ELReference) arguments[j]).value);
+          }
+        }
+      }
+      if (child instanceof UIBound) {
+        UIBound bound = (UIBound) child;
+        if (bound.valuebinding != null
+            && (bound.acquireValue() == null || UITypes
+                .isPlaceholder(bound.acquireValue()))) {
+          paths.add(bound.valuebinding.value);
+        }
+      }
+      else if (child instanceof UIContainer) {
+        collectPaths((UIContainer) child, paths);
+      }
+    }
+  }
+
   public void processComponent(UIComponent toprocesso) {
     if (toprocesso instanceof UIMessage) {
       UIMessage toprocess = (UIMessage) toprocesso;
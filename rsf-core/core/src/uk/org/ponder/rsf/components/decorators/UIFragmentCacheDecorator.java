@@ -0,0 +1,41 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.components.decorators;
+
+/**
+ * Marks a UIBranchContainer whose rendered markup may be shared between
+ * requests. When a rendering of the branch is held in the
+ * {@link uk.org.ponder.rsf.renderer.FragmentCache} under the same key, the
+ * renderer emits it in place of rendering the branch's subtree.
+ * <p>
+ * The key must capture everything on which the markup of the branch depends,
+ * other than its position in the tree (its full ID) and the content type of
+ * the request, which are added by the renderer. Branches holding forms,
+ * commands or input components are always rendered live, since their markup
+ * carries state specific to the request.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class UIFragmentCacheDecorator implements UIDecorator {
+  /** The application-assigned key for the rendered markup of the branch **/
+  public String key;
+  /**
+   * The lifetime of a cached rendering, in seconds. A value of 0 specifies
+   * that the rendering is held until invalidated or evicted.
+   */
+  public int TTL;
+
+  public UIFragmentCacheDecorator() {
+  }
+
+  public UIFragmentCacheDecorator(String key) {
+    this.key = key;
+  }
+
+  public UIFragmentCacheDecorator(String key, int TTL) {
+    this.key = key;
+    this.TTL = TTL;
+  }
+}
@@ -6,6 +6,7 @@ package uk.org.ponder.rsf.expander;
 import java.util.Enumeration;
 
 import uk.org.ponder.beanutil.BeanLocator;
+import uk.org.ponder.beanutil.BeanModelAlterer;
 import uk.org.ponder.iterationutil.EnumerationConverter;
 import uk.org.ponder.mapping.support.DARApplier;
 import uk.org.ponder.reflect.DeepBeanCloner;
@@ -39,11 +40,21 @@ import uk.org.ponder.util.UniversalRuntimeException;
 
 public class TemplateExpander {
   private DARApplier darapplier;
+  private BeanModelAlterer reader;
   private BeanLocator rbl;
   private DeepBeanCloner deepcloner;
 
   public void setDARApplier(DARApplier darapplier) {
     this.darapplier = darapplier;
+    if (reader == null) {
+      reader = darapplier;
+    }
+  }
+
+  // This may also be a proxied request-scope dependency, through which all
+  // model reads are made. Defaults to the DARApplier.
+  public void setBeanModelAlterer(BeanModelAlterer reader) {
+    this.reader = reader;
   }
 
   // This is a proxied request-scope dependency!!
@@ -123,12 +134,12 @@ public class TemplateExpander {
   private UIComponent resolveSwitch(UISwitch switchh, RemapState state) {
     Object lvalue = switchh.lvalue;
     if (lvalue instanceof ELReference) {
-      lvalue = darapplier.getBeanValue(((ELReference) lvalue).value,
+      lvalue = reader.getBeanValue(((ELReference) lvalue).value,
           rbl, null);
     }
     Object rvalue = switchh.rvalue;
     if (rvalue instanceof ELReference) {
-      rvalue = darapplier.getBeanValue(((ELReference) rvalue).value,
+      rvalue = reader.getBeanValue(((ELReference) rvalue).value,
           rbl, null);
     }
     UIComponent toadd = lvalue.equals(rvalue) ? switchh.truecomponent
@@ -247,7 +258,7 @@ public class TemplateExpander {
     // TODO: work out how to remap recursively - currently old remapstate is
     // thrown away.
     String listbinding = replicator.valuebinding.value;
-    Object collection = darapplier.getBeanValue(listbinding, rbl, null);
+    Object collection = reader.getBeanValue(listbinding, rbl, null);
     int index = 0;
     // for each member of the object "list", instantiate a BranchContainer with
     // corresponding localID, and then recurse further.
@@ -5,6 +5,7 @@ package uk.org.ponder.rsf.flow.lite;
 
 import uk.org.ponder.beanutil.BeanLocator;
 import uk.org.ponder.hashutil.EighteenIDGenerator;
+import uk.org.ponder.hashutil.IDGenerator;
 import uk.org.ponder.reflect.ReflectiveCache;
 import uk.org.ponder.rsf.flow.ARIResult;
 import uk.org.ponder.rsf.flow.FlowIDHolder;
@@ -33,8 +34,9 @@ import uk.org.ponder.util.Logger;
  * 
  */
 public class FlowActionProxyBean implements ActionTarget {
-  // less hassle to keep this here than manage as a dependency....
-  private static EighteenIDGenerator idgenerator = new EighteenIDGenerator();
+  // used only where no IDGenerator is injected
+  private static IDGenerator defaultidgenerator = new EighteenIDGenerator();
+  private IDGenerator idgenerator = defaultidgenerator;
   private Flow flow;
 
   private ReflectiveCache reflectivecache;
@@ -76,6 +78,10 @@ public class FlowActionProxyBean implements ActionTarget {
     this.errorhandler = errorhandler;
   }
 
+  public void setIDGenerator(IDGenerator idgenerator) {
+    this.idgenerator = idgenerator;
+  }
+
   
   /**
    * Called in response to invocation of a command link. The "method" name
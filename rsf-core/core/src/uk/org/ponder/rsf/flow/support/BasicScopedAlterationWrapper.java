@@ -5,8 +5,12 @@ package uk.org.ponder.rsf.flow.support;
 
 import java.util.Collections;
 
+import uk.org.ponder.errorutil.CoreMessages;
+import uk.org.ponder.messageutil.TargettedMessage;
+import uk.org.ponder.messageutil.TargettedMessageException;
 import uk.org.ponder.rsf.flow.FlowIDHolder;
 import uk.org.ponder.rsf.state.LockGetter;
+import uk.org.ponder.rsf.state.LockManager;
 import uk.org.ponder.stringutil.StringList;
 import uk.org.ponder.util.Logger;
 import uk.org.ponder.util.RunnableInvoker;
@@ -18,10 +22,15 @@ import uk.org.ponder.util.RunnableInvoker;
  * successfully restored a bean from the scope. If another request in in the
  * flow, this wrapper will simply block - in practice this is no real burden
  * since this condition could only be triggered by multiple simultaneous
- * requests from the same user/browser. Could be a liability however if under
- * some (possibly failure) condition, normal request handling might take an
- * unbounded time - in this case you may want to replace this wrapper with an
- * implementation performing wait/notify with a timeout.
+ * requests from the same user/browser. 
+ * <p>
+ * If a {@link LockManager} is configured, locks are acquired through it with a
+ * bounded wait, and all of them are released once the wrapped operation
+ * completes. Should any lock not be acquired in time, a 
+ * {@link TargettedMessageException} is thrown bearing the message code
+ * {@link CoreMessages#LOCK_TIMEOUT_ERROR}, which will be reported to the user
+ * through the standard error machinery. Otherwise, the older
+ * {@link LockGetter} contract is used, which will block without limit.
  * <p>
  * If operating in a clustered environment where handling of different requests
  * belonging to the same flow cannot be guaranteed to be passed to the same JVM,
@@ -33,6 +42,7 @@ import uk.org.ponder.util.RunnableInvoker;
 
 public class BasicScopedAlterationWrapper implements RunnableInvoker {
   private LockGetter lockgetter;
+  private LockManager lockmanager;
   private FlowIDHolder flowidholder;
   private StringList scopelocks;
 
@@ -40,6 +50,10 @@ public class BasicScopedAlterationWrapper implements RunnableInvoker {
     this.lockgetter = flowlockgetter;
   }
 
+  public void setLockManager(LockManager lockmanager) {
+    this.lockmanager = lockmanager;
+  }
+
   public void setFlowIDHolder(FlowIDHolder flowidholder) {
     this.flowidholder = flowidholder;
   }
@@ -60,6 +74,10 @@ public class BasicScopedAlterationWrapper implements RunnableInvoker {
       return;
     }
     Collections.sort(completelocks); // Avoid potential Dedlocks!
+    if (lockmanager != null) {
+      invokeManaged(completelocks, towrap);
+      return;
+    }
     try {
       lockUUPP(completelocks, towrap, 0);
     }
@@ -68,6 +86,25 @@ public class BasicScopedAlterationWrapper implements RunnableInvoker {
     }
   }
 
+  private void invokeManaged(StringList completelocks, Runnable towrap) {
+    int acquired = 0;
+    try {
+      for (; acquired < completelocks.size(); ++acquired) {
+        String lockname = completelocks.stringAt(acquired);
+        if (!lockmanager.acquireLock(lockname)) {
+          throw new TargettedMessageException(new TargettedMessage(
+              CoreMessages.LOCK_TIMEOUT_ERROR, new Object[] {lockname}));
+        }
+      }
+      towrap.run();
+    }
+    finally {
+      while (--acquired >= 0) {
+        lockmanager.releaseLock(completelocks.stringAt(acquired));
+      }
+    }
+  }
+
   private void lockUUPP(StringList completelocks, Runnable towrap, int i) {
     if (i >= completelocks.size()) {
       towrap.run();
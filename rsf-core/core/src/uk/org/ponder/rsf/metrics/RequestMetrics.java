@@ -0,0 +1,82 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.metrics;
+
+/**
+ * Receives timings and counts for the phases of the RSF request cycle, keyed
+ * by view ID. Instrumented code brackets each phase as
+ * 
+ * <pre>
+ * long start = metrics.start();
+ * ... phase ...
+ * metrics.stop(viewID, RequestMetrics.RENDER, start);
+ * </pre>
+ * 
+ * An implementation which is not collecting should return 0 from
+ * {@link #start()} and ignore stops with that value, so that disabled
+ * instrumentation costs no more than two interface calls and allocates
+ * nothing. The default is the no-op
+ * {@link uk.org.ponder.rsf.metrics.support.NullRequestMetrics}.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public interface RequestMetrics {
+  /** The complete request, as operated by RootHandlerBeanBase **/
+  public static final String HANDLE = "handle";
+  /** The complete render cycle, as operated by RSFRenderHandler **/
+  public static final String RENDER_HANDLER = "renderHandler";
+  /** The invocation of producers by ViewGenerator **/
+  public static final String GENERATE_VIEW = "generateView";
+  /** Component fixups by ViewProcessor **/
+  public static final String FIXUP = "fixup";
+  /** Resolution of branch containers to template lumps by BranchResolver **/
+  public static final String RESOLVE_BRANCHES = "resolveBranches";
+  /** The complete rendering of markup by ViewRender, including branch resolution **/
+  public static final String RENDER = "render";
+  /** The complete action cycle, as operated by RSFActionHandler **/
+  public static final String ACTION_HANDLER = "actionHandler";
+  /** The application of submitted values to the model by RSVCApplier **/
+  public static final String APPLY_VALUES = "applyValues";
+
+  /** Counter of render cycles concluded by the fatal error handler **/
+  public static final String FATAL_ERRORS = "fatalErrors";
+  /** Counter of action cycles concluding with error messages **/
+  public static final String ACTION_ERRORS = "actionErrors";
+  /** Counter of branches rendered from the FragmentCache by ViewRender **/
+  public static final String FRAGMENT_HITS = "fragmentHits";
+  /** Counter of cacheable branches which ViewRender rendered afresh **/
+  public static final String FRAGMENT_MISSES = "fragmentMisses";
+
+  /** The view ID recorded against when none can be determined **/
+  public static final String UNKNOWN_VIEW = "";
+
+  /**
+   * Returns <code>true</code> if this implementation is collecting. Callers
+   * may use this to avoid any work in preparing arguments.
+   */
+  public boolean isEnabled();
+
+  /**
+   * Begins timing a phase.
+   * 
+   * @return An opaque start time to be supplied to {@link #stop}, or 0 if
+   *         this implementation is not collecting.
+   */
+  public long start();
+
+  /**
+   * Concludes timing a phase begun by {@link #start()}.
+   * 
+   * @param viewID The ID of the view for which the phase was executed.
+   * @param phase The name of the phase, usually one of the constants of this
+   *          interface.
+   * @param start The value returned from the corresponding call to
+   *          {@link #start()}.
+   */
+  public void stop(String viewID, String phase, long start);
+
+  /** Adds the supplied quantity to a named counter for the specified view **/
+  public void count(String viewID, String counter, long delta);
+}
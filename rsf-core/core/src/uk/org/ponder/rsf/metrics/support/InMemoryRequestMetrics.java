@@ -0,0 +1,235 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.metrics.support;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import uk.org.ponder.rsf.metrics.RequestMetrics;
+import uk.org.ponder.stringutil.CharWrap;
+import uk.org.ponder.util.Logger;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * A {@link RequestMetrics} implementation which accumulates timings in memory,
+ * as a {@link TimingHistogram} per view and phase, and exposes them through
+ * JMX. Once {@link #setMaxViews(int)} distinct view IDs have been seen, any
+ * further views are accumulated together under {@link #OTHER_VIEWS}, so that
+ * a client cycling through unknown view IDs cannot exhaust memory.
+ * <p>
+ * To use, override the <code>requestMetrics</code> bean in application scope
+ * with a definition of this class, specifying <code>init-method="init"</code>
+ * and <code>destroy-method="destroy"</code> to register with the platform
+ * MBeanServer.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class InMemoryRequestMetrics implements RequestMetrics,
+    InMemoryRequestMetricsMBean {
+  public static final String DEFAULT_OBJECT_NAME = "uk.org.ponder.rsf:type=RequestMetrics";
+  /** The view ID under which views beyond the configured maximum are accumulated **/
+  public static final String OTHER_VIEWS = "(other)";
+
+  private static class ViewMetrics {
+    ConcurrentHashMap phases = new ConcurrentHashMap();
+    ConcurrentHashMap counters = new ConcurrentHashMap();
+
+    TimingHistogram getHistogram(String phase) {
+      TimingHistogram togo = (TimingHistogram) phases.get(phase);
+      if (togo == null) {
+        TimingHistogram newhist = new TimingHistogram();
+        togo = (TimingHistogram) phases.putIfAbsent(phase, newhist);
+        if (togo == null) {
+          togo = newhist;
+        }
+      }
+      return togo;
+    }
+
+    AtomicLong getCounter(String counter) {
+      AtomicLong togo = (AtomicLong) counters.get(counter);
+      if (togo == null) {
+        AtomicLong newcounter = new AtomicLong();
+        togo = (AtomicLong) counters.putIfAbsent(counter, newcounter);
+        if (togo == null) {
+          togo = newcounter;
+        }
+      }
+      return togo;
+    }
+  }
+
+  private ConcurrentHashMap views = new ConcurrentHashMap();
+  private int maxViews = 1000;
+  private boolean enabled = true;
+  private String objectName = DEFAULT_OBJECT_NAME;
+  private ObjectName registered;
+
+  /** The maximum number of distinct view IDs to be tracked separately **/
+  public void setMaxViews(int maxViews) {
+    this.maxViews = maxViews;
+  }
+
+  /** Allows collection to be disabled without rewiring the context **/
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * The JMX name under which to register, or <code>null</code> to skip
+   * registration. Defaults to {@link #DEFAULT_OBJECT_NAME}.
+   */
+  public void setObjectName(String objectName) {
+    this.objectName = objectName;
+  }
+
+  public void init() {
+    if (objectName == null) return;
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(objectName);
+      if (server.isRegistered(name)) {
+        Logger.log.warn("Request metrics not registered with JMX since name "
+            + objectName + " is already in use");
+      }
+      else {
+        server.registerMBean(this, name);
+        registered = name;
+      }
+    }
+    catch (Exception e) {
+      throw UniversalRuntimeException.accumulate(e,
+          "Error registering request metrics with JMX as " + objectName);
+    }
+  }
+
+  public void destroy() {
+    if (registered == null) return;
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+    }
+    catch (Exception e) {
+      Logger.log.warn("Error unregistering request metrics " + registered, e);
+    }
+    registered = null;
+  }
+
+  private ViewMetrics getViewMetrics(String viewID, boolean create) {
+    if (viewID == null) {
+      viewID = UNKNOWN_VIEW;
+    }
+    ViewMetrics togo = (ViewMetrics) views.get(viewID);
+    if (togo == null && create) {
+      if (views.size() >= maxViews) {
+        viewID = OTHER_VIEWS;
+        togo = (ViewMetrics) views.get(viewID);
+        if (togo != null) return togo;
+      }
+      ViewMetrics newmetrics = new ViewMetrics();
+      togo = (ViewMetrics) views.putIfAbsent(viewID, newmetrics);
+      if (togo == null) {
+        togo = newmetrics;
+      }
+    }
+    return togo;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public long start() {
+    if (!enabled) return 0;
+    long togo = System.nanoTime();
+    // reserve 0 for "not collecting" - nanoTime may legitimately return it
+    return togo == 0 ? 1 : togo;
+  }
+
+  public void stop(String viewID, String phase, long start) {
+    if (start == 0) return;
+    long elapsed = System.nanoTime() - start;
+    getViewMetrics(viewID, true).getHistogram(phase).record(elapsed);
+  }
+
+  public void count(String viewID, String counter, long delta) {
+    if (!enabled) return;
+    getViewMetrics(viewID, true).getCounter(counter).addAndGet(delta);
+  }
+
+  /**
+   * Returns the histogram of nanosecond timings recorded for the given view
+   * and phase, or <code>null</code> if none have been recorded.
+   */
+  public TimingHistogram getHistogram(String viewID, String phase) {
+    ViewMetrics metrics = getViewMetrics(viewID, false);
+    return metrics == null ? null
+        : (TimingHistogram) metrics.phases.get(phase);
+  }
+
+  public String[] getViewIDs() {
+    String[] togo = (String[]) views.keySet().toArray(new String[0]);
+    Arrays.sort(togo);
+    return togo;
+  }
+
+  public long getCount(String viewID, String phase) {
+    TimingHistogram hist = getHistogram(viewID, phase);
+    return hist == null ? 0 : hist.getCount();
+  }
+
+  public double getMeanMicros(String viewID, String phase) {
+    TimingHistogram hist = getHistogram(viewID, phase);
+    return hist == null ? 0 : hist.getMean() / 1000;
+  }
+
+  public long getPercentileMicros(String viewID, String phase,
+      double percentile) {
+    TimingHistogram hist = getHistogram(viewID, phase);
+    return hist == null ? 0 : hist.getValueAtPercentile(percentile) / 1000;
+  }
+
+  public long getCounter(String viewID, String counter) {
+    ViewMetrics metrics = getViewMetrics(viewID, false);
+    AtomicLong value = metrics == null ? null
+        : (AtomicLong) metrics.counters.get(counter);
+    return value == null ? 0 : value.get();
+  }
+
+  public String getReport() {
+    CharWrap togo = new CharWrap();
+    String[] viewIDs = getViewIDs();
+    for (int i = 0; i < viewIDs.length; ++i) {
+      ViewMetrics metrics = (ViewMetrics) views.get(viewIDs[i]);
+      for (Iterator pit = metrics.phases.entrySet().iterator(); pit.hasNext();) {
+        Map.Entry entry = (Map.Entry) pit.next();
+        TimingHistogram hist = (TimingHistogram) entry.getValue();
+        togo.append(viewIDs[i]).append(" ").append((String) entry.getKey())
+            .append(": count=").append(hist.getCount())
+            .append(" meanus=").append((long) (hist.getMean() / 1000))
+            .append(" p50us=").append(hist.getValueAtPercentile(50) / 1000)
+            .append(" p99us=").append(hist.getValueAtPercentile(99) / 1000)
+            .append(" maxus=").append(hist.getMax() / 1000).append("\n");
+      }
+      for (Iterator cit = metrics.counters.entrySet().iterator(); cit.hasNext();) {
+        Map.Entry entry = (Map.Entry) cit.next();
+        togo.append(viewIDs[i]).append(" ").append((String) entry.getKey())
+            .append("=").append(((AtomicLong) entry.getValue()).get())
+            .append("\n");
+      }
+    }
+    return togo.toString();
+  }
+
+  public void reset() {
+    views.clear();
+  }
+}
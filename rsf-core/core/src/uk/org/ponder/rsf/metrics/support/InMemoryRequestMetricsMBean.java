@@ -0,0 +1,31 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.metrics.support;
+
+/**
+ * The JMX management interface exposed by {@link InMemoryRequestMetrics}.
+ * All times are reported in microseconds.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public interface InMemoryRequestMetricsMBean {
+  /** The IDs of all views for which timings have been recorded **/
+  public String[] getViewIDs();
+
+  /** A human-readable summary of all timings and counters, one line per view and phase **/
+  public String getReport();
+
+  /** The number of times the specified phase has been timed for a view **/
+  public long getCount(String viewID, String phase);
+
+  public double getMeanMicros(String viewID, String phase);
+
+  public long getPercentileMicros(String viewID, String phase, double percentile);
+
+  public long getCounter(String viewID, String counter);
+
+  /** Discards all recorded timings and counters **/
+  public void reset();
+}
@@ -0,0 +1,30 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.metrics.support;
+
+import uk.org.ponder.rsf.metrics.RequestMetrics;
+
+/**
+ * The default, no-op implementation of {@link RequestMetrics}, which collects
+ * nothing.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class NullRequestMetrics implements RequestMetrics {
+
+  public boolean isEnabled() {
+    return false;
+  }
+
+  public long start() {
+    return 0;
+  }
+
+  public void stop(String viewID, String phase, long start) {
+  }
+
+  public void count(String viewID, String counter, long delta) {
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.metrics.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative durations, in the style of an
+ * HdrHistogram. Values are held in power-of-two ranges each divided into
+ * {@link #SUB_BUCKETS} linear buckets, so that any recorded value is
+ * reproduced by {@link #getValueAtPercentile(double)} to within about 3%,
+ * over the whole range of a long, in a fixed 15K of storage. Recording 
+ * allocates nothing.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class TimingHistogram {
+  public static final int SUB_BUCKET_BITS = 5;
+  public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // ranges of values >= SUB_BUCKETS, plus the initial linear range below it
+  private static final int RANGES = 64 - SUB_BUCKET_BITS + 1;
+
+  private AtomicLongArray buckets = new AtomicLongArray(RANGES * SUB_BUCKETS);
+  private AtomicLong count = new AtomicLong();
+  private AtomicLong total = new AtomicLong();
+  private AtomicLong max = new AtomicLong();
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+  }
+
+  /** Returns the highest value which would be recorded in the given bucket **/
+  static long bucketHighValue(int index) {
+    int range = index / SUB_BUCKETS;
+    int sub = index % SUB_BUCKETS;
+    if (range == 0) {
+      return sub;
+    }
+    int shift = range - 1;
+    return ((((long) SUB_BUCKETS + sub) + 1) << shift) - 1;
+  }
+
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    buckets.incrementAndGet(bucketIndex(value));
+    count.incrementAndGet();
+    total.addAndGet(value);
+    long oldmax = max.get();
+    while (value > oldmax && !max.compareAndSet(oldmax, value)) {
+      oldmax = max.get();
+    }
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getTotal() {
+    return total.get();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public double getMean() {
+    long thiscount = count.get();
+    return thiscount == 0 ? 0 : (double) total.get() / thiscount;
+  }
+
+  /**
+   * Returns a value which at least the specified percentage of recorded
+   * values do not exceed.
+   * 
+   * @param percentile A percentile between 0 and 100.
+   */
+  public long getValueAtPercentile(double percentile) {
+    long thiscount = count.get();
+    if (thiscount == 0) {
+      return 0;
+    }
+    long target = (long) Math.ceil(thiscount * percentile / 100.0);
+    if (target < 1) {
+      target = 1;
+    }
+    long seen = 0;
+    for (int i = 0; i < buckets.length(); ++i) {
+      seen += buckets.get(i);
+      if (seen >= target) {
+        return Math.min(bucketHighValue(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  public void reset() {
+    for (int i = 0; i < buckets.length(); ++i) {
+      buckets.set(i, 0);
+    }
+    count.set(0);
+    total.set(0);
+    max.set(0);
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.pagecache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An application scope cache of complete rendered pages, bounded by the total
+ * size of the pages held, and discarding the least recently used once that is
+ * exceeded.
+ * <p>
+ * To avoid a "stampede" of identical requests regenerating the same page as
+ * it expires, a request which misses may {@link #lead(Object)} its key. Further
+ * requests for that key then wait in {@link #get(Object)} for up to
+ * <code>lockTimeout</code> milliseconds for the leader to {@link #release}
+ * it, rather than all regenerating the page at once.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class PageCache {
+  /** A single stored page **/
+  public static class Entry {
+    /** The value of the Content-Type header of the response **/
+    public String contentType;
+    public byte[] body;
+    long expiry;
+
+    public Entry(String contentType, byte[] body) {
+      this.contentType = contentType;
+      this.body = body;
+    }
+  }
+
+  private long maxBytes = 16 * 1024 * 1024;
+  private int maxEntryBytes = 1024 * 1024;
+  private long lockTimeout = 5000;
+
+  private LinkedHashMap entries = new LinkedHashMap(16, 0.75f, true);
+  private long bytes;
+  // map of key to CountDownLatch for keys being regenerated
+  private Map inflight = new HashMap();
+
+  private AtomicLong hits = new AtomicLong();
+  private AtomicLong misses = new AtomicLong();
+
+  /** The maximum total size in bytes of the pages held. Defaults to 16Mb **/
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /** The size in bytes of the largest page which will be stored. Defaults
+   * to 1Mb.
+   */
+  public void setMaxEntryBytes(int maxEntryBytes) {
+    this.maxEntryBytes = maxEntryBytes;
+  }
+
+  /** The maximum time in milliseconds for which a request will wait for
+   * another to regenerate the page it requires. Defaults to 5000.
+   */
+  public void setLockTimeout(long lockTimeout) {
+    this.lockTimeout = lockTimeout;
+  }
+
+  private synchronized Entry lookup(Object key) {
+    Entry togo = (Entry) entries.get(key);
+    if (togo != null && togo.expiry < System.currentTimeMillis()) {
+      removeEntry(key);
+      togo = null;
+    }
+    return togo;
+  }
+
+  private void removeEntry(Object key) {
+    Entry removed = (Entry) entries.remove(key);
+    if (removed != null) {
+      bytes -= removed.body.length;
+    }
+  }
+
+  /**
+   * Returns the current page for the supplied key, or <code>null</code>.
+   * Should the page be in the course of regeneration by another request,
+   * waits for it to be stored.
+   */
+  public Entry get(Object key) {
+    Entry togo = lookup(key);
+    if (togo == null) {
+      CountDownLatch latch;
+      synchronized (this) {
+        latch = (CountDownLatch) inflight.get(key);
+      }
+      if (latch != null) {
+        try {
+          latch.await(lockTimeout, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        togo = lookup(key);
+      }
+    }
+    (togo == null ? misses : hits).incrementAndGet();
+    return togo;
+  }
+
+  /**
+   * Registers the current request as regenerating the page for the supplied
+   * key.
+   *
+   * @return <code>true</code> if no other request was regenerating it, in
+   *         which case the caller must eventually call {@link #release(Object)}.
+   */
+  public synchronized boolean lead(Object key) {
+    if (inflight.containsKey(key)) {
+      return false;
+    }
+    inflight.put(key, new CountDownLatch(1));
+    return true;
+  }
+
+  /** Releases any requests waiting for the page for the supplied key **/
+  public void release(Object key) {
+    CountDownLatch latch;
+    synchronized (this) {
+      latch = (CountDownLatch) inflight.remove(key);
+    }
+    if (latch != null) {
+      latch.countDown();
+    }
+  }
+
+  /**
+   * Stores a page, unless it exceeds <code>maxEntryBytes</code>.
+   *
+   * @param TTL The lifetime of the page in seconds.
+   */
+  public void put(Object key, Entry entry, int TTL) {
+    if (TTL <= 0 || entry.body.length > maxEntryBytes) {
+      return;
+    }
+    entry.expiry = System.currentTimeMillis() + TTL * 1000L;
+    synchronized (this) {
+      removeEntry(key);
+      entries.put(key, entry);
+      bytes += entry.body.length;
+      for (Iterator entryit = entries.entrySet().iterator(); bytes > maxBytes
+          && entryit.hasNext();) {
+        Entry eldest = (Entry) ((Map.Entry) entryit.next()).getValue();
+        bytes -= eldest.body.length;
+        entryit.remove();
+      }
+    }
+  }
+
+  /** Discards all stored pages **/
+  public synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  public synchronized int getSize() {
+    return entries.size();
+  }
+
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+}
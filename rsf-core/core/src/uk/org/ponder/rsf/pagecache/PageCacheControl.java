@@ -0,0 +1,38 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.pagecache;
+
+/**
+ * A request-scope record of whether the response to the current request may
+ * be stored in the {@link PageCache}. The TTL is declared during view
+ * generation by any {@link uk.org.ponder.rsf.view.CacheableViewProducer}, and
+ * cleared if the request concludes with a redirect or error.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class PageCacheControl {
+  /** The TTL of a request for a view with no CacheableViewProducer **/
+  public static final int UNDECLARED = -1;
+
+  private int TTL = UNDECLARED;
+
+  /**
+   * The lifetime in seconds of the rendered page, 0 if it is not to be
+   * cached, or {@link #UNDECLARED} if no producer has declared its
+   * cacheability.
+   */
+  public int getTTL() {
+    return TTL;
+  }
+
+  public void setTTL(int TTL) {
+    this.TTL = TTL;
+  }
+
+  /** Prevents the current response from being cached **/
+  public void setUncacheable() {
+    TTL = 0;
+  }
+}
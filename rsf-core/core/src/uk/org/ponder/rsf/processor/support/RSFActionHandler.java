@@ -14,6 +14,7 @@ import uk.org.ponder.rsf.flow.ActionResultInterceptor;
 import uk.org.ponder.rsf.flow.ActionResultInterpreter;
 import uk.org.ponder.rsf.flow.errors.ActionErrorStrategy;
 import uk.org.ponder.rsf.flow.support.FlowStateManager;
+import uk.org.ponder.rsf.metrics.RequestMetrics;
 import uk.org.ponder.rsf.preservation.StatePreservationManager;
 import uk.org.ponder.rsf.processor.ActionHandler;
 import uk.org.ponder.rsf.processor.ErrorHandler;
@@ -39,6 +40,7 @@ public class RSFActionHandler implements ActionHandler, ErrorHandler {
   private ARIResolver ariresolver;
   private RunnableInvoker postwrapper;
   private RequestSubmittedValueCache requestrsvc;
+  private RequestMetrics requestMetrics;
 
   // request-scope dependencies
   private Map normalizedmap;
@@ -96,6 +98,10 @@ public class RSFActionHandler implements ActionHandler, ErrorHandler {
     this.actionerrorstrategy = actionerrorstrategy;
   }
 
+  public void setRequestMetrics(RequestMetrics requestMetrics) {
+    this.requestMetrics = requestMetrics;
+  }
+
   public void setTargettedMessageList(TargettedMessageList messages) {
     this.messages = messages;
   }
@@ -155,8 +161,18 @@ public class RSFActionHandler implements ActionHandler, ErrorHandler {
     return newcode;
   }
 
-  public AnyViewParameters handle() {
+  private boolean containsMessage(TargettedMessage message) {
+    for (int i = 0; i < messages.size(); ++i) {
+      if (messages.messageAt(i) == message) {
+        return true;
+      }
+    }
+    return false;
+  }
 
+  public AnyViewParameters handle() {
+    final String viewID = viewparams.viewID;
+    long handlestart = requestMetrics.start();
     try {
       final String actionmethod = PostDecoder.decodeAction(normalizedmap);
       // Do this FIRST in case it discovers any scopelocks required
@@ -170,12 +186,14 @@ public class RSFActionHandler implements ActionHandler, ErrorHandler {
                 viewparams.endflow != null);
           }
           Exception exception = null;
+          long applystart = requestMetrics.start();
           try {
             rsvcapplier.applyValues(requestrsvc); // many errors possible here.
           }
           catch (Exception e) {
             exception = e;
           }
+          requestMetrics.stop(viewID, RequestMetrics.APPLY_VALUES, applystart);
           Object newcode = handleError(actionresult, exception);
           exception = null;
           if ((newcode == null && !messages.isError())
@@ -228,8 +246,14 @@ public class RSFActionHandler implements ActionHandler, ErrorHandler {
       if (!(e instanceof CancellationException)) {
         Throwable e2 = UniversalRuntimeException.unwrapException(e);
         if (e2 instanceof TargettedMessageException) {
-          Logger.log.info("Targetted error invoking action: " 
-              + ((TargettedMessageException)e2).getTargettedMessage().message);
+          TargettedMessage message = ((TargettedMessageException) e2)
+              .getTargettedMessage();
+          Logger.log.info("Targetted error invoking action: " + message.message);
+          // A message escaping the action itself, for example a failure to 
+          // acquire a flow lock, has not yet been seen by the error strategy
+          if (!containsMessage(message)) {
+            messages.addMessage(message);
+          }
         }
         else {
           Logger.log.warn("Error invoking action", e);
@@ -260,6 +284,10 @@ public class RSFActionHandler implements ActionHandler, ErrorHandler {
         }
       }
       errorstatemanager.requestComplete();
+      if (messages.isError()) {
+        requestMetrics.count(viewID, RequestMetrics.ACTION_ERRORS, 1);
+      }
+      requestMetrics.stop(viewID, RequestMetrics.ACTION_HANDLER, handlestart);
 
       if (ariresult.resultingView instanceof ViewParameters) {
         ((ViewParameters) ariresult.resultingView).errortoken = errortoken;
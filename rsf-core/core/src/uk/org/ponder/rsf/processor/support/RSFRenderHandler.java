@@ -5,7 +5,9 @@ package uk.org.ponder.rsf.processor.support;
 
 import uk.org.ponder.messageutil.TargettedMessageList;
 import uk.org.ponder.rsf.componentprocessor.ViewProcessor;
+import uk.org.ponder.rsf.metrics.RequestMetrics;
 import uk.org.ponder.rsf.processor.RenderHandler;
+import uk.org.ponder.rsf.renderer.RenderFlushPolicy;
 import uk.org.ponder.rsf.renderer.ViewRender;
 import uk.org.ponder.rsf.state.support.ErrorStateManager;
 import uk.org.ponder.rsf.view.View;
@@ -33,6 +35,8 @@ public class RSFRenderHandler implements RenderHandler {
   private ViewRender viewrender;
   private TargettedMessageList targettedMessageList;
   private boolean enableDebugRendering;
+  private RequestMetrics requestMetrics;
+  private RenderFlushPolicy flushPolicy;
 
   public void setTargettedMessageList(TargettedMessageList targettedMessageList) {
     this.targettedMessageList = targettedMessageList;
@@ -66,27 +70,48 @@ public class RSFRenderHandler implements RenderHandler {
     this.viewrender = viewrender;
   }
 
+  public void setRequestMetrics(RequestMetrics requestMetrics) {
+    this.requestMetrics = requestMetrics;
+  }
+
+  public void setRenderFlushPolicy(RenderFlushPolicy flushPolicy) {
+    this.flushPolicy = flushPolicy;
+  }
+
   // Since this is a request-scope bean, there is no problem letting the
   // returned view from the getwrapper escape into this member.
   private View view;
 
 
   public void handle(PrintOutputStream pos) {
+    final String viewID = viewparams.viewID;
+    long handlestart = requestMetrics.start();
+    boolean debugrender = enableDebugRendering && viewparams.debugrender != null;
+    viewrender.setDebugRender(debugrender);
+    // debug rendering emits diagnostics ahead of the markup, so cannot flush early
+    if (flushPolicy != null && flushPolicy.isEarlyFlush() && !debugrender) {
+      viewrender.renderPrefix(pos);
+    }
     requestInvoker.invokeRunnable(new Runnable() {
       public void run() {
         // this must now be AFTER restoration since the templateexpander may
         // access the model. Shucks!!
+        long generatestart = requestMetrics.start();
         view = viewgenerator.generateView();
+        requestMetrics.stop(viewID, RequestMetrics.GENERATE_VIEW, generatestart);
+        long fixupstart = requestMetrics.start();
         viewprocessor.setView(view);
         view = viewprocessor.getProcessedView();
+        requestMetrics.stop(viewID, RequestMetrics.FIXUP, fixupstart);
       }
     });
     viewrender.setMessages(targettedMessageList);
     // TODO: globaltargetid detection has not been investigated for a while
     viewrender.setGlobalMessageTarget(errorstatemanager.errorstate.globaltargetid);
     viewrender.setView(view);
-    viewrender.setDebugRender(enableDebugRendering && viewparams.debugrender != null);
+    viewrender.setViewID(viewID);
     viewrender.render(pos);
+    requestMetrics.stop(viewID, RequestMetrics.RENDER_HANDLER, handlestart);
   }
 
 }
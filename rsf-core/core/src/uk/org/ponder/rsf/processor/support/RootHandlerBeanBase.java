@@ -5,6 +5,8 @@ package uk.org.ponder.rsf.processor.support;
 
 import uk.org.ponder.rsf.components.ParameterList;
 import uk.org.ponder.rsf.content.ContentTypeInfo;
+import uk.org.ponder.rsf.metrics.RequestMetrics;
+import uk.org.ponder.rsf.pagecache.PageCacheControl;
 import uk.org.ponder.rsf.processor.ActionHandler;
 import uk.org.ponder.rsf.processor.FatalErrorHandler;
 import uk.org.ponder.rsf.processor.ForcibleException;
@@ -13,8 +15,10 @@ import uk.org.ponder.rsf.request.EarlyRequestParser;
 import uk.org.ponder.rsf.request.LazarusRedirector;
 import uk.org.ponder.rsf.viewstate.AnyViewParameters;
 import uk.org.ponder.rsf.viewstate.NoViewParameters;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
 import uk.org.ponder.rsf.viewstate.ViewStateHandler;
 import uk.org.ponder.streamutil.write.PrintOutputStream;
+import uk.org.ponder.util.ObjectFactory;
 import uk.org.ponder.util.UniversalRuntimeException;
 
 /** Abstracts the common functionality of RootHandlerBeans across the different
@@ -34,6 +38,9 @@ public abstract class RootHandlerBeanBase {
   protected LazarusRedirector lazarusRedirector;
   protected ParameterList outgoingparams;
   protected ViewStateHandler viewstatehandler;
+  private RequestMetrics requestMetrics;
+  private ObjectFactory viewParametersFactory;
+  private PageCacheControl pageCacheControl;
 
   public void setRenderHandlerBracketer(
       RenderHandlerBracketer renderhandlerbracketer) {
@@ -72,27 +79,65 @@ public abstract class RootHandlerBeanBase {
     this.viewstatehandler = viewstatehandler;
   }
   
+  public void setRequestMetrics(RequestMetrics requestMetrics) {
+    this.requestMetrics = requestMetrics;
+  }
+  
+  /** A lazy source for the request's ViewParameters, which are only fetched
+   * to key metrics once the request is concluded, and only if metrics are enabled.
+   */
+  public void setViewParametersFactory(ObjectFactory viewParametersFactory) {
+    this.viewParametersFactory = viewParametersFactory;
+  }
+  
+  public void setPageCacheControl(PageCacheControl pageCacheControl) {
+    this.pageCacheControl = pageCacheControl;
+  }
+
   public boolean handle() {
-    AnyViewParameters redirect = handlerhook == null? null : handlerhook.handle();
-    if (redirect == null) {
-      if (requesttype.equals(EarlyRequestParser.RENDER_REQUEST)) {
-        handleGet();
+    long handlestart = requestMetrics.start();
+    try {
+      AnyViewParameters redirect = handlerhook == null? null : handlerhook.handle();
+      if (redirect == null) {
+        if (requesttype.equals(EarlyRequestParser.RENDER_REQUEST)) {
+          handleGet();
+        }
+        else {
+          handlePost();
+        }
       }
-      else {
-        handlePost();
+      else if (!(redirect instanceof NoViewParameters)) {
+        issueRedirect(redirect, setupResponseWriter());
       }
     }
-    else if (!(redirect instanceof NoViewParameters)) {
-      issueRedirect(redirect, setupResponseWriter());
+    finally {
+      if (handlestart != 0) {
+        requestMetrics.stop(getViewID(), RequestMetrics.HANDLE, handlestart);
+      }
     }
     return true;
   }
   
+  // The request may have failed before or during parsing of its ViewParameters -
+  // this must never mask the original error.
+  private String getViewID() {
+    try {
+      Object viewparams = viewParametersFactory == null? null : 
+        viewParametersFactory.getObject();
+      return viewparams instanceof ViewParameters? 
+          ((ViewParameters) viewparams).viewID : RequestMetrics.UNKNOWN_VIEW;
+    }
+    catch (Exception e) {
+      return RequestMetrics.UNKNOWN_VIEW;
+    }
+  }
+  
   private void handleGet() {
     PrintOutputStream pos = setupResponseWriter();
     AnyViewParameters redirect = null;
    
     Throwable rethrow = null;
+    boolean failed = false;
     try {
       redirect = renderhandlerbracketer.handle(pos);
 
@@ -101,6 +146,10 @@ public abstract class RootHandlerBeanBase {
       }
     }
     catch (Throwable t) {
+      failed = true;
+      if (requestMetrics.isEnabled()) {
+        requestMetrics.count(getViewID(), RequestMetrics.FATAL_ERRORS, 1);
+      }
       String strategy = 
         DefaultFatalErrorHandler.handleFatalErrorStrategy(fatalErrorHandler, t,
           pos);
@@ -109,6 +158,9 @@ public abstract class RootHandlerBeanBase {
       }
     }
     finally {
+      if (pageCacheControl != null && (redirect != null || failed)) {
+        pageCacheControl.setUncacheable();
+      }
       if (rethrow != null) {
         UniversalRuntimeException tothrow = UniversalRuntimeException.accumulate(rethrow, "Error handling request");
         tothrow.setCategory(ForcibleException.class);
@@ -0,0 +1,222 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.renderer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.org.ponder.rsf.template.XMLLump;
+
+/**
+ * An application scope, bounded cache of the rendered markup of branch
+ * containers marked with a
+ * {@link uk.org.ponder.rsf.components.decorators.UIFragmentCacheDecorator}.
+ * Entries are spread over a fixed number of stripes by their application key,
+ * each an access-ordered map guarded by its own monitor, which discards its
+ * least recently used entry once it grows beyond its share of the overall
+ * capacity.
+ * <p>
+ * Fragments are also keyed by the URL bases against which they were rendered,
+ * so that markup holding links rendered for one consumer or portal context is
+ * never served to another.
+ * <p>
+ * Applications which alter the data rendered into a fragment should call
+ * {@link #invalidate(String)} with its key, or {@link #invalidatePrefix(String)}
+ * for a family of keys.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class FragmentCache {
+  private static final int STRIPES = 16;
+
+  /** A rendering of a single branch container **/
+  public static class Fragment {
+    /** The template lump from which the branch was rendered **/
+    public XMLLump lump;
+    /** The rendered markup, including the branch's own tag **/
+    public String markup;
+    /** The XML ids allocated by the {@link IDAssigner} during rendering **/
+    public List IDs;
+    long expiry;
+
+    public Fragment(XMLLump lump, String markup, List IDs) {
+      this.lump = lump;
+      this.markup = markup;
+      this.IDs = IDs;
+    }
+  }
+
+  private static class FragmentKey {
+    String key;
+    String fullID;
+    String contenttype;
+    String urlbase;
+    int hash;
+
+    FragmentKey(String key, String fullID, String contenttype, String urlbase) {
+      this.key = key;
+      this.fullID = fullID;
+      this.contenttype = contenttype;
+      this.urlbase = urlbase;
+      hash = ((key.hashCode() * 31 + fullID.hashCode()) * 31
+          + contenttype.hashCode()) * 31 + urlbase.hashCode();
+    }
+
+    public int hashCode() {
+      return hash;
+    }
+
+    public boolean equals(Object other) {
+      if (!(other instanceof FragmentKey)) {
+        return false;
+      }
+      FragmentKey okey = (FragmentKey) other;
+      return key.equals(okey.key) && fullID.equals(okey.fullID)
+          && contenttype.equals(okey.contenttype)
+          && urlbase.equals(okey.urlbase);
+    }
+  }
+
+  private Map[] stripes = new Map[STRIPES];
+  private int capacity;
+
+  private AtomicLong hits = new AtomicLong();
+  private AtomicLong misses = new AtomicLong();
+
+  public FragmentCache() {
+    setCapacity(1000);
+  }
+
+  /**
+   * Sets the maximum number of fragments which will be held, discarding any
+   * currently held. A capacity of 0 disables caching. Defaults to 1000.
+   */
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+    final int stripecapacity = capacity <= 0 ? 0
+        : Math.max(1, capacity / STRIPES);
+    Map[] newstripes = new Map[STRIPES];
+    for (int i = 0; i < STRIPES; ++i) {
+      newstripes[i] = new LinkedHashMap(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+          return size() > stripecapacity;
+        }
+      };
+    }
+    stripes = newstripes;
+  }
+
+  /** Returns <code>false</code> if caching has been disabled **/
+  public boolean isEnabled() {
+    return capacity > 0;
+  }
+
+  // Stripes are selected by application key alone, so that invalidation of
+  // a key need only visit one stripe
+  private Map stripeFor(String key) {
+    int hash = key.hashCode();
+    hash ^= (hash >>> 16);
+    return stripes[hash & (STRIPES - 1)];
+  }
+
+  /**
+   * Returns the fragment rendered for the supplied key, branch, content type
+   * and URL bases from the supplied template lump, or <code>null</code> if
+   * there is none current.
+   *
+   * @param urlbase A string identifying the bases of all URLs which may be
+   *          rendered into the fragment, including those of any consumer.
+   */
+  public Fragment get(String key, String fullID, String contenttype,
+      String urlbase, XMLLump lump) {
+    FragmentKey fkey = new FragmentKey(key, fullID, contenttype, urlbase);
+    Map stripe = stripeFor(key);
+    Fragment togo;
+    synchronized (stripe) {
+      togo = (Fragment) stripe.get(fkey);
+      if (togo != null
+          && (togo.lump != lump || togo.expiry != 0
+              && togo.expiry < System.currentTimeMillis())) {
+        stripe.remove(fkey);
+        togo = null;
+      }
+    }
+    (togo == null ? misses : hits).incrementAndGet();
+    return togo;
+  }
+
+  /**
+   * Stores a fragment for the supplied key, branch, content type and URL
+   * bases.
+   *
+   * @param TTL The lifetime of the fragment in seconds, or 0 if it is to be
+   *          held until invalidated.
+   */
+  public void put(String key, String fullID, String contenttype,
+      String urlbase, Fragment fragment, int TTL) {
+    fragment.expiry = TTL <= 0 ? 0
+        : System.currentTimeMillis() + TTL * 1000L;
+    Map stripe = stripeFor(key);
+    synchronized (stripe) {
+      stripe.put(new FragmentKey(key, fullID, contenttype, urlbase),
+          fragment);
+    }
+  }
+
+  /** Discards all fragments rendered under the supplied key **/
+  public void invalidate(String key) {
+    Map stripe = stripeFor(key);
+    synchronized (stripe) {
+      for (Iterator keyit = stripe.keySet().iterator(); keyit.hasNext();) {
+        if (((FragmentKey) keyit.next()).key.equals(key)) {
+          keyit.remove();
+        }
+      }
+    }
+  }
+
+  /** Discards all fragments rendered under keys with the supplied prefix **/
+  public void invalidatePrefix(String prefix) {
+    for (int i = 0; i < STRIPES; ++i) {
+      synchronized (stripes[i]) {
+        for (Iterator keyit = stripes[i].keySet().iterator(); keyit.hasNext();) {
+          if (((FragmentKey) keyit.next()).key.startsWith(prefix)) {
+            keyit.remove();
+          }
+        }
+      }
+    }
+  }
+
+  /** Discards all fragments **/
+  public void clear() {
+    for (int i = 0; i < STRIPES; ++i) {
+      synchronized (stripes[i]) {
+        stripes[i].clear();
+      }
+    }
+  }
+
+  public int getSize() {
+    int togo = 0;
+    for (int i = 0; i < STRIPES; ++i) {
+      synchronized (stripes[i]) {
+        togo += stripes[i].size();
+      }
+    }
+    return togo;
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+}
@@ -3,7 +3,9 @@
  */
 package uk.org.ponder.rsf.renderer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import uk.org.ponder.rsf.components.UIComponent;
@@ -24,6 +26,20 @@ public class IDAssigner {
   private static final int[] USED_ONCE = new int[] {1};
   private Map assigned = new HashMap();
   private String defaultstrategy;
+  private Recording recording;
+
+  /** The IDs requested during the rendering of a fragment of markup, so that
+   * the rendering may later be replayed in another request.
+   */
+  public static class Recording {
+    public List IDs = new ArrayList();
+    /** <code>true</code> if any requested ID had already been allocated, in
+     * which case the markup depends on what was rendered before it.
+     */
+    public boolean conflict;
+    private Recording outer;
+  }
+
   public IDAssigner(String defaultstrategy) {
     this.defaultstrategy = defaultstrategy;
   }
@@ -52,24 +68,67 @@ public class IDAssigner {
       }
     }
     if (ID != null) {
-      int[] assnum = (int[]) assigned.get(ID); 
-      if (assnum != null) {
-        ID = ID + "!" + Integer.toString(assnum[0]);
-        if (assnum == USED_ONCE) {
-          assnum = new int[] {1};
-          assigned.put(ID, assnum);
-        }
-        ++assnum[0];
-      }
-      else {
-        assigned.put(ID, USED_ONCE);
-      }
-      attrcopy.put("id", ID);
+      attrcopy.put("id", assign(ID));
     }
     if (!IDstrategy.equals(ContentTypeInfo.ID_RSF)) {
       attrcopy.remove(XMLLump.ID_ATTRIBUTE);
     }
   }
-  
-  
+
+  private String assign(String ID) {
+    int[] assnum = (int[]) assigned.get(ID); 
+    if (recording != null) {
+      recording.IDs.add(ID);
+      recording.conflict |= assnum != null;
+    }
+    if (assnum != null) {
+      String togo = ID + "!" + Integer.toString(assnum[0]);
+      if (assnum == USED_ONCE) {
+        assnum = new int[] {1};
+        assigned.put(togo, assnum);
+      }
+      ++assnum[0];
+      return togo;
+    }
+    else {
+      assigned.put(ID, USED_ONCE);
+      return ID;
+    }
+  }
+
+  /** Begins recording the IDs requested from this assigner. Recordings 
+   * may be nested, in which case the IDs of the inner recording are also
+   * recorded by the outer.
+   */
+  public Recording startRecording() {
+    Recording togo = new Recording();
+    togo.outer = recording;
+    recording = togo;
+    return togo;
+  }
+
+  public void stopRecording(Recording stop) {
+    recording = stop.outer;
+    if (recording != null) {
+      recording.IDs.addAll(stop.IDs);
+      recording.conflict |= stop.conflict;
+    }
+  }
+
+  /** Allocates all of the supplied IDs, as recorded from an earlier 
+   * rendering, provided none has yet been allocated.
+   * @return <code>false</code> if any ID was already allocated, in which 
+   * case none is allocated and the markup must be rendered afresh.
+   */
+  public boolean claimIDs(List IDs) {
+    for (int i = 0; i < IDs.size(); ++i) {
+      if (assigned.containsKey(IDs.get(i))) {
+        return false;
+      }
+    }
+    for (int i = 0; i < IDs.size(); ++i) {
+      assign((String) IDs.get(i));
+    }
+    return true;
+  }
 }
@@ -0,0 +1,48 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.renderer;
+
+/**
+ * Determines when rendered markup is flushed to the client during a render
+ * cycle. By default, nothing is flushed until the complete view has been
+ * rendered.
+ * <p>
+ * With <code>earlyFlush</code> set, the static prefix of the root template -
+ * that is, all markup up to the first tag bearing an <code>rsf:id</code> - is
+ * written and flushed before any producers are invoked, allowing the client to
+ * begin fetching resources referenced from it. Since the response is then
+ * committed, any subsequent failure or redirect within the render cycle can no
+ * longer be reported through an HTTP redirect, so this should only be enabled
+ * for applications whose producers do not rely on issuing redirects.
+ * <p>
+ * With a positive <code>flushInterval</code>, the output is additionally
+ * flushed each time that many branch containers have been rendered.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class RenderFlushPolicy {
+  private boolean earlyFlush = false;
+  private int flushInterval = 0;
+
+  public boolean isEarlyFlush() {
+    return earlyFlush;
+  }
+
+  public void setEarlyFlush(boolean earlyFlush) {
+    this.earlyFlush = earlyFlush;
+  }
+
+  public int getFlushInterval() {
+    return flushInterval;
+  }
+
+  /**
+   * The number of branch containers after whose rendering the output will be
+   * flushed, or 0 (the default) never to flush during rendering.
+   */
+  public void setFlushInterval(int flushInterval) {
+    this.flushInterval = flushInterval;
+  }
+}
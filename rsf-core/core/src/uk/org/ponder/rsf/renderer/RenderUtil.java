@@ -29,6 +29,7 @@ import uk.org.ponder.rsf.template.XMLLumpList;
 import uk.org.ponder.rsf.template.XMLLumpMMap;
 import uk.org.ponder.rsf.template.XMLViewTemplate;
 import uk.org.ponder.rsf.view.View;
+import uk.org.ponder.streamutil.write.EncodedPrintOutputStream;
 import uk.org.ponder.streamutil.write.PrintOutputStream;
 import uk.org.ponder.stringutil.CharWrap;
 import uk.org.ponder.stringutil.URLEncoder;
@@ -48,10 +49,34 @@ public class RenderUtil {
     // for (; start < limit; ++ start) {
     // target.print(lumps[start].text);
     // }
-    target.write(lumps[start].parent.buffer, lumps[start].start,
-        lumps[limit].start - lumps[start].start);
+    dumpLumps(lumps, start, limit, target);
     return limit;
   }
+  
+  /**
+   * Write the template text of the lumps from index <code>start</code> up to
+   * but not including index <code>limit</code> (which may be equal to the
+   * length of the lump array). If the template holds a pre-encoded form 
+   * matching the encoding of the target, the bytes will be written directly.
+   */
+  public static void dumpLumps(XMLLump[] lumps, int start, int limit,
+      PrintOutputStream target) {
+    XMLViewTemplate template = lumps[start].parent;
+    if (template.encodedbuffer != null
+        && target instanceof EncodedPrintOutputStream) {
+      EncodedPrintOutputStream epos = (EncodedPrintOutputStream) target;
+      if (template.encoding.equals(epos.getEncoding())) {
+        int[] offsets = template.encodedoffsets;
+        epos.writeEncoded(template.encodedbuffer, offsets[start], 
+            offsets[limit] - offsets[start]);
+        return;
+      }
+    }
+    int charlimit = (limit == lumps.length ? template.buffer.length
+        : lumps[limit].start);
+    target.write(template.buffer, lumps[start].start, charlimit
+        - lumps[start].start);
+  }
 
   /**
    * Dump from template to output until either we reduce below
@@ -65,8 +90,7 @@ public class RenderUtil {
    */
   public static int dumpScan(XMLLump[] lumps, int renderindex, int basedepth,
       PrintOutputStream target, boolean closeparent, boolean insideleaf) {
-    int start = lumps[renderindex].start;
-    char[] buffer = lumps[renderindex].parent.buffer;
+    int start = renderindex;
     while (true) {
       if (renderindex == lumps.length)
         break;
@@ -87,10 +111,8 @@ public class RenderUtil {
     // ASSUMPTIONS: close tags are ONE LUMP
     if (!closeparent && (renderindex == lumps.length || lumps[renderindex].rsfID == null))
       --renderindex;
-    int limit = (renderindex == lumps.length ? buffer.length
-        : lumps[renderindex].start);
 
-    target.write(buffer, start, limit - start);
+    dumpLumps(lumps, start, renderindex, target);
     return renderindex;
   }
 
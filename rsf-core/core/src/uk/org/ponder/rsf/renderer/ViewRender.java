@@ -11,11 +11,20 @@ import java.util.Map;
 import java.util.Set;
 
 import uk.org.ponder.messageutil.TargettedMessageList;
+import uk.org.ponder.rsf.components.ComponentList;
+import uk.org.ponder.rsf.components.UIBound;
 import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UICommand;
 import uk.org.ponder.rsf.components.UIComponent;
 import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIForm;
+import uk.org.ponder.rsf.components.decorators.DecoratorList;
+import uk.org.ponder.rsf.components.decorators.UIFragmentCacheDecorator;
 import uk.org.ponder.rsf.content.ContentTypeInfo;
+import uk.org.ponder.rsf.metrics.RequestMetrics;
 import uk.org.ponder.rsf.renderer.decorator.DecoratorManager;
+import uk.org.ponder.rsf.renderer.html.HeadCollectingSCR;
+import uk.org.ponder.rsf.renderer.html.URLRewriteSCR;
 import uk.org.ponder.rsf.renderer.message.MessageFlyweight;
 import uk.org.ponder.rsf.renderer.message.MessageRenderer;
 import uk.org.ponder.rsf.renderer.message.MessageTargetMap;
@@ -29,9 +38,13 @@ import uk.org.ponder.rsf.util.RSFUtil;
 import uk.org.ponder.rsf.util.SplitID;
 import uk.org.ponder.rsf.view.View;
 import uk.org.ponder.rsf.view.ViewTemplate;
+import uk.org.ponder.rsf.viewstate.BaseURLProvider;
+import uk.org.ponder.streamutil.write.POSMulticaster;
 import uk.org.ponder.streamutil.write.PrintOutputStream;
+import uk.org.ponder.streamutil.write.StringPOS;
 import uk.org.ponder.stringutil.CharWrap;
 import uk.org.ponder.util.Logger;
+import uk.org.ponder.webapputil.ConsumerInfo;
 import uk.org.ponder.xml.XMLUtil;
 import uk.org.ponder.xml.XMLWriter;
 
@@ -73,6 +86,15 @@ public class ViewRender {
   private DecoratorManager decoratormanager;
   private boolean debugrender;
   private RenderSystemContext rsc;
+  private RequestMetrics requestMetrics;
+  private String viewID;
+  private RenderFlushPolicy flushPolicy;
+  private FragmentCache fragmentCache;
+  private BaseURLProvider baseurlprovider;
+  private ConsumerInfo ciproxy;
+  // index of the first lump not yet rendered by renderPrefix, or -1
+  private int prefixend = -1;
+  private int renderedcontainers;
 
   public void setViewTemplate(ViewTemplate viewtemplateo) {
     if (viewtemplateo instanceof XMLCompositeViewTemplate) {
@@ -125,6 +147,31 @@ public class ViewRender {
     this.debugrender = debugrender;
   }
 
+  public void setRequestMetrics(RequestMetrics requestMetrics) {
+    this.requestMetrics = requestMetrics;
+  }
+
+  public void setRenderFlushPolicy(RenderFlushPolicy flushPolicy) {
+    this.flushPolicy = flushPolicy;
+  }
+
+  public void setFragmentCache(FragmentCache fragmentCache) {
+    this.fragmentCache = fragmentCache;
+  }
+
+  public void setBaseURLProvider(BaseURLProvider baseurlprovider) {
+    this.baseurlprovider = baseurlprovider;
+  }
+
+  public void setConsumerInfo(ConsumerInfo ciproxy) {
+    this.ciproxy = ciproxy;
+  }
+
+  /** The ID of the view being rendered, used only to key metrics **/
+  public void setViewID(String viewID) {
+    this.viewID = viewID;
+  }
+
   private void collectContributions() {
     Set seenset = new HashSet();
     for (Iterator lumpit = branchmap.values().iterator(); lumpit.hasNext();) {
@@ -152,23 +199,92 @@ public class ViewRender {
     renderer.renderDebugMessage(rsc, "");
   }
 
+  /**
+   * Renders and flushes the static prefix of the root template, up to the
+   * first tag bearing an rsf:id which refers to a component. Tags requiring
+   * only their resource URLs to be rewritten (such as stylesheets and scripts
+   * in the document head) are rendered as part of the prefix, as is the head
+   * itself where no template but the root may contribute to it. This requires
+   * only the template, and so may be called before the view has been
+   * generated - the subsequent call to {@link #render(PrintOutputStream)} will
+   * resume from where this left off.
+   */
+  public void renderPrefix(PrintOutputStream pos) {
+    String declaration = contenttypeinfo.get().declaration;
+    if (declaration != null)
+      pos.print(declaration);
+    // the root branch is always rendered from the root template, and so its
+    // contributions will always be collected
+    XMLLumpMMap prefixcollected = null;
+    if (!hasForeignContributions()) {
+      prefixcollected = new XMLLumpMMap();
+      prefixcollected.aggregate(collected);
+      prefixcollected.aggregate(roott.collectmap);
+    }
+    RenderSystemContext prefixrsc = new RenderSystemContext(false, null, pos,
+        new XMLWriter(pos), null, prefixcollected, idrewritemap);
+    int renderindex = roott.roottagindex;
+    while (true) {
+      renderindex = RenderUtil.dumpScan(roott.lumps, renderindex,
+          roott.rootlump.nestingdepth, pos, true, false);
+      if (renderindex == roott.lumps.length
+          || !isPrefixRendered(roott.lumps[renderindex], 
+              prefixcollected != null)) {
+        break;
+      }
+      renderindex = renderer.renderComponent(prefixrsc, null, null,
+          roott.lumps[renderindex]);
+    }
+    prefixend = renderindex;
+    pos.flush();
+  }
+
+  // A tag whose rendering depends on no component - one whose resource URLs
+  // are to be rewritten, or the head if its collected material is known
+  private static boolean isPrefixRendered(XMLLump lump, boolean cancollect) {
+    return lump.rsfID.equals(XMLLump.SCR_PREFIX + URLRewriteSCR.NAME)
+        || cancollect
+        && lump.rsfID.equals(XMLLump.SCR_PREFIX + HeadCollectingSCR.NAME);
+  }
+
+  // Whether any template other than the root, from which branches of the view
+  // may be rendered, contributes material to be collected - which will only
+  // be known once the branches have been resolved
+  private boolean hasForeignContributions() {
+    for (Iterator idit = globalmap.iterator(); idit.hasNext();) {
+      XMLLumpList heads = globalmap.headsForID((String) idit.next());
+      for (int i = 0; i < heads.size(); ++i) {
+        XMLViewTemplate template = heads.lumpAt(i).parent;
+        if (template != roott && template.collectmap.numConcretes() != 0) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   public void render(PrintOutputStream pos) {
+    long renderstart = requestMetrics.start();
     IDassigner = new IDAssigner(debugrender ? ContentTypeInfo.ID_FORCE
         : contenttypeinfo.IDStrategy);
     // Add and remove the flyweight immediately around "resolveBranches" - instances of it
     // will be dynamically "invented" around the tree wherever there are messages
     messageFlyweight = new MessageFlyweight(view.viewroot);
+    long resolvestart = requestMetrics.start();
     branchmap = BranchResolver.resolveBranches(globalmap, view.viewroot,
         roott.rootlump, idrewritemap);
+    requestMetrics.stop(viewID, RequestMetrics.RESOLVE_BRANCHES, resolvestart);
     view.viewroot.remove(messageFlyweight.rsfMessages);    
     messagelump = (XMLLump) branchmap.get(messageFlyweight.rsfMessages);
     
     collectContributions();
     messagetargets = MessageTargetter.targetMessages(branchmap, view,
         messagelist, globalmessagetarget);
-    String declaration = contenttypeinfo.get().declaration;
-    if (declaration != null)
-      pos.print(declaration);
+    if (prefixend == -1) {
+      String declaration = contenttypeinfo.get().declaration;
+      if (declaration != null)
+        pos.print(declaration);
+    }
     this.pos = pos;
     this.xmlw = new XMLWriter(pos);
     rsc = new RenderSystemContext(debugrender, view, pos, xmlw, IDassigner,
@@ -177,11 +293,132 @@ public class ViewRender {
     if (debugrender) {
       debugGlobalTargets();
     }
-    renderRecurse(view.viewroot, roott.rootlump,
-        roott.lumps[roott.roottagindex]);
+    int startindex = prefixend == -1 ? roott.roottagindex : prefixend;
+    if (startindex < roott.lumps.length) {
+      renderRecurse(view.viewroot, roott.rootlump, roott.lumps[startindex]);
+    }
+    requestMetrics.stop(viewID, RequestMetrics.RENDER, renderstart);
   }
 
   private void renderContainer(UIContainer child, XMLLump targetlump) {
+    UIFragmentCacheDecorator cachedec = getCacheDecorator(child);
+    if (cachedec == null) {
+      renderContainerImpl(child, targetlump);
+    }
+    else {
+      renderCachedContainer(child, targetlump, cachedec);
+    }
+    if (flushPolicy != null && flushPolicy.getFlushInterval() > 0
+        && ++renderedcontainers % flushPolicy.getFlushInterval() == 0) {
+      pos.flush();
+    }
+  }
+
+  private UIFragmentCacheDecorator getCacheDecorator(UIContainer child) {
+    // Messages may be targetted anywhere within the branch, and debug 
+    // rendering annotates it - in either case it is rendered afresh.
+    if (fragmentCache == null || !fragmentCache.isEnabled() || debugrender 
+        || child.decorators == null || messagelist != null && messagelist.size() != 0) {
+      return null;
+    }
+    DecoratorList decorators = child.decorators;
+    for (int i = 0; i < decorators.size(); ++i) {
+      if (decorators.decoratorAt(i) instanceof UIFragmentCacheDecorator) {
+        return (UIFragmentCacheDecorator) decorators.decoratorAt(i);
+      }
+    }
+    return null;
+  }
+
+  private void renderCachedContainer(UIContainer child, XMLLump targetlump,
+      UIFragmentCacheDecorator cachedec) {
+    String fullID = child.getFullID();
+    String contenttype = contenttypeinfo.get().typename;
+    String urlbase = getURLBase();
+    FragmentCache.Fragment fragment = fragmentCache.get(cachedec.key, fullID,
+        contenttype, urlbase, targetlump);
+    // The IDs allocated within the fragment must be the same as those which
+    // would be allocated by rendering it afresh here
+    if (fragment != null && IDassigner.claimIDs(fragment.IDs)) {
+      pos.print(fragment.markup);
+      requestMetrics.count(viewID, RequestMetrics.FRAGMENT_HITS, 1);
+      return;
+    }
+    requestMetrics.count(viewID, RequestMetrics.FRAGMENT_MISSES, 1);
+    if (!isCacheable(child)) {
+      renderContainerImpl(child, targetlump);
+      return;
+    }
+    PrintOutputStream oldpos = pos;
+    XMLWriter oldxmlw = xmlw;
+    StringPOS capture = new StringPOS();
+    POSMulticaster multi = new POSMulticaster(oldpos);
+    multi.addTarget(capture);
+    pos = rsc.pos = multi;
+    xmlw = rsc.xmlw = new XMLWriter(multi);
+    IDAssigner.Recording recording = IDassigner.startRecording();
+    try {
+      renderContainerImpl(child, targetlump);
+    }
+    finally {
+      IDassigner.stopRecording(recording);
+      pos = rsc.pos = oldpos;
+      xmlw = rsc.xmlw = oldxmlw;
+    }
+    if (!recording.conflict) {
+      fragmentCache.put(cachedec.key, fullID, contenttype, urlbase,
+          new FragmentCache.Fragment(targetlump, capture.toString(),
+              recording.IDs), cachedec.TTL);
+    }
+  }
+
+  // The bases of the links and resource URLs which may be rendered into a
+  // fragment, as resolved by the ViewStateHandler for this request - these
+  // vary between consumers and portal contexts
+  private String getURLBase() {
+    ConsumerInfo ci = ciproxy == null ? null : ciproxy.get();
+    String urlbase = null, resourcebase = null;
+    if (baseurlprovider != null) {
+      urlbase = baseurlprovider.getBaseURL();
+      resourcebase = baseurlprovider.getResourceBaseURL();
+    }
+    if (ci == null) {
+      return urlbase + " " + resourcebase;
+    }
+    if (ci.urlbase != null) {
+      urlbase = ci.urlbase;
+    }
+    if (ci.resourceurlbase != null) {
+      resourcebase = ci.resourceurlbase;
+    }
+    return ci.consumerid + " " + urlbase + " " + ci.extraparameters + " "
+        + resourcebase;
+  }
+
+  // Forms, commands and input components render state specific to the 
+  // request (submitting names bound to fossilized values, flow tokens), and so
+  // may never be served from the cache.
+  private static boolean isCacheable(UIContainer container) {
+    ComponentList children = container.flattenChildren();
+    for (int i = 0; i < children.size(); ++i) {
+      UIComponent child = children.componentAt(i);
+      if (child instanceof UIForm || child instanceof UICommand) {
+        return false;
+      }
+      if (child instanceof UIBound) {
+        UIBound bound = (UIBound) child;
+        if (bound.willinput || bound.fossilize) {
+          return false;
+        }
+      }
+      if (child instanceof UIContainer && !isCacheable((UIContainer) child)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void renderContainerImpl(UIContainer child, XMLLump targetlump) {
     // may have jumped template file
     XMLViewTemplate t2 = targetlump.parent;
     XMLLump firstchild = t2.lumps[targetlump.open_end.lumpindex + 1];
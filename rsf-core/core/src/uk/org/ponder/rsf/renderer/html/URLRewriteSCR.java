@@ -18,6 +18,11 @@ import uk.org.ponder.rsf.viewstate.URLRewriter;
 
 /** Performs a URL-rewrite for a template-relative
  * "resource" URL (e.g. image or CSS) as found in a template.
+ * <p>The attributes requiring rewriting are located when the template is 
+ * parsed (see {@link XMLLump#urlattributes}), and their rewritten values are
+ * cached on each lump against the context base URL they were resolved for, so 
+ * that a tag is only rewritten afresh when it is rendered for a different 
+ * consumer.
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  */
 
@@ -26,6 +31,16 @@ public class URLRewriteSCR implements BasicSCR {
   private URLRewriter rewriter;
   private ContextURLProvider cup;
 //  private String resourcebase;
+  
+  // immutable snapshot of a lump's rewritten URLs, parallel to urlattributes
+  private static class ResolvedURLs {
+    String contextbase;
+    String[] resolved;
+    ResolvedURLs(String contextbase, String[] resolved) {
+      this.contextbase = contextbase;
+      this.resolved = resolved;
+    }
+  }
 
   public String getName() {
     return NAME;
@@ -39,14 +54,38 @@ public class URLRewriteSCR implements BasicSCR {
     this.cup = cup;
   }
   
-  public String resolveURL(BasedViewTemplate template, String toresolve) {
+  private String getExtResourceBase(BasedViewTemplate template) {
     String extresourcebase = template.getExtResourceBase();
     if (extresourcebase == null || extresourcebase == "") {
       extresourcebase = cup.getContextBaseURL();
     }
-    String resourcebase = extresourcebase + template.getRelativeResourceBase();
+    return extresourcebase;
+  }
+  
+  public String resolveURL(BasedViewTemplate template, String toresolve) {
+    String resourcebase = getExtResourceBase(template) + template.getRelativeResourceBase();
     return rewriter.rewriteResourceURL(toresolve, resourcebase);
   }
+  
+  /** Returns the rewritten values of the lump's urlattributes, 
+   * with <code>null</code> entries for those requiring no rewrite.
+   */
+  private String[] getResolvedURLs(XMLLump lump) {
+    String extresourcebase = getExtResourceBase(lump.parent);
+    ResolvedURLs cached = (ResolvedURLs) lump.resolvedurls;
+    if (cached != null && (cached.contextbase == extresourcebase 
+        || cached.contextbase != null && cached.contextbase.equals(extresourcebase))) {
+      return cached.resolved;
+    }
+    String resourcebase = extresourcebase + lump.parent.getRelativeResourceBase();
+    String[] resolved = new String[lump.urlattributes.length];
+    for (int i = 0; i < resolved.length; ++i) {
+      String toresolve = (String) lump.attributemap.get(lump.urlattributes[i]);
+      resolved[i] = rewriter.rewriteResourceURL(toresolve, resourcebase);
+    }
+    lump.resolvedurls = new ResolvedURLs(extresourcebase, resolved);
+    return resolved;
+  }
 
   /**
    * @param lump The template lump where the attribute that may require filtering
@@ -65,20 +104,27 @@ public class URLRewriteSCR implements BasicSCR {
       return cloned;
     }
     else {
-      Map togo = null;
-      if (cloned == null) {
-        togo = new HashMap();
-        togo.putAll(lump.attributemap);
-      }
-      else {
-        togo = cloned;
-      }
-      togo.put(name, resolved);
-      return togo;
+      return putResolved(lump, name, resolved, cloned);
     }
   }
+  
+  private static Map putResolved(XMLLump lump, String name, String resolved, Map cloned) {
+    Map togo = null;
+    if (cloned == null) {
+      togo = new HashMap();
+      togo.putAll(lump.attributemap);
+    }
+    else {
+      togo = cloned;
+    }
+    togo.put(name, resolved);
+    return togo;
+  }
 
   public static String getLinkAttribute(XMLLump lump) {
+    if (lump.urlattributes != null) {
+      return lump.linkattribute;
+    }
     for (int i = 0; i < HTMLConstants.tagtoURL.length; ++i) {
       String[] tags = HTMLConstants.tagtoURL[i];
       String tag = tags[0];
@@ -91,6 +137,16 @@ public class URLRewriteSCR implements BasicSCR {
   }
  
   public Map rewriteURLs(XMLLump lump, Map attrcopy) {
+    if (lump.urlattributes != null) {
+      if (lump.urlattributes.length == 0 || rewriter == null) return attrcopy;
+      String[] resolved = getResolvedURLs(lump);
+      for (int i = 0; i < resolved.length; ++i) {
+        if (resolved[i] != null) {
+          attrcopy = putResolved(lump, lump.urlattributes[i], resolved[i], attrcopy);
+        }
+      }
+      return attrcopy;
+    }
     String linkattr = getLinkAttribute(lump);
     attrcopy = getResolvedURLMap(lump, linkattr, attrcopy);
     for (int i = 0; i < HTMLConstants.ubiquitousURL.length; ++i) {
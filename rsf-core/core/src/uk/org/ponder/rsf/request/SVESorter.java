@@ -5,7 +5,6 @@ package uk.org.ponder.rsf.request;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -17,6 +16,14 @@ import uk.org.ponder.beanutil.PathUtil;
  * scheduled after a write of a dependency. A dependency of an EL operation
  * is a write to a path equal or higher to it in the bean hierarchy. Writes
  * to the same path will currently be scheduled arbitrarily.
+ * <p>
+ * Paths are interned to integer IDs on construction, and both the sorting
+ * and the search for upstream components run in time linear in the total
+ * length of the submitted paths, without recursion. Where no entry reads
+ * EL, no two entries write to the same path, and no path written lies
+ * beneath another, there are no dependencies to order - the sorting is then
+ * skipped, and the entries returned in their submitted order. This is the
+ * case for a plain form, whose fields write to sibling paths.
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  * @author Andrew Thorton (andrew@three-tuns.net)
  *
@@ -41,114 +48,336 @@ public class SVESorter {
 //fast EL:          {resource.a8394.permission} value {permissionbean}    NODE 2
 //edge FROM 2 -> 1
 //hah. fast EL is actually SLOW!
+
+// The "writers" of a path are those entries writing either to it or to one
+// of its immediate children, held in submission order. Scheduling the writes
+// to a path first schedules those to its parent, and then evaluates each of
+// its writers in turn. Each path keeps a cursor into its writers, so that
+// a path whose scheduling is reentered from further up the stack resumes
+// where it left off rather than rescanning them. Entries and paths are
+// visited a bounded number of times, with the explicit stacks below taking
+// the place of recursion.
+  private static final int NONE = -1;
+
+  private static final int UNVISITED = 0;
+  private static final int IN_PROGRESS = 1;
+  private static final int DONE = 2;
+
+  private static final int ATTEMPT = 0;
+  private static final int SCHEDULE = 1;
+
   private RequestSubmittedValueCache rsvc;
-  private ELDependencyMap elmap = new ELDependencyMap();
-  private HashSet emitted = new HashSet();
-  private ArrayList output = new ArrayList();
+  private SubmittedValueEntry[] entries;
+  // map of String (EL path) to Integer path ID
+  private Map pathids = new HashMap();
+  // path ID to EL path, and to the ID of its parent path, or NONE
+  private ArrayList paths = new ArrayList();
+  private int[] parents = new int[16];
+  // entry index to written and read path IDs
+  private int[] writeids;
+  private int[] readids;
+  // writers of path ID p are writers[writerstart[p]] to writers[writerstart[p + 1] - 1]
+  private int[] writerstart;
+  private int[] writers;
+  private boolean hasdependencies;
+
   private Map upstream = new HashMap();
   private Map downstream = new HashMap();
 
+  private int[] upstreamstate;
+  private int[] upstreamcomponent;
+
   public SVESorter(RequestSubmittedValueCache tosort) {
     this.rsvc = tosort;
-
-    for (int i = 0; i < rsvc.getEntries(); ++i) {
+    int entrycount = rsvc.getEntries();
+    entries = new SubmittedValueEntry[entrycount];
+    writeids = new int[entrycount];
+    readids = new int[entrycount];
+    for (int i = 0; i < entrycount; ++i) {
       SubmittedValueEntry entry = rsvc.entryAt(i);
-      elmap.recordWrite(entry.valuebinding, entry);
+      entries[i] = entry;
+      writeids[i] = internPath(entry.valuebinding);
+      readids[i] = NONE;
       if (entry.newvalue instanceof String && entry.isEL) {
-        String readel = (String) entry.newvalue;
-        if (readel != null) {
-          elmap.recordRead(readel, entry);
+        readids[i] = internPath((String) entry.newvalue);
+        hasdependencies = true;
+      }
+    }
+    int pathcount = paths.size();
+    writerstart = new int[pathcount + 1];
+    for (int i = 0; i < entrycount; ++i) {
+      int writeid = writeids[i];
+      if (writeid != NONE) {
+        ++writerstart[writeid + 1];
+        if (parents[writeid] != NONE) {
+          ++writerstart[parents[writeid] + 1];
         }
       }
     }
+    for (int p = 0; p < pathcount; ++p) {
+      writerstart[p + 1] += writerstart[p];
+    }
+    writers = new int[writerstart[pathcount]];
+    int[] fill = new int[pathcount];
+    System.arraycopy(writerstart, 0, fill, 0, pathcount);
+    for (int i = 0; i < entrycount; ++i) {
+      int writeid = writeids[i];
+      if (writeid != NONE) {
+        writers[fill[writeid]++] = i;
+        if (parents[writeid] != NONE) {
+          writers[fill[parents[writeid]]++] = i;
+        }
+      }
+    }
+    if (!hasdependencies) {
+      hasdependencies = hasDependentWrites();
+    }
+  }
+
+  private int internPath(String path) {
+    if (path == null) return NONE;
+    Integer existing = (Integer) pathids.get(path);
+    if (existing != null) return existing.intValue();
+    String parentpath = PathUtil.getToTailPath(path);
+    int parentid = internPath(parentpath);
+    int togo = paths.size();
+    if (togo == parents.length) {
+      int[] newparents = new int[togo * 2];
+      System.arraycopy(parents, 0, newparents, 0, togo);
+      parents = newparents;
+    }
+    parents[togo] = parentid;
+    paths.add(path);
+    pathids.put(path, Integer.valueOf(togo));
+    return togo;
+  }
+
+  // Determines whether any path is written by more than one entry, or lies
+  // above a path written by another. Writes to the same path keep the order
+  // in which the full sort has always applied them.
+  private boolean hasDependentWrites() {
+    boolean[] written = new boolean[paths.size()];
+    for (int i = 0; i < writeids.length; ++i) {
+      int writeid = writeids[i];
+      if (writeid != NONE) {
+        if (written[writeid]) return true;
+        written[writeid] = true;
+      }
+    }
+    // each path above a written one is visited once, and seen as visited by 
+    // any later walk through it
+    boolean[] above = new boolean[paths.size()];
+    for (int i = 0; i < writeids.length; ++i) {
+      if (writeids[i] == NONE) continue;
+      for (int pathid = parents[writeids[i]]; pathid != NONE && !above[pathid]; 
+          pathid = parents[pathid]) {
+        if (written[pathid]) return true;
+        above[pathid] = true;
+      }
+    }
+    return false;
   }
+
 // for a given EL write path, any initial component submission which gave rise to it
   public SubmittedValueEntry getUpstreamComponent(String writepath) {
-    List writers = elmap.getWriters(writepath);
-    
-    if (writers == null) return null;
-
-    for (int i = 0; i < writers.size(); ++ i) {
-      SubmittedValueEntry writer = (SubmittedValueEntry) writers.get(i);
-      if (writer.componentid != null) return writer;
-      String readpath = elmap.getReadPath(writer);
-      while (readpath != null) {
-        SubmittedValueEntry sve = getUpstreamComponent(readpath);
-        if (sve != null) return sve;
-        readpath = PathUtil.getToTailPath(readpath);
+    Integer pathid = (Integer) pathids.get(writepath);
+    if (pathid == null) return null;
+    int index = upstreamComponent(pathid.intValue());
+    return index == NONE? null : entries[index];
+  }
+
+  // Returns the index of the first writer of the path which is a component,
+  // or else which reads from a path (or one higher) having an upstream
+  // component. A path met again whilst its own search is in progress, through
+  // EL which reads from what it writes, is treated as having none.
+  private int upstreamComponent(int pathid) {
+    if (upstreamstate == null) {
+      upstreamstate = new int[paths.size()];
+      upstreamcomponent = new int[paths.size()];
+    }
+    if (upstreamstate[pathid] == DONE) return upstreamcomponent[pathid];
+    // stack of path ID, cursor into its writers, and read path being searched
+    IntStack stack = new IntStack(3);
+    pushUpstream(stack, pathid);
+    while (stack.size() > 0) {
+      int frame = stack.top();
+      int p = stack.get(frame, 0);
+      int readid = stack.get(frame, 2);
+      if (readid != NONE) {
+        if (upstreamstate[readid] == UNVISITED) {
+          pushUpstream(stack, readid);
+        }
+        else if (upstreamstate[readid] == DONE
+            && upstreamcomponent[readid] != NONE) {
+          completeUpstream(stack, p, upstreamcomponent[readid]);
+        }
+        else {
+          stack.set(frame, 2, parents[readid]);
+        }
+        continue;
+      }
+      int cursor = stack.get(frame, 1);
+      if (cursor == writerstart[p + 1]) {
+        completeUpstream(stack, p, NONE);
+        continue;
+      }
+      stack.set(frame, 1, cursor + 1);
+      int writer = writers[cursor];
+      if (entries[writer].componentid != null) {
+        completeUpstream(stack, p, writer);
+      }
+      else {
+        stack.set(frame, 2, readids[writer]);
       }
     }
+    return upstreamcomponent[pathid];
+  }
 
-    return null;
+  private void pushUpstream(IntStack stack, int pathid) {
+    upstreamstate[pathid] = IN_PROGRESS;
+    stack.push(pathid, writerstart[pathid], NONE);
   }
-  
+
+  private void completeUpstream(IntStack stack, int pathid, int component) {
+    upstreamstate[pathid] = DONE;
+    upstreamcomponent[pathid] = component;
+    stack.pop();
+  }
+
   public Map getUpstreamMap() {
     return upstream;
   }
-  
+
   public Map getDownstreamMap() {
     return downstream;
   }
-  
+
   public List getSortedRSVC() {
-    for (int i = 0; i < rsvc.getEntries(); ++i) {
-      SubmittedValueEntry entry = rsvc.entryAt(i);
-      String writepath = elmap.getWritePath(entry);
-      SubmittedValueEntry upstream = getUpstreamComponent(writepath);
-      if (upstream != null) {
+    for (int i = 0; i < entries.length; ++i) {
+      if (writeids[i] == NONE) continue;
+      String writepath = entries[i].valuebinding;
+      int upstreamindex = upstreamComponent(writeids[i]);
+      if (upstreamindex != NONE) {
+        SubmittedValueEntry upstream = entries[upstreamindex];
         this.upstream.put(writepath, upstream);
         // NB, this is not sufficient to record dependencies amongst pure EL, but is
         // good enough for DateTransit for now.
-        // If a given 
         MapUtil.putMultiMap(downstream, upstream.valuebinding, writepath);
       }
-    
     }
-    
-    for (int i = 0; i < rsvc.getEntries(); ++i) {
-      SubmittedValueEntry entry = rsvc.entryAt(i);
-      if (!emitted.contains(entry)) {
-        attemptEvaluate(entry);
+    ArrayList output = new ArrayList(entries.length);
+    if (!hasdependencies) {
+      for (int i = 0; i < entries.length; ++i) {
+        output.add(entries[i]);
+      }
+      return output;
+    }
+
+    boolean[] emitted = new boolean[entries.length];
+    int[] pathstate = new int[paths.size()];
+    int[] cursors = new int[paths.size()];
+    System.arraycopy(writerstart, 0, cursors, 0, paths.size());
+    // stack of frame type, entry or path ID, and phase
+    IntStack stack = new IntStack(3);
+    for (int i = 0; i < entries.length; ++i) {
+      if (emitted[i]) continue;
+      stack.push(ATTEMPT, i, 0);
+      while (stack.size() > 0) {
+        int frame = stack.top();
+        int id = stack.get(frame, 1);
+        int phase = stack.get(frame, 2);
+        stack.set(frame, 2, phase + 1);
+        if (stack.get(frame, 0) == ATTEMPT) {
+          // schedule writes on the read path, then on the write path, then emit
+          if (phase == 0) {
+            emitted[id] = true;
+            if (readids[id] != NONE) {
+              stack.push(SCHEDULE, readids[id], 0);
+            }
+          }
+          else if (phase == 1) {
+            if (writeids[id] != NONE) {
+              stack.push(SCHEDULE, writeids[id], 0);
+            }
+          }
+          else {
+            output.add(entries[id]);
+            stack.pop();
+          }
+        }
+        else {
+          // If we *write* a path, all pending *writes* to higher paths must
+          // already be done.
+          if (phase == 0) {
+            if (pathstate[id] == DONE) {
+              stack.pop();
+            }
+            else if (parents[id] != NONE) {
+              stack.push(SCHEDULE, parents[id], 0);
+            }
+            continue;
+          }
+          int end = writerstart[id + 1];
+          while (cursors[id] < end && emitted[writers[cursors[id]]]) {
+            ++cursors[id];
+          }
+          if (cursors[id] < end) {
+            stack.push(ATTEMPT, writers[cursors[id]++], 0);
+          }
+          else {
+            // Any later scheduling of this path, or of one beneath it, will
+            // find nothing left to emit along its route up
+            pathstate[id] = DONE;
+            stack.pop();
+          }
+        }
       }
     }
     return output;
   }
 
-  private void attemptEvaluate(SubmittedValueEntry entry) {
-    emitted.add(entry);
-    String readpath = elmap.getReadPath(entry);
-    if (readpath != null) {
-      scheduleWrites(readpath);
-    }
-    String writepath = elmap.getWritePath(entry);
-    if (writepath != null) {
-      scheduleWrites(writepath);
+  /** A growable stack of fixed-width frames of ints **/
+  private static class IntStack {
+    private int width;
+    private int[] frames;
+    private int top = 0;
+
+    IntStack(int width) {
+      this.width = width;
+      this.frames = new int[width * 16];
     }
-    output.add(entry);
-  }
 
-  private void scheduleWrites(String writepath) {
-    // NB, the keeping of this on the stack results from being SURE that we
-    // can never recur to this path as a result of attemptEvaluate of
-    // a parent path (Even though we clearly do this as a result of fearing
-    // recurring to it from further up our *own* stack).
-    List writingbeans = elmap.getWriters(writepath);
-    if (writingbeans == ELDependencyMap.VALID_LIST_MARKER) return;
-    // If we *write* a path, all pending *writes* to higher paths must already
-    // be done.
-    String parentpath = PathUtil.getToTailPath(writepath);
-    if (parentpath != null) {
-      scheduleWrites(parentpath);
-    }
-  
-    if (writingbeans != null) {
-      for (int i = 0; i < writingbeans.size(); ++i) {
-        SubmittedValueEntry sve = (SubmittedValueEntry) writingbeans.get(i);
-        if (!emitted.contains(sve)) {
-          attemptEvaluate(sve);
-        }
+    void push(int a, int b, int c) {
+      if (top + width > frames.length) {
+        int[] newframes = new int[frames.length * 2];
+        System.arraycopy(frames, 0, newframes, 0, top);
+        frames = newframes;
       }
-      elmap.recordPathValid(writepath);
+      frames[top] = a;
+      frames[top + 1] = b;
+      frames[top + 2] = c;
+      top += width;
+    }
+
+    void pop() {
+      top -= width;
+    }
+
+    int size() {
+      return top / width;
+    }
+
+    /** The offset of the topmost frame **/
+    int top() {
+      return top - width;
+    }
+
+    int get(int frame, int slot) {
+      return frames[frame + slot];
+    }
+
+    void set(int frame, int slot, int value) {
+      frames[frame + slot] = value;
     }
   }
 }
@@ -0,0 +1,119 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Copies the body of a response as it is written, recording any feature of
+ * the response (a redirect, error, cookie or writer access) which would make
+ * it unsuitable for replay from the {@link uk.org.ponder.rsf.pagecache.PageCache}.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class PageCacheResponseWrapper extends HttpServletResponseWrapper {
+  private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+  private ServletOutputStream teestream;
+  private boolean replayable = true;
+  private String contentType;
+
+  public PageCacheResponseWrapper(HttpServletResponse response) {
+    super(response);
+  }
+
+  /** Returns <code>true</code> if the response consisted solely of a
+   * successful body written through the output stream.
+   */
+  public boolean isReplayable() {
+    return replayable && teestream != null;
+  }
+
+  public byte[] getBody() {
+    return copy.toByteArray();
+  }
+
+  /** The content type set on the response, including any charset **/
+  public String getCapturedContentType() {
+    return contentType;
+  }
+
+  public void setContentType(String contentType) {
+    this.contentType = contentType;
+    super.setContentType(contentType);
+  }
+
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (teestream == null) {
+      final ServletOutputStream target = super.getOutputStream();
+      teestream = new ServletOutputStream() {
+        public void write(int b) throws IOException {
+          target.write(b);
+          copy.write(b);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+          target.write(b, off, len);
+          copy.write(b, off, len);
+        }
+
+        public void flush() throws IOException {
+          target.flush();
+        }
+
+        public void close() throws IOException {
+          target.close();
+        }
+      };
+    }
+    return teestream;
+  }
+
+  public PrintWriter getWriter() throws IOException {
+    replayable = false;
+    return super.getWriter();
+  }
+
+  public void sendRedirect(String location) throws IOException {
+    replayable = false;
+    super.sendRedirect(location);
+  }
+
+  public void sendError(int sc) throws IOException {
+    replayable = false;
+    super.sendError(sc);
+  }
+
+  public void sendError(int sc, String msg) throws IOException {
+    replayable = false;
+    super.sendError(sc, msg);
+  }
+
+  public void setStatus(int sc) {
+    replayable &= sc == SC_OK;
+    super.setStatus(sc);
+  }
+
+  public void addCookie(Cookie cookie) {
+    replayable = false;
+    super.addCookie(cookie);
+  }
+
+  public void setHeader(String name, String value) {
+    replayable &= !name.equalsIgnoreCase("Set-Cookie");
+    super.setHeader(name, value);
+  }
+
+  public void addHeader(String name, String value) {
+    replayable &= !name.equalsIgnoreCase("Set-Cookie");
+    super.addHeader(name, value);
+  }
+}
@@ -14,6 +14,7 @@ import org.springframework.web.context.WebApplicationContext;
 
 import uk.org.ponder.rsac.RSACBeanLocator;
 import uk.org.ponder.rsac.servlet.RSACUtils;
+import uk.org.ponder.rsf.pagecache.PageCacheControl;
 import uk.org.ponder.util.Logger;
 
 /**
@@ -23,6 +24,11 @@ import uk.org.ponder.util.Logger;
  * ContextLoaderListener OR RSAC filter).
  * 
  * <p>
+ * Where the {@link ServletPageCache} is enabled, GET requests for cached 
+ * pages are served by this servlet before any request-scope container is
+ * started.
+ * 
+ * <p>
  * The main servlet for the RSF system. Hands off immediately to the
  * RootHandlerBean for all logic.
  * 
@@ -32,6 +38,7 @@ import uk.org.ponder.util.Logger;
 public class ReasonableSpringServlet extends HttpServlet {
   private ContextLoader contextLoader;
   private RSACBeanLocator rsacbeanlocator;
+  private ServletPageCache pagecache;
 
   private ServletContext sc;
 
@@ -43,6 +50,9 @@ public class ReasonableSpringServlet extends HttpServlet {
     WebApplicationContext wac = contextLoader.initWebApplicationContext(sc);
     rsacbeanlocator = (RSACBeanLocator) wac
         .getBean(RSACBeanLocator.RSAC_BEAN_LOCATOR_NAME);
+    if (wac.containsBean("servletPageCache")) {
+      pagecache = (ServletPageCache) wac.getBean("servletPageCache");
+    }
   }
 
   public void destroy() {
@@ -51,10 +61,23 @@ public class ReasonableSpringServlet extends HttpServlet {
 
   protected void service(HttpServletRequest request,
       HttpServletResponse response) {
-    RSACUtils.startServletRequest(request, response, rsacbeanlocator,
-        RSACUtils.HTTP_SERVLET_FACTORY);
+    ServletPageCache.PageRequest pagerequest = pagecache == null ? null
+        : pagecache.begin(request, response);
+    if (pagerequest != null) {
+      if (pagerequest.isServed()) {
+        return;
+      }
+      response = pagerequest.getResponse();
+    }
+    PageCacheControl control = null;
     try {
+      RSACUtils.startServletRequest(request, response, rsacbeanlocator,
+          RSACUtils.HTTP_SERVLET_FACTORY);
       rsacbeanlocator.getBeanLocator().locateBean("rootHandlerBean");
+      if (pagerequest != null) {
+        control = (PageCacheControl) rsacbeanlocator.getBeanLocator()
+            .locateBean("pageCacheControl");
+      }
     }
     catch (Throwable t) {
       // Catch and log this here because Tomcat's stack rendering is
@@ -65,7 +88,18 @@ public class ReasonableSpringServlet extends HttpServlet {
       }
     }
     finally {
-      rsacbeanlocator.endRequest();
+      // a request leading the page cache for its key must always be
+      // completed, to release any requests waiting on it
+      try {
+        if (rsacbeanlocator.isStarted()) {
+          rsacbeanlocator.endRequest();
+        }
+      }
+      finally {
+        if (pagerequest != null) {
+          pagerequest.complete(control);
+        }
+      }
     }
   }
 }
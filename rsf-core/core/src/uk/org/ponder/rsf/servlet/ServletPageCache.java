@@ -0,0 +1,254 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.servlet;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import uk.org.ponder.arrayutil.ArrayUtil;
+import uk.org.ponder.reflect.ReflectiveCache;
+import uk.org.ponder.rsf.content.ContentTypeResolver;
+import uk.org.ponder.rsf.pagecache.PageCache;
+import uk.org.ponder.rsf.pagecache.PageCacheControl;
+import uk.org.ponder.rsf.viewstate.MemoizableViewParamsCodec;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+import uk.org.ponder.rsf.viewstate.ViewParametersParser;
+import uk.org.ponder.servletutil.ServletUtil;
+import uk.org.ponder.streamutil.StreamCloseUtil;
+import uk.org.ponder.stringutil.URLUtil;
+import uk.org.ponder.util.Logger;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * Operates the {@link PageCache} for servlet requests, in front of the
+ * request-scope container. An anonymous GET request is keyed by its parsed
+ * ViewParameters, as reduced to a state key by the ViewParameters codec,
+ * together with its locale, its content type and the base URL of the servlet
+ * it was addressed to, against which its links are rendered. A stored page for that key is
+ * written directly to the response, without the request-scope container
+ * being started. Otherwise, the response is copied as it is written, and
+ * stored on conclusion of the request if the view was declared cacheable by a
+ * {@link uk.org.ponder.rsf.view.CacheableViewProducer}.
+ * <p>
+ * An application scope bean, which is disabled by default.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class ServletPageCache {
+  private boolean enabled = false;
+  private PageCache pagecache;
+  private ViewParametersParser parser;
+  private MemoizableViewParamsCodec codec;
+  private ContentTypeResolver contenttyperesolver;
+  // views which have been seen to declare no cacheability
+  private Map uncacheableviews;
+
+  /** A request which is eligible to be served from or stored in the cache **/
+  public class PageRequest {
+    private HttpServletRequest request;
+    private Object key;
+    private String viewID;
+    private boolean served;
+    private boolean leader;
+    private PageCacheResponseWrapper response;
+
+    /** Returns <code>true</code> if the response has been written from the
+     * cache, and no further processing is required.
+     */
+    public boolean isServed() {
+      return served;
+    }
+
+    /** The response to be used in processing the request **/
+    public HttpServletResponse getResponse() {
+      return response;
+    }
+
+    /**
+     * Concludes the processing of the request, storing the response if
+     * possible.
+     *
+     * @param control The request's PageCacheControl, or <code>null</code> if
+     *          processing failed before it could be determined.
+     */
+    public void complete(PageCacheControl control) {
+      try {
+        if (control == null) {
+          return;
+        }
+        int TTL = control.getTTL();
+        if (TTL < 0) {
+          uncacheableviews.put(viewID, viewID);
+        }
+        else if (TTL > 0 && response.isReplayable()
+            && request.getSession(false) == null) {
+          pagecache.put(key, new PageCache.Entry(response
+              .getCapturedContentType(), response.getBody()), TTL);
+        }
+      }
+      finally {
+        if (leader) {
+          pagecache.release(key);
+        }
+      }
+    }
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setPageCache(PageCache pagecache) {
+    this.pagecache = pagecache;
+  }
+
+  public void setViewParametersParser(ViewParametersParser parser) {
+    this.parser = parser;
+  }
+
+  public void setViewParamsCodec(MemoizableViewParamsCodec codec) {
+    this.codec = codec;
+  }
+
+  public void setContentTypeResolver(ContentTypeResolver contenttyperesolver) {
+    this.contenttyperesolver = contenttyperesolver;
+  }
+
+  public void setReflectiveCache(ReflectiveCache reflectivecache) {
+    uncacheableviews = reflectivecache.getConcurrentMap(1);
+  }
+
+  /**
+   * Begins the processing of a request with respect to the cache.
+   *
+   * @return <code>null</code> if the request is not eligible for the cache,
+   *         or else a PageRequest which has either been served, or whose
+   *         {@link PageRequest#complete(PageCacheControl)} method must be
+   *         called once the request has been handled.
+   */
+  public PageRequest begin(HttpServletRequest request,
+      HttpServletResponse response) {
+    if (!enabled || !request.getMethod().equals("GET")
+        || request.getRequestedSessionId() != null) {
+      return null;
+    }
+    ViewParameters viewparams = parse(request);
+    if (viewparams == null || viewparams.flowtoken != null
+        || viewparams.errortoken != null || viewparams.endflow != null
+        || uncacheableviews.containsKey(viewparams.viewID)) {
+      return null;
+    }
+    Object statekey = codec.getStateKey(viewparams);
+    String urlbase = getURLBase(request);
+    if (statekey == null || urlbase == null) {
+      return null;
+    }
+    List key = new ArrayList(4);
+    key.add(statekey);
+    key.add(request.getLocale());
+    key.add(contenttyperesolver.resolveContentType(viewparams));
+    key.add(urlbase);
+
+    PageRequest togo = new PageRequest();
+    togo.request = request;
+    togo.key = key;
+    togo.viewID = viewparams.viewID;
+    PageCache.Entry entry = pagecache.get(key);
+    if (entry != null) {
+      write(entry, response);
+      togo.served = true;
+    }
+    else {
+      togo.leader = pagecache.lead(key);
+      togo.response = new PageCacheResponseWrapper(response);
+    }
+    return togo;
+  }
+
+  // The request will be reparsed by the request-scope container, should it
+  // go on to be processed - any failure here is left to be reported there.
+  private ViewParameters parse(HttpServletRequest request) {
+    try {
+      String pathinfo = request.getPathInfo();
+      String[] segments = URLUtil.splitPathInfo(pathinfo == null ? "/"
+          : pathinfo);
+      // an empty path may be redirected to a default view
+      if (segments.length == 0) {
+        return null;
+      }
+      return parser.parse(segments, parseQuery(request.getQueryString()));
+    }
+    catch (Exception e) {
+      if (Logger.log.isDebugEnabled()) {
+        Logger.log.debug("Request " + request.getRequestURI()
+            + " could not be keyed for the page cache", e);
+      }
+      return null;
+    }
+  }
+
+  // The scheme, host, context path and servlet path of the request, as they
+  // will be resolved by the request-scope BaseURLProvider
+  private static String getURLBase(HttpServletRequest request) {
+    try {
+      return ServletUtil.getBaseURL2(request);
+    }
+    catch (Exception e) {
+      if (Logger.log.isDebugEnabled()) {
+        Logger.log.debug("Base URL of request " + request.getRequestURI()
+            + " could not be determined for the page cache", e);
+      }
+      return null;
+    }
+  }
+
+  // Decodes the query string into a map of String to String[] as for
+  // getParameterMap(), without reading the request's parameters - which would
+  // fix its character encoding before the application has configured it.
+  // Values are decoded as UTF-8, as they will be for the request proper.
+  private static Map parseQuery(String query) {
+    Map togo = new HashMap();
+    if (query == null) {
+      return togo;
+    }
+    StringTokenizer st = new StringTokenizer(query, "&");
+    while (st.hasMoreTokens()) {
+      String token = st.nextToken();
+      int eqpos = token.indexOf('=');
+      String key = URLUtil.decodeURL(eqpos == -1 ? token
+          : token.substring(0, eqpos));
+      String value = eqpos == -1 ? ""
+          : URLUtil.decodeURL(token.substring(eqpos + 1));
+      String[] values = (String[]) togo.get(key);
+      togo.put(key, values == null ? new String[] { value }
+          : (String[]) ArrayUtil.append(values, value));
+    }
+    return togo;
+  }
+
+  private static void write(PageCache.Entry entry, HttpServletResponse response) {
+    OutputStream os = null;
+    try {
+      response.setContentType(entry.contentType);
+      response.setContentLength(entry.body.length);
+      os = response.getOutputStream();
+      os.write(entry.body);
+    }
+    catch (Exception e) {
+      throw UniversalRuntimeException.accumulate(e,
+          "Error writing cached response");
+    }
+    finally {
+      StreamCloseUtil.closeOutputStream(os);
+    }
+  }
+}
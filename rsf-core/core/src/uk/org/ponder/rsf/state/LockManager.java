@@ -0,0 +1,27 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.state;
+
+/** Acquires exclusive, named locks on behalf of the current thread, waiting
+ * for a bounded time. Unlike a {@link LockGetter}, which hands out monitor
+ * objects for the caller to synchronize on, a LockManager takes charge of the
+ * whole lifetime of the lock, so that a request stuck behind another one for
+ * the same flow or scope can give up rather than block indefinitely.
+ * <p>Every successful call to {@link #acquireLock(String)} must be matched by
+ * exactly one call to {@link #releaseLock(String)} from the same thread.
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ *
+ */
+
+public interface LockManager {
+  /** Acquire the lock with the supplied name for the current thread.
+   * @return <code>true</code> if the lock was acquired, or <code>false</code>
+   * if it could not be acquired within the configured timeout.
+   */
+  public boolean acquireLock(String lockname);
+  /** Release a lock previously acquired by this thread through 
+   * {@link #acquireLock(String)}.
+   */
+  public void releaseLock(String lockname);
+}
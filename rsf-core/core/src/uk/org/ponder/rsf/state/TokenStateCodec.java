@@ -0,0 +1,22 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.state;
+
+/** Converts token state to and from a compact byte form, suitable for
+ * storage by a {@link TokenStateHolder} in place of the live object graph.
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ *
+ */
+
+public interface TokenStateCodec {
+  /** Encodes the supplied token state.
+   * @return The encoded state, or <code>null</code> if this codec is unable
+   * to represent the supplied object faithfully, in which case it should be
+   * stored unencoded. 
+   */
+  public byte[] encode(Object state);
+  /** Reconstructs token state from a form produced by {@link #encode(Object)}
+   */
+  public Object decode(byte[] encoded);
+}
@@ -3,8 +3,11 @@
  */
 package uk.org.ponder.rsf.state.entity.support;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import uk.org.ponder.beanutil.BeanLocator;
@@ -51,8 +54,58 @@ public class EntityBeanLocatorImpl implements EntityBeanLocator {
     return togo;
   }
 
+  /**
+   * Fetches together those of the supplied entity IDs which have not already
+   * been delivered, should a batch fetch method have been configured.
+   * Entities absent from the batch will be fetched individually on demand.
+   */
+  public void prefetch(Collection IDs) {
+    if (sebl.batchFetchEL == null) {
+      return;
+    }
+    List tofetch = new ArrayList();
+    for (Iterator idit = IDs.iterator(); idit.hasNext();) {
+      String ID = (String) idit.next();
+      if (!ID.startsWith(NEW_PREFIX) && delivered.get(ID) == null
+          && !tofetch.contains(ID)) {
+        tofetch.add(ID);
+      }
+    }
+    if (tofetch.isEmpty()) {
+      return;
+    }
+    Object fetched = invokeBatch(sebl.batchFetchEL, tofetch);
+    if (!(fetched instanceof Map)) {
+      throw new IllegalArgumentException("Batch fetch method "
+          + sebl.batchFetchEL + " returned " + fetched
+          + " rather than a Map of ID to entity");
+    }
+    for (Iterator entryit = ((Map) fetched).entrySet().iterator(); entryit
+        .hasNext();) {
+      Map.Entry entry = (Map.Entry) entryit.next();
+      String ID = String.valueOf(entry.getKey());
+      if (entry.getValue() != null && delivered.get(ID) == null) {
+        delivered.put(ID, entry.getValue());
+      }
+    }
+  }
+
+  // Invokes the method at the end of the supplied EL with a single argument
+  private Object invokeBatch(String methodEL, Object argument) {
+    String penultimate = PathUtil.getToTailPath(methodEL);
+    String method = PathUtil.getTailPath(methodEL);
+    Object target = sebl.bma.getBeanValue(penultimate, beanlocator, null);
+    return sebl.reflectivecache.invokeMethod(target, method,
+        new Object[] { argument });
+  }
+
   public void saveAll() {
-    if (sebl.saveEL != null) {
+    if (sebl.batchSaveEL != null) {
+      if (!delivered.isEmpty()) {
+        invokeBatch(sebl.batchSaveEL, new ArrayList(delivered.values()));
+      }
+    }
+    else if (sebl.saveEL != null) {
       String penultimate = PathUtil.getToTailPath(sebl.saveEL);
       String savemethod = PathUtil.getTailPath(sebl.saveEL);
       Object saver = sebl.bma.getBeanValue(penultimate, beanlocator, null);
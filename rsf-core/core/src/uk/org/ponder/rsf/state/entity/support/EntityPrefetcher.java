@@ -0,0 +1,102 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.state.entity.support;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import uk.org.ponder.beanutil.BeanLocator;
+import uk.org.ponder.beanutil.CompiledELPath;
+import uk.org.ponder.util.Logger;
+
+/**
+ * Collects the entity IDs addressed by a set of EL paths, and fetches them
+ * together from those EntityBeanLocators which have been configured with a
+ * batch fetch method. Paths are of the form <code>beanname.ID.property</code>,
+ * where <code>beanname</code> names a {@link StaticEntityBeanLocatorImpl}.
+ * Other paths are ignored, and no other request beans are touched.
+ * <p>
+ * Prefetching is purely an optimisation - should a batch fetch fail, the
+ * failure is logged and the entities will be fetched individually on demand,
+ * when any error will be reported as usual.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class EntityPrefetcher {
+  // map of bean name to StaticEntityBeanLocatorImpl
+  private Map locators = new HashMap();
+
+  public void setLocators(List locators) {
+    Map newlocators = new HashMap();
+    for (int i = 0; i < locators.size(); ++i) {
+      StaticEntityBeanLocatorImpl sebl = (StaticEntityBeanLocatorImpl) locators
+          .get(i);
+      newlocators.put(sebl.beanName, sebl);
+    }
+    this.locators = newlocators;
+  }
+
+  /**
+   * Fetches all the entities addressed by the supplied EL paths which are
+   * not yet delivered, in a single call for each EntityBeanLocator.
+   *
+   * @param paths A collection of String EL paths, relative to the supplied
+   *          root.
+   * @param rbl The root request bean locator.
+   */
+  public void prefetch(Collection paths, BeanLocator rbl) {
+    Map IDsbyname = null;
+    for (Iterator pathit = paths.iterator(); pathit.hasNext();) {
+      String path = (String) pathit.next();
+      CompiledELPath compiled;
+      try {
+        compiled = CompiledELPath.compile(path);
+      }
+      catch (Exception e) {
+        // Faulty paths will be reported on use
+        continue;
+      }
+      if (compiled.size() < 2) {
+        continue;
+      }
+      String beanname = compiled.getSegment(0);
+      StaticEntityBeanLocatorImpl sebl = (StaticEntityBeanLocatorImpl) locators
+          .get(beanname);
+      if (sebl == null || sebl.batchFetchEL == null) {
+        continue;
+      }
+      if (IDsbyname == null) {
+        IDsbyname = new LinkedHashMap();
+      }
+      Collection IDs = (Collection) IDsbyname.get(beanname);
+      if (IDs == null) {
+        IDs = new LinkedHashSet();
+        IDsbyname.put(beanname, IDs);
+      }
+      IDs.add(compiled.getSegment(1));
+    }
+    if (IDsbyname == null) {
+      return;
+    }
+    for (Iterator nameit = IDsbyname.keySet().iterator(); nameit.hasNext();) {
+      String beanname = (String) nameit.next();
+      try {
+        Object locator = rbl.locateBean(beanname);
+        if (locator instanceof EntityBeanLocatorImpl) {
+          ((EntityBeanLocatorImpl) locator).prefetch((Collection) IDsbyname
+              .get(beanname));
+        }
+      }
+      catch (Exception e) {
+        Logger.log.warn("Error prefetching entities for bean " + beanname, e);
+      }
+    }
+  }
+}
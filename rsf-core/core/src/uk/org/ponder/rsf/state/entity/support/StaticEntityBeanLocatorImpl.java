@@ -32,6 +32,13 @@ import uk.org.ponder.rsf.state.entity.EntityNameInferrer;
  * which will return all the delivered entities back to persistence. If this is
  * not supplied, they are assumed to be persisted by some other means (perhaps
  * an auto-commit of some kind).
+ * <p/> Where the DAO can fetch or save many entities in a single call, a
+ * <code>batchFetchMethod</code> accepting a List of IDs and returning a Map
+ * of ID to entity, and a <code>batchSaveMethod</code> accepting a Collection
+ * of entities, may also be supplied. The IDs of all the entities addressed
+ * by the bindings of a submission or a rendered view are then collected by
+ * the {@link EntityPrefetcher} and fetched together, and <code>saveAll()</code>
+ * saves all delivered entities in one call.
  * 
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  * 
@@ -45,11 +52,13 @@ public class StaticEntityBeanLocatorImpl implements
   Class entityClazz;
   String saveEL;
   String removeEL;
+  String batchFetchEL;
+  String batchSaveEL;
+  String beanName;
 
   BeanModelAlterer bma;
   RSACBeanLocator RSACbeanlocator;
   ReflectiveCache reflectivecache;
-  private String beanName;
 
   public void setFetchMethod(String fetchEL) {
     this.fetchEL = fetchEL;
@@ -70,6 +79,14 @@ public class StaticEntityBeanLocatorImpl implements
   public void setRemoveMethod(String removeEL) {
     this.removeEL = removeEL;
   }
+
+  public void setBatchFetchMethod(String batchFetchEL) {
+    this.batchFetchEL = batchFetchEL;
+  }
+
+  public void setBatchSaveMethod(String batchSaveEL) {
+    this.batchSaveEL = batchSaveEL;
+  }
   
   public void setBeanModelAlterer(BeanModelAlterer bma) {
     this.bma = bma;
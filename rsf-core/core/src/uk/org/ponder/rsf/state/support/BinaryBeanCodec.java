@@ -0,0 +1,599 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.state.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import uk.org.ponder.iterationutil.EnumerationConverter;
+import uk.org.ponder.reflect.ReflectiveCache;
+import uk.org.ponder.rsf.state.TokenStateCodec;
+import uk.org.ponder.saxalizer.SAXalizerMappingContext;
+import uk.org.ponder.saxalizer.support.MethodAnalyser;
+import uk.org.ponder.saxalizer.support.SAXAccessMethod;
+import uk.org.ponder.util.Logger;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * A {@link TokenStateCodec} writing bean graphs in a compact binary form,
+ * driven by the same {@link MethodAnalyser} metadata as the
+ * {@link uk.org.ponder.reflect.DeepBeanCloner} rather than by Java
+ * serialization. Leaf values are written through the leaf parser of the
+ * mapping context, with the commonest types written directly in binary.
+ * Class and property names are written once per payload and referred to by
+ * index thereafter, and objects reachable by more than one path (including
+ * cycles) are restored with their sharing intact.
+ * <p>
+ * As with the cloner, every non-leaf object is expected to be
+ * default-constructible (including collections), and only properties which
+ * may both be read and written are preserved. Any graph containing an object
+ * which cannot be constructed in this way, or a bean with state which would
+ * not be restored - a property which may be read but not written, or a field
+ * not mapped by a read-write property of the same name - is reported as
+ * unencodable, so that it may be stored as it is. Payloads larger than
+ * <code>compressionThreshold</code> bytes are additionally deflated.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ *
+ */
+
+public class BinaryBeanCodec implements TokenStateCodec {
+  private static final byte NULL = 0;
+  private static final byte REF = 1;
+  private static final byte STRING = 2;
+  private static final byte INTEGER = 3;
+  private static final byte LONG = 4;
+  private static final byte TRUE = 5;
+  private static final byte FALSE = 6;
+  private static final byte LEAF = 7;
+  private static final byte COLLECTION = 8;
+  private static final byte MAP = 9;
+  private static final byte ARRAY = 10;
+  private static final byte BEAN = 11;
+  private static final byte DATE = 12;
+
+  private static final byte PLAIN = 0;
+  private static final byte DEFLATED = 1;
+
+  /** Thrown during encoding on meeting an object which cannot be restored */
+  private static class UnencodableException extends RuntimeException {
+    public UnencodableException(String message) {
+      super(message);
+    }
+
+    public Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+
+  private SAXalizerMappingContext mappingcontext;
+  private ReflectiveCache reflectivecache;
+  private boolean compress = true;
+  private int compressionthreshold = 512;
+
+  // Maps classes onto maps of property names to SAXAccessMethods
+  private Map propertycache;
+  // Maps classes onto Boolean.TRUE if they may be default constructed
+  private Map constructiblecache;
+  // Maps bean classes onto the reason their state cannot be restored, or ""
+  private Map restorablecache;
+  // Maps leaf classes onto Boolean.TRUE if their rendering parses back to
+  // the same class
+  private Map leafcache;
+
+  /** The mapping context supplying property metadata. This should not 
+   * depluralize container properties, as for the ELMappingContext, since
+   * otherwise they will appear not to be writeable.
+   */
+  public void setMappingContext(SAXalizerMappingContext mappingcontext) {
+    this.mappingcontext = mappingcontext;
+  }
+
+  public void setReflectiveCache(ReflectiveCache reflectivecache) {
+    this.reflectivecache = reflectivecache;
+    propertycache = reflectivecache.getConcurrentMap(1);
+    constructiblecache = reflectivecache.getConcurrentMap(1);
+    restorablecache = reflectivecache.getConcurrentMap(1);
+    leafcache = reflectivecache.getConcurrentMap(1);
+  }
+
+  /** Whether encoded payloads over the compression threshold will be
+   * deflated. Defaults to <code>true</code>.
+   */
+  public void setCompress(boolean compress) {
+    this.compress = compress;
+  }
+
+  /** The size in bytes of payload above which it will be deflated, if
+   * compression is enabled. Defaults to 512.
+   */
+  public void setCompressionThreshold(int compressionthreshold) {
+    this.compressionthreshold = compressionthreshold;
+  }
+
+  public byte[] encode(Object state) {
+    try {
+      Encoder encoder = new Encoder();
+      encoder.writeObject(state);
+      encoder.out.flush();
+      byte[] body = encoder.bytes.toByteArray();
+      boolean deflate = compress && body.length > compressionthreshold;
+      ByteArrayOutputStream togo = new ByteArrayOutputStream(
+          deflate ? body.length / 4 + 16 : body.length + 1);
+      togo.write(deflate ? DEFLATED : PLAIN);
+      OutputStream bodyout = deflate ? new DeflaterOutputStream(togo) : togo;
+      bodyout.write(body);
+      bodyout.close();
+      return togo.toByteArray();
+    }
+    catch (UnencodableException e) {
+      Logger.log.info("Token state " + state + " cannot be encoded: "
+          + e.getMessage());
+      return null;
+    }
+    catch (Exception e) {
+      Logger.log.warn("Error encoding token state " + state, e);
+      return null;
+    }
+  }
+
+  public Object decode(byte[] encoded) {
+    try {
+      InputStream bodyin = new ByteArrayInputStream(encoded, 1,
+          encoded.length - 1);
+      if (encoded[0] == DEFLATED) {
+        bodyin = new InflaterInputStream(bodyin);
+      }
+      Decoder decoder = new Decoder(bodyin);
+      return decoder.readObject();
+    }
+    catch (Exception e) {
+      throw UniversalRuntimeException.accumulate(e,
+          "Error decoding token state of " + encoded.length + " bytes");
+    }
+  }
+
+  private Map getProperties(Class clazz) {
+    Map togo = (Map) propertycache.get(clazz);
+    if (togo == null) {
+      togo = new HashMap();
+      MethodAnalyser ma = mappingcontext.getAnalyser(clazz);
+      for (int i = 0; i < ma.allgetters.length; ++i) {
+        SAXAccessMethod sam = ma.allgetters[i];
+        if (sam.canGet() && sam.canSet()) {
+          togo.put(sam.tagname, sam);
+        }
+      }
+      propertycache.put(clazz, togo);
+    }
+    return togo;
+  }
+
+  private void checkConstructible(Class clazz) {
+    Boolean constructible = (Boolean) constructiblecache.get(clazz);
+    if (constructible == null) {
+      boolean canconstruct = false;
+      if (Modifier.isPublic(clazz.getModifiers())
+          && !Modifier.isAbstract(clazz.getModifiers())
+          && (clazz.getEnclosingClass() == null
+              || Modifier.isStatic(clazz.getModifiers()))) {
+        try {
+          Constructor constructor = clazz.getConstructor(SAXAccessMethod.emptyclazz);
+          canconstruct = Modifier.isPublic(constructor.getModifiers());
+        }
+        catch (NoSuchMethodException e) {
+        }
+      }
+      constructible = canconstruct ? Boolean.TRUE : Boolean.FALSE;
+      constructiblecache.put(clazz, constructible);
+    }
+    if (!constructible.booleanValue()) {
+      throw new UnencodableException(clazz
+          + " has no public default constructor");
+    }
+  }
+
+  /** Checks, once per class, that a leaf rendered by the leaf parser parses
+   * back to an object of its own class rather than to some superclass */
+  private void checkLeaf(Class clazz, String rendered) {
+    Boolean restorable = (Boolean) leafcache.get(clazz);
+    if (restorable == null) {
+      Object parsed = null;
+      try {
+        parsed = mappingcontext.generalLeafParser.parse(clazz, rendered);
+      }
+      catch (Exception e) {
+      }
+      restorable = parsed != null && parsed.getClass() == clazz ? Boolean.TRUE
+          : Boolean.FALSE;
+      leafcache.put(clazz, restorable);
+    }
+    if (!restorable.booleanValue()) {
+      throw new UnencodableException("leaf " + clazz
+          + " is not parsed back to its own class");
+    }
+  }
+
+  private void checkRestorable(Class clazz) {
+    String reason = (String) restorablecache.get(clazz);
+    if (reason == null) {
+      reason = "";
+      Map properties = getProperties(clazz);
+      MethodAnalyser ma = mappingcontext.getAnalyser(clazz);
+      for (int i = 0; i < ma.allgetters.length; ++i) {
+        SAXAccessMethod sam = ma.allgetters[i];
+        if (sam.canGet() && !sam.canSet()) {
+          reason = "property " + sam.tagname + " of " + clazz
+              + " may be read but not written";
+          break;
+        }
+      }
+      for (Class fieldclazz = clazz; reason.equals("")
+          && fieldclazz != Object.class; fieldclazz = fieldclazz
+          .getSuperclass()) {
+        Field[] fields = fieldclazz.getDeclaredFields();
+        for (int i = 0; i < fields.length; ++i) {
+          int modifiers = fields[i].getModifiers();
+          if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)
+              && !fields[i].isSynthetic()
+              && !properties.containsKey(fields[i].getName())) {
+            reason = "field " + fields[i].getName() + " of " + clazz
+                + " is not mapped by a read-write property";
+            break;
+          }
+        }
+      }
+      restorablecache.put(clazz, reason);
+    }
+    if (!reason.equals("")) {
+      throw new UnencodableException(reason);
+    }
+  }
+
+  private static Class loadClass(String classname) {
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    try {
+      if (loader != null) {
+        return Class.forName(classname, false, loader);
+      }
+    }
+    catch (ClassNotFoundException e) {
+    }
+    try {
+      return Class.forName(classname, false, BinaryBeanCodec.class
+          .getClassLoader());
+    }
+    catch (ClassNotFoundException e) {
+      throw UniversalRuntimeException.accumulate(e, "Class " + classname
+          + " of encoded token state could not be loaded");
+    }
+  }
+
+  private class Encoder {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    // Maps each non-leaf object written onto its index
+    IdentityHashMap objects = new IdentityHashMap();
+    // Maps class and property names written onto their index
+    Map names = new HashMap();
+
+    void writeVarInt(int value) throws IOException {
+      while ((value & ~0x7F) != 0) {
+        out.writeByte((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      out.writeByte(value);
+    }
+
+    void writeVarLong(long value) throws IOException {
+      // zigzag encoding keeps small negative numbers short
+      value = (value << 1) ^ (value >> 63);
+      while ((value & ~0x7FL) != 0) {
+        out.writeByte((int) (value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      out.writeByte((int) value);
+    }
+
+    void writeString(String string) throws IOException {
+      byte[] utf8 = string.getBytes("UTF-8");
+      writeVarInt(utf8.length);
+      out.write(utf8);
+    }
+
+    void writeName(String name) throws IOException {
+      Integer index = (Integer) names.get(name);
+      if (index == null) {
+        writeVarInt(0);
+        writeString(name);
+        names.put(name, Integer.valueOf(names.size() + 1));
+      }
+      else {
+        writeVarInt(index.intValue());
+      }
+    }
+
+    /** Returns <code>true</code> if the object has been written before, in
+     * which case a reference to it has been written */
+    boolean writeReference(Object object) throws IOException {
+      Integer index = (Integer) objects.get(object);
+      if (index != null) {
+        out.writeByte(REF);
+        writeVarInt(index.intValue());
+        return true;
+      }
+      objects.put(object, Integer.valueOf(objects.size()));
+      return false;
+    }
+
+    void writeObject(Object object) throws IOException {
+      if (object == null) {
+        out.writeByte(NULL);
+        return;
+      }
+      Class clazz = object.getClass();
+      if (clazz == String.class) {
+        out.writeByte(STRING);
+        writeString((String) object);
+      }
+      else if (clazz == Integer.class) {
+        out.writeByte(INTEGER);
+        writeVarLong(((Integer) object).intValue());
+      }
+      else if (clazz == Long.class) {
+        out.writeByte(LONG);
+        writeVarLong(((Long) object).longValue());
+      }
+      else if (clazz == Boolean.class) {
+        out.writeByte(((Boolean) object).booleanValue() ? TRUE : FALSE);
+      }
+      else if (clazz == Date.class || clazz == java.sql.Date.class
+          || clazz == java.sql.Time.class || clazz == Timestamp.class) {
+        // written exactly, since the leaf parser renders no finer than the
+        // millisecond and parses back only to java.util.Date
+        out.writeByte(DATE);
+        writeName(clazz.getName());
+        writeVarLong(((Date) object).getTime());
+        if (clazz == Timestamp.class) {
+          writeVarInt(((Timestamp) object).getNanos());
+        }
+      }
+      else if (mappingcontext.generalLeafParser.isLeafType(clazz)) {
+        String rendered = mappingcontext.generalLeafParser.render(object);
+        checkLeaf(clazz, rendered);
+        out.writeByte(LEAF);
+        writeName(clazz.getName());
+        writeString(rendered);
+      }
+      else if (writeReference(object)) {
+        return;
+      }
+      else if (clazz.isArray()) {
+        out.writeByte(ARRAY);
+        writeName(clazz.getName());
+        int length = Array.getLength(object);
+        writeVarInt(length);
+        for (int i = 0; i < length; ++i) {
+          writeObject(Array.get(object, i));
+        }
+      }
+      else if (object instanceof Collection) {
+        checkConstructible(clazz);
+        Collection collection = (Collection) object;
+        out.writeByte(COLLECTION);
+        writeName(clazz.getName());
+        writeVarInt(collection.size());
+        for (Iterator it = collection.iterator(); it.hasNext();) {
+          writeObject(it.next());
+        }
+      }
+      else if (object instanceof Map) {
+        checkConstructible(clazz);
+        Map map = (Map) object;
+        out.writeByte(MAP);
+        writeName(clazz.getName());
+        writeVarInt(map.size());
+        for (Iterator it = map.entrySet().iterator(); it.hasNext();) {
+          Map.Entry entry = (Map.Entry) it.next();
+          writeObject(entry.getKey());
+          writeObject(entry.getValue());
+        }
+      }
+      else {
+        checkConstructible(clazz);
+        checkRestorable(clazz);
+        out.writeByte(BEAN);
+        writeName(clazz.getName());
+        Map properties = getProperties(clazz);
+        writeVarInt(properties.size());
+        for (Iterator it = properties.values().iterator(); it.hasNext();) {
+          SAXAccessMethod sam = (SAXAccessMethod) it.next();
+          writeName(sam.tagname);
+          Object child = sam.getChildObject(object);
+          if (sam.isexactsetter) {
+            List children = new ArrayList();
+            for (Enumeration childenum = EnumerationConverter
+                .getEnumeration(child); childenum.hasMoreElements();) {
+              children.add(childenum.nextElement());
+            }
+            writeVarInt(children.size());
+            for (int i = 0; i < children.size(); ++i) {
+              writeObject(children.get(i));
+            }
+          }
+          else {
+            writeObject(child);
+          }
+        }
+      }
+    }
+  }
+
+  private class Decoder {
+    DataInputStream in;
+    List objects = new ArrayList();
+    List names = new ArrayList();
+
+    Decoder(InputStream in) {
+      this.in = new DataInputStream(in);
+    }
+
+    int readVarInt() throws IOException {
+      int value = 0;
+      for (int shift = 0;; shift += 7) {
+        int b = in.readUnsignedByte();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+    }
+
+    long readVarLong() throws IOException {
+      long value = 0;
+      for (int shift = 0;; shift += 7) {
+        int b = in.readUnsignedByte();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return (value >>> 1) ^ -(value & 1);
+        }
+      }
+    }
+
+    String readString() throws IOException {
+      byte[] utf8 = new byte[readVarInt()];
+      in.readFully(utf8);
+      return new String(utf8, "UTF-8");
+    }
+
+    String readName() throws IOException {
+      int index = readVarInt();
+      if (index == 0) {
+        String name = readString();
+        names.add(name);
+        return name;
+      }
+      return (String) names.get(index - 1);
+    }
+
+    Object readObject() throws IOException {
+      byte tag = in.readByte();
+      switch (tag) {
+      case NULL:
+        return null;
+      case REF:
+        return objects.get(readVarInt());
+      case STRING:
+        return readString();
+      case INTEGER:
+        return Integer.valueOf((int) readVarLong());
+      case LONG:
+        return Long.valueOf(readVarLong());
+      case TRUE:
+        return Boolean.TRUE;
+      case FALSE:
+        return Boolean.FALSE;
+      case LEAF: {
+        Class clazz = loadClass(readName());
+        return mappingcontext.generalLeafParser.parse(clazz, readString());
+      }
+      case DATE: {
+        String classname = readName();
+        long time = readVarLong();
+        if (classname.equals(Timestamp.class.getName())) {
+          Timestamp timestamp = new Timestamp(time);
+          timestamp.setNanos(readVarInt());
+          return timestamp;
+        }
+        else if (classname.equals(java.sql.Date.class.getName())) {
+          return new java.sql.Date(time);
+        }
+        else if (classname.equals(java.sql.Time.class.getName())) {
+          return new java.sql.Time(time);
+        }
+        return new Date(time);
+      }
+      case ARRAY: {
+        Class clazz = loadClass(readName());
+        int length = readVarInt();
+        Object array = Array.newInstance(clazz.getComponentType(), length);
+        objects.add(array);
+        for (int i = 0; i < length; ++i) {
+          Array.set(array, i, readObject());
+        }
+        return array;
+      }
+      case COLLECTION: {
+        Collection collection = (Collection) reflectivecache
+            .construct(loadClass(readName()));
+        objects.add(collection);
+        int size = readVarInt();
+        for (int i = 0; i < size; ++i) {
+          collection.add(readObject());
+        }
+        return collection;
+      }
+      case MAP: {
+        Map map = (Map) reflectivecache.construct(loadClass(readName()));
+        objects.add(map);
+        int size = readVarInt();
+        for (int i = 0; i < size; ++i) {
+          Object key = readObject();
+          map.put(key, readObject());
+        }
+        return map;
+      }
+      case BEAN: {
+        Class clazz = loadClass(readName());
+        Object bean = reflectivecache.construct(clazz);
+        objects.add(bean);
+        Map properties = getProperties(clazz);
+        int size = readVarInt();
+        for (int i = 0; i < size; ++i) {
+          String name = readName();
+          SAXAccessMethod sam = (SAXAccessMethod) properties.get(name);
+          if (sam == null) {
+            throw new UniversalRuntimeException("Property " + name
+                + " of encoded state is not writeable for " + clazz);
+          }
+          if (sam.isexactsetter) {
+            int children = readVarInt();
+            for (int j = 0; j < children; ++j) {
+              sam.setChildObject(bean, readObject());
+            }
+          }
+          else {
+            sam.setChildObject(bean, readObject());
+          }
+        }
+        return bean;
+      }
+      default:
+        throw new UniversalRuntimeException("Unrecognised tag " + tag
+            + " in encoded token state");
+      }
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.state.support;
+
+import java.io.Serializable;
+
+import uk.org.ponder.rsf.state.TokenStateCodec;
+import uk.org.ponder.rsf.state.TokenStateHolder;
+
+/**
+ * A TokenStateHolder which stores state in another TokenStateHolder, having
+ * first passed it through a {@link TokenStateCodec}. This trades a little
+ * processing on preservation and restoration for a much smaller footprint in
+ * the target, which is of most benefit where this is the HTTP Session, since
+ * the encoded form is also far cheaper to replicate. State is only decoded
+ * when it is actually fetched. Any state which the codec reports it cannot
+ * encode is stored unchanged.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ * 
+ */
+
+public class EncodingTSH implements TokenStateHolder {
+  /** The form in which encoded state is stored in the target holder */
+  public static class EncodedTokenState implements Serializable {
+    public byte[] encoded;
+
+    public EncodedTokenState(byte[] encoded) {
+      this.encoded = encoded;
+    }
+  }
+
+  private TokenStateHolder target;
+  private TokenStateCodec codec;
+
+  public void setTargetTokenStateHolder(TokenStateHolder target) {
+    this.target = target;
+  }
+
+  public void setTokenStateCodec(TokenStateCodec codec) {
+    this.codec = codec;
+  }
+
+  public Object getTokenState(String tokenID) {
+    Object stored = target.getTokenState(tokenID);
+    if (stored instanceof EncodedTokenState) {
+      return codec.decode(((EncodedTokenState) stored).encoded);
+    }
+    return stored;
+  }
+
+  public void putTokenState(String tokenID, Object trs) {
+    byte[] encoded = codec.encode(trs);
+    target.putTokenState(tokenID, encoded == null ? trs
+        : new EncodedTokenState(encoded));
+  }
+
+  public void clearTokenState(String tokenID) {
+    target.clearTokenState(tokenID);
+  }
+
+  public String getId() {
+    return target.getId();
+  }
+
+}
@@ -4,6 +4,7 @@
 package uk.org.ponder.rsf.state.support;
 
 import uk.org.ponder.hashutil.EighteenIDGenerator;
+import uk.org.ponder.hashutil.IDGenerator;
 import uk.org.ponder.messageutil.TargettedMessageList;
 import uk.org.ponder.rsf.request.RequestSubmittedValueCache;
 import uk.org.ponder.rsf.state.TokenStateHolder;
@@ -102,7 +103,14 @@ public class ErrorStateManager {
     this.requestrsvc = requestrsvc;
   }
 
-  private static EighteenIDGenerator idgenerator = new EighteenIDGenerator();
+  // used only where no IDGenerator is injected
+  private static IDGenerator defaultidgenerator = new EighteenIDGenerator();
+  
+  private IDGenerator idgenerator = defaultidgenerator;
+
+  public void setIDGenerator(IDGenerator idgenerator) {
+    this.idgenerator = idgenerator;
+  }
 
   public String allocateToken() {
     return idgenerator.generateID();
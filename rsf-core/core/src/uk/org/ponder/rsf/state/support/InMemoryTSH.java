@@ -3,8 +3,14 @@
  */
 package uk.org.ponder.rsf.state.support;
 
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import uk.org.ponder.reflect.ReflectiveCache;
 import uk.org.ponder.rsf.state.TokenStateHolder;
@@ -16,35 +22,124 @@ import uk.org.ponder.util.Logger;
  * perpetually expired on a TTL basis. More rapid expiry may occur through
  * explicit session-closing and wizard-ending procedures.
  * <p>
+ * Each entry expires once it has gone unread for <code>expirySeconds</code>,
+ * through the JVM-wide {@link TokenExpiryWheel}. Where <code>maxEntries</code>
+ * is set, the holder is additionally bounded in size - on overflow, a batch of
+ * the least recently used entries is evicted.
+ * <p>
+ * A holder should be defined with <code>init</code> and <code>destroy</code>
+ * as its init and destroy methods. One defined without an init method 
+ * attaches to the wheel when first written to, but once destroyed it will
+ * accept no further state until explicitly initialised again.
+ * <p>
  * High-requirement applications would presumably reimplement this class to push
  * this state into a database or some sort of clustered broadcast.
  * 
- * NB!! Expiry not yet implemented! Do not use this class in production!
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  */
 public class InMemoryTSH implements TokenStateHolder {
+  // The fraction of maxEntries evicted in one pass, so that the cost of 
+  // scanning for the least recently used entries is amortised
+  private static final int EVICTION_BATCH_DIVISOR = 16;
+
+  private class Entry extends TokenState implements TokenExpiryWheel.Expirable {
+    volatile long lastaccess;
+    volatile long expirymillis;
+
+    public long getExpiry() {
+      return destroyed || tokencache.get(tokenID) != this ? 0 : expirymillis;
+    }
+
+    public void expire() {
+      if (remove(this)) {
+        expired.incrementAndGet();
+      }
+    }
+  }
+
+  private static final Comparator RECENCY_DESCENDING = new Comparator() {
+    public int compare(Object o1, Object o2) {
+      long a1 = ((Entry) o1).lastaccess;
+      long a2 = ((Entry) o2).lastaccess;
+      return a1 < a2 ? 1 : (a1 == a2 ? 0 : -1);
+    }
+  };
 
   // a map of String error token IDs to ErrorStateEntries.
-  // the idea is that this be a timeout cache which is cleared out every
-  // hour or so... all this functionality to be moved to another class.
   private Map tokencache;
 
   private int expiryseconds;
+  private int maxentries = 0;
+  private volatile boolean destroyed;
+  private volatile boolean attached;
+
+  private AtomicBoolean evicting = new AtomicBoolean();
+  private AtomicLong expired = new AtomicLong();
+  private AtomicLong evicted = new AtomicLong();
 
   public void setReflectiveCache(ReflectiveCache reflectiveCache) {
     //this.reflectiveCache = reflectiveCache;
     tokencache = reflectiveCache.getConcurrentMap(16);
   }
 
+  /**
+   * The maximum number of entries to be held, or 0 (the default) for no limit
+   * other than expiry.
+   */
+  public void setMaxEntries(int maxentries) {
+    this.maxentries = maxentries;
+  }
+
+  public void setExpirySeconds(int seconds) {
+    this.expiryseconds = seconds;
+  }
+
+  /** Attaches this holder to the JVM-wide expiry wheel **/
+  public synchronized void init() {
+    if (!attached) {
+      TokenExpiryWheel.instance().attach();
+      attached = true;
+      destroyed = false;
+    }
+  }
+
+  /** Detaches from the expiry wheel, discarding all held state **/
+  public synchronized void destroy() {
+    destroyed = true;
+    if (attached) {
+      TokenExpiryWheel.instance().detach();
+      attached = false;
+    }
+    tokencache.clear();
+  }
+
+  // Restarting the wheel's thread after destroy would leave it running once 
+  // the webapp has gone
+  private synchronized void attachOnFirstUse() {
+    if (destroyed) {
+      throw new IllegalStateException(
+          "Cannot store token state in an InMemoryTSH which has been destroyed");
+    }
+    init();
+  }
+
+  // an expirySeconds of 0 or less indicates that entries never expire
+  private long expiryFrom(long now) {
+    return expiryseconds > 0 ? now + expiryseconds * 1000L : Long.MAX_VALUE;
+  }
+
   TokenState getTokenStateRaw(String tokenID) {
     return (TokenState) tokencache.get(tokenID);
   }
 
-  // TODO: The plan is that this thread is JVM-wide, and InMemoryTSH
-  // are in charge of attaching and detaching their caches to it on init and
-  // destruction. Managing the necessary IPC will be an annoyance. ANDY!!
-  private void launchExpirralThread() {
-
+  private boolean remove(Entry entry) {
+    if (tokencache instanceof ConcurrentMap) {
+      return ((ConcurrentMap) tokencache).remove(entry.tokenID, entry);
+    }
+    else if (tokencache.get(entry.tokenID) == entry) {
+      return tokencache.remove(entry.tokenID) != null;
+    }
+    return false;
   }
 
   /**
@@ -53,21 +148,82 @@ public class InMemoryTSH implements TokenStateHolder {
    * @return The required TRS object, or <code>null</code> if none is stored.
    */
   public Object getTokenState(String tokenID) {
-    TokenState state = getTokenStateRaw(tokenID);
-    return state == null ? null
-        : state.payload;
+    Entry entry = (Entry) tokencache.get(tokenID);
+    if (entry == null) {
+      return null;
+    }
+    long now = System.currentTimeMillis();
+    if (entry.expirymillis <= now) {
+      // expired, but not yet visited by the wheel
+      entry.expire();
+      return null;
+    }
+    entry.lastaccess = now;
+    entry.expirymillis = expiryFrom(now);
+    return entry.payload;
   }
 
-  /** Stores the supplied TokenRequestState object in the repository */
+  /**
+   * Stores the supplied TokenRequestState object in the repository
+   * 
+   * @throws IllegalStateException if this holder has been destroyed
+   */
   public void putTokenState(String tokenID, Object payload) {
-  
-    TokenState trs = new TokenState();
+    if (!attached) {
+      attachOnFirstUse();
+    }
+    Entry trs = new Entry();
     trs.payload = payload;
     trs.tokenID = tokenID;
-    Date current = new Date();
-    long forwardsecs = current.getTime() + expiryseconds * 1000;
-    trs.expiry = new Date(forwardsecs);
+    long now = System.currentTimeMillis();
+    trs.lastaccess = now;
+    trs.expirymillis = expiryFrom(now);
+    trs.expiry = new Date(trs.expirymillis);
     tokencache.put(trs.tokenID, trs);
+    if (expiryseconds > 0) {
+      TokenExpiryWheel.instance().schedule(trs);
+    }
+    if (maxentries > 0 && tokencache.size() > maxentries) {
+      evictLRU();
+    }
+  }
+
+  // Scan for and remove the least recently used batch of entries. Only one 
+  // thread evicts at a time - others proceed, leaving the holder briefly over
+  // its limit.
+  private void evictLRU() {
+    if (!evicting.compareAndSet(false, true)) return;
+    try {
+      int excess = tokencache.size() - maxentries;
+      int batch = Math.max(excess, maxentries / EVICTION_BATCH_DIVISOR);
+      if (excess <= 0 || batch <= 0) return;
+      // a max-heap on recency holding the oldest "batch" entries seen
+      PriorityQueue oldest = new PriorityQueue(batch + 1, RECENCY_DESCENDING);
+      for (Iterator it = tokencache.values().iterator(); it.hasNext();) {
+        Entry entry = (Entry) it.next();
+        if (oldest.size() < batch) {
+          oldest.add(entry);
+        }
+        else if (entry.lastaccess < ((Entry) oldest.peek()).lastaccess) {
+          oldest.poll();
+          oldest.add(entry);
+        }
+      }
+      int removed = 0;
+      for (Iterator it = oldest.iterator(); it.hasNext();) {
+        if (remove((Entry) it.next())) {
+          ++removed;
+        }
+      }
+      evicted.addAndGet(removed);
+      if (Logger.log.isDebugEnabled()) {
+        Logger.log.debug("Evicted " + removed
+            + " least recently used token states from InMemoryTSH");
+      }
+    }
+    finally {
+      evicting.set(false);
+    }
   }
 
   public void clearTokenState(String tokenID) {
@@ -77,9 +233,19 @@ public class InMemoryTSH implements TokenStateHolder {
     tokencache.remove(tokenID);
   }
 
+  /** The number of entries currently held **/
+  public int getSize() {
+    return tokencache.size();
+  }
+
+  /** The number of entries removed through expiry **/
+  public long getExpiredCount() {
+    return expired.get();
+  }
 
-  public void setExpirySeconds(int seconds) {
-    this.expiryseconds = seconds;
+  /** The number of entries evicted to keep within maxEntries **/
+  public long getEvictedCount() {
+    return evicted.get();
   }
 
   public String getId() {
@@ -0,0 +1,637 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.state.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.servlet.ServletContext;
+
+import org.springframework.web.context.ServletContextAware;
+
+import uk.org.ponder.rsf.state.TokenStateCodec;
+import uk.org.ponder.rsf.state.TokenStateHolder;
+import uk.org.ponder.util.Logger;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * A TokenStateHolder which persists state to a log-structured file on local
+ * disk, so that flows, errors and scopes in progress survive a restart of the
+ * JVM. The file is memory-mapped, and every write appends a record to it - an
+ * index held in memory maps each token onto its latest record. Each record
+ * carries a checksum and its length is written last, so that on startup the
+ * file may be replayed up to the last complete record, and any record torn by
+ * a crash is discarded.
+ * <p>
+ * Payloads are written by any configured {@link TokenStateCodec}, falling back
+ * to Java serialization of graphs consisting only of classes within the
+ * <code>serializablePackages</code>, which are also the only classes which
+ * will be read back. State which can be written by neither is held in
+ * memory only. An entry expires once it has gone unread for
+ * <code>expirySeconds</code> - reads update the access time held in the
+ * record, so that this applies across restarts. Expired entries are removed
+ * on compaction, or when next read, and those held in memory only are
+ * additionally swept out by writes once in each expiry period. Once the file fills, its live
+ * records are compacted into a fresh file, growing it if at least half of the
+ * space is still in use, which then atomically replaces the old one.
+ * <p>
+ * Only one JVM may use a given directory at once. Since the file is trusted
+ * on startup, the directory should be private to the application - where none
+ * is configured, the temporary directory of the webapp is used.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ *
+ */
+
+public class MappedFileTSH implements TokenStateHolder, ServletContextAware {
+  // length, checksum, last access time, type, key length
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 1 + 4;
+  private static final int CHECKSUM_OFFSET = 4;
+  private static final int ACCESS_OFFSET = 8;
+  // the checksum covers the record from its type onwards
+  private static final int CHECKED_OFFSET = 16;
+
+  private static final byte TYPE_ENCODED = 1;
+  private static final byte TYPE_SERIALIZED = 2;
+  private static final byte TYPE_CLEARED = 3;
+
+  private static class IndexEntry {
+    int offset;
+    int length;
+    long lastaccess;
+    // state which could not be written to the file
+    Object unpersisted;
+  }
+
+  /** The packages whose classes may be written with Java serialization by
+   * default */
+  public static final String[] DEFAULT_SERIALIZABLE_PACKAGES = new String[] {
+      "java.lang", "java.util", "java.math", "java.sql", "uk.org.ponder.**" };
+
+  private String directory;
+  private File contexttempdir;
+  private String[] serializablepackages = DEFAULT_SERIALIZABLE_PACKAGES;
+  private String filename = "tokenstate.log";
+  private int expiryseconds;
+  private int initialcapacity = 4 * 1024 * 1024;
+  private int maxcapacity = 256 * 1024 * 1024;
+  private boolean syncwrites = false;
+  private TokenStateCodec codec;
+
+  private File datafile;
+  private RandomAccessFile lockfile;
+  private FileLock filelock;
+  private RandomAccessFile file;
+  private MappedByteBuffer buffer;
+  private int capacity;
+  private int writepos;
+  // bytes in the file occupied by records no longer live
+  private int garbage;
+  private int compactions;
+  private long lastsweep = System.currentTimeMillis();
+
+  // Maps token IDs onto IndexEntries, guarded by this
+  private Map index = new HashMap();
+
+  /** The directory in which the state file is held, which will be created if
+   * necessary. Defaults to <code>rsf-tokenstate</code> within the temporary
+   * directory of the webapp, <code>javax.servlet.context.tempdir</code> - 
+   * outside a webapp, a directory must be configured.
+   */
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  public void setServletContext(ServletContext servletcontext) {
+    contexttempdir = (File) servletcontext
+        .getAttribute("javax.servlet.context.tempdir");
+  }
+
+  /** The packages whose classes may be written to and read from the state
+   * file with Java serialization. A class matches an entry naming its own
+   * package, or an entry ending in <code>.**</code> naming any enclosing
+   * package. Defaults to {@link #DEFAULT_SERIALIZABLE_PACKAGES}, so that
+   * applications persisting state of their own classes without a 
+   * {@link TokenStateCodec} must supply their packages here.
+   */
+  public void setSerializablePackages(String[] serializablepackages) {
+    this.serializablepackages = serializablepackages;
+  }
+
+  /** The name of the state file within the directory. Defaults to
+   * <code>tokenstate.log</code>.
+   */
+  public void setFileName(String filename) {
+    this.filename = filename;
+  }
+
+  /** The number of seconds after its last access that an entry expires. A
+   * value of 0 or less will never expire entries.
+   */
+  public void setExpirySeconds(int seconds) {
+    this.expiryseconds = seconds;
+  }
+
+  /** The size in bytes of a newly created state file. Defaults to 4Mb. */
+  public void setInitialCapacity(int initialcapacity) {
+    this.initialcapacity = initialcapacity;
+  }
+
+  /** The size in bytes beyond which the state file will not grow, at which
+   * point further writes will fail. Defaults to 256Mb.
+   */
+  public void setMaxCapacity(int maxcapacity) {
+    this.maxcapacity = maxcapacity;
+  }
+
+  /** Whether every write is forced to disk before returning. Defaults to
+   * <code>false</code>, in which case only the operating system crashing
+   * (rather than the JVM) can lose recent writes.
+   */
+  public void setSyncWrites(boolean syncwrites) {
+    this.syncwrites = syncwrites;
+  }
+
+  /** A codec with which state is written in preference to Java
+   * serialization */
+  public void setTokenStateCodec(TokenStateCodec codec) {
+    this.codec = codec;
+  }
+
+  public synchronized void init() {
+    if (directory == null) {
+      if (contexttempdir == null) {
+        throw new UniversalRuntimeException(
+            "No directory has been configured for the token state file");
+      }
+      directory = new File(contexttempdir, "rsf-tokenstate").getPath();
+    }
+    try {
+      File dir = new File(directory);
+      dir.mkdirs();
+      lockfile = new RandomAccessFile(new File(dir, filename + ".lock"), "rw");
+      filelock = lockfile.getChannel().tryLock();
+      if (filelock == null) {
+        throw new UniversalRuntimeException("Token state directory "
+            + directory + " is in use by another process");
+      }
+      datafile = new File(dir, filename);
+      // an interrupted compaction leaves the original file intact
+      new File(dir, filename + ".compact").delete();
+      file = new RandomAccessFile(datafile, "rw");
+      if (file.length() == 0) {
+        file.setLength(initialcapacity);
+      }
+      capacity = (int) file.length();
+      buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+          capacity);
+      recover();
+    }
+    catch (Exception e) {
+      destroy();
+      throw UniversalRuntimeException.accumulate(e,
+          "Error opening token state file in " + directory);
+    }
+  }
+
+  public synchronized void destroy() {
+    try {
+      if (buffer != null) {
+        buffer.force();
+        buffer = null;
+      }
+      if (file != null) {
+        file.close();
+        file = null;
+      }
+      if (filelock != null) {
+        filelock.release();
+        filelock = null;
+      }
+      if (lockfile != null) {
+        lockfile.close();
+        lockfile = null;
+      }
+    }
+    catch (IOException e) {
+      Logger.log.warn("Error closing token state file " + datafile, e);
+    }
+  }
+
+  private void recover() {
+    int pos = 0;
+    int records = 0;
+    while (pos + HEADER_SIZE <= capacity) {
+      int length = buffer.getInt(pos);
+      if (length < HEADER_SIZE || length > capacity - pos
+          || buffer.getInt(pos + CHECKSUM_OFFSET) != checksum(buffer, pos, length)) {
+        break;
+      }
+      int keylength = buffer.getInt(pos + HEADER_SIZE - 4);
+      if (keylength < 0 || keylength > length - HEADER_SIZE) {
+        break;
+      }
+      String key = readKey(pos, keylength);
+      IndexEntry old;
+      if (buffer.get(pos + CHECKED_OFFSET) == TYPE_CLEARED) {
+        old = (IndexEntry) index.remove(key);
+        garbage += length;
+      }
+      else {
+        IndexEntry entry = new IndexEntry();
+        entry.offset = pos;
+        entry.length = length;
+        entry.lastaccess = buffer.getLong(pos + ACCESS_OFFSET);
+        old = (IndexEntry) index.put(key, entry);
+      }
+      if (old != null) {
+        garbage += old.length;
+      }
+      pos += length;
+      ++records;
+    }
+    writepos = pos;
+    // clear any torn record, so that it cannot be mistaken for a later one
+    byte[] zeroes = new byte[4096];
+    ByteBuffer tail = buffer.duplicate();
+    tail.position(pos);
+    while (tail.hasRemaining()) {
+      tail.put(zeroes, 0, Math.min(zeroes.length, tail.remaining()));
+    }
+    long now = System.currentTimeMillis();
+    for (Iterator it = index.values().iterator(); it.hasNext();) {
+      IndexEntry entry = (IndexEntry) it.next();
+      if (isExpired(entry, now)) {
+        garbage += entry.length;
+        it.remove();
+      }
+    }
+    Logger.log.info("Recovered " + index.size() + " token states from "
+        + records + " records in " + datafile);
+  }
+
+  private static int checksum(ByteBuffer source, int offset, int length) {
+    ByteBuffer checked = source.duplicate();
+    checked.limit(offset + length);
+    checked.position(offset + CHECKED_OFFSET);
+    CRC32 crc = new CRC32();
+    crc.update(checked);
+    return (int) crc.getValue();
+  }
+
+  private String readKey(int offset, int keylength) {
+    byte[] key = new byte[keylength];
+    ByteBuffer source = buffer.duplicate();
+    source.position(offset + HEADER_SIZE);
+    source.get(key);
+    try {
+      return new String(key, "UTF-8");
+    }
+    catch (IOException e) {
+      throw UniversalRuntimeException.accumulate(e);
+    }
+  }
+
+  private boolean isExpired(IndexEntry entry, long now) {
+    return expiryseconds > 0
+        && now - entry.lastaccess > expiryseconds * 1000L;
+  }
+
+  private void append(String tokenID, byte type, byte[] payload,
+      IndexEntry entry) throws IOException {
+    byte[] key = tokenID.getBytes("UTF-8");
+    int length = HEADER_SIZE + key.length + payload.length;
+    if (writepos + length > capacity) {
+      compact(length);
+    }
+    int offset = writepos;
+    ByteBuffer record = buffer.duplicate();
+    record.position(offset + CHECKED_OFFSET);
+    record.put(type);
+    record.putInt(key.length);
+    record.put(key);
+    record.put(payload);
+    buffer.putLong(offset + ACCESS_OFFSET, entry.lastaccess);
+    buffer.putInt(offset + CHECKSUM_OFFSET, checksum(buffer, offset, length));
+    // the length is written last, so that the record only becomes visible
+    // to recovery once complete
+    buffer.putInt(offset, length);
+    if (syncwrites) {
+      buffer.force();
+    }
+    writepos += length;
+    entry.offset = offset;
+    entry.length = length;
+  }
+
+  private void compact(int required) throws IOException {
+    long now = System.currentTimeMillis();
+    int live = 0;
+    for (Iterator it = index.values().iterator(); it.hasNext();) {
+      IndexEntry entry = (IndexEntry) it.next();
+      if (isExpired(entry, now)) {
+        it.remove();
+      }
+      else if (entry.unpersisted == null) {
+        live += entry.length;
+      }
+    }
+    long newcapacity = capacity;
+    while ((live + required) * 2L > newcapacity && newcapacity < maxcapacity) {
+      newcapacity = Math.min(newcapacity * 2, maxcapacity);
+    }
+    if (live + required > newcapacity) {
+      throw new UniversalRuntimeException("Token state file " + datafile
+          + " has reached its maximum capacity of " + maxcapacity + " bytes");
+    }
+    File compactfile = new File(datafile.getPath() + ".compact");
+    RandomAccessFile newfile = new RandomAccessFile(compactfile, "rw");
+    MappedByteBuffer newbuffer;
+    Map newoffsets = new HashMap();
+    int pos = 0;
+    try {
+      newfile.setLength(newcapacity);
+      newbuffer = newfile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+          newcapacity);
+      for (Iterator it = index.values().iterator(); it.hasNext();) {
+        IndexEntry entry = (IndexEntry) it.next();
+        if (entry.unpersisted == null) {
+          ByteBuffer source = buffer.duplicate();
+          source.limit(entry.offset + entry.length);
+          source.position(entry.offset);
+          newbuffer.position(pos);
+          newbuffer.put(source);
+          newbuffer.putLong(pos + ACCESS_OFFSET, entry.lastaccess);
+          newoffsets.put(entry, Integer.valueOf(pos));
+          pos += entry.length;
+        }
+      }
+      newbuffer.force();
+    }
+    catch (IOException e) {
+      newfile.close();
+      compactfile.delete();
+      throw e;
+    }
+    Files.move(compactfile.toPath(), datafile.toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    for (Iterator it = newoffsets.entrySet().iterator(); it.hasNext();) {
+      Map.Entry mapentry = (Map.Entry) it.next();
+      ((IndexEntry) mapentry.getKey()).offset =
+        ((Integer) mapentry.getValue()).intValue();
+    }
+    file.close();
+    file = newfile;
+    buffer = newbuffer;
+    capacity = (int) newcapacity;
+    writepos = pos;
+    garbage = 0;
+    ++compactions;
+    Logger.log.info("Compacted token state file " + datafile + " to " + pos
+        + " bytes of " + capacity);
+  }
+
+  // Entries held only in memory take no space in the file, and so would not
+  // otherwise be found expired until compaction, or until they are read.
+  // They are swept once in each expiry period.
+  private void sweepUnpersisted(long now) {
+    if (expiryseconds <= 0 || now - lastsweep < expiryseconds * 1000L) {
+      return;
+    }
+    lastsweep = now;
+    for (Iterator it = index.values().iterator(); it.hasNext();) {
+      IndexEntry entry = (IndexEntry) it.next();
+      if (entry.unpersisted != null && isExpired(entry, now)) {
+        it.remove();
+      }
+    }
+  }
+
+  private boolean isSerializable(String classname) {
+    int dims = 0;
+    while (classname.charAt(dims) == '[') {
+      ++dims;
+    }
+    if (dims > 0) {
+      // arrays of primitives, or else of classes named as Lclassname;
+      if (classname.charAt(dims) != 'L') {
+        return true;
+      }
+      classname = classname.substring(dims + 1, classname.length() - 1);
+    }
+    int lastdot = classname.lastIndexOf('.');
+    String packagename = lastdot == -1 ? "" : classname.substring(0, lastdot);
+    for (int i = 0; i < serializablepackages.length; ++i) {
+      String allowed = serializablepackages[i];
+      if (allowed.endsWith(".**")) {
+        String prefix = allowed.substring(0, allowed.length() - 2);
+        if ((packagename + ".").startsWith(prefix)) {
+          return true;
+        }
+      }
+      else if (packagename.equals(allowed)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private byte[] encode(String tokenID, Object trs, byte[] type) {
+    if (codec != null) {
+      byte[] encoded = codec.encode(trs);
+      if (encoded != null) {
+        type[0] = TYPE_ENCODED;
+        return encoded;
+      }
+    }
+    if (trs instanceof Serializable) {
+      try {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bytes) {
+          // refuse any class which could not be read back
+          protected void annotateClass(Class clazz) throws IOException {
+            if (!isSerializable(clazz.getName())) {
+              throw new NotSerializableException(clazz.getName()
+                  + " is not within the serializable packages");
+            }
+          }
+
+          protected void annotateProxyClass(Class clazz) throws IOException {
+            throw new NotSerializableException("Proxy " + clazz.getName());
+          }
+        };
+        oos.writeObject(trs);
+        oos.close();
+        type[0] = TYPE_SERIALIZED;
+        return bytes.toByteArray();
+      }
+      catch (IOException e) {
+        Logger.log.info("Token state for " + tokenID
+            + " cannot be serialized: " + e.getMessage());
+      }
+    }
+    return null;
+  }
+
+  private Object decode(byte type, byte[] payload) {
+    if (type == TYPE_ENCODED) {
+      return codec.decode(payload);
+    }
+    try {
+      InputStream bytes = new ByteArrayInputStream(payload);
+      ObjectInputStream ois = new ObjectInputStream(bytes) {
+        protected Class resolveClass(ObjectStreamClass desc)
+            throws IOException, ClassNotFoundException {
+          // checked before the class is loaded, let alone instantiated
+          if (!isSerializable(desc.getName())) {
+            throw new InvalidClassException(desc.getName(),
+                "not within the serializable packages");
+          }
+          ClassLoader loader = Thread.currentThread().getContextClassLoader();
+          if (loader != null) {
+            try {
+              return Class.forName(desc.getName(), false, loader);
+            }
+            catch (ClassNotFoundException e) {
+            }
+          }
+          return super.resolveClass(desc);
+        }
+
+        protected Class resolveProxyClass(String[] interfaces)
+            throws IOException {
+          throw new InvalidClassException("Proxy classes may not be read");
+        }
+      };
+      return ois.readObject();
+    }
+    catch (Exception e) {
+      throw UniversalRuntimeException.accumulate(e,
+          "Error deserializing token state");
+    }
+  }
+
+  public Object getTokenState(String tokenID) {
+    byte type;
+    byte[] payload;
+    synchronized (this) {
+      IndexEntry entry = (IndexEntry) index.get(tokenID);
+      if (entry == null) {
+        return null;
+      }
+      long now = System.currentTimeMillis();
+      if (isExpired(entry, now)) {
+        index.remove(tokenID);
+        garbage += entry.length;
+        return null;
+      }
+      entry.lastaccess = now;
+      if (entry.unpersisted != null) {
+        return entry.unpersisted;
+      }
+      buffer.putLong(entry.offset + ACCESS_OFFSET, now);
+      int keylength = buffer.getInt(entry.offset + HEADER_SIZE - 4);
+      type = buffer.get(entry.offset + CHECKED_OFFSET);
+      payload = new byte[entry.length - HEADER_SIZE - keylength];
+      ByteBuffer source = buffer.duplicate();
+      source.position(entry.offset + HEADER_SIZE + keylength);
+      source.get(payload);
+    }
+    // decode outside the lock, since this may be costly
+    return decode(type, payload);
+  }
+
+  public void putTokenState(String tokenID, Object trs) {
+    byte[] type = new byte[1];
+    byte[] payload = encode(tokenID, trs, type);
+    synchronized (this) {
+      IndexEntry entry = new IndexEntry();
+      entry.lastaccess = System.currentTimeMillis();
+      sweepUnpersisted(entry.lastaccess);
+      try {
+        if (payload == null) {
+          entry.unpersisted = trs;
+          // prevent any earlier persisted state reappearing on restart
+          clearPersisted(tokenID, (IndexEntry) index.get(tokenID));
+        }
+        else {
+          append(tokenID, type[0], payload, entry);
+          IndexEntry old = (IndexEntry) index.get(tokenID);
+          if (old != null && old.unpersisted == null) {
+            garbage += old.length;
+          }
+        }
+      }
+      catch (IOException e) {
+        throw UniversalRuntimeException.accumulate(e,
+            "Error writing token state for " + tokenID);
+      }
+      index.put(tokenID, entry);
+    }
+  }
+
+  private void clearPersisted(String tokenID, IndexEntry old)
+      throws IOException {
+    if (old != null && old.unpersisted == null) {
+      IndexEntry tombstone = new IndexEntry();
+      tombstone.lastaccess = System.currentTimeMillis();
+      append(tokenID, TYPE_CLEARED, new byte[0], tombstone);
+      garbage += old.length + tombstone.length;
+    }
+  }
+
+  public void clearTokenState(String tokenID) {
+    synchronized (this) {
+      IndexEntry old = (IndexEntry) index.remove(tokenID);
+      try {
+        clearPersisted(tokenID, old);
+      }
+      catch (IOException e) {
+        throw UniversalRuntimeException.accumulate(e,
+            "Error clearing token state for " + tokenID);
+      }
+    }
+  }
+
+  /** The number of entries currently held, which may include some expired
+   * but not yet removed **/
+  public synchronized int getSize() {
+    return index.size();
+  }
+
+  /** The number of bytes in the state file occupied by superseded records */
+  public synchronized int getGarbageSize() {
+    return garbage;
+  }
+
+  /** The number of times the state file has been compacted */
+  public synchronized int getCompactionCount() {
+    return compactions;
+  }
+
+  public String getId() {
+    return null;
+  }
+
+}
@@ -3,6 +3,8 @@
  */
 package uk.org.ponder.rsf.state.support;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import uk.org.ponder.beanutil.BeanLocator;
@@ -17,7 +19,9 @@ import uk.org.ponder.mapping.DARReshaper;
 import uk.org.ponder.mapping.DataAlterationRequest;
 import uk.org.ponder.mapping.ListBeanInvalidationModel;
 import uk.org.ponder.mapping.ShellInfo;
+import uk.org.ponder.mapping.ShellTrie;
 import uk.org.ponder.mapping.support.ConverterConverter;
+import uk.org.ponder.mapping.support.DARApplier;
 import uk.org.ponder.mapping.support.DataConverterRegistry;
 import uk.org.ponder.messageutil.TargettedMessage;
 import uk.org.ponder.messageutil.TargettedMessageList;
@@ -25,6 +29,7 @@ import uk.org.ponder.rsf.request.ActionTarget;
 import uk.org.ponder.rsf.request.RequestSubmittedValueCache;
 import uk.org.ponder.rsf.request.SubmittedValueEntry;
 import uk.org.ponder.rsf.state.VersionCheckPolicy;
+import uk.org.ponder.rsf.state.entity.support.EntityPrefetcher;
 import uk.org.ponder.rsf.state.guards.BeanGuardProcessor;
 import uk.org.ponder.rsf.uitype.UIType;
 import uk.org.ponder.rsf.uitype.UITypes;
@@ -48,6 +53,8 @@ public class RSVCApplier {
   private BeanLocator rbl;
   private DataConverterRegistry dataConverterRegistry;
   private BeanPredicateModel addressibleBeanModel;
+  private EntityPrefetcher entityprefetcher;
+  private DARApplier triesource;
 
   public void setAddressibleBeanModel(BeanPredicateModel addressibleBeanModel) {
     this.addressibleBeanModel = addressibleBeanModel;
@@ -61,6 +68,14 @@ public class RSVCApplier {
     this.darapplier = darapplier;
   }
 
+  /** If set, the shells along the bindings of a submission will be fetched
+   * for converter lookup from a single {@link ShellTrie} issued by this
+   * DARApplier, rather than separately for each binding.
+   */
+  public void setDARApplier(DARApplier triesource) {
+    this.triesource = triesource;
+  }
+
   public void setVersionCheckPolicy(VersionCheckPolicy versioncheckpolicy) {
     this.versioncheckpolicy = versioncheckpolicy;
   }
@@ -81,6 +96,10 @@ public class RSVCApplier {
     this.rbl = rbl;
   }
 
+  public void setEntityPrefetcher(EntityPrefetcher entityprefetcher) {
+    this.entityprefetcher = entityprefetcher;
+  }
+
   public void setDataConverterRegistry(DataConverterRegistry dataConverterRegistry) {
     this.dataConverterRegistry = dataConverterRegistry;
   }
@@ -106,6 +125,12 @@ public class RSVCApplier {
     // Define a VersionCheckPolicy that will compare oldvalue to the model
     // value.
     DARList toapply = new DARList();
+    if (entityprefetcher != null) {
+      prefetchEntities(rsvc);
+    }
+    // The model is not altered until all entries have been considered, so
+    // the shells along bindings sharing a prefix may be fetched once for all
+    ShellTrie trie = triesource == null ? null : triesource.getShellTrie(rbl);
 
     for (int i = 0; i < rsvc.getEntries(); ++i) {
       SubmittedValueEntry sve = rsvc.entryAt(i);
@@ -153,7 +178,8 @@ public class RSVCApplier {
       }
       else {
         try {
-          ShellInfo shellinfo = darapplier.fetchShells(sve.valuebinding, rbl, false);
+          ShellInfo shellinfo = trie == null ? darapplier.fetchShells(
+              sve.valuebinding, rbl, false) : trie.fetchShells(sve.valuebinding);
           reshapero = dataConverterRegistry.fetchConverter(shellinfo);
         }
         catch (Exception e) {
@@ -178,6 +204,19 @@ public class RSVCApplier {
     applyAlterations(toapply, rsvc.getDownstreamMap());
   }
 
+  // Fetch together all entities addressed by the submission, rather than
+  // one at a time as each value is applied
+  private void prefetchEntities(RequestSubmittedValueCache rsvc) {
+    List paths = new ArrayList();
+    for (int i = 0; i < rsvc.getEntries(); ++i) {
+      SubmittedValueEntry sve = rsvc.entryAt(i);
+      if (sve.valuebinding != null) {
+        paths.add(sve.valuebinding);
+      }
+    }
+    entityprefetcher.prefetch(paths, rbl);
+  }
+
   public BeanInvalidationBracketer getBracketer() {
     return new BeanInvalidationBracketer() {
       public void invalidate(String path, Runnable toinvoke) {
@@ -0,0 +1,148 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.state.support;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import uk.org.ponder.rsf.state.LockManager;
+import uk.org.ponder.util.Logger;
+
+/**
+ * An application scope {@link LockManager} suitable for a single-JVM
+ * application, replacing {@link InMemoryLockGetter}. Lock names are spread
+ * over a fixed number of stripes, each a small map guarded by its own monitor,
+ * so that requests for unrelated flows do not contend on a single global map.
+ * Each entry holds a {@link ReentrantLock} together with a count of the
+ * threads currently holding or waiting on it - the entry is discarded as soon
+ * as this count falls to zero, so the maps only ever hold locks which are
+ * actually in use.
+ * <p>
+ * Acquisition waits at most <code>lockTimeout</code> milliseconds, after which
+ * it reports failure to the caller rather than blocking indefinitely.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ * 
+ */
+
+public class StripedLockManager implements LockManager {
+  private static class LockEntry {
+    ReentrantLock lock = new ReentrantLock();
+    // guarded by the monitor of the owning stripe
+    int refs;
+  }
+
+  private Map[] stripes;
+  private int stripemask;
+  private long locktimeout = 30000;
+
+  private AtomicLong timeouts = new AtomicLong();
+
+  public StripedLockManager() {
+    setStripes(32);
+  }
+
+  /** The number of stripes over which lock names are spread. This will be
+   * rounded up to the next power of 2. Defaults to 32.
+   */
+  public void setStripes(int stripecount) {
+    int size = 1;
+    while (size < stripecount) {
+      size <<= 1;
+    }
+    stripes = new Map[size];
+    for (int i = 0; i < size; ++i) {
+      stripes[i] = new HashMap();
+    }
+    stripemask = size - 1;
+  }
+
+  /** The maximum time in milliseconds that {@link #acquireLock(String)} will
+   * wait for a lock held by another thread. Defaults to 30000. A value of 0 or
+   * less will wait indefinitely.
+   */
+  public void setLockTimeout(long locktimeout) {
+    this.locktimeout = locktimeout;
+  }
+
+  private Map stripeFor(String lockname) {
+    int hash = lockname.hashCode();
+    hash ^= (hash >>> 16);
+    return stripes[hash & stripemask];
+  }
+
+  public boolean acquireLock(String lockname) {
+    Map stripe = stripeFor(lockname);
+    LockEntry entry;
+    synchronized (stripe) {
+      entry = (LockEntry) stripe.get(lockname);
+      if (entry == null) {
+        entry = new LockEntry();
+        stripe.put(lockname, entry);
+      }
+      ++entry.refs;
+    }
+    boolean acquired = false;
+    try {
+      if (locktimeout <= 0) {
+        entry.lock.lockInterruptibly();
+        acquired = true;
+      }
+      else {
+        acquired = entry.lock.tryLock(locktimeout, TimeUnit.MILLISECONDS);
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!acquired) {
+      unreference(stripe, lockname, entry);
+      timeouts.incrementAndGet();
+      Logger.log.warn("Timed out after " + locktimeout
+          + "ms waiting for lock " + lockname);
+    }
+    return acquired;
+  }
+
+  public void releaseLock(String lockname) {
+    Map stripe = stripeFor(lockname);
+    LockEntry entry;
+    synchronized (stripe) {
+      entry = (LockEntry) stripe.get(lockname);
+    }
+    if (entry == null || !entry.lock.isHeldByCurrentThread()) {
+      throw new IllegalStateException("Lock " + lockname
+          + " is not held by the current thread");
+    }
+    entry.lock.unlock();
+    unreference(stripe, lockname, entry);
+  }
+
+  private void unreference(Map stripe, String lockname, LockEntry entry) {
+    synchronized (stripe) {
+      if (--entry.refs == 0) {
+        stripe.remove(lockname);
+      }
+    }
+  }
+
+  /** Returns the number of locks currently held or awaited */
+  public int getActiveLockCount() {
+    int togo = 0;
+    for (int i = 0; i < stripes.length; ++i) {
+      synchronized (stripes[i]) {
+        togo += stripes[i].size();
+      }
+    }
+    return togo;
+  }
+
+  /** Returns the number of acquisitions which have failed through timeout */
+  public long getTimeoutCount() {
+    return timeouts.get();
+  }
+}
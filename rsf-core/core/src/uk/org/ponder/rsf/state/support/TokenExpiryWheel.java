@@ -0,0 +1,153 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.state.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import uk.org.ponder.util.Logger;
+
+/**
+ * A JVM-wide hashed timing wheel which expires token state held in memory.
+ * Each scheduled {@link Expirable} is placed in the slot for the tick in which
+ * its expiry falls, and a single daemon thread visits one slot per tick.
+ * Since the expiry of an entry may be extended after it is scheduled, an
+ * entry which is visited before it is due is simply moved on to its new slot,
+ * which makes extending an expiry free of any interaction with the wheel.
+ * <p>
+ * Holders {@link #attach()} on initialisation and {@link #detach()} on 
+ * destruction - the thread is started with the first attachment and stops when
+ * the last holder is detached, so that it does not outlive a webapp.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class TokenExpiryWheel implements Runnable {
+  /** An entry which may be scheduled for expiry on the wheel */
+  public interface Expirable {
+    /**
+     * Returns the time, in milliseconds since the epoch, at which this entry
+     * is due to expire, or 0 if the entry has been removed by other means and
+     * need no longer be tracked.
+     */
+    public long getExpiry();
+
+    /** Removes this entry from its holder, its expiry having passed **/
+    public void expire();
+  }
+
+  public static final long TICK_MILLIS = 1000;
+  // must be a power of 2 - one revolution of the wheel covers about 8.5 minutes
+  private static final int WHEEL_SIZE = 512;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+  private static TokenExpiryWheel instance;
+
+  public static synchronized TokenExpiryWheel instance() {
+    if (instance == null) {
+      instance = new TokenExpiryWheel();
+    }
+    return instance;
+  }
+
+  private ConcurrentLinkedQueue[] slots = new ConcurrentLinkedQueue[WHEEL_SIZE];
+  private int attached;
+  private Thread thread;
+  // the tick most recently processed, counted in TICK_MILLIS since the epoch
+  private volatile long currenttick = System.currentTimeMillis() / TICK_MILLIS;
+
+  private TokenExpiryWheel() {
+    for (int i = 0; i < WHEEL_SIZE; ++i) {
+      slots[i] = new ConcurrentLinkedQueue();
+    }
+  }
+
+  public synchronized void attach() {
+    if (attached++ == 0) {
+      currenttick = System.currentTimeMillis() / TICK_MILLIS;
+      thread = new Thread(this, "RSF TokenExpiryWheel");
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  public synchronized void detach() {
+    if (attached > 0 && --attached == 0) {
+      thread.interrupt();
+      thread = null;
+      for (int i = 0; i < WHEEL_SIZE; ++i) {
+        slots[i].clear();
+      }
+    }
+  }
+
+  /** Schedules the supplied entry to be visited when its expiry is due **/
+  public void schedule(Expirable entry) {
+    long tick = entry.getExpiry() / TICK_MILLIS;
+    // never schedule into a slot which may already have been visited
+    long earliest = currenttick + 1;
+    if (tick < earliest) {
+      tick = earliest;
+    }
+    slots[(int) (tick & WHEEL_MASK)].add(entry);
+  }
+
+  void processTick(long tick, long now) {
+    // advance first, so that concurrent schedulers no longer target this slot
+    currenttick = tick;
+    ConcurrentLinkedQueue slot = slots[(int) (tick & WHEEL_MASK)];
+    List reschedule = null;
+    Expirable entry;
+    while ((entry = (Expirable) slot.poll()) != null) {
+      long expiry = entry.getExpiry();
+      if (expiry == 0) {
+        continue;
+      }
+      if (expiry <= now) {
+        try {
+          entry.expire();
+        }
+        catch (Exception e) {
+          Logger.log.warn("Error expiring token state", e);
+        }
+      }
+      else {
+        // defer rescheduling, since the entry may belong in this same slot
+        if (reschedule == null) {
+          reschedule = new ArrayList();
+        }
+        reschedule.add(entry);
+      }
+    }
+    if (reschedule != null) {
+      for (int i = 0; i < reschedule.size(); ++i) {
+        schedule((Expirable) reschedule.get(i));
+      }
+    }
+  }
+
+  public void run() {
+    Thread self = Thread.currentThread();
+    while (true) {
+      synchronized (this) {
+        if (thread != self) return;
+      }
+      long now = System.currentTimeMillis();
+      long nowtick = now / TICK_MILLIS;
+      // catch up on any ticks missed through a slow sweep or a clock change,
+      // but never process the same slot twice in one pass
+      long from = Math.max(currenttick + 1, nowtick - WHEEL_MASK);
+      for (long tick = from; tick <= nowtick; ++tick) {
+        processTick(tick, now);
+      }
+      try {
+        Thread.sleep(TICK_MILLIS - System.currentTimeMillis() % TICK_MILLIS);
+      }
+      catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+}
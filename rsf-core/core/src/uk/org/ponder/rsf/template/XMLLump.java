@@ -38,6 +38,16 @@ public class XMLLump {
   // this may be reformed to map to text if we collapse attribute lumps?
   // this is a HashMap so that the fast clone method is easily accessible
   public HashMap attributemap;
+  // the names of those attributes of this tag which hold resource URLs that
+  // are candidates for rewriting, computed at parse time. null if the lump
+  // was not produced by the parser.
+  public String[] urlattributes;
+  // the attribute holding this tag's link target (e.g. "href"), if any.
+  // Only valid where urlattributes is non-null.
+  public String linkattribute;
+  // the values of urlattributes as most recently rewritten, held for the
+  // use of URLRewriteSCR
+  public volatile Object resolvedurls;
   // the (XHTML) attribute appearing in the template file designating a 
   // template component. 
   public static final String ID_ATTRIBUTE = "rsf:id";
@@ -60,6 +70,8 @@ public class XMLLump {
   /** This prefix for an rsf:id will elide the surrounding tag when rendered. This
    * cannot be combined with an empty body*/
   public static final String ELISION_PREFIX = "~";
+  /** The value of urlattributes for a tag holding no URL attributes **/
+  public static final String[] NO_URL_ATTRIBUTES = new String[0];
   public XMLLump() {}
   public XMLLump(int lumpindex, int nestingdepth) {
     this.lumpindex = lumpindex;
@@ -26,6 +26,12 @@ public class XMLViewTemplate extends GenericXMLViewTemplate implements BasedView
   public boolean isstatictemplate;
   
   public char[] buffer;
+  // Optional pre-encoded form of buffer, in the Charset named by encoding.
+  // encodedoffsets holds the byte offset of the start of each lump, with a
+  // final entry holding the total encoded length.
+  public byte[] encodedbuffer;
+  public int[] encodedoffsets;
+  public String encoding;
   // The template's full path, for debugging purposes
   public String fullpath;
   
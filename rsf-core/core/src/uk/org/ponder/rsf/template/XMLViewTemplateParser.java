@@ -4,6 +4,11 @@
 package uk.org.ponder.rsf.template;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -13,11 +18,13 @@ import org.xmlpull.v1.XmlPullParser;
 
 import uk.org.ponder.arrayutil.ArrayUtil;
 import uk.org.ponder.arrayutil.ListUtil;
+import uk.org.ponder.htmlutil.HTMLConstants;
 import uk.org.ponder.rsf.renderer.ViewRender;
 import uk.org.ponder.rsf.util.SplitID;
 import uk.org.ponder.rsf.view.ViewTemplate;
 import uk.org.ponder.rsf.view.ViewTemplateParser;
 import uk.org.ponder.stringutil.CharWrap;
+import uk.org.ponder.util.Logger;
 import uk.org.ponder.util.UniversalRuntimeException;
 import uk.org.ponder.xml.XMLUtil;
 
@@ -37,10 +44,38 @@ public class XMLViewTemplateParser implements ViewTemplateParser {
   private CharWrap buffer;
 
   private List parseinterceptors;
+  
+  private String encoding;
+  
+  // map of tag name to the name of the attribute holding its link target
+  private static HashMap tagToLinkAttr = new HashMap();
+  
+  static {
+    for (int i = 0; i < HTMLConstants.tagtoURL.length; ++i) {
+      String[] tags = HTMLConstants.tagtoURL[i];
+      for (int j = 1; j < tags.length; ++j) {
+        String tag = XMLLump.textToTag(tags[j]);
+        if (!tagToLinkAttr.containsKey(tag)) {
+          tagToLinkAttr.put(tag, tags[0]);
+        }
+      }
+    }
+  }
 
   public void setTemplateParseInterceptors(List parseinterceptors) {
     this.parseinterceptors = parseinterceptors;
   }
+  
+  /**
+   * Set the name of a character encoding in which the template text should
+   * additionally be stored in encoded form, so that it may be written directly 
+   * to an {@link uk.org.ponder.streamutil.write.EncodedPrintOutputStream} 
+   * without further conversion. If unset (the default), only the character 
+   * form is held.
+   */
+  public void setEncoding(String encoding) {
+    this.encoding = encoding;
+  }
 
   private void writeToken(int token, XmlPullParser parser, CharWrap w) {
 
@@ -122,6 +157,40 @@ public class XMLViewTemplateParser implements ViewTemplateParser {
     }
   }
 
+  /** Records on the lump those of its attributes which hold resource URLs, so
+   * that the renderer need not search for them on every render. 
+   */
+  private static void computeURLAttributes(XMLLump headlump, String tagname) {
+    headlump.linkattribute = (String) tagToLinkAttr.get(tagname);
+    String[] ubiquitous = HTMLConstants.ubiquitousURL;
+    int present = 0;
+    if (headlump.linkattribute != null 
+        && headlump.attributemap.get(headlump.linkattribute) != null) {
+      ++present;
+    }
+    for (int i = 0; i < ubiquitous.length; ++i) {
+      if (headlump.attributemap.get(ubiquitous[i]) != null) {
+        ++present;
+      }
+    }
+    if (present == 0) {
+      headlump.urlattributes = XMLLump.NO_URL_ATTRIBUTES;
+      return;
+    }
+    String[] togo = new String[present];
+    int index = 0;
+    if (headlump.linkattribute != null 
+        && headlump.attributemap.get(headlump.linkattribute) != null) {
+      togo[index++] = headlump.linkattribute;
+    }
+    for (int i = 0; i < ubiquitous.length; ++i) {
+      if (headlump.attributemap.get(ubiquitous[i]) != null) {
+        togo[index++] = ubiquitous[i];
+      }
+    }
+    headlump.urlattributes = togo;
+  }
+
   private void processTagStart(XmlPullParser parser, boolean isempty) {
     if (justended) {
       // avoid the pathological case where we have for example
@@ -167,6 +236,7 @@ public class XMLViewTemplateParser implements ViewTemplateParser {
       throw UniversalRuntimeException.accumulate(e, "Error processing tag " + headlump);
     }
     attrs = headlump.attributemap.size(); // TPI may have changed it
+    computeURLAttributes(headlump, tagname);
     if (headlump.attributemap.isEmpty()) {
       headlump.attributemap = null;
     }
@@ -365,6 +435,47 @@ public class XMLViewTemplateParser implements ViewTemplateParser {
     System.arraycopy(buffer.storage, 0, compacted, 0, buffer.size);
     t.buffer = compacted;
     buffer = null;
+    if (encoding != null) {
+      encodeBuffer();
+    }
+  }
+  
+  // Encode the buffer lump by lump, recording the byte offset at which each 
+  // lump begins, so that any run of whole lumps can be located in the result.
+  private void encodeBuffer() {
+    Charset cs = Charset.forName(encoding);
+    CharsetEncoder ce = cs.newEncoder();
+    int[] offsets = new int[t.lumps.length + 1];
+    ByteBuffer encoded = ByteBuffer.allocate(
+        (int) (t.buffer.length * ce.averageBytesPerChar()) + 16);
+    try {
+      for (int i = 0; i < t.lumps.length; ++i) {
+        offsets[i] = encoded.position();
+        XMLLump lump = t.lumps[i];
+        if (lump.length == 0) continue;
+        ByteBuffer lumpbytes = ce.encode(CharBuffer.wrap(t.buffer, lump.start,
+            lump.length));
+        if (encoded.remaining() < lumpbytes.remaining()) {
+          ByteBuffer expanded = ByteBuffer.allocate(
+              (encoded.capacity() + lumpbytes.remaining()) * 2);
+          encoded.flip();
+          expanded.put(encoded);
+          encoded = expanded;
+        }
+        encoded.put(lumpbytes);
+      }
+    }
+    catch (CharacterCodingException e) {
+      Logger.log.warn("Template text could not be encoded as " + encoding
+          + ": falling back to character rendering", e);
+      return;
+    }
+    offsets[t.lumps.length] = encoded.position();
+    byte[] compacted = new byte[encoded.position()];
+    System.arraycopy(encoded.array(), 0, compacted, 0, compacted.length);
+    t.encodedbuffer = compacted;
+    t.encodedoffsets = offsets;
+    t.encoding = cs.name();
   }
 
 }
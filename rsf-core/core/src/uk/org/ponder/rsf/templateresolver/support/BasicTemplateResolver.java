@@ -4,6 +4,7 @@
 package uk.org.ponder.rsf.templateresolver.support;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +27,7 @@ import uk.org.ponder.rsf.templateresolver.TemplateResolverStrategy;
 import uk.org.ponder.rsf.view.ViewTemplate;
 import uk.org.ponder.rsf.viewstate.ViewParameters;
 import uk.org.ponder.springutil.CachingInputStreamSource;
+import uk.org.ponder.stringutil.CharWrap;
 import uk.org.ponder.stringutil.StringList;
 import uk.org.ponder.util.Logger;
 import uk.org.ponder.util.UniversalRuntimeException;
@@ -41,11 +43,14 @@ public class BasicTemplateResolver implements TemplateResolver {
 
   private TemplateExtensionInferrer tei;
   private int cachesecs;
+  private boolean watchtemplates;
   private TPIAggregator aggregator;
   private List strategies;
+  private String templateencoding;
 
   public void setResourceLoader(ResourceLoader resourceLoader) {
     cachingiis = new CachingInputStreamSource(resourceLoader, cachesecs);
+    cachingiis.setWatchFilesystem(watchtemplates);
   }
   
   /**
@@ -55,6 +60,30 @@ public class BasicTemplateResolver implements TemplateResolver {
    */
   public void setCacheSeconds(int cachesecs) {
     this.cachesecs = cachesecs;
+    if (cachingiis != null) {
+      cachingiis.setCacheSeconds(cachesecs);
+    }
+  }
+  
+  /**
+   * If set, filesystem templates will be watched for changes in the 
+   * background rather than being polled, and reloaded as soon as they change.
+   */
+  public void setWatchTemplates(boolean watchtemplates) {
+    this.watchtemplates = watchtemplates;
+    if (cachingiis != null) {
+      cachingiis.setWatchFilesystem(watchtemplates);
+    }
+  }
+
+  /**
+   * Set the name of a character encoding in which parsed templates should be
+   * held in pre-encoded form, allowing their static sections to be written
+   * directly to a response stream of the same encoding. If unset, templates
+   * are held as characters only and encoded on every render.
+   */
+  public void setTemplateEncoding(String templateencoding) {
+    this.templateencoding = templateencoding;
   }
 
   public void setTemplateExtensionInferrer(TemplateExtensionInferrer tei) {
@@ -71,10 +100,13 @@ public class BasicTemplateResolver implements TemplateResolver {
 
   public void setReflectiveCache(ReflectiveCache reflectiveCache) {
     templates = reflectiveCache.getConcurrentMap(1);
+    composites = reflectiveCache.getConcurrentMap(1);
   }
   
   // this is a map of viewID onto template file.
   private Map templates;
+  // this is a map of constituent path key onto CompositeEntry
+  private Map composites;
 
   private CachingInputStreamSource cachingiis;
 
@@ -82,9 +114,7 @@ public class BasicTemplateResolver implements TemplateResolver {
 
     // NB if we really want this optimisation, it must be based on #
     // of RETURNED templates, not the number of strategies!
-    XMLCompositeViewTemplate xcvt = strategies.size() == 1 ? null
-        : new XMLCompositeViewTemplate();
-    int highestpriority = 0;
+    List constituents = strategies.size() == 1 ? null : new ArrayList();
     StringList tried = new StringList();
     
     for (int i = 0; i < strategies.size(); ++i) {
@@ -123,28 +153,8 @@ public class BasicTemplateResolver implements TemplateResolver {
         resolveTemplateStream(trc);
         XMLViewTemplate template = parseTemplate(trc);
         if (template != null) {
-          if (xcvt != null) {
-            if (trs.isStatic()) {
-             xcvt.globalmap.aggregate(template.rootlump.downmap);
-            }
-            else {
-              xcvt.globalmap.aggregate(template.globalmap);
-            }
-            if (template.mustcollectmap != null) {
-              xcvt.mustcollectmap.aggregate(template.mustcollectmap);
-            }
-            
-            if (thispri == highestpriority && thispri != 0) {
-              if (xcvt.roottemplate != null) {
-                Logger.log.warn("Duplicate root TemplateResolverStrategy " + trs
-                    + " found at priority " + thispri +", using first entry");
-              }
-            }
-            if (thispri > highestpriority) {
-              xcvt.roottemplate = template;
-              highestpriority = thispri;
-            }
-
+          if (constituents != null) {
+            constituents.add(new CompositeConstituent(template, trs, thispri));
           }
           else {
             return template;
@@ -153,6 +163,11 @@ public class BasicTemplateResolver implements TemplateResolver {
       }
     }
     
+    XMLCompositeViewTemplate xcvt = null;
+    if (constituents != null) {
+      xcvt = locateComposite(constituents);
+    }
+    
     if (xcvt != null && xcvt.roottemplate == null) {
       Exception eclass = viewparams.viewID.trim().length() == 0? 
           (Exception)new SilentRedirectException() : new IllegalArgumentException();
@@ -162,6 +177,98 @@ public class BasicTemplateResolver implements TemplateResolver {
     }
     return xcvt;
   }
+  
+  private static class CompositeConstituent {
+    public XMLViewTemplate template;
+    public TemplateResolverStrategy trs;
+    public int priority;
+
+    public CompositeConstituent(XMLViewTemplate template,
+        TemplateResolverStrategy trs, int priority) {
+      this.template = template;
+      this.trs = trs;
+      this.priority = priority;
+    }
+  }
+  
+  private static class CompositeEntry {
+    // the exact template instances from which the composite was assembled
+    public XMLViewTemplate[] templates;
+    public XMLCompositeViewTemplate composite;
+  }
+  
+  /**
+   * Return a composite template aggregated from the supplied constituents,
+   * reusing one assembled on a previous request if it was built from
+   * precisely the same template instances. Since a template which is reparsed
+   * is always replaced by a fresh instance, this comparison invalidates the
+   * composite whenever any of its constituents changes.
+   */
+  private XMLCompositeViewTemplate locateComposite(List constituents) {
+    CharWrap key = new CharWrap();
+    XMLViewTemplate[] templates = new XMLViewTemplate[constituents.size()];
+    for (int i = 0; i < templates.length; ++i) {
+      CompositeConstituent constituent = (CompositeConstituent) constituents.get(i);
+      templates[i] = constituent.template;
+      key.append(constituent.template.fullpath).append(
+          constituent.trs.isStatic() ? "!" : "").append(
+          Integer.toString(constituent.priority)).append(";");
+    }
+    String keystring = key.toString();
+    CompositeEntry entry = (CompositeEntry) composites.get(keystring);
+    if (entry != null && sameTemplates(entry.templates, templates)) {
+      return entry.composite;
+    }
+    XMLCompositeViewTemplate xcvt = assembleComposite(constituents);
+    if (xcvt.roottemplate != null) {
+      entry = new CompositeEntry();
+      entry.templates = templates;
+      entry.composite = xcvt;
+      composites.put(keystring, entry);
+    }
+    return xcvt;
+  }
+  
+  private static boolean sameTemplates(XMLViewTemplate[] cached,
+      XMLViewTemplate[] templates) {
+    if (cached.length != templates.length) return false;
+    for (int i = 0; i < templates.length; ++i) {
+      if (cached[i] != templates[i]) return false;
+    }
+    return true;
+  }
+  
+  private XMLCompositeViewTemplate assembleComposite(List constituents) {
+    XMLCompositeViewTemplate xcvt = new XMLCompositeViewTemplate();
+    int highestpriority = 0;
+    for (int i = 0; i < constituents.size(); ++i) {
+      CompositeConstituent constituent = (CompositeConstituent) constituents.get(i);
+      XMLViewTemplate template = constituent.template;
+      TemplateResolverStrategy trs = constituent.trs;
+      int thispri = constituent.priority;
+      if (trs.isStatic()) {
+        xcvt.globalmap.aggregate(template.rootlump.downmap);
+      }
+      else {
+        xcvt.globalmap.aggregate(template.globalmap);
+      }
+      if (template.mustcollectmap != null) {
+        xcvt.mustcollectmap.aggregate(template.mustcollectmap);
+      }
+
+      if (thispri == highestpriority && thispri != 0) {
+        if (xcvt.roottemplate != null) {
+          Logger.log.warn("Duplicate root TemplateResolverStrategy " + trs
+              + " found at priority " + thispri + ", using first entry");
+        }
+      }
+      if (thispri > highestpriority) {
+        xcvt.roottemplate = template;
+        highestpriority = thispri;
+      }
+    }
+    return xcvt;
+  }
 
   public void resolveTemplateStream(TemplateResolutionContext trc) {
     String resourcebase = "/";
@@ -206,6 +313,7 @@ public class BasicTemplateResolver implements TemplateResolver {
         }
         XMLViewTemplateParser parser = new XMLViewTemplateParser();
         parser.setTemplateParseInterceptors(tpis);
+        parser.setEncoding(templateencoding);
         template = (XMLViewTemplate) parser.parse(trc.is);
         // there WILL be one slash in the path.
         int lastslashpos = trc.fullpath.lastIndexOf('/');
@@ -0,0 +1,27 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.view;
+
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/**
+ * Implemented by a ViewComponentProducer whose rendered view is a pure
+ * function of its ViewParameters, the request locale and the content type,
+ * and which may therefore be served to anonymous GET requests from the
+ * {@link uk.org.ponder.rsf.pagecache.PageCache} without being regenerated.
+ * The view is cached only if every producer contributing to it is a
+ * CacheableViewProducer, for the shortest TTL that any of them declares. The
+ * declaration also covers any ViewParameters interceptors.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public interface CacheableViewProducer extends ViewComponentProducer {
+  /**
+   * Returns the number of seconds for which the rendering of the view for the
+   * supplied parameters may be served from the cache, or 0 if it must not be
+   * cached.
+   */
+  public int getPageCacheTTL(ViewParameters viewparams);
+}
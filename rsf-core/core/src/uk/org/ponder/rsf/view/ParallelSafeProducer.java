@@ -0,0 +1,23 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.view;
+
+/** A tag interface implemented by a ComponentProducer which may be executed
+ * on a worker thread, concurrently with the other producers for its view.
+ * Such a producer fills a private copy of its container, whose contents are
+ * grafted into the real tree in the producers' normal order once it 
+ * completes. It must therefore
+ * <ul>
+ * <li>only add components to the container, beneath branch or leaf IDs 
+ * which no other producer for the view uses at the same level,
+ * <li>not inspect components contributed by any other producer, and
+ * <li>only make thread-safe use of any request-scope beans which it shares
+ * with other producers.
+ * </ul>
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public interface ParallelSafeProducer {
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.view.support;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.org.ponder.rsac.RSACBeanLocator;
+
+/**
+ * An application scope pool of worker threads on which 
+ * {@link uk.org.ponder.rsf.view.ParallelSafeProducer}s are executed. Each 
+ * task runs with the request-scope container of the submitting request 
+ * attached to its thread, so that request-scope beans and proxies resolve 
+ * exactly as they would on the request thread.
+ * <p>
+ * Once every worker is busy and the queue is full, further tasks are 
+ * rejected with a {@link java.util.concurrent.RejectedExecutionException}, 
+ * and the caller is expected to run them on its own thread.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class ProducerExecutor {
+  private RSACBeanLocator rsacbl;
+  private int parallelism = 8;
+  private int queuesize = 0;
+  private ThreadPoolExecutor pool;
+
+  public void setRSACBeanLocator(RSACBeanLocator rsacbl) {
+    this.rsacbl = rsacbl;
+  }
+
+  /** The maximum number of producers which will be executed concurrently
+   * across all requests. Defaults to 8.
+   */
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  /** The number of tasks which may wait for a worker thread to become free
+   * before further tasks are rejected. Defaults to 0, in which case a task
+   * is only accepted if a worker is idle.
+   */
+  public void setQueueSize(int queuesize) {
+    this.queuesize = queuesize;
+  }
+
+  public void init() {
+    BlockingQueue queue = queuesize <= 0 ? (BlockingQueue) new SynchronousQueue()
+        : new ArrayBlockingQueue(queuesize);
+    final AtomicInteger threadcount = new AtomicInteger();
+    pool = new ThreadPoolExecutor(parallelism, parallelism, 60,
+        TimeUnit.SECONDS, queue, new ThreadFactory() {
+          public Thread newThread(Runnable r) {
+            Thread togo = new Thread(r, "ProducerExecutor-"
+                + threadcount.incrementAndGet());
+            togo.setDaemon(true);
+            return togo;
+          }
+        });
+    pool.allowCoreThreadTimeOut(true);
+  }
+
+  public void destroy() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * Executes the supplied task on a worker thread, on behalf of the request
+   * active on the current thread. The caller must ensure that the task has
+   * completed before the request ends.
+   * @throws java.util.concurrent.RejectedExecutionException if no worker is
+   *           free to accept the task.
+   */
+  public void execute(final Runnable task) {
+    final Object context = rsacbl.getRequestContext();
+    pool.execute(new Runnable() {
+      public void run() {
+        Object previous = rsacbl.attachRequestContext(context);
+        try {
+          task.run();
+        }
+        finally {
+          rsacbl.attachRequestContext(previous);
+        }
+      }
+    });
+  }
+
+}
@@ -3,28 +3,52 @@
  */
 package uk.org.ponder.rsf.view.support;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 
+import uk.org.ponder.rsf.components.ComponentList;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UIComponent;
 import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIViewRoot;
+import uk.org.ponder.rsf.pagecache.PageCacheControl;
 import uk.org.ponder.rsf.producers.NullaryProducer;
+import uk.org.ponder.rsf.util.SplitID;
+import uk.org.ponder.rsf.view.CacheableViewProducer;
 import uk.org.ponder.rsf.view.ComponentChecker;
 import uk.org.ponder.rsf.view.ComponentProducer;
+import uk.org.ponder.rsf.view.ParallelSafeProducer;
 import uk.org.ponder.rsf.view.ViewNotFoundException;
 import uk.org.ponder.rsf.view.ViewResolver;
+import uk.org.ponder.rsf.view.ViewRoot;
 import uk.org.ponder.rsf.viewstate.ViewParameters;
 import uk.org.ponder.util.UniversalRuntimeException;
 
 /** Accretes together all ViewProducers proper, for the application,
  * and aggregates them into this single producer which fills the components
  * specific for this view.
+ * <p>
+ * Where a {@link ProducerExecutor} is configured, any producers implementing
+ * {@link ParallelSafeProducer} are started together on its worker threads,
+ * each filling a private copy of the container. Their results are grafted
+ * into the real container at the point in the producer list where the
+ * producer would otherwise have executed, so that the resulting tree is
+ * independent of the order in which the producers complete. A producer for
+ * which no worker is free is executed on the request thread in its turn.
  * @author Antranig Basman (amb26@ponder.org.uk)
  *
- */ 
+ */
 public class ViewCollector implements NullaryProducer {
 
   private ViewResolver viewresolver;
   private ComponentChecker checker;
   private ViewParameters viewparams;
+  private ProducerExecutor executor;
+  private PageCacheControl pagecachecontrol;
 
   public void setViewResolver(ViewResolver viewlocator) {
     this.viewresolver = viewlocator;
@@ -37,8 +61,15 @@ public class ViewCollector implements NullaryProducer {
   public void setViewParameters(ViewParameters viewparams) {
     this.viewparams = viewparams;
   }
-  
-  
+
+  public void setProducerExecutor(ProducerExecutor executor) {
+    this.executor = executor;
+  }
+
+  public void setPageCacheControl(PageCacheControl pagecachecontrol) {
+    this.pagecachecontrol = pagecachecontrol;
+  }
+
   /**
    * Returns the UIViewRoot for the view created by the View instance matching
    * the view ID. Any potentially recoverable errors are caught and a redirect
@@ -50,12 +81,31 @@ public class ViewCollector implements NullaryProducer {
     List producers = viewresolver.getProducers(viewparams.viewID);
 
     if (producers != null) {
-      for (int i = 0; i < producers.size(); ++i) {
-        ComponentProducer producer = (ComponentProducer) producers.get(i);
-
-        producer.fillComponents(tofill, viewparams, checker);
+      if (pagecachecontrol != null) {
+        declareCacheability(producers);
+      }
+      ParallelFill[] fills = startParallel(producers, tofill);
+      try {
+        for (int i = 0; i < producers.size(); ++i) {
+          if (fills != null && fills[i] != null) {
+            fills[i].graft(tofill);
+          }
+          else {
+            ComponentProducer producer = (ComponentProducer) producers.get(i);
+            producer.fillComponents(tofill, viewparams, checker);
+          }
+        }
+      }
+      finally {
+        // no worker may outlive the request which it serves
+        if (fills != null) {
+          for (int i = 0; i < fills.length; ++i) {
+            if (fills[i] != null) {
+              fills[i].await();
+            }
+          }
+        }
       }
-
     }
     else {
       throw UniversalRuntimeException.accumulate(new ViewNotFoundException(),
@@ -63,4 +113,146 @@ public class ViewCollector implements NullaryProducer {
     }
 
   }
+
+  // The page may be cached for the shortest TTL declared by any producer. A
+  // producer which declares nothing, such as a layout producer, has not
+  // agreed to caching of its part of the view and so counts as a TTL of 0.
+  private void declareCacheability(List producers) {
+    boolean declared = false;
+    int TTL = Integer.MAX_VALUE;
+    for (int i = 0; i < producers.size(); ++i) {
+      Object producer = producers.get(i);
+      int producerTTL = 0;
+      if (producer instanceof CacheableViewProducer) {
+        declared = true;
+        producerTTL = Math.max(0, ((CacheableViewProducer) producer)
+            .getPageCacheTTL(viewparams));
+      }
+      TTL = Math.min(TTL, producerTTL);
+    }
+    pagecachecontrol.setTTL(declared ? TTL : PageCacheControl.UNDECLARED);
+  }
+
+  private ParallelFill[] startParallel(List producers, UIContainer tofill) {
+    if (executor == null || producers.size() < 2) {
+      return null;
+    }
+    ParallelFill[] togo = null;
+    for (int i = 0; i < producers.size(); ++i) {
+      Object producer = producers.get(i);
+      if (producer instanceof ParallelSafeProducer) {
+        if (togo == null) {
+          togo = new ParallelFill[producers.size()];
+        }
+        togo[i] = new ParallelFill((ComponentProducer) producer, tofill);
+        try {
+          executor.execute(togo[i]);
+        }
+        catch (RejectedExecutionException e) {
+          // every worker is busy - run the producer inline in its turn
+          togo[i] = null;
+        }
+      }
+    }
+    return togo;
+  }
+
+  /** The execution of a single producer against a private copy of the
+   * container to be filled.
+   */
+  private class ParallelFill implements Runnable {
+    private ComponentProducer producer;
+    private UIBranchContainer staging;
+    private CountDownLatch done = new CountDownLatch(1);
+    private Throwable failure;
+
+    ParallelFill(ComponentProducer producer, UIContainer tofill) {
+      this.producer = producer;
+      this.staging = makeStaging(tofill);
+    }
+
+    public void run() {
+      try {
+        producer.fillComponents(staging, viewparams, checker);
+      }
+      catch (Throwable t) {
+        failure = t;
+      }
+      finally {
+        done.countDown();
+      }
+    }
+
+    void await() {
+      try {
+        done.await();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw UniversalRuntimeException.accumulate(e,
+            "Interrupted waiting for producer " + producer);
+      }
+    }
+
+    void graft(UIContainer tofill) {
+      await();
+      if (failure != null) {
+        throw UniversalRuntimeException.accumulate(failure,
+            "Error in parallel producer " + producer);
+      }
+      ComponentList children = staging.flattenChildren();
+      Set prefixes = new HashSet();
+      for (int i = 0; i < children.size(); ++i) {
+        UIComponent child = (UIComponent) children.get(i);
+        String prefix = new SplitID(child.ID).prefix;
+        if (prefixes.add(prefix) && tofill.getComponents(prefix) != null) {
+          throw new IllegalStateException("Parallel producer " + producer
+              + " contributed components with ID " + child.ID
+              + " which is also in use by another producer for "
+              + tofill.debugString());
+        }
+      }
+      for (int i = 0; i < children.size(); ++i) {
+        UIComponent child = (UIComponent) children.get(i);
+        // Any full IDs computed during production remain valid, since the
+        // staging container mirrors the identity of the real one
+        child.parent = null;
+        tofill.addComponent(child);
+      }
+      tofill.parameters.addAll(staging.parameters);
+      if (tofill instanceof ViewRoot) {
+        ViewRoot root = (ViewRoot) tofill;
+        ViewRoot stagingroot = (ViewRoot) staging;
+        if (stagingroot.navigationCases != null) {
+          if (root.navigationCases == null) {
+            root.navigationCases = new ArrayList();
+          }
+          root.navigationCases.addAll(stagingroot.navigationCases);
+        }
+        root.debug |= stagingroot.debug;
+      }
+    }
+  }
+
+  private static UIBranchContainer makeStaging(UIContainer tofill) {
+    UIBranchContainer togo;
+    if (tofill instanceof ViewRoot) {
+      ViewRoot root = new ViewRoot();
+      root.viewParameters = ((ViewRoot) tofill).viewParameters;
+      root.defaultview = ((ViewRoot) tofill).defaultview;
+      togo = root;
+    }
+    else if (tofill instanceof UIViewRoot) {
+      togo = new UIViewRoot();
+    }
+    else {
+      togo = new UIBranchContainer();
+    }
+    togo.ID = tofill.ID;
+    togo.localID = tofill.localID;
+    togo.noID = tofill.noID;
+    // not added to the parent, but allows full IDs to be computed as normal
+    togo.parent = tofill.parent;
+    return togo;
+  }
 }
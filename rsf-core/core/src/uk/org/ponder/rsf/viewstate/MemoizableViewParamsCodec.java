@@ -0,0 +1,19 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.viewstate;
+
+/** A ViewParamsCodec whose rendering of a ViewParameters object is entirely
+ * determined by a snapshot of its state, which may then be used as the key
+ * for caching the rendered URL.
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public interface MemoizableViewParamsCodec extends ViewParamsCodec {
+  /** Returns an immutable key, with value equality, which will be equal for
+   * any two ViewParameters objects rendered identically by this codec, 
+   * or <code>null</code> if the supplied object's rendering cannot be 
+   * memoized.
+   */
+  public Object getStateKey(ViewParameters viewparams);
+}
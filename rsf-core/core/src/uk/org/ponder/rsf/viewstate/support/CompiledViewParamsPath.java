@@ -0,0 +1,192 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.viewstate.support;
+
+import java.util.Map;
+
+import uk.org.ponder.beanutil.BeanLocator;
+import uk.org.ponder.beanutil.PathUtil;
+import uk.org.ponder.beanutil.support.IndexedPropertyAccessor;
+import uk.org.ponder.conversion.GeneralLeafParser;
+import uk.org.ponder.iterationutil.EnumerationConverter;
+import uk.org.ponder.mapping.DARReceiver;
+import uk.org.ponder.saxalizer.AccessMethod;
+import uk.org.ponder.saxalizer.SAXalizerMappingContext;
+import uk.org.ponder.saxalizer.support.MethodAnalyser;
+import uk.org.ponder.saxalizer.support.SAXAccessMethod;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * A ViewParameters path "compiled" against the concrete classes met along it,
+ * which reads and writes a leaf value directly through the resolved
+ * {@link SAXAccessMethod}s, without the path parsing, property accessor lookup
+ * and DAR construction performed by the BeanModelAlterer.
+ * <p>
+ * Compilation is only attempted for paths which traverse plain beans onto a
+ * scalar leaf property. Should an object met at runtime not be of exactly the
+ * class seen at compile time, or should the value not be a plain scalar, the
+ * accessor declines with {@link #UNCOMPILED} and the caller must fall back to
+ * the BeanModelAlterer, which will produce identical results (or errors) to
+ * those of the uncompiled path.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class CompiledViewParamsPath {
+  /** Returned from {@link #get(Object)} when the compiled accessor cannot
+   * service the request
+   */
+  public static final Object UNCOMPILED = new Object();
+
+  private String path;
+  private Class[] classes;
+  private SAXAccessMethod[] methods;
+  private Class leaftype;
+  private GeneralLeafParser leafparser;
+
+  private CompiledViewParamsPath() {
+  }
+
+  /**
+   * Attempts to compile the supplied path with respect to the supplied root
+   * class.
+   *
+   * @return The compiled path, or <code>null</code> if the path is not
+   *         amenable to compilation.
+   */
+  public static CompiledViewParamsPath compile(Class rootclass, String path,
+      SAXalizerMappingContext mappingcontext) {
+    try {
+      return compileImpl(rootclass, path, mappingcontext);
+    }
+    catch (Exception e) {
+      // Faulty paths will be reported on use by the BeanModelAlterer
+      return null;
+    }
+  }
+
+  private static CompiledViewParamsPath compileImpl(Class rootclass,
+      String path, SAXalizerMappingContext mappingcontext) {
+    String[] segments = PathUtil.splitPath(path);
+    if (segments.length == 0) {
+      return null;
+    }
+    Class[] classes = new Class[segments.length];
+    SAXAccessMethod[] methods = new SAXAccessMethod[segments.length];
+    Class moveclass = rootclass;
+    for (int i = 0; i < segments.length; ++i) {
+      if (!isPlainBean(moveclass)) {
+        return null;
+      }
+      MethodAnalyser ma = mappingcontext.getAnalyser(moveclass);
+      AccessMethod method = ma.getAccessMethod(segments[i]);
+      if (!(method instanceof SAXAccessMethod) || !method.canGet()) {
+        return null;
+      }
+      classes[i] = moveclass;
+      methods[i] = (SAXAccessMethod) method;
+      moveclass = method.getAccessedType();
+    }
+    SAXAccessMethod leaf = methods[segments.length - 1];
+    if (!leaf.canSet() || leaf.isDenumerable()
+        || !mappingcontext.generalLeafParser.isLeafType(moveclass)
+        || EnumerationConverter.isEnumerable(moveclass)) {
+      return null;
+    }
+    CompiledViewParamsPath togo = new CompiledViewParamsPath();
+    togo.path = path;
+    togo.classes = classes;
+    togo.methods = methods;
+    togo.leaftype = moveclass;
+    togo.leafparser = mappingcontext.generalLeafParser;
+    return togo;
+  }
+
+  // Objects which the property accessors or DAR applier would treat specially
+  private static boolean isPlainBean(Class clazz) {
+    return !(BeanLocator.class.isAssignableFrom(clazz)
+        || Map.class.isAssignableFrom(clazz)
+        || DARReceiver.class.isAssignableFrom(clazz)
+        || IndexedPropertyAccessor.isIndexed(clazz));
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  // Returns the parent of the leaf, or UNCOMPILED
+  private Object navigateParent(Object root) {
+    Object moveobj = root;
+    int last = methods.length - 1;
+    for (int i = 0; i < last; ++i) {
+      if (moveobj.getClass() != classes[i]) {
+        return UNCOMPILED;
+      }
+      moveobj = methods[i].getChildObject(moveobj);
+      if (moveobj == null) {
+        return UNCOMPILED;
+      }
+    }
+    return moveobj.getClass() == classes[last] ? moveobj
+        : UNCOMPILED;
+  }
+
+  /**
+   * Returns the unconverted value at this path, or {@link #UNCOMPILED} if the
+   * reflective path must be used.
+   */
+  public Object getRaw(Object root) {
+    try {
+      Object parent = navigateParent(root);
+      if (parent == UNCOMPILED) {
+        return UNCOMPILED;
+      }
+      Object value = methods[methods.length - 1].getChildObject(parent);
+      return value != null && EnumerationConverter.isEnumerable(value.getClass()) ? 
+          UNCOMPILED : value;
+    }
+    catch (Exception e) {
+      throw UniversalRuntimeException.accumulate(e,
+          "Error getting bean value for path " + path);
+    }
+  }
+
+  /**
+   * Returns the value at this path, rendered as a String, or <code>null</code>
+   * if it is null, or {@link #UNCOMPILED} if the reflective path must be used.
+   */
+  public Object get(Object root) {
+    Object value = getRaw(root);
+    return value == null || value == UNCOMPILED ? value
+        : leafparser.render(value);
+  }
+
+  /**
+   * Sets the supplied raw value (a String or String[]) at this path.
+   *
+   * @return <code>false</code> if the reflective path must be used.
+   */
+  public boolean set(Object root, Object value) {
+    if (!(value instanceof String || value instanceof String[])) {
+      return false;
+    }
+    try {
+      Object parent = navigateParent(root);
+      if (parent == UNCOMPILED) {
+        return false;
+      }
+      Object convert = value instanceof String[] ? ((String[]) value)[0]
+          : value;
+      if (convert instanceof String) {
+        convert = leafparser.parse(leaftype, (String) convert);
+      }
+      methods[methods.length - 1].setChildObject(parent, convert);
+      return true;
+    }
+    catch (Exception e) {
+      throw UniversalRuntimeException.accumulate(e, "Error applying value "
+          + value + " to path " + path);
+    }
+  }
+}
@@ -20,14 +20,26 @@ public class ConcreteViewParamsMapInfo implements ViewParamsMapInfo {
   public String[] paths;
   /** The EL paths (if any) to be parsed onto the URL pathinfo trunk */
   public String[] trunkpaths;
+  /** Compiled accessors corresponding to <code>paths</code>, with 
+   * <code>null</code> entries where a path could not be compiled */
+  public CompiledViewParamsPath[] compiledpaths;
+  /** Compiled accessors corresponding to <code>trunkpaths</code> */
+  public CompiledViewParamsPath[] compiledtrunkpaths;
   /** A lookup from the <code>paths</code> entry to <code>attrname</code> **/
   Map pathToAttr = new HashMap();
   /** A lookup from the <code>attrname</code> entry to <code>path</code> **/
   Map attrToPath = new HashMap();
+  /** A lookup from the <code>attrname</code> entry to its compiled path **/
+  Map attrToCompiled = new HashMap();
   public String pathToAttribute(String path) {
     return (String) pathToAttr.get(path);
   }
   public String attributeToPath(String attribute) {
     return (String) attrToPath.get(attribute);
   }
+  /** Returns the compiled accessor for the path of the supplied attribute, or
+   * <code>null</code> if it has none */
+  public CompiledViewParamsPath attributeToCompiledPath(String attribute) {
+    return (CompiledViewParamsPath) attrToCompiled.get(attribute);
+  }
 }
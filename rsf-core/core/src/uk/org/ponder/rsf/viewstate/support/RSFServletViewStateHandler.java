@@ -9,6 +9,7 @@ import java.util.Map;
 
 import uk.org.ponder.rsf.viewstate.BaseURLProvider;
 import uk.org.ponder.rsf.viewstate.ContextURLProvider;
+import uk.org.ponder.rsf.viewstate.MemoizableViewParamsCodec;
 import uk.org.ponder.rsf.viewstate.RawURLState;
 import uk.org.ponder.rsf.viewstate.UltimateURLRenderer;
 import uk.org.ponder.rsf.viewstate.ViewParamUtil;
@@ -35,6 +36,7 @@ public class RSFServletViewStateHandler implements ViewStateHandler {
   private Map ultimaterenderers = new HashMap();
   private ViewParamsCodec vpcodec;
   private ContextURLProvider cup;
+  private ViewParamsURLCache urlcache = new ViewParamsURLCache(1000);
 
   public void setBaseURLProvider(BaseURLProvider urlprovider) {
     this.urlprovider = urlprovider;
@@ -52,10 +54,43 @@ public class RSFServletViewStateHandler implements ViewStateHandler {
     this.vpcodec = vpcodec;
   }
 
-  public String getFullURL(ViewParameters viewparams) {
+  /** The number of rendered ViewParameters which will be cached across
+   * requests, if the codec is a {@link MemoizableViewParamsCodec}. Only the 
+   * portion of the URL determined by the ViewParameters is cached - the base
+   * URL and any consumer parameters are applied afresh for each request.
+   * Defaults to 1000, a value of 0 disables the cache.
+   */
+  public void setURLCacheSize(int urlcachesize) {
+    urlcache = urlcachesize > 0 ? new ViewParamsURLCache(urlcachesize)
+        : null;
+  }
+
+  public ViewParamsURLCache getURLCache() {
+    return urlcache;
+  }
+
+  // The state key is taken afresh on each call, so that changes made to
+  // ViewParameters after they were first rendered are always honoured.
+  private String getRequestParams(ViewParameters viewparams) {
+    Object key = urlcache == null
+        || !(vpcodec instanceof MemoizableViewParamsCodec) ? null
+        : ((MemoizableViewParamsCodec) vpcodec).getStateKey(viewparams);
+    if (key != null) {
+      String cached = urlcache.get(key);
+      if (cached != null) {
+        return cached;
+      }
+    }
     // toHTTPRequest provides leading slash, and baseurl includes trailing slash
-    String requestparams = 
-      ViewParamUtil.toHTTPRequest(vpcodec, viewparams).substring(1);
+    String togo = ViewParamUtil.toHTTPRequest(vpcodec, viewparams).substring(1);
+    if (key != null) {
+      urlcache.put(key, togo);
+    }
+    return togo;
+  }
+
+  public String getFullURL(ViewParameters viewparams) {
+    String requestparams = getRequestParams(viewparams);
 
     String usebaseurl = urlprovider.getBaseURL();
     String extraparams = "";
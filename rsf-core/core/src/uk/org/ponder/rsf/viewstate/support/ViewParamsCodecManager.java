@@ -6,12 +6,13 @@ package uk.org.ponder.rsf.viewstate.support;
 import java.util.List;
 import java.util.Map;
 
+import uk.org.ponder.rsf.viewstate.MemoizableViewParamsCodec;
 import uk.org.ponder.rsf.viewstate.RawURLState;
 import uk.org.ponder.rsf.viewstate.ViewParameters;
 import uk.org.ponder.rsf.viewstate.ViewParamsCodec;
 import uk.org.ponder.rsf.viewstate.ViewParamsMapInfo;
 
-public class ViewParamsCodecManager implements ViewParamsCodec {
+public class ViewParamsCodecManager implements MemoizableViewParamsCodec {
   private List codecs;
 
   public void setViewParamsCodecs(List codecs) {
@@ -42,5 +43,11 @@ public class ViewParamsCodecManager implements ViewParamsCodec {
   public ViewParamsMapInfo getMappingInfo(ViewParameters viewparams) {
     return getCodec(viewparams).getMappingInfo(viewparams);
   }
+
+  public Object getStateKey(ViewParameters viewparams) {
+    ViewParamsCodec codec = getCodec(viewparams);
+    return codec instanceof MemoizableViewParamsCodec ? 
+        ((MemoizableViewParamsCodec) codec).getStateKey(viewparams) : null;
+  }
  
 }
@@ -3,15 +3,17 @@
  */
 package uk.org.ponder.rsf.viewstate.support;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.Map.Entry;
 
 import uk.org.ponder.beanutil.BeanModelAlterer;
-import uk.org.ponder.mapping.DARList;
-import uk.org.ponder.mapping.DataAlterationRequest;
 import uk.org.ponder.rsf.viewstate.CoreViewParamsCodec;
+import uk.org.ponder.rsf.viewstate.MemoizableViewParamsCodec;
 import uk.org.ponder.rsf.viewstate.RawURLState;
 import uk.org.ponder.rsf.viewstate.ViewParamUtil;
 import uk.org.ponder.rsf.viewstate.ViewParameters;
@@ -21,12 +23,21 @@ import uk.org.ponder.stringutil.StringList;
 /**
  * Framework class performing the function of parsing and rendering
  * ViewParameters objects to and from their raw representations.
+ * <p>
+ * Paths are read and written through the {@link CompiledViewParamsPath}s held
+ * in each class's mapping info, with the BeanModelAlterer consulted only for
+ * those paths (or values) which could not be compiled.
  * 
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  * 
  */
 
-public class ViewParamsMapper implements CoreViewParamsCodec {
+public class ViewParamsMapper implements CoreViewParamsCodec,
+    MemoizableViewParamsCodec {
+  // Leaf types whose values may safely be held in a state key
+  private static final Set immutableLeaves = new HashSet(Arrays.asList(
+      new Class[] { String.class, Boolean.class, Character.class, Byte.class,
+          Short.class, Integer.class, Long.class, Float.class, Double.class }));
 
   private BeanModelAlterer bma;
 
@@ -83,7 +94,6 @@ public class ViewParamsMapper implements CoreViewParamsCodec {
   public void parseViewParameters(ViewParameters target, Map params,
       String[] pathinfo, Map unusedParams) {
     ConcreteViewParamsMapInfo mapinfo = vpmim.getMappingInfo(target);
-    DARList toapply = new DARList();
     
     if (pathinfo != null) {
       for (int i = 0; i < mapinfo.trunkpaths.length; ++i) {
@@ -100,7 +110,7 @@ public class ViewParamsMapper implements CoreViewParamsCodec {
             segment = pathinfo[reqindex];
           }
           
-          toapply.add(new DataAlterationRequest(mapinfo.trunkpaths[i], segment));
+          applyValue(target, mapinfo.compiledtrunkpaths[i], mapinfo.trunkpaths[i], segment);
         }
       }
     }
@@ -112,14 +122,28 @@ public class ViewParamsMapper implements CoreViewParamsCodec {
       String path = mapinfo.attributeToPath(attr);
       if (path != null) {
         if (valueo != null) {
-          toapply.add(new DataAlterationRequest(path, valueo));
+          applyValue(target, mapinfo.attributeToCompiledPath(attr), path, valueo);
         }
       }
       else {
         if (unusedParams != null) unusedParams.put(attr, valueo);
       }
     }
-    bma.applyAlterations(target, toapply, null);
+  }
+
+  private void applyValue(ViewParameters target,
+      CompiledViewParamsPath compiled, String path, Object value) {
+    if (compiled == null || !compiled.set(target, value)) {
+      bma.setBeanValue(path, target, value, null, true);
+    }
+  }
+
+  private Object getValue(ViewParameters source,
+      CompiledViewParamsPath compiled, String path) {
+    Object togo = compiled == null ? CompiledViewParamsPath.UNCOMPILED
+        : compiled.get(source);
+    return togo == CompiledViewParamsPath.UNCOMPILED ? bma.getFlattenedValue(
+        path, source, null, null) : togo;
   }
 
   public String[] toPathInfo(ViewParameters toconvert) {
@@ -129,8 +153,8 @@ public class ViewParamsMapper implements CoreViewParamsCodec {
     for (int i = 0; i < mapinfo.trunkpaths.length; ++i) {
       String trunkpath = mapinfo.trunkpaths[i];
       // errors would be checked at parse assembly time
-      String attrval = (String) bma.getFlattenedValue(trunkpath, toconvert,
-          null, null);
+      String attrval = (String) getValue(toconvert,
+          mapinfo.compiledtrunkpaths[i], trunkpath);
       if (attrval != null) {
         if (nullstarted) {
           throw new IllegalArgumentException(
@@ -153,12 +177,12 @@ public class ViewParamsMapper implements CoreViewParamsCodec {
    */
 
   public Map renderViewParamAttributes(ViewParameters toconvert) {
-    Map togo = new HashMap();
     ConcreteViewParamsMapInfo mapinfo = vpmim.getMappingInfo(toconvert);
+    Map togo = new HashMap(2 * (mapinfo.attrnames.length + mapinfo.trunkpaths.length) + 1);
     for (int i = 0; i < mapinfo.attrnames.length; ++i) {
       String attrname = mapinfo.attrnames[i];
       String path = mapinfo.paths[i];
-      putAttr(togo, path, attrname, toconvert);
+      putAttr(togo, mapinfo.compiledpaths[i], path, attrname, toconvert);
     }
     return togo;
   }
@@ -167,18 +191,47 @@ public class ViewParamsMapper implements CoreViewParamsCodec {
     return true;
   }
 
+  /** Returns a key formed from the values at all of the mapped paths of the
+   * supplied parameters, which is possible only if all of these paths are
+   * compiled and all values immutable.
+   */
+  public Object getStateKey(ViewParameters viewparams) {
+    if (viewparams.getAnchorField() != null) {
+      return null;
+    }
+    ConcreteViewParamsMapInfo mapinfo = vpmim.getMappingInfo(viewparams);
+    int paths = mapinfo.compiledpaths.length;
+    Object[] values = new Object[paths + mapinfo.compiledtrunkpaths.length];
+    for (int i = 0; i < values.length; ++i) {
+      CompiledViewParamsPath compiled = i < paths ? mapinfo.compiledpaths[i]
+          : mapinfo.compiledtrunkpaths[i - paths];
+      if (compiled == null) {
+        return null;
+      }
+      Object value = compiled.getRaw(viewparams);
+      if (value == CompiledViewParamsPath.UNCOMPILED || value != null
+          && !immutableLeaves.contains(value.getClass())) {
+        return null;
+      }
+      values[i] = value;
+    }
+    return new ViewParamsStateKey(viewparams.getClass(), values);
+  }
+
   public Map renderViewParamsNonTrunk(ViewParameters torender,
       boolean highpriority) {
     Map togo = renderViewParamAttributes(torender);
     ConcreteViewParamsMapInfo mapinfo = vpmim.getMappingInfo(torender);
     for (int i = 0; i < mapinfo.trunkpaths.length; ++ i) {
-      putAttr(togo, mapinfo.trunkpaths[i], ViewParamUtil.getAttrIndex(i, highpriority), torender);
+      putAttr(togo, mapinfo.compiledtrunkpaths[i], mapinfo.trunkpaths[i], 
+          ViewParamUtil.getAttrIndex(i, highpriority), torender);
     }
     return togo;
   }
 
-  private void putAttr(Map target, String path, String attrname, ViewParameters torender) {
-    Object attrval = bma.getFlattenedValue(path, torender, null, null);
+  private void putAttr(Map target, CompiledViewParamsPath compiled, String path, 
+      String attrname, ViewParameters torender) {
+    Object attrval = getValue(torender, compiled, path);
     if (attrval instanceof String[]) {
       target.put(attrname, attrval);
     }
@@ -3,6 +3,7 @@
  */
 package uk.org.ponder.rsf.viewstate.support;
 
+import java.util.Iterator;
 import java.util.Map;
 
 import uk.org.ponder.arrayutil.ListUtil;
@@ -180,9 +181,36 @@ public class ViewParamsMappingInfoManager {
       togo.attrToPath.put(highattr, togo.trunkpaths[i]);
       togo.attrToPath.put(lowattr, togo.trunkpaths[i]);
     }
+    compilePaths(togo, viewparams.getClass());
     return togo;
   }
 
+  /**
+   * Compiles accessors for all the paths in the supplied VPMI, which will
+   * be used in preference to the BeanModelAlterer wherever possible.
+   */
+  private void compilePaths(ConcreteViewParamsMapInfo togo, Class clazz) {
+    togo.compiledpaths = new CompiledViewParamsPath[togo.paths.length];
+    for (int i = 0; i < togo.paths.length; ++i) {
+      togo.compiledpaths[i] = CompiledViewParamsPath.compile(clazz,
+          togo.paths[i], mappingcontext);
+    }
+    togo.compiledtrunkpaths = new CompiledViewParamsPath[togo.trunkpaths.length];
+    for (int i = 0; i < togo.trunkpaths.length; ++i) {
+      togo.compiledtrunkpaths[i] = CompiledViewParamsPath.compile(clazz,
+          togo.trunkpaths[i], mappingcontext);
+    }
+    for (Iterator attrit = togo.attrToPath.keySet().iterator(); attrit.hasNext();) {
+      String attr = (String) attrit.next();
+      String path = (String) togo.attrToPath.get(attr);
+      CompiledViewParamsPath compiled = CompiledViewParamsPath.compile(clazz,
+          path, mappingcontext);
+      if (compiled != null) {
+        togo.attrToCompiled.put(attr, compiled);
+      }
+    }
+  }
+
   /**
    * Takes a path ending with a greedy expression (probably .*) and appends the
    * "leaves" (fields) based on passed in arguments
@@ -0,0 +1,43 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.viewstate.support;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of the URL-bearing state of a ViewParameters object,
+ * consisting of its class and the (immutable) values held at each of its
+ * mapped paths.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class ViewParamsStateKey {
+  private Class clazz;
+  private Object[] values;
+  private int hashcode;
+
+  public ViewParamsStateKey(Class clazz, Object[] values) {
+    this.clazz = clazz;
+    this.values = values;
+    this.hashcode = 31 * clazz.hashCode() + Arrays.hashCode(values);
+  }
+
+  public int hashCode() {
+    return hashcode;
+  }
+
+  public boolean equals(Object other) {
+    if (!(other instanceof ViewParamsStateKey)) {
+      return false;
+    }
+    ViewParamsStateKey key = (ViewParamsStateKey) other;
+    return hashcode == key.hashcode && clazz == key.clazz
+        && Arrays.equals(values, key.values);
+  }
+
+  public String toString() {
+    return clazz.getName() + Arrays.asList(values);
+  }
+}
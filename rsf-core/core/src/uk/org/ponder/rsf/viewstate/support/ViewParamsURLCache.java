@@ -0,0 +1,80 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.viewstate.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An application scope, bounded cache of rendered URL segments, keyed by the
+ * state keys of ViewParameters objects. Keys are spread over a fixed number of
+ * stripes, each an access-ordered map guarded by its own monitor, which
+ * discards its least recently used entry once it grows beyond its share of
+ * the overall capacity.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class ViewParamsURLCache {
+  private static final int STRIPES = 16;
+
+  private Map[] stripes = new Map[STRIPES];
+
+  private AtomicLong hits = new AtomicLong();
+  private AtomicLong misses = new AtomicLong();
+
+  public ViewParamsURLCache(int capacity) {
+    final int stripecapacity = Math.max(1, capacity / STRIPES);
+    for (int i = 0; i < STRIPES; ++i) {
+      stripes[i] = new LinkedHashMap(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+          return size() > stripecapacity;
+        }
+      };
+    }
+  }
+
+  private Map stripeFor(Object key) {
+    int hash = key.hashCode();
+    hash ^= (hash >>> 16);
+    return stripes[hash & (STRIPES - 1)];
+  }
+
+  /** Returns the cached URL for the supplied key, or <code>null</code> */
+  public String get(Object key) {
+    Map stripe = stripeFor(key);
+    String togo;
+    synchronized (stripe) {
+      togo = (String) stripe.get(key);
+    }
+    (togo == null ? misses : hits).incrementAndGet();
+    return togo;
+  }
+
+  public void put(Object key, String url) {
+    Map stripe = stripeFor(key);
+    synchronized (stripe) {
+      stripe.put(key, url);
+    }
+  }
+
+  public int getSize() {
+    int togo = 0;
+    for (int i = 0; i < STRIPES; ++i) {
+      synchronized (stripes[i]) {
+        togo += stripes[i].size();
+      }
+    }
+    return togo;
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.batchfetch;
+
+public class Item {
+  public Item() {
+  }
+
+  public Item(String id) {
+    this.id = id;
+    this.title = "Item " + id;
+  }
+
+  private String id;
+  private String title;
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public void setTitle(String title) {
+    this.title = title;
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.batchfetch;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** A DAO which counts the calls made of it **/
+public class ItemDAO {
+  public int fetches;
+  public int batchFetches;
+  public int batchSaves;
+  public int saved;
+
+  public Item fetch(String id) {
+    ++fetches;
+    return new Item(id);
+  }
+
+  public Map fetchAll(List ids) {
+    ++batchFetches;
+    Map togo = new HashMap();
+    for (int i = 0; i < ids.size(); ++i) {
+      String id = (String) ids.get(i);
+      togo.put(id, new Item(id));
+    }
+    return togo;
+  }
+
+  public void saveAll(Collection items) {
+    ++batchSaves;
+    saved += items.size();
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.batchfetch;
+
+import org.junit.Assert;
+
+import uk.org.ponder.beanutil.entity.EntityBeanLocator;
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+
+/** Test that the entities bound by a view are fetched and saved by an 
+ * EntityBeanLocator in a single call each
+ */
+
+public class TestBatchFetch extends MultipleRSFTests {
+
+  public TestBatchFetch() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/batchfetch/batchfetch-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/batchfetch/batchfetch-application-context.xml");
+  }
+
+  public void testBatchFetch() {
+    ItemDAO dao = (ItemDAO) applicationContext.getBean("itemDAO");
+    RenderResponse response = getRequestLauncher().renderView();
+    assertRenderError(response, false);
+    assertContains(response, "Item 0");
+    assertContains(response, "Item " + (TestProducer.ROWS - 1));
+    Assert.assertEquals(1, dao.batchFetches);
+    Assert.assertEquals(0, dao.fetches);
+
+    EntityBeanLocator locator = (EntityBeanLocator) response.requestContext
+        .locateBean("item");
+    Assert.assertEquals(TestProducer.ROWS, locator.getDeliveredBeans().size());
+    locator.saveAll();
+    Assert.assertEquals(1, dao.batchSaves);
+    Assert.assertEquals(TestProducer.ROWS, dao.saved);
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.batchfetch;
+
+import uk.org.ponder.rsf.bare.RequestLauncher;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+public class TestProducer implements ViewComponentProducer {
+  public static final int ROWS = 20;
+
+  public String getViewID() {
+    return RequestLauncher.TEST_VIEW;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    for (int i = 0; i < ROWS; ++i) {
+      String id = Integer.toString(i);
+      UIBranchContainer row = UIBranchContainer.make(tofill, "row:", id);
+      UIOutput.make(row, "title", null, "#{item." + id + ".title}");
+      UIOutput.make(row, "label", null, "#{item." + id + ".id}");
+    }
+  }
+}
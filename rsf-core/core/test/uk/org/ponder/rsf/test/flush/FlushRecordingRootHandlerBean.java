@@ -0,0 +1,36 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.flush;
+
+import uk.org.ponder.rsf.bare.BareRootHandlerBean;
+import uk.org.ponder.streamutil.write.PrintOutputStream;
+import uk.org.ponder.streamutil.write.StringPOS;
+
+/** A rootHandlerBean recording the markup written by the time of the first
+ * flush of the response, into an empty buffer
+ */
+
+public class FlushRecordingRootHandlerBean extends BareRootHandlerBean {
+  private StringBuffer flushedPrefix;
+
+  private StringPOS pos = new StringPOS() {
+    public void flush() {
+      if (flushedPrefix.length() == 0) {
+        flushedPrefix.append(toString());
+      }
+    }
+  };
+
+  public void setFlushedPrefix(StringBuffer flushedPrefix) {
+    this.flushedPrefix = flushedPrefix;
+  }
+
+  public PrintOutputStream setupResponseWriter() {
+    return pos;
+  }
+
+  public String getMarkup() {
+    return pos.toString();
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.flush;
+
+import org.junit.Assert;
+
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+import uk.org.ponder.rsf.renderer.RenderFlushPolicy;
+
+/** Test that rendering with early flush of the template prefix and chunked 
+ * flushing produces markup identical to a buffered render
+ */
+
+public class TestEarlyFlush extends MultipleRSFTests {
+
+  public TestEarlyFlush() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/flush/flush-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/flush/flush-application-context.xml");
+  }
+
+  public void testEarlyFlush() {
+    RenderResponse buffered = getRequestLauncher().renderView();
+    assertRenderError(buffered, false);
+    assertContains(buffered, "Cell 4");
+
+    RenderFlushPolicy policy = (RenderFlushPolicy) applicationContext
+        .getBean("renderFlushPolicy");
+    policy.setEarlyFlush(true);
+    policy.setFlushInterval(2);
+    StringBuffer prefix = (StringBuffer) applicationContext
+        .getBean("flushedPrefix");
+    prefix.setLength(0);
+    RenderResponse flushed = getRequestLauncher().renderView();
+    assertRenderError(flushed, false);
+    Assert.assertEquals(buffered.markup, flushed.markup);
+    // the prefix renders through the head, with its rewritten stylesheet
+    Assert.assertTrue(prefix.indexOf("site.css\"") != -1);
+    Assert.assertTrue(prefix.indexOf("site.js\"") != -1);
+    Assert.assertEquals(-1, prefix.indexOf("Flushed View"));
+  }
+}
@@ -0,0 +1,28 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.flush;
+
+import uk.org.ponder.rsf.bare.RequestLauncher;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+public class TestProducer implements ViewComponentProducer {
+
+  public String getViewID() {
+    return RequestLauncher.TEST_VIEW;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    UIOutput.make(tofill, "title", "Flushed View");
+    for (int i = 0; i < 5; ++i) {
+      UIBranchContainer row = UIBranchContainer.make(tofill, "row:", Integer.toString(i));
+      UIOutput.make(row, "cell", "Cell " + i);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.fragment;
+
+import org.junit.Assert;
+
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+import uk.org.ponder.rsf.renderer.FragmentCache;
+import uk.org.ponder.rsf.viewstate.support.StaticBaseURLProvider;
+
+/** Test that branches marked for fragment caching are rendered from the
+ * cache until invalidated, that branches holding input components are 
+ * always rendered afresh, and that fragments holding links are not served
+ * to a request with a different base URL
+ */
+
+public class TestFragmentCache extends MultipleRSFTests {
+
+  public TestFragmentCache() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/fragment/fragment-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/fragment/fragment-application-context.xml");
+  }
+
+  public void testFragmentCache() {
+    FragmentCache cache = (FragmentCache) applicationContext
+        .getBean("fragmentCache");
+    TestProducer producer = (TestProducer) applicationContext
+        .getBean("testProducer");
+    cache.clear();
+    long hits = cache.getHitCount();
+
+    RenderResponse first = getRequestLauncher().renderView();
+    assertRenderError(first, false);
+    assertContains(first, "Menu 2 version 1");
+    assertContains(first, "Input version 1");
+
+    RenderResponse second = getRequestLauncher().renderView();
+    Assert.assertEquals(first.markup, second.markup);
+    Assert.assertEquals(hits + 1, cache.getHitCount());
+
+    producer.version = "2";
+    RenderResponse stale = getRequestLauncher().renderView();
+    assertContains(stale, "Menu 2 version 1");
+    assertContains(stale, "Input version 2");
+
+    cache.invalidate("menu");
+    RenderResponse fresh = getRequestLauncher().renderView();
+    assertContains(fresh, "Menu 2 version 2");
+    producer.version = "1";
+  }
+
+  public void testBaseURLKey() {
+    FragmentCache cache = (FragmentCache) applicationContext
+        .getBean("fragmentCache");
+    StaticBaseURLProvider bup = (StaticBaseURLProvider) applicationContext
+        .getBean("baseURLProvider");
+    cache.clear();
+    String oldbase = bup.getBaseURL();
+
+    RenderResponse first = getRequestLauncher().renderView();
+    assertRenderError(first, false);
+    long hits = cache.getHitCount();
+    try {
+      bup.setBaseURL("/portal/placement/");
+      RenderResponse portal = getRequestLauncher().renderView();
+      assertContains(portal, "/portal/placement/");
+      Assert.assertEquals(hits, cache.getHitCount());
+
+      RenderResponse again = getRequestLauncher().renderView();
+      Assert.assertEquals(portal.markup, again.markup);
+      Assert.assertEquals(hits + 1, cache.getHitCount());
+    }
+    finally {
+      bup.setBaseURL(oldbase);
+    }
+    RenderResponse restored = getRequestLauncher().renderView();
+    Assert.assertEquals(first.markup, restored.markup);
+    Assert.assertEquals(hits + 2, cache.getHitCount());
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.fragment;
+
+import uk.org.ponder.rsf.bare.RequestLauncher;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIInput;
+import uk.org.ponder.rsf.components.UIInternalLink;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.components.decorators.UIFragmentCacheDecorator;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+public class TestProducer implements ViewComponentProducer {
+  /** Rendered into every branch, so that tests may detect cached markup **/
+  public String version = "1";
+
+  public String getViewID() {
+    return RequestLauncher.TEST_VIEW;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    UIBranchContainer menu = UIBranchContainer.make(tofill, "menu:");
+    menu.decorate(new UIFragmentCacheDecorator("menu"));
+    for (int i = 0; i < 3; ++i) {
+      UIBranchContainer item = UIBranchContainer.make(menu, "item:", 
+          Integer.toString(i));
+      UIOutput.make(item, "label", "Menu " + i + " version " + version);
+      UIInternalLink.make(item, "link", new SimpleViewParameters(
+          RequestLauncher.TEST_VIEW));
+    }
+    UIBranchContainer live = UIBranchContainer.make(tofill, "live:");
+    live.decorate(new UIFragmentCacheDecorator("live"));
+    UIInput.make(live, "input", null, "Input version " + version);
+  }
+}
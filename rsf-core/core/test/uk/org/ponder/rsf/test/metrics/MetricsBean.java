@@ -0,0 +1,12 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.metrics;
+
+public class MetricsBean {
+  public String value;
+  
+  public String act() {
+    return "acted";
+  }
+}
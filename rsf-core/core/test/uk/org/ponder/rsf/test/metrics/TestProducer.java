@@ -0,0 +1,33 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.metrics;
+
+import uk.org.ponder.rsf.bare.RequestLauncher;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UICommand;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIForm;
+import uk.org.ponder.rsf.components.UIInput;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+public class TestProducer implements ViewComponentProducer {
+
+  public String getViewID() {
+    return RequestLauncher.TEST_VIEW;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    for (int i = 0; i < 3; ++i) {
+      UIBranchContainer row = UIBranchContainer.make(tofill, "row:", Integer.toString(i));
+      UIOutput.make(row, "cell", "Cell " + i);
+    }
+    UIForm form = UIForm.make(tofill, "form");
+    UIInput.make(form, "input", "metricsBean.value");
+    UICommand.make(form, "submit", "metricsBean.act");
+  }
+}
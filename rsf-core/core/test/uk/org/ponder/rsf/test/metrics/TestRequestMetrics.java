@@ -0,0 +1,107 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+
+import uk.org.ponder.rsf.bare.ActionResponse;
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.RequestLauncher;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+import uk.org.ponder.rsf.components.UICommand;
+import uk.org.ponder.rsf.components.UIForm;
+import uk.org.ponder.rsf.metrics.RequestMetrics;
+import uk.org.ponder.rsf.metrics.support.InMemoryRequestMetrics;
+import uk.org.ponder.rsf.metrics.support.TimingHistogram;
+
+/** Test for per-phase request cycle timings, collected by InMemoryRequestMetrics
+ * and exposed through JMX, and the accuracy of TimingHistogram
+ */
+
+public class TestRequestMetrics extends MultipleRSFTests {
+
+  public TestRequestMetrics() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/metrics/metrics-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/metrics/metrics-application-context.xml");
+  }
+
+  private InMemoryRequestMetrics getMetrics() {
+    return (InMemoryRequestMetrics) applicationContext.getBean("requestMetrics");
+  }
+
+  public void testRenderPhases() throws Exception {
+    InMemoryRequestMetrics metrics = getMetrics();
+    RenderResponse response = getRequestLauncher().renderView();
+    assertRenderError(response, false);
+    assertContains(response, "Cell 2");
+
+    String viewID = RequestLauncher.TEST_VIEW;
+    String[] phases = new String[] { RequestMetrics.HANDLE,
+        RequestMetrics.RENDER_HANDLER, RequestMetrics.GENERATE_VIEW,
+        RequestMetrics.FIXUP, RequestMetrics.RENDER,
+        RequestMetrics.RESOLVE_BRANCHES };
+    for (int i = 0; i < phases.length; ++i) {
+      Assert.assertEquals(phases[i], 1, metrics.getCount(viewID, phases[i]));
+    }
+    TimingHistogram handle = metrics.getHistogram(viewID, RequestMetrics.HANDLE);
+    TimingHistogram render = metrics.getHistogram(viewID, RequestMetrics.RENDER);
+    Assert.assertTrue(handle.getMax() >= render.getMax());
+    Assert.assertEquals(0, metrics.getCount(viewID, RequestMetrics.APPLY_VALUES));
+
+    ObjectName name = new ObjectName(InMemoryRequestMetrics.DEFAULT_OBJECT_NAME);
+    String[] viewIDs = (String[]) ManagementFactory.getPlatformMBeanServer()
+        .getAttribute(name, "ViewIDs");
+    Assert.assertEquals(viewID, viewIDs[0]);
+  }
+
+  public void testActionPhases() {
+    InMemoryRequestMetrics metrics = getMetrics();
+    RenderResponse render = getRequestLauncher().renderView();
+    UIForm form = (UIForm) render.viewWrapper.queryComponent(new UIForm());
+    UICommand command = (UICommand) render.viewWrapper.queryComponent(new UICommand());
+    ActionResponse response = getRequestLauncher().submitForm(form, command);
+    assertActionError(response, false);
+
+    String viewID = RequestLauncher.TEST_VIEW;
+    Assert.assertEquals(1, metrics.getCount(viewID, RequestMetrics.ACTION_HANDLER));
+    Assert.assertEquals(1, metrics.getCount(viewID, RequestMetrics.APPLY_VALUES));
+    Assert.assertEquals(2, metrics.getCount(viewID, RequestMetrics.HANDLE));
+    Assert.assertEquals(0, metrics.getCounter(viewID, RequestMetrics.ACTION_ERRORS));
+    Assert.assertTrue(metrics.getReport().indexOf(RequestMetrics.APPLY_VALUES) != -1);
+  }
+
+  public void testViewLimit() {
+    InMemoryRequestMetrics metrics = new InMemoryRequestMetrics();
+    metrics.setMaxViews(2);
+    for (int i = 0; i < 5; ++i) {
+      metrics.stop("view" + i, RequestMetrics.RENDER, metrics.start());
+    }
+    String[] viewIDs = metrics.getViewIDs();
+    Assert.assertEquals(3, viewIDs.length);
+    Assert.assertEquals(3, metrics.getCount(InMemoryRequestMetrics.OTHER_VIEWS,
+        RequestMetrics.RENDER));
+    metrics.setEnabled(false);
+    Assert.assertEquals(0, metrics.start());
+  }
+
+  public void testHistogram() {
+    TimingHistogram histogram = new TimingHistogram();
+    for (long i = 1; i <= 1000; ++i) {
+      histogram.record(i * 1000);
+    }
+    Assert.assertEquals(1000, histogram.getCount());
+    Assert.assertEquals(1000000, histogram.getMax());
+    long p50 = histogram.getValueAtPercentile(50);
+    long p99 = histogram.getValueAtPercentile(99);
+    Assert.assertTrue(p50 >= 500000 && p50 <= 500000 * 1.04);
+    Assert.assertTrue(p99 >= 990000 && p99 <= 1000000);
+    Assert.assertEquals(500500, histogram.getMean(), 0.001);
+    histogram.reset();
+    Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+  }
+}
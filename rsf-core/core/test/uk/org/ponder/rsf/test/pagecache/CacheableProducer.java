@@ -0,0 +1,39 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.pagecache;
+
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.CacheableViewProducer;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+public class CacheableProducer implements CacheableViewProducer {
+  private String viewID;
+  private boolean broken;
+
+  public void setViewID(String viewID) {
+    this.viewID = viewID;
+  }
+
+  public void setBroken(boolean broken) {
+    this.broken = broken;
+  }
+
+  public String getViewID() {
+    return viewID;
+  }
+
+  public int getPageCacheTTL(ViewParameters viewparams) {
+    return 60;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    if (broken) {
+      throw new IllegalStateException("Producer failure");
+    }
+    UIOutput.make(tofill, "title", "Cacheable View");
+  }
+}
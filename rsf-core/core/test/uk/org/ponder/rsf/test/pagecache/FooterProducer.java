@@ -0,0 +1,29 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.pagecache;
+
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/** A producer contributing to a view, which declares no cacheability **/
+
+public class FooterProducer implements ViewComponentProducer {
+  private String viewID;
+
+  public void setViewID(String viewID) {
+    this.viewID = viewID;
+  }
+
+  public String getViewID() {
+    return viewID;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    UIOutput.make(tofill, "footer", "Footer");
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.pagecache;
+
+import junit.framework.TestCase;
+import uk.org.ponder.rsf.pagecache.PageCache;
+
+/** Test the storage and lock management of the page cache **/
+
+public class TestPageCache extends TestCase {
+
+  private static PageCache.Entry makeEntry(int size) {
+    return new PageCache.Entry("text/html; charset=UTF-8", new byte[size]);
+  }
+
+  public void testStorage() {
+    PageCache cache = new PageCache();
+    cache.setMaxBytes(250);
+    cache.setMaxEntryBytes(150);
+    cache.put("a", makeEntry(100), 60);
+    cache.put("b", makeEntry(100), 60);
+    assertNotNull(cache.get("a"));
+    // "b" is now least recently used, and is evicted to make room
+    cache.put("c", makeEntry(100), 60);
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("a"));
+    assertNotNull(cache.get("c"));
+    assertEquals(200, cache.getBytes());
+
+    cache.put("d", makeEntry(200), 60);
+    assertNull(cache.get("d"));
+
+    cache.put("a", makeEntry(50), 60);
+    assertEquals(150, cache.getBytes());
+    assertEquals(2, cache.getSize());
+  }
+
+  public void testExpiry() {
+    PageCache cache = new PageCache();
+    cache.put("a", makeEntry(10), 0);
+    assertNull(cache.get("a"));
+    cache.put("a", makeEntry(10), -1);
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.getBytes());
+  }
+
+  public void testStampede() throws Exception {
+    final PageCache cache = new PageCache();
+    cache.setLockTimeout(10000);
+    assertTrue(cache.lead("a"));
+    assertFalse(cache.lead("a"));
+    final PageCache.Entry[] fetched = new PageCache.Entry[1];
+    Thread waiter = new Thread() {
+      public void run() {
+        fetched[0] = cache.get("a");
+      }
+    };
+    waiter.start();
+    Thread.sleep(100);
+    PageCache.Entry entry = makeEntry(10);
+    cache.put("a", entry, 60);
+    cache.release("a");
+    waiter.join(10000);
+    assertSame(entry, fetched[0]);
+    assertTrue(cache.lead("a"));
+    cache.release("a");
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.pagecache;
+
+import org.junit.Assert;
+
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+import uk.org.ponder.rsf.pagecache.PageCacheControl;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+
+/** Test that the cacheability of a rendered page is declared by its 
+ * producers, and withdrawn if rendering fails
+ */
+
+public class TestPageCacheControl extends MultipleRSFTests {
+
+  public TestPageCacheControl() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/pagecache/pagecache-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/pagecache/pagecache-application-context.xml");
+  }
+
+  private int getTTL(RenderResponse render) {
+    return ((PageCacheControl) render.requestContext
+        .locateBean("pageCacheControl")).getTTL();
+  }
+
+  public void testDeclaredTTL() {
+    RenderResponse render = getRequestLauncher().renderView();
+    assertRenderError(render, false);
+    Assert.assertEquals(60, getTTL(render));
+  }
+
+  public void testUndeclaredTTL() {
+    RenderResponse render = getRequestLauncher().renderView(
+        new SimpleViewParameters(PlainProducer.VIEW_ID));
+    assertRenderError(render, false);
+    Assert.assertEquals(PageCacheControl.UNDECLARED, getTTL(render));
+  }
+
+  public void testUndeclaringProducer() {
+    RenderResponse render = getRequestLauncher().renderView(
+        new SimpleViewParameters("mixed"));
+    assertRenderError(render, false);
+    Assert.assertTrue(render.markup.indexOf("Cacheable View") != -1);
+    Assert.assertTrue(render.markup.indexOf("Footer") != -1);
+    Assert.assertEquals(0, getTTL(render));
+  }
+
+  public void testFailedRender() {
+    RenderResponse render = getRequestLauncher().renderView(
+        new SimpleViewParameters("broken"));
+    assertRenderError(render, true);
+    Assert.assertEquals(0, getTTL(render));
+  }
+}
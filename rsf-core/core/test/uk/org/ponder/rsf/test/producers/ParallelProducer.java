@@ -0,0 +1,83 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.producers;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import uk.org.ponder.rsac.RSACBeanLocator;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ParallelSafeProducer;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/** A producer contributing a list of branches, which records the thread on
+ * which it executed and the request-scope ViewParameters it resolved there.
+ * If given a barrier, it will not complete until the barrier is reached by
+ * all the producers sharing it, and so fails unless they run concurrently.
+ */
+
+public class ParallelProducer implements ViewComponentProducer,
+    ParallelSafeProducer {
+  private String viewID;
+  private String branchID;
+  private long delay;
+  private RSACBeanLocator rsacbl;
+  private CyclicBarrier barrier;
+
+  public Thread thread;
+  public ViewParameters resolved;
+
+  public void setViewID(String viewID) {
+    this.viewID = viewID;
+  }
+
+  public void setBranchID(String branchID) {
+    this.branchID = branchID;
+  }
+
+  public void setDelay(long delay) {
+    this.delay = delay;
+  }
+
+  public void setRSACBeanLocator(RSACBeanLocator rsacbl) {
+    this.rsacbl = rsacbl;
+  }
+
+  public void setBarrier(CyclicBarrier barrier) {
+    this.barrier = barrier;
+  }
+
+  public String getViewID() {
+    return viewID;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    thread = Thread.currentThread();
+    resolved = (ViewParameters) rsacbl.getBeanLocator().locateBean(
+        "viewParameters");
+    try {
+      if (barrier != null) {
+        barrier.await(10, TimeUnit.SECONDS);
+      }
+      Thread.sleep(delay);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (Exception e) {
+      throw UniversalRuntimeException.accumulate(e, "Producer for "
+          + branchID + " did not meet its partner at the barrier");
+    }
+    for (int i = 0; i < 3; ++i) {
+      UIBranchContainer branch = UIBranchContainer.make(tofill, branchID);
+      UIOutput.make(branch, "cell", branchID + i);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.producers;
+
+import org.junit.Assert;
+
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+import uk.org.ponder.rsf.view.support.ProducerExecutor;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+
+/** Test that ParallelSafeProducers execute concurrently off the request 
+ * thread with the request context available, that their output is grafted in
+ * producer order irrespective of their completion order, and that a producer
+ * for which no worker is free runs on the request thread.
+ */
+
+public class TestParallelProducers extends MultipleRSFTests {
+
+  public TestParallelProducers() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/producers/producers-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/producers/producers-application-context.xml");
+  }
+
+  private static void assertBefore(RenderResponse render, String first,
+      String second) {
+    int firstpos = render.markup.indexOf(first);
+    Assert.assertTrue(first + " not found", firstpos != -1);
+    Assert.assertTrue(first + " should precede " + second,
+        firstpos < render.markup.indexOf(second));
+  }
+
+  public void testParallelProducers() {
+    RenderResponse render = getRequestLauncher().renderView();
+    assertRenderError(render, false);
+    assertContains(render, "Parallel View");
+    assertBefore(render, "row:0", "row:1");
+    assertBefore(render, "row:1", "row:2");
+    assertBefore(render, "item:0", "item:1");
+    assertBefore(render, "item:1", "item:2");
+
+    ParallelProducer slow = (ParallelProducer) applicationContext
+        .getBean("slowProducer");
+    ParallelProducer fast = (ParallelProducer) applicationContext
+        .getBean("fastProducer");
+    Assert.assertNotSame(Thread.currentThread(), slow.thread);
+    Assert.assertNotSame(Thread.currentThread(), fast.thread);
+    Assert.assertNotSame(slow.thread, fast.thread);
+    Assert.assertEquals("test", slow.resolved.viewID);
+    Assert.assertEquals("test", fast.resolved.viewID);
+  }
+
+  public void testSaturatedExecutor() {
+    ProducerExecutor executor = (ProducerExecutor) applicationContext
+        .getBean("producerExecutor");
+    executor.destroy();
+    executor.setParallelism(1);
+    executor.init();
+    try {
+      RenderResponse render = getRequestLauncher().renderView(
+          new SimpleViewParameters("saturated"));
+      assertRenderError(render, false);
+      assertBefore(render, "row:2", "item:0");
+      ParallelProducer busy = (ParallelProducer) applicationContext
+          .getBean("busyProducer");
+      ParallelProducer inline = (ParallelProducer) applicationContext
+          .getBean("inlineProducer");
+      Assert.assertNotSame(Thread.currentThread(), busy.thread);
+      Assert.assertSame(Thread.currentThread(), inline.thread);
+      Assert.assertEquals("saturated", inline.resolved.viewID);
+    }
+    finally {
+      executor.destroy();
+      executor.setParallelism(8);
+      executor.init();
+    }
+  }
+
+  public void testClash() {
+    RenderResponse render = getRequestLauncher().renderView(
+        new SimpleViewParameters("clash"));
+    assertRenderError(render, true);
+  }
+}
@@ -0,0 +1,19 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.readcache;
+
+/** A request scope bean which counts the reads made of its property **/
+public class CountingBean {
+  public int reads;
+  private String title = "Counted title";
+
+  public String getTitle() {
+    ++reads;
+    return title;
+  }
+
+  public void setTitle(String title) {
+    this.title = title;
+  }
+}
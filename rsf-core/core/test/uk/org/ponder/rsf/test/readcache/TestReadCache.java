@@ -0,0 +1,42 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.readcache;
+
+import org.junit.Assert;
+
+import uk.org.ponder.mapping.support.ReadCachingBeanModelAlterer;
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+
+/** Test that a bean path bound by several components is read only once
+ * per request when the read cache is enabled, and read afresh following a 
+ * write
+ */
+
+public class TestReadCache extends MultipleRSFTests {
+
+  public TestReadCache() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/readcache/readcache-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/readcache/readcache-application-context.xml");
+  }
+
+  public void testReadCache() {
+    RenderResponse response = getRequestLauncher().renderView();
+    assertRenderError(response, false);
+    assertContains(response, "Counted title");
+    CountingBean counting = (CountingBean) response.requestContext
+        .locateBean("countingBean");
+    Assert.assertEquals(1, counting.reads);
+
+    ReadCachingBeanModelAlterer alterer = (ReadCachingBeanModelAlterer) response.requestContext
+        .locateBean("readCachingBeanModelAlterer");
+    alterer.getBeanValue("title", counting, null);
+    alterer.getBeanValue("title", counting, null);
+    Assert.assertEquals(2, counting.reads);
+    alterer.setBeanValue("title", counting, "Altered title", null, false);
+    Assert.assertEquals("Altered title", alterer.getBeanValue("title",
+        counting, null));
+    Assert.assertEquals(3, counting.reads);
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.request;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+import uk.org.ponder.rsf.request.RequestSubmittedValueCache;
+import uk.org.ponder.rsf.request.SVESorter;
+import uk.org.ponder.rsf.request.SubmittedValueEntry;
+
+/** Checks the ordering and upstream components computed by the SVESorter,
+ * including over submissions of 10,000 fields.
+ */
+
+public class TestSVESorter extends TestCase {
+
+  private static SubmittedValueEntry component(String componentid,
+      String valuebinding) {
+    SubmittedValueEntry sve = new SubmittedValueEntry();
+    sve.componentid = componentid;
+    sve.valuebinding = valuebinding;
+    sve.newvalue = "value";
+    return sve;
+  }
+
+  private static SubmittedValueEntry fastEL(String valuebinding, String readEL) {
+    SubmittedValueEntry sve = new SubmittedValueEntry();
+    sve.valuebinding = valuebinding;
+    sve.newvalue = readEL;
+    sve.isEL = true;
+    return sve;
+  }
+
+  public void testIndependentEntries() {
+    RequestSubmittedValueCache rsvc = new RequestSubmittedValueCache();
+    SubmittedValueEntry title = component("title", "first.title");
+    SubmittedValueEntry label = component("label", "second.label");
+    SubmittedValueEntry other = component("other", "third.item.value");
+    rsvc.addEntry(title);
+    rsvc.addEntry(label);
+    rsvc.addEntry(other);
+    SVESorter sorter = new SVESorter(rsvc);
+    List sorted = sorter.getSortedRSVC();
+    assertEquals(3, sorted.size());
+    assertSame(title, sorted.get(0));
+    assertSame(label, sorted.get(1));
+    assertSame(other, sorted.get(2));
+    assertSame(label, sorter.getUpstreamMap().get("second.label"));
+  }
+
+  public void testSiblingFields() {
+    RequestSubmittedValueCache rsvc = new RequestSubmittedValueCache();
+    SubmittedValueEntry first = component("first", "form.first");
+    SubmittedValueEntry second = component("second", "form.second");
+    SubmittedValueEntry third = component("third", "form.third");
+    rsvc.addEntry(first);
+    rsvc.addEntry(second);
+    rsvc.addEntry(third);
+    // a plain form has nothing to order, and so is returned as submitted -
+    // the full sort would apply these in reverse, each from within the last
+    List sorted = new SVESorter(rsvc).getSortedRSVC();
+    assertEquals(3, sorted.size());
+    assertSame(first, sorted.get(0));
+    assertSame(second, sorted.get(1));
+    assertSame(third, sorted.get(2));
+
+    // a write above the form's fields requires the full sort
+    SubmittedValueEntry form = component("form", "form");
+    rsvc.addEntry(form);
+    sorted = new SVESorter(rsvc).getSortedRSVC();
+    assertEquals(4, sorted.size());
+    assertSame(form, sorted.get(0));
+  }
+
+  public void testDuplicateBindings() {
+    RequestSubmittedValueCache rsvc = new RequestSubmittedValueCache();
+    // e.g. a UIELBinding and a UIInput bound to the same path - the value
+    // submitted first has always been the one applied last
+    SubmittedValueEntry binding = component(null, "bean.flag");
+    binding.newvalue = "false";
+    SubmittedValueEntry input = component("flag", "bean.flag");
+    input.newvalue = "true";
+    rsvc.addEntry(binding);
+    rsvc.addEntry(input);
+    List sorted = new SVESorter(rsvc).getSortedRSVC();
+    assertEquals(2, sorted.size());
+    assertSame(input, sorted.get(0));
+    assertSame(binding, sorted.get(1));
+  }
+
+  public void testDependencies() {
+    RequestSubmittedValueCache rsvc = new RequestSubmittedValueCache();
+    // the example from the notes in SVESorter - the read of permissionbean
+    // must follow the write beneath it
+    SubmittedValueEntry permission = fastEL("resource.a8394.permission",
+        "permissionbean");
+    SubmittedValueEntry name = component("name", "permissionbean.name");
+    rsvc.addEntry(permission);
+    rsvc.addEntry(name);
+    SVESorter sorter = new SVESorter(rsvc);
+    List sorted = sorter.getSortedRSVC();
+    assertEquals(2, sorted.size());
+    assertTrue(sorted.indexOf(name) < sorted.indexOf(permission));
+    assertSame(name, sorter.getUpstreamComponent("resource.a8394.permission"));
+    List downstream = (List) sorter.getDownstreamMap().get(
+        "permissionbean.name");
+    assertTrue(downstream.contains("resource.a8394.permission"));
+  }
+
+  public void testCircularEL() {
+    RequestSubmittedValueCache rsvc = new RequestSubmittedValueCache();
+    SubmittedValueEntry first = fastEL("first.value", "second.value");
+    SubmittedValueEntry second = fastEL("second.value", "first.value");
+    rsvc.addEntry(first);
+    rsvc.addEntry(second);
+    SVESorter sorter = new SVESorter(rsvc);
+    List sorted = sorter.getSortedRSVC();
+    assertEquals(2, sorted.size());
+    assertNull(sorter.getUpstreamComponent("first.value"));
+  }
+
+  // A submission of the given number of fields, made up of rows each with
+  // two plain fields and a date assembled through a transit bean by fast EL
+  private static RequestSubmittedValueCache makeSubmission(int fields) {
+    RequestSubmittedValueCache rsvc = new RequestSubmittedValueCache();
+    for (int row = 0; rsvc.getEntries() < fields; ++row) {
+      String rowpath = "items." + row;
+      // submitted in the reverse of dependency order
+      rsvc.addEntry(fastEL(rowpath + ".date", "dateTransit" + row + ".date"));
+      rsvc.addEntry(component("date" + row, "dateTransit" + row + ".short"));
+      rsvc.addEntry(component("title" + row, rowpath + ".title"));
+      rsvc.addEntry(component("label" + row, rowpath + ".label"));
+    }
+    return rsvc;
+  }
+
+  public void testLargeSubmission() {
+    RequestSubmittedValueCache large = makeSubmission(10000);
+    SVESorter sorter = new SVESorter(large);
+    List sorted = sorter.getSortedRSVC();
+    assertEquals(large.getEntries(), sorted.size());
+    int[] positions = new int[large.getEntries()];
+    for (int i = 0; i < sorted.size(); ++i) {
+      positions[indexOf((SubmittedValueEntry) sorted.get(i))] = i;
+    }
+    for (int i = 0; i < large.getEntries(); i += 4) {
+      // the date must be assembled after its transit component is written
+      assertTrue(positions[i + 1] < positions[i]);
+      assertSame(large.entryAt(i + 1), sorter.getUpstreamComponent(large
+          .entryAt(i).valuebinding));
+    }
+
+    RequestSubmittedValueCache plain = new RequestSubmittedValueCache();
+    for (int i = 0; i < 10000; ++i) {
+      plain.addEntry(component("field" + i, "form.field" + i));
+    }
+    List plainsorted = new SVESorter(plain).getSortedRSVC();
+    assertEquals(plain.getEntries(), plainsorted.size());
+    for (int i = 0; i < plain.getEntries(); ++i) {
+      assertSame(plain.entryAt(i), plainsorted.get(i));
+    }
+  }
+
+  // the index of an entry in the submission, recovered from its path - a
+  // linear search here would dominate the test
+  private static int indexOf(SubmittedValueEntry sve) {
+    String path = sve.valuebinding;
+    int row;
+    if (path.startsWith("dateTransit")) {
+      row = Integer.parseInt(path.substring("dateTransit".length(), path
+          .indexOf('.')));
+      return row * 4 + 1;
+    }
+    row = Integer.parseInt(path.substring("items.".length(), path
+        .lastIndexOf('.')));
+    String tail = path.substring(path.lastIndexOf('.') + 1);
+    return row * 4 + (tail.equals("date") ? 0 : tail.equals("title") ? 2 : 3);
+  }
+}
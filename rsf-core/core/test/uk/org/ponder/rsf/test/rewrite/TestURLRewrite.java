@@ -0,0 +1,43 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.rewrite;
+
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+import uk.org.ponder.rsf.viewstate.support.StaticBaseURLProvider;
+
+/** Test for rewriting of template-relative resource URLs, which are located when
+ * the template is parsed and cached against the context base URL
+ */
+
+public class TestURLRewrite extends MultipleRSFTests {
+
+  public TestURLRewrite() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/rewrite/rewrite-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/rewrite/rewrite-application-context.xml");
+  }
+
+  public void testRewrite() {
+    RenderResponse response = getRequestLauncher().renderView();
+    assertRenderError(response, false);
+    assertContains(response, "src=\"http://one/");
+    assertContains(response, "rewrite/images/logo.png\"");
+    assertContains(response, "rewrite/css/site.css\"");
+    assertContains(response, "<a href=\"http://www.caret.cam.ac.uk/\">");
+    // a second render is served from the lumps' cached rewrites
+    response = getRequestLauncher().renderView();
+    assertContains(response, "src=\"http://one/");
+  }
+
+  public void testContextBaseChange() {
+    StaticBaseURLProvider bup = (StaticBaseURLProvider) applicationContext
+        .getBean("baseURLProvider");
+    RenderResponse response = getRequestLauncher().renderView();
+    assertContains(response, "href=\"http://one/");
+    bup.setResourceBaseURL("http://two/");
+    response = getRequestLauncher().renderView();
+    assertContains(response, "href=\"http://two/");
+    assertContains(response, "src=\"http://two/");
+  }
+}
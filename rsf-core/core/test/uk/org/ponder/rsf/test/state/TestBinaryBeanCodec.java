@@ -0,0 +1,284 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.state;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import uk.org.ponder.reflect.JDKReflectiveCache;
+import uk.org.ponder.rsf.state.support.BinaryBeanCodec;
+import uk.org.ponder.rsf.state.support.EncodingTSH;
+import uk.org.ponder.rsf.state.support.InMemoryTSH;
+import uk.org.ponder.saxalizer.SAXalizerMappingContext;
+import uk.org.ponder.saxalizer.mapping.ContainerTypeRegistry;
+import uk.org.ponder.saxalizer.mapping.DefaultMapperInferrer;
+
+/** Checks round-tripping of preserved bean state through the BinaryBeanCodec
+ * and EncodingTSH
+ */
+
+public class TestBinaryBeanCodec extends TestCase {
+
+  public static class Person implements Serializable {
+    private String name;
+    private int age;
+    private Date born;
+    private Person friend;
+    private List tags = new ArrayList();
+
+    public String getName() {
+      return name;
+    }
+    public void setName(String name) {
+      this.name = name;
+    }
+    public int getAge() {
+      return age;
+    }
+    public void setAge(int age) {
+      this.age = age;
+    }
+    public Date getBorn() {
+      return born;
+    }
+    public void setBorn(Date born) {
+      this.born = born;
+    }
+    public Person getFriend() {
+      return friend;
+    }
+    public void setFriend(Person friend) {
+      this.friend = friend;
+    }
+    public List getTags() {
+      return tags;
+    }
+    public void setTags(List tags) {
+      this.tags = tags;
+    }
+  }
+
+  /** A bean with a property which may be read but not written **/
+  public static class Counter {
+    private int count;
+
+    public int getCount() {
+      return count;
+    }
+    public void increment() {
+      ++count;
+    }
+  }
+
+  /** A bean with state held in a field not exposed as a property **/
+  public static class Secretive {
+    private String name;
+    private String secret;
+
+    public String getName() {
+      return name;
+    }
+    public void setName(String name) {
+      this.name = name;
+    }
+    public void setSecret(String secret) {
+      this.secret = secret;
+    }
+    public boolean hasSecret() {
+      return secret != null;
+    }
+  }
+
+  /** A bean holding the JDBC subclasses of Date, which the leaf parser
+   * parses back only as java.util.Date **/
+  public static class Record {
+    private Timestamp modified;
+    private java.sql.Date created;
+    private Time opens;
+
+    public Timestamp getModified() {
+      return modified;
+    }
+    public void setModified(Timestamp modified) {
+      this.modified = modified;
+    }
+    public java.sql.Date getCreated() {
+      return created;
+    }
+    public void setCreated(java.sql.Date created) {
+      this.created = created;
+    }
+    public Time getOpens() {
+      return opens;
+    }
+    public void setOpens(Time opens) {
+      this.opens = opens;
+    }
+  }
+
+  /** A leaf type by virtue of its superclass, which it is parsed back as **/
+  public static class Birthday extends Date {
+    public Birthday() {
+    }
+  }
+
+  public static class Opaque {
+    public Opaque(String value) {
+    }
+  }
+
+  private BinaryBeanCodec makeCodec(boolean compress) {
+    JDKReflectiveCache reflectivecache = new JDKReflectiveCache();
+    // configured as for the ELMappingContext
+    DefaultMapperInferrer inferrer = new DefaultMapperInferrer();
+    inferrer.setContainerTypeRegistry(new ContainerTypeRegistry());
+    inferrer.setDepluralize(false);
+    inferrer.setInferAddMethods(false);
+    inferrer.init();
+    SAXalizerMappingContext mappingcontext = new SAXalizerMappingContext();
+    mappingcontext.setReflectiveCache(reflectivecache);
+    mappingcontext.setDefaultInferrer(inferrer);
+
+    BinaryBeanCodec codec = new BinaryBeanCodec();
+    codec.setMappingContext(mappingcontext);
+    codec.setReflectiveCache(reflectivecache);
+    codec.setCompress(compress);
+    return codec;
+  }
+
+  private HashMap makeBeans(int count) {
+    HashMap beans = new HashMap();
+    Person previous = null;
+    for (int i = 0; i < count; ++i) {
+      Person person = new Person();
+      person.setName("Person " + i);
+      person.setAge(-i);
+      person.setBorn(new Date(1000000000000L + i * 1000));
+      person.getTags().add("tag" + (i % 3));
+      person.getTags().add(Long.valueOf(i * 1000000000L));
+      person.setFriend(previous == null ? person : previous);
+      beans.put("person" + i, person);
+      previous = person;
+    }
+    return beans;
+  }
+
+  public void testRoundTrip() {
+    BinaryBeanCodec codec = makeCodec(false);
+    HashMap beans = makeBeans(3);
+    Map decoded = (Map) codec.decode(codec.encode(beans));
+    assertEquals(3, decoded.size());
+    for (int i = 0; i < 3; ++i) {
+      Person original = (Person) beans.get("person" + i);
+      Person restored = (Person) decoded.get("person" + i);
+      assertNotSame(original, restored);
+      assertEquals(original.getName(), restored.getName());
+      assertEquals(original.getAge(), restored.getAge());
+      assertEquals(original.getBorn(), restored.getBorn());
+      assertEquals(original.getTags(), restored.getTags());
+      assertEquals(original.getFriend().getName(), 
+          restored.getFriend().getName());
+    }
+    Person first = (Person) decoded.get("person0");
+    assertSame(first, first.getFriend());
+    assertSame(first, ((Person) decoded.get("person1")).getFriend());
+  }
+
+  public void testDateLeaves() {
+    BinaryBeanCodec codec = makeCodec(false);
+    Record record = new Record();
+    Timestamp modified = new Timestamp(1000000000123L);
+    modified.setNanos(123456789);
+    record.setModified(modified);
+    record.setCreated(new java.sql.Date(1000000000000L));
+    record.setOpens(new Time(32400000L));
+    HashMap beans = new HashMap();
+    beans.put("record", record);
+    beans.put("stamp", modified);
+
+    Map decoded = (Map) codec.decode(codec.encode(beans));
+    Record restored = (Record) decoded.get("record");
+    assertSame(Timestamp.class, restored.getModified().getClass());
+    assertEquals(modified, restored.getModified());
+    assertEquals(123456789, restored.getModified().getNanos());
+    assertSame(java.sql.Date.class, restored.getCreated().getClass());
+    assertEquals(record.getCreated(), restored.getCreated());
+    assertSame(Time.class, restored.getOpens().getClass());
+    assertEquals(record.getOpens(), restored.getOpens());
+    assertEquals(modified, decoded.get("stamp"));
+
+    // a leaf which would be restored as its superclass is refused
+    HashMap birthdays = new HashMap();
+    birthdays.put("birthday", new Birthday());
+    assertNull(codec.encode(birthdays));
+  }
+
+  public void testCompactness() throws Exception {
+    HashMap beans = makeBeans(50);
+    ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(serialized);
+    oos.writeObject(beans);
+    oos.close();
+    byte[] plain = makeCodec(false).encode(beans);
+    byte[] compressed = makeCodec(true).encode(beans);
+    assertTrue(plain.length < serialized.size());
+    assertTrue(compressed.length < plain.length);
+    Map decoded = (Map) makeCodec(true).decode(compressed);
+    assertEquals("Person 49", ((Person) decoded.get("person49")).getName());
+  }
+
+  public void testUnrestorableState() {
+    BinaryBeanCodec codec = makeCodec(false);
+    Counter counter = new Counter();
+    counter.increment();
+    HashMap counted = new HashMap();
+    counted.put("counter", counter);
+    assertNull(codec.encode(counted));
+
+    Secretive secretive = new Secretive();
+    secretive.setName("name");
+    secretive.setSecret("secret");
+    HashMap secrets = new HashMap();
+    secrets.put("secretive", secretive);
+    assertNull(codec.encode(secrets));
+  }
+
+  public void testEncodingTSH() {
+    InMemoryTSH memory = new InMemoryTSH();
+    memory.setReflectiveCache(new JDKReflectiveCache());
+    memory.init();
+    try {
+      EncodingTSH tsh = new EncodingTSH();
+      tsh.setTargetTokenStateHolder(memory);
+      tsh.setTokenStateCodec(makeCodec(true));
+
+      tsh.putTokenState("beans", makeBeans(2));
+      assertTrue(memory.getTokenState("beans") 
+          instanceof EncodingTSH.EncodedTokenState);
+      Map restored = (Map) tsh.getTokenState("beans");
+      assertEquals("Person 1", ((Person) restored.get("person1")).getName());
+
+      // state the codec cannot represent is stored as it is
+      HashMap opaque = new HashMap();
+      opaque.put("opaque", new Opaque("value"));
+      tsh.putTokenState("opaque", opaque);
+      assertSame(opaque, tsh.getTokenState("opaque"));
+
+      tsh.clearTokenState("beans");
+      assertNull(tsh.getTokenState("beans"));
+    }
+    finally {
+      memory.destroy();
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.state;
+
+import junit.framework.TestCase;
+import uk.org.ponder.reflect.JDKReflectiveCache;
+import uk.org.ponder.rsf.state.support.InMemoryTSH;
+
+/** Checks expiry of token state through the expiry wheel, and bounding of 
+ * InMemoryTSH by least recently used eviction
+ */
+
+public class TestInMemoryTSH extends TestCase {
+
+  private InMemoryTSH makeTSH(int expiryseconds, int maxentries) {
+    InMemoryTSH tsh = new InMemoryTSH();
+    tsh.setReflectiveCache(new JDKReflectiveCache());
+    tsh.setExpirySeconds(expiryseconds);
+    tsh.setMaxEntries(maxentries);
+    tsh.init();
+    return tsh;
+  }
+
+  public void testStorage() {
+    InMemoryTSH tsh = makeTSH(60, 0);
+    try {
+      tsh.putTokenState("token", "payload");
+      assertEquals("payload", tsh.getTokenState("token"));
+      tsh.clearTokenState("token");
+      assertNull(tsh.getTokenState("token"));
+      assertEquals(0, tsh.getSize());
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+
+  public void testExpiry() throws InterruptedException {
+    InMemoryTSH tsh = makeTSH(1, 0);
+    try {
+      tsh.putTokenState("read", "payload");
+      tsh.putTokenState("unread", "payload");
+      Thread.sleep(1100);
+      // an expired entry is never returned, even before the wheel reaches it
+      assertNull(tsh.getTokenState("read"));
+      // the wheel removes entries which are never read again
+      for (int i = 0; i < 30 && tsh.getSize() > 0; ++i) {
+        Thread.sleep(100);
+      }
+      assertEquals(0, tsh.getSize());
+      assertEquals(2, tsh.getExpiredCount());
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+
+  public void testLRUEviction() {
+    InMemoryTSH tsh = makeTSH(60, 32);
+    try {
+      for (int i = 0; i < 32; ++i) {
+        tsh.putTokenState("token" + i, Integer.toString(i));
+        if (i == 4) {
+          sleepQuietly();
+        }
+      }
+      sleepQuietly();
+      // keep the earliest entries in use
+      for (int i = 0; i < 4; ++i) {
+        assertNotNull(tsh.getTokenState("token" + i));
+      }
+      sleepQuietly();
+      tsh.putTokenState("overflow", "overflow");
+      assertTrue(tsh.getSize() <= 32);
+      assertTrue(tsh.getEvictedCount() >= 1);
+      for (int i = 0; i < 4; ++i) {
+        assertNotNull(tsh.getTokenState("token" + i));
+      }
+      // token4 is the least recently used
+      assertNull(tsh.getTokenState("token4"));
+      assertNotNull(tsh.getTokenState("overflow"));
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+
+  public void testPutAfterDestroy() {
+    InMemoryTSH tsh = makeTSH(60, 0);
+    tsh.putTokenState("token", "payload");
+    tsh.destroy();
+    try {
+      tsh.putTokenState("late", "payload");
+      fail("A destroyed holder should not accept token state");
+    }
+    catch (IllegalStateException e) {
+    }
+    assertEquals(0, tsh.getSize());
+    assertNull(tsh.getTokenState("late"));
+    // an explicit init brings the holder back into service
+    tsh.init();
+    try {
+      tsh.putTokenState("token", "payload");
+      assertEquals("payload", tsh.getTokenState("token"));
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+
+  // ensure that successive accesses are distinguishable by the millisecond clock
+  private static void sleepQuietly() {
+    try {
+      Thread.sleep(5);
+    }
+    catch (InterruptedException e) {
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.state;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.ServletContext;
+
+import junit.framework.TestCase;
+import uk.org.ponder.rsf.state.support.MappedFileTSH;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/** Checks persistence of token state across restarts of MappedFileTSH, 
+ * recovery from a torn record, compaction of the state file, and the
+ * restriction of serialized state to permitted classes
+ */
+
+public class TestMappedFileTSH extends TestCase {
+  private File directory;
+
+  public static class Bookmark implements Serializable {
+    public String page;
+  }
+
+  protected void setUp() throws Exception {
+    directory = File.createTempFile("tokenstate", "");
+    directory.delete();
+    directory.mkdirs();
+  }
+
+  protected void tearDown() {
+    File[] files = directory.listFiles();
+    for (int i = 0; i < files.length; ++i) {
+      files[i].delete();
+    }
+    directory.delete();
+  }
+
+  private MappedFileTSH makeTSH(int expiryseconds, int capacity) {
+    MappedFileTSH tsh = new MappedFileTSH();
+    tsh.setDirectory(directory.getPath());
+    tsh.setExpirySeconds(expiryseconds);
+    tsh.setInitialCapacity(capacity);
+    tsh.init();
+    return tsh;
+  }
+
+  public void testRestart() {
+    MappedFileTSH tsh = makeTSH(60, 4096);
+    List payload = new ArrayList();
+    payload.add("flow state");
+    tsh.putTokenState("flow", payload);
+    tsh.putTokenState("error", "message");
+    tsh.putTokenState("cleared", "gone");
+    tsh.clearTokenState("cleared");
+    // state which cannot be persisted is still held for this run
+    Object opaque = new Object();
+    tsh.putTokenState("opaque", opaque);
+    assertSame(opaque, tsh.getTokenState("opaque"));
+    tsh.destroy();
+
+    tsh = makeTSH(60, 4096);
+    try {
+      assertEquals(payload, tsh.getTokenState("flow"));
+      assertEquals("message", tsh.getTokenState("error"));
+      assertNull(tsh.getTokenState("cleared"));
+      assertNull(tsh.getTokenState("opaque"));
+      assertEquals(2, tsh.getSize());
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+
+  public void testDirectory() {
+    MappedFileTSH tsh = new MappedFileTSH();
+    try {
+      tsh.init();
+      fail("Token state file opened with no directory configured");
+    }
+    catch (UniversalRuntimeException e) {
+    }
+    // within a webapp, the state is held in its private temporary directory
+    ServletContext context = (ServletContext) Proxy.newProxyInstance(
+        getClass().getClassLoader(), new Class[] { ServletContext.class },
+        new InvocationHandler() {
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            return method.getName().equals("getAttribute")
+                && "javax.servlet.context.tempdir".equals(args[0]) ? directory
+                : null;
+          }
+        });
+    tsh.setServletContext(context);
+    tsh.init();
+    try {
+      tsh.putTokenState("token", "payload");
+      assertTrue(new File(directory, "rsf-tokenstate/tokenstate.log").exists());
+    }
+    finally {
+      tsh.destroy();
+    }
+    File[] files = new File(directory, "rsf-tokenstate").listFiles();
+    for (int i = 0; i < files.length; ++i) {
+      files[i].delete();
+    }
+    new File(directory, "rsf-tokenstate").delete();
+  }
+
+  public void testSerializablePackages() {
+    Bookmark bookmark = new Bookmark();
+    bookmark.page = "contents";
+    List payload = new ArrayList();
+    payload.add(bookmark);
+    MappedFileTSH tsh = makeTSH(60, 4096);
+    tsh.putTokenState("bookmark", payload);
+    tsh.destroy();
+
+    // state of classes outside the permitted packages is neither read back..
+    tsh = new MappedFileTSH();
+    tsh.setDirectory(directory.getPath());
+    tsh.setSerializablePackages(new String[] {"java.util", "java.lang"});
+    tsh.init();
+    try {
+      tsh.getTokenState("bookmark");
+      fail("State of a class outside the serializable packages was read");
+    }
+    catch (UniversalRuntimeException e) {
+    }
+    // ..nor written, other than to memory
+    tsh.putTokenState("bookmark", payload);
+    assertSame(payload, tsh.getTokenState("bookmark"));
+    tsh.destroy();
+
+    tsh = makeTSH(60, 4096);
+    try {
+      assertNull(tsh.getTokenState("bookmark"));
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+
+  public void testTornRecord() throws Exception {
+    MappedFileTSH tsh = makeTSH(60, 4096);
+    tsh.putTokenState("first", "complete");
+    tsh.putTokenState("second", "torn");
+    tsh.destroy();
+
+    // damage the payload of the final record, as if the JVM had died mid-write
+    RandomAccessFile file = new RandomAccessFile(
+        new File(directory, "tokenstate.log"), "rw");
+    byte[] contents = new byte[(int) file.length()];
+    file.readFully(contents);
+    int last = new String(contents, "ISO-8859-1").lastIndexOf("torn");
+    file.seek(last);
+    file.write('T');
+    file.close();
+
+    tsh = makeTSH(60, 4096);
+    try {
+      assertEquals("complete", tsh.getTokenState("first"));
+      assertNull(tsh.getTokenState("second"));
+      tsh.putTokenState("third", "after recovery");
+    }
+    finally {
+      tsh.destroy();
+    }
+    tsh = makeTSH(60, 4096);
+    try {
+      assertEquals("after recovery", tsh.getTokenState("third"));
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+
+  public void testCompaction() {
+    MappedFileTSH tsh = makeTSH(60, 4096);
+    try {
+      for (int i = 0; i < 200; ++i) {
+        tsh.putTokenState("token" + (i % 4), "value " + i);
+      }
+      assertTrue(tsh.getCompactionCount() > 0);
+      assertEquals(4096, new File(directory, "tokenstate.log").length());
+      for (int i = 0; i < 200; ++i) {
+        tsh.putTokenState("distinct" + i, "value " + i);
+      }
+      assertTrue(new File(directory, "tokenstate.log").length() > 4096);
+      assertEquals("value 199", tsh.getTokenState("token3"));
+      assertEquals("value 0", tsh.getTokenState("distinct0"));
+    }
+    finally {
+      tsh.destroy();
+    }
+    tsh = makeTSH(60, 4096);
+    try {
+      assertEquals(204, tsh.getSize());
+      assertEquals("value 150", tsh.getTokenState("distinct150"));
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+
+  public void testExpiry() throws InterruptedException {
+    MappedFileTSH tsh = makeTSH(1, 4096);
+    try {
+      tsh.putTokenState("token", "payload");
+      assertEquals("payload", tsh.getTokenState("token"));
+      Thread.sleep(1100);
+      assertNull(tsh.getTokenState("token"));
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+
+  public void testUnpersistedExpiry() throws InterruptedException {
+    MappedFileTSH tsh = makeTSH(1, 4096);
+    try {
+      // abandoned state which cannot be persisted, and is never read again
+      tsh.putTokenState("opaque", new Object());
+      assertEquals(1, tsh.getSize());
+      Thread.sleep(1100);
+      tsh.putTokenState("token", "payload");
+      assertEquals(1, tsh.getSize());
+      assertEquals("payload", tsh.getTokenState("token"));
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.state;
+
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+import uk.org.ponder.errorutil.CoreMessages;
+import uk.org.ponder.messageutil.TargettedMessageException;
+import uk.org.ponder.rsf.flow.FlowIDHolder;
+import uk.org.ponder.rsf.flow.support.BasicScopedAlterationWrapper;
+import uk.org.ponder.rsf.state.support.StripedLockManager;
+import uk.org.ponder.stringutil.StringList;
+
+/** Checks reference counting and timeout of locks issued by the 
+ * StripedLockManager, and the failure path through the 
+ * BasicScopedAlterationWrapper
+ */
+
+public class TestStripedLockManager extends TestCase {
+
+  private StripedLockManager makeManager(long timeout) {
+    StripedLockManager manager = new StripedLockManager();
+    manager.setLockTimeout(timeout);
+    return manager;
+  }
+
+  private Thread holder;
+
+  /** Holds the named lock on another thread until the returned latch is 
+   * counted down. 
+   */
+  private CountDownLatch holdLock(final StripedLockManager manager,
+      final String lockname) throws InterruptedException {
+    final CountDownLatch acquired = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    holder = new Thread() {
+      public void run() {
+        manager.acquireLock(lockname);
+        acquired.countDown();
+        try {
+          release.await();
+        }
+        catch (InterruptedException e) {
+        }
+        manager.releaseLock(lockname);
+      }
+    };
+    holder.start();
+    acquired.await();
+    return release;
+  }
+
+  public void testReferenceCounting() {
+    StripedLockManager manager = makeManager(1000);
+    assertTrue(manager.acquireLock("flow1"));
+    assertTrue(manager.acquireLock("flow1"));
+    assertTrue(manager.acquireLock("flow2"));
+    assertEquals(2, manager.getActiveLockCount());
+    manager.releaseLock("flow1");
+    assertEquals(2, manager.getActiveLockCount());
+    manager.releaseLock("flow1");
+    manager.releaseLock("flow2");
+    assertEquals(0, manager.getActiveLockCount());
+    try {
+      manager.releaseLock("flow1");
+      fail("Release of unheld lock should fail");
+    }
+    catch (IllegalStateException e) {
+    }
+  }
+
+  public void testTimeout() throws InterruptedException {
+    StripedLockManager manager = makeManager(50);
+    CountDownLatch release = holdLock(manager, "flow");
+    assertFalse(manager.acquireLock("flow"));
+    assertEquals(1, manager.getTimeoutCount());
+    assertTrue(manager.acquireLock("other"));
+    manager.releaseLock("other");
+    release.countDown();
+    holder.join();
+    manager.setLockTimeout(5000);
+    assertTrue(manager.acquireLock("flow"));
+    manager.releaseLock("flow");
+    assertEquals(0, manager.getActiveLockCount());
+  }
+
+  public void testWrapperFailure() throws InterruptedException {
+    StripedLockManager manager = makeManager(50);
+    BasicScopedAlterationWrapper wrapper = new BasicScopedAlterationWrapper();
+    FlowIDHolder holder = new FlowIDHolder();
+    holder.setFlowToken("flow");
+    wrapper.setFlowIDHolder(holder);
+    wrapper.setLockManager(manager);
+    wrapper.setScopeLocks(new StringList("scope"));
+
+    final int[] runs = new int[1];
+    Runnable counter = new Runnable() {
+      public void run() {
+        ++runs[0];
+      }
+    };
+    wrapper.invokeRunnable(counter);
+    assertEquals(1, runs[0]);
+    assertEquals(0, manager.getActiveLockCount());
+
+    CountDownLatch release = holdLock(manager, "scope");
+    try {
+      wrapper.invokeRunnable(counter);
+      fail("Wrapper should fail on lock timeout");
+    }
+    catch (TargettedMessageException e) {
+      assertEquals(CoreMessages.LOCK_TIMEOUT_ERROR, 
+          e.getTargettedMessage().acquireMessageCode());
+    }
+    assertEquals(1, runs[0]);
+    // the flow lock acquired before the timeout must have been released
+    assertEquals(1, manager.getActiveLockCount());
+    release.countDown();
+  }
+}
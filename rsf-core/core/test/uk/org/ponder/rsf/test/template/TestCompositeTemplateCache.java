@@ -0,0 +1,109 @@
+/*
+ * Created on 17 Oct 2026
+ */
+package uk.org.ponder.rsf.test.template;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.springframework.core.io.DefaultResourceLoader;
+
+import uk.org.ponder.reflect.JDKReflectiveCache;
+import uk.org.ponder.rsf.template.TPIAggregator;
+import uk.org.ponder.rsf.template.XMLCompositeViewTemplate;
+import uk.org.ponder.rsf.templateresolver.support.BasicTemplateResolver;
+import uk.org.ponder.rsf.templateresolver.support.StaticTemplateExtensionInferrer;
+import uk.org.ponder.rsf.templateresolver.support.StaticTemplateResolverStrategy;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/** Checks that a composite template is reused across resolutions until one
+ * of its constituents changes
+ */
+
+public class TestCompositeTemplateCache extends TestCase {
+  private File dir;
+  private BasicTemplateResolver resolver;
+
+  private void writeFile(String name, String content) throws Exception {
+    FileOutputStream fos = new FileOutputStream(new File(dir, name));
+    try {
+      fos.write(content.getBytes("UTF-8"));
+    }
+    finally {
+      fos.close();
+    }
+  }
+
+  private StaticTemplateResolverStrategy makeStrategy(String name,
+      int priority) {
+    StaticTemplateResolverStrategy trs = new StaticTemplateResolverStrategy();
+    trs.setTemplateResourceBase(dir.toURI().toString());
+    trs.setTemplateNames(name);
+    trs.setRootResolverPriority(priority);
+    trs.setExternalURLBase("");
+    return trs;
+  }
+
+  protected void setUp() throws Exception {
+    dir = File.createTempFile("templates", "");
+    dir.delete();
+    dir.mkdir();
+    writeFile("page.html", "<html><body><div rsf:id=\"content:\">Content</div>"
+        + "</body></html>");
+    writeFile("footer.html", "<html><body><div rsf:id=\"footer:\">Footer</div>"
+        + "</body></html>");
+
+    resolver = new BasicTemplateResolver();
+    resolver.setCacheSeconds(0);
+    resolver.setResourceLoader(new DefaultResourceLoader());
+    resolver.setReflectiveCache(new JDKReflectiveCache());
+    resolver.setTPIAggregator(new TPIAggregator());
+    StaticTemplateExtensionInferrer tei = new StaticTemplateExtensionInferrer();
+    tei.setExtension("html");
+    resolver.setTemplateExtensionInferrer(tei);
+    List strategies = new ArrayList();
+    strategies.add(makeStrategy("page", 1));
+    strategies.add(makeStrategy("footer", 0));
+    resolver.setTemplateResolverStrategies(strategies);
+  }
+
+  protected void tearDown() {
+    File[] files = dir.listFiles();
+    for (int i = 0; i < files.length; ++i) {
+      files[i].delete();
+    }
+    dir.delete();
+  }
+
+  public void testCompositeCache() throws Exception {
+    ViewParameters viewparams = new SimpleViewParameters("page");
+    XMLCompositeViewTemplate first = (XMLCompositeViewTemplate) resolver
+        .locateTemplate(viewparams);
+    assertTrue(first.globalmap.hasID("footer:"));
+    XMLCompositeViewTemplate second = (XMLCompositeViewTemplate) resolver
+        .locateTemplate(viewparams);
+    assertSame(first, second);
+
+    File footer = new File(dir, "footer.html");
+    long modtime = footer.lastModified();
+    writeFile("footer.html", "<html><body><div rsf:id=\"banner:\">Banner</div>"
+        + "</body></html>");
+    footer.setLastModified(modtime + 10000);
+    Thread.sleep(2);
+    XMLCompositeViewTemplate changed = (XMLCompositeViewTemplate) resolver
+        .locateTemplate(viewparams);
+    assertNotSame(first, changed);
+    // the unchanged root template is reused within the fresh composite
+    assertSame(first.roottemplate, changed.roottemplate);
+    assertTrue(changed.globalmap.hasID("banner:"));
+    assertFalse(changed.globalmap.hasID("footer:"));
+
+    Thread.sleep(2);
+    assertSame(changed, resolver.locateTemplate(viewparams));
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Created on 17 Oct 2026
+ */
+package uk.org.ponder.rsf.test.template;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+
+import junit.framework.TestCase;
+import uk.org.ponder.rsf.renderer.RenderUtil;
+import uk.org.ponder.rsf.template.XMLViewTemplate;
+import uk.org.ponder.rsf.template.XMLViewTemplateParser;
+import uk.org.ponder.streamutil.write.OutputStreamPOS;
+import uk.org.ponder.streamutil.write.StringPOS;
+
+/** Checks that pre-encoded template spans agree with the character form */
+
+public class TestEncodedTemplate extends TestCase {
+  public static final String TEMPLATE = "<html><head><title>Café €</title></head>"
+      + "<body><p class=\"naïve\">𝄞 text</p><div rsf:id=\"row:\">"
+      + "über</div></body></html>";
+
+  private XMLViewTemplate parse(String encoding)
+      throws UnsupportedEncodingException {
+    XMLViewTemplateParser parser = new XMLViewTemplateParser();
+    parser.setEncoding(encoding);
+    return (XMLViewTemplate) parser.parse(new ByteArrayInputStream(TEMPLATE
+        .getBytes("UTF-8")));
+  }
+
+  public void testEncodedSpans() throws UnsupportedEncodingException {
+    XMLViewTemplate template = parse("UTF-8");
+    assertNotNull(template.encodedbuffer);
+    int length = template.lumps.length;
+    for (int start = 0; start < length; ++start) {
+      for (int limit = start; limit <= length; ++limit) {
+        StringPOS chars = new StringPOS();
+        RenderUtil.dumpLumps(template.lumps, start, limit, chars);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputStreamPOS bytes = new OutputStreamPOS(baos, "UTF-8");
+        RenderUtil.dumpLumps(template.lumps, start, limit, bytes);
+        bytes.flush();
+        assertEquals(chars.toString(), baos.toString("UTF-8"));
+      }
+    }
+  }
+
+  public void testMismatchedEncoding() throws UnsupportedEncodingException {
+    XMLViewTemplate template = parse("UTF-16");
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    OutputStreamPOS bytes = new OutputStreamPOS(baos, "UTF-8");
+    RenderUtil.dumpLumps(template.lumps, 0, template.lumps.length, bytes);
+    bytes.flush();
+    assertEquals(new String(template.buffer), baos.toString("UTF-8"));
+  }
+}
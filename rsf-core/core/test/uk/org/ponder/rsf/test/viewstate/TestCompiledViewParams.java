@@ -0,0 +1,131 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.viewstate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Assert;
+
+import uk.org.ponder.beanutil.BeanModelAlterer;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+import uk.org.ponder.rsf.viewstate.RawURLState;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+import uk.org.ponder.rsf.viewstate.support.ConcreteViewParamsMapInfo;
+import uk.org.ponder.rsf.viewstate.support.ViewParamsMapper;
+
+/** Checks that the compiled ViewParameters paths agree with the reflective
+ * (BeanModelAlterer) rendering and parsing of the same paths
+ */
+
+public class TestCompiledViewParams extends MultipleRSFTests {
+
+  public static class Entity {
+    public Long ID;
+    public String label;
+  }
+
+  public static class SubEntity extends Entity {
+  }
+
+  public static class EntityParams extends SimpleViewParameters {
+    public String name;
+    public int count;
+    public boolean flag;
+    public Entity entity = new Entity();
+
+    public String getParseSpec() {
+      return super.getParseSpec() + ",name,count,flag,@1:entity.label,e.:entity.*";
+    }
+  }
+
+  private ViewParamsMapper getMapper() {
+    return (ViewParamsMapper) applicationContext.getBean("viewParamsMapper");
+  }
+
+  private EntityParams makeParams(Entity entity) {
+    EntityParams togo = new EntityParams();
+    togo.viewID = "list";
+    togo.name = "Fred Bloggs";
+    togo.count = 42;
+    togo.flag = true;
+    togo.entity = entity;
+    entity.ID = new Long(12345678901L);
+    entity.label = "label";
+    return togo;
+  }
+
+  private Map reflectiveAttributes(EntityParams params) {
+    ViewParamsMapper mapper = getMapper();
+    BeanModelAlterer bma = mapper.getBeanModelAlterer();
+    ConcreteViewParamsMapInfo mapinfo = mapper.getVPMappingInfoManager()
+        .getMappingInfo(params);
+    Map togo = new HashMap();
+    for (int i = 0; i < mapinfo.paths.length; ++i) {
+      String value = (String) bma.getFlattenedValue(mapinfo.paths[i], params,
+          null, null);
+      if (value != null) {
+        togo.put(mapinfo.attrnames[i], value);
+      }
+    }
+    return togo;
+  }
+
+  private void assertAttributes(Map expected, Map rendered) {
+    Assert.assertEquals(expected.keySet(), rendered.keySet());
+    for (Iterator keyit = expected.keySet().iterator(); keyit.hasNext();) {
+      String key = (String) keyit.next();
+      String[] value = (String[]) rendered.get(key);
+      Assert.assertEquals(1, value.length);
+      Assert.assertEquals(expected.get(key), value[0]);
+    }
+  }
+
+  private void checkRoundTrip(Entity entity, Entity parsedentity) {
+    ViewParamsMapper mapper = getMapper();
+    EntityParams params = makeParams(entity);
+    ConcreteViewParamsMapInfo mapinfo = mapper.getVPMappingInfoManager()
+        .getMappingInfo(params);
+    Assert.assertNotNull(mapinfo.attributeToCompiledPath("e.ID"));
+
+    RawURLState rendered = mapper.renderViewParams(params);
+    Assert.assertTrue(Arrays.equals(new String[] { "list", "label" }, rendered.pathinfo));
+    assertAttributes(reflectiveAttributes(params), rendered.params);
+
+    EntityParams parsed = new EntityParams();
+    parsed.entity = parsedentity;
+    mapper.parseViewParams(parsed, rendered, null);
+    Assert.assertEquals("list", parsed.viewID);
+    Assert.assertEquals("Fred Bloggs", parsed.name);
+    Assert.assertEquals(42, parsed.count);
+    Assert.assertTrue(parsed.flag);
+    Assert.assertEquals(new Long(12345678901L), parsed.entity.ID);
+    Assert.assertEquals("label", parsed.entity.label);
+  }
+
+  public void testCompiledPaths() {
+    checkRoundTrip(new Entity(), new Entity());
+  }
+
+  // An entity of a different class from the declared one must be handled
+  // by the reflective fallback
+  public void testFallback() {
+    checkRoundTrip(new SubEntity(), new SubEntity());
+  }
+
+  public void testParseError() {
+    EntityParams parsed = new EntityParams();
+    Map params = new HashMap();
+    params.put("count", new String[] { "notanumber" });
+    try {
+      getMapper().parseViewParams(parsed, new RawURLState(params, null), null);
+      Assert.fail("Unparseable value should have been reported");
+    }
+    catch (Exception e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsf.test.viewstate;
+
+import java.util.Date;
+
+import org.junit.Assert;
+
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+import uk.org.ponder.rsf.viewstate.support.RSFServletViewStateHandler;
+import uk.org.ponder.rsf.viewstate.support.ViewParamsCodecManager;
+import uk.org.ponder.rsf.viewstate.support.ViewParamsURLCache;
+
+/** Checks that URLs memoized by the RSFServletViewStateHandler track changes
+ * to the ViewParameters they were rendered from
+ */
+
+public class TestURLCache extends MultipleRSFTests {
+
+  public static class PagingParams extends SimpleViewParameters {
+    public Integer page;
+    public String sort;
+  }
+
+  public static class DatedParams extends SimpleViewParameters {
+    public Date since;
+  }
+
+  private PagingParams makeParams(int page) {
+    PagingParams togo = new PagingParams();
+    togo.viewID = "list";
+    togo.page = Integer.valueOf(page);
+    togo.sort = "name";
+    return togo;
+  }
+
+  public void testStateKeys() {
+    ViewParamsCodecManager codec = (ViewParamsCodecManager) applicationContext
+        .getBean("viewParamsCodec");
+    Assert.assertEquals(codec.getStateKey(makeParams(1)), codec
+        .getStateKey(makeParams(1)));
+    Assert.assertFalse(codec.getStateKey(makeParams(1)).equals(
+        codec.getStateKey(makeParams(2))));
+
+    SimpleViewParameters plain = new SimpleViewParameters("list");
+    Assert.assertFalse(codec.getStateKey(plain).equals(
+        codec.getStateKey(makeParams(1))));
+
+    // mutable leaf values may not be captured in a key
+    DatedParams dated = new DatedParams();
+    dated.viewID = "list";
+    Assert.assertNotNull(codec.getStateKey(dated));
+    dated.since = new Date();
+    Assert.assertNull(codec.getStateKey(dated));
+  }
+
+  public void testMemoizedURLs() {
+    getRSACBeanLocator().startRequest();
+    try {
+      RSFServletViewStateHandler vsh = (RSFServletViewStateHandler) applicationContext
+          .getBean("viewStateHandler");
+      ViewParamsURLCache cache = vsh.getURLCache();
+      long hits = cache.getHitCount();
+
+      PagingParams params = makeParams(1);
+      String url1 = vsh.getFullURL(params);
+      Assert.assertEquals(url1, vsh.getFullURL(makeParams(1)));
+      Assert.assertEquals(hits + 1, cache.getHitCount());
+
+      params.page = Integer.valueOf(2);
+      String url2 = vsh.getFullURL(params);
+      Assert.assertFalse(url1.equals(url2));
+      Assert.assertTrue(url2.indexOf("page=2") != -1);
+
+      vsh.setURLCacheSize(0);
+      Assert.assertEquals(url2, vsh.getFullURL(params));
+      vsh.setURLCacheSize(1000);
+    }
+    finally {
+      getRSACBeanLocator().endRequest();
+    }
+  }
+}
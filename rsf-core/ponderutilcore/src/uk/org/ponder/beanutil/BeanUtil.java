@@ -67,27 +67,7 @@ public class BeanUtil {
       return rootobj;
     }
 
-    String[] components = PathUtil.splitPath(path);
-    Object moveobj = rootobj;
-    for (int comp = 0; comp < components.length; ++comp) {
-      if (moveobj == null) {
-        throw UniversalRuntimeException.accumulate(
-            new IllegalArgumentException(),
-            "Null value encounted in bean path at component "
-                + (comp == 0 ? "<root>"
-                    : components[comp - 1] + " while traversing for "
-                        + components[comp]));
-      }
-      else {
-        moveobj = navigateOne(moveobj, components[comp], mappingcontext);
-        if (moveobj == UNREADABLE_PROPERTY) {
-          throw new IllegalArgumentException("Property " + components[comp] 
-              + " is not readable for object of " + moveobj.getClass());
-        }
-      }
-    }
-   
-    return moveobj;
+    return CompiledELPath.compile(path).navigate(rootobj, mappingcontext);
   }
 
   /**
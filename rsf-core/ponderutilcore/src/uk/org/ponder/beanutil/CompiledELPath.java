@@ -0,0 +1,191 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.beanutil;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import uk.org.ponder.saxalizer.SAXalizerMappingContext;
+import uk.org.ponder.saxalizer.support.MethodAnalyser;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * An EL path which has been parsed once into its decoded segments. Instances
+ * are immutable and interned by {@link #compile(String)}, so that the same
+ * path met on successive requests is not parsed again.
+ * <p>
+ * Each segment also remembers the {@link PropertyAccessor} which was resolved
+ * for the object last navigated through it, together with that object's
+ * class. Since the accessor chosen by
+ * {@link MethodAnalyser#getPropertyAccessor(Object, SAXalizerMappingContext)}
+ * depends only on the class of the object, the remembered accessor is reused
+ * whenever an object of exactly the same class is met at that segment, and is
+ * simply resolved and replaced should the class differ.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class CompiledELPath {
+  /**
+   * The maximum number of paths which will be interned. Paths may be supplied
+   * by incoming requests, so beyond this number the least recently used are
+   * discarded, to be compiled afresh should they be met again.
+   */
+  public static final int MAX_INTERNED = 4096;
+
+  private static final int STRIPES = 16;
+
+  // Paths are spread over a fixed number of stripes, each an access-ordered
+  // map guarded by its own monitor, holding its share of MAX_INTERNED
+  private static final Map[] interned = new Map[STRIPES];
+
+  static {
+    for (int i = 0; i < STRIPES; ++i) {
+      interned[i] = new LinkedHashMap(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+          return size() > MAX_INTERNED / STRIPES;
+        }
+      };
+    }
+  }
+
+  // The accessor resolved for a segment, and the conditions under which it
+  // may be reused
+  private static class Binding {
+    final Class clazz;
+    final SAXalizerMappingContext mappingcontext;
+    final PropertyAccessor accessor;
+
+    Binding(Class clazz, SAXalizerMappingContext mappingcontext,
+        PropertyAccessor accessor) {
+      this.clazz = clazz;
+      this.mappingcontext = mappingcontext;
+      this.accessor = accessor;
+    }
+  }
+
+  private final String path;
+  private final String[] segments;
+  private final AtomicReferenceArray bindings;
+
+  private CompiledELPath(String path) {
+    this.path = path;
+    this.segments = PathUtil.splitPath(path);
+    this.bindings = new AtomicReferenceArray(segments.length);
+  }
+
+  /** Returns the compiled form of the supplied (unbracketed) EL path **/
+  public static CompiledELPath compile(String path) {
+    int hash = path.hashCode();
+    hash ^= (hash >>> 16);
+    Map stripe = interned[hash & (STRIPES - 1)];
+    CompiledELPath togo;
+    synchronized (stripe) {
+      togo = (CompiledELPath) stripe.get(path);
+    }
+    if (togo == null) {
+      // parsed outside the lock - should another thread race us, the path 
+      // it interned is preferred
+      togo = new CompiledELPath(path);
+      synchronized (stripe) {
+        CompiledELPath existing = (CompiledELPath) stripe.get(path);
+        if (existing == null) {
+          stripe.put(path, togo);
+        }
+        else {
+          togo = existing;
+        }
+      }
+    }
+    return togo;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  /** The number of segments in this path **/
+  public int size() {
+    return segments.length;
+  }
+
+  public String getSegment(int index) {
+    return segments[index];
+  }
+
+  /** Returns a fresh copy of the decoded segments of this path **/
+  public String[] getSegments() {
+    return (String[]) segments.clone();
+  }
+
+  /**
+   * Returns the PropertyAccessor appropriate for the supplied object, which
+   * is about to be navigated through the segment with the supplied index.
+   */
+  public PropertyAccessor getAccessor(int index, Object moveobj,
+      SAXalizerMappingContext mappingcontext) {
+    Class clazz = moveobj.getClass();
+    Binding binding = (Binding) bindings.get(index);
+    if (binding == null || binding.clazz != clazz
+        || binding.mappingcontext != mappingcontext) {
+      binding = new Binding(clazz, mappingcontext, MethodAnalyser
+          .getPropertyAccessor(moveobj, mappingcontext));
+      bindings.set(index, binding);
+    }
+    return binding.accessor;
+  }
+
+  /**
+   * Navigates the segment with the supplied index from the supplied object,
+   * with the same semantics as
+   * {@link BeanUtil#navigateOne(Object, String, SAXalizerMappingContext)}.
+   */
+  public Object navigateOne(Object moveobj, int index,
+      SAXalizerMappingContext mappingcontext) {
+    String segment = segments[index];
+    if (segment.equals("")) {
+      return moveobj;
+    }
+    if (moveobj == null) {
+      throw UniversalRuntimeException.accumulate(
+          new IllegalArgumentException(),
+          "Null value encounted in bean path at component " + segment);
+    }
+    PropertyAccessor pa = getAccessor(index, moveobj, mappingcontext);
+    return pa.canGet(segment) ? pa.getProperty(moveobj, segment)
+        : BeanUtil.UNREADABLE_PROPERTY;
+  }
+
+  /**
+   * Navigates the whole of this path from the supplied root object, with the
+   * same semantics as
+   * {@link BeanUtil#navigate(Object, String, SAXalizerMappingContext)}.
+   */
+  public Object navigate(Object rootobj, SAXalizerMappingContext mappingcontext) {
+    Object moveobj = rootobj;
+    for (int comp = 0; comp < segments.length; ++comp) {
+      if (moveobj == null) {
+        throw UniversalRuntimeException.accumulate(
+            new IllegalArgumentException(),
+            "Null value encounted in bean path at component "
+                + (comp == 0 ? "<root>"
+                    : segments[comp - 1] + " while traversing for "
+                        + segments[comp]));
+      }
+      else {
+        moveobj = navigateOne(moveobj, comp, mappingcontext);
+        if (moveobj == BeanUtil.UNREADABLE_PROPERTY) {
+          throw new IllegalArgumentException("Property " + segments[comp]
+              + " is not readable for object of " + moveobj.getClass());
+        }
+      }
+    }
+    return moveobj;
+  }
+
+  public String toString() {
+    return path;
+  }
+}
@@ -3,7 +3,7 @@
  */
 package uk.org.ponder.errorutil;
 
-import uk.org.ponder.hashutil.EighteenIDGenerator;
+import uk.org.ponder.hashutil.ThreadLocalIDGenerator;
 import uk.org.ponder.hashutil.IDGenerator;
 import uk.org.ponder.messageutil.TargettedMessage;
 import uk.org.ponder.util.Logger;
@@ -16,7 +16,7 @@ public class ThreadErrorState {
   /** An ID generator used to assign ids to error messages, for easy
    * location in logs.
    */
-  public static IDGenerator idgenerator = new EighteenIDGenerator(); 
+  public static IDGenerator idgenerator = new ThreadLocalIDGenerator(); 
   
   private static ThreadLocal errormap = new ThreadLocal() {
     public Object initialValue() {
@@ -0,0 +1,151 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.fileutil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import uk.org.ponder.util.Logger;
+
+/**
+ * A JVM-wide watcher of filesystem directories which invalidates registered
+ * {@link StalenessEntry} records as soon as their files are modified, created
+ * or deleted, removing the need to poll. Notifications are delivered on a
+ * single daemon thread which is started on first use.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class FileChangeWatcher implements Runnable {
+  private static FileChangeWatcher instance;
+
+  public static synchronized FileChangeWatcher instance() {
+    if (instance == null) {
+      instance = new FileChangeWatcher();
+    }
+    return instance;
+  }
+
+  private WatchService watchservice;
+  // map of directory Path onto WatchKey, for directories already registered
+  private Map directories = new ConcurrentHashMap();
+  // map of absolute file Path onto List of StalenessEntry
+  private Map entries = new ConcurrentHashMap();
+  private Thread thread;
+
+  private synchronized void ensureStarted() throws IOException {
+    if (watchservice == null) {
+      watchservice = FileSystems.getDefault().newWatchService();
+      thread = new Thread(this, "RSF FileChangeWatcher");
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /**
+   * Register the supplied entry to be invalidated when the given file changes.
+   * Returns <code>true</code> if the watch was established, in which case
+   * the entry is marked as watched.
+   */
+  public boolean watch(File file, StalenessEntry entry) {
+    Path path = file.toPath().toAbsolutePath();
+    Path dir = path.getParent();
+    if (dir == null) return false;
+    try {
+      ensureStarted();
+      synchronized (this) {
+        if (!directories.containsKey(dir)) {
+          WatchKey key = dir.register(watchservice,
+              StandardWatchEventKinds.ENTRY_CREATE,
+              StandardWatchEventKinds.ENTRY_MODIFY,
+              StandardWatchEventKinds.ENTRY_DELETE);
+          directories.put(dir, key);
+        }
+        List pathentries = (List) entries.get(path);
+        if (pathentries == null) {
+          pathentries = new CopyOnWriteArrayList();
+          entries.put(path, pathentries);
+        }
+        pathentries.add(entry);
+      }
+    }
+    catch (Exception e) {
+      Logger.log.warn("Unable to watch directory " + dir
+          + " for changes: falling back to polling", e);
+      return false;
+    }
+    entry.watched = true;
+    return true;
+  }
+
+  private void invalidate(List pathentries) {
+    if (pathentries != null) {
+      for (int i = 0; i < pathentries.size(); ++i) {
+        ((StalenessEntry) pathentries.get(i)).invalidate();
+      }
+    }
+  }
+
+  private void invalidateAll() {
+    for (Iterator it = entries.values().iterator(); it.hasNext();) {
+      invalidate((List) it.next());
+    }
+  }
+
+  // The directory has become inaccessible - return everything within it to 
+  // polling, from which it may be registered again
+  private synchronized void abandonDirectory(Path dir) {
+    directories.remove(dir);
+    for (Iterator it = entries.keySet().iterator(); it.hasNext();) {
+      Path path = (Path) it.next();
+      if (dir.equals(path.getParent())) {
+        List pathentries = (List) entries.get(path);
+        for (int i = 0; i < pathentries.size(); ++i) {
+          StalenessEntry entry = (StalenessEntry) pathentries.get(i);
+          entry.watched = false;
+          entry.invalidate();
+        }
+        it.remove();
+      }
+    }
+  }
+
+  public void run() {
+    while (true) {
+      WatchKey key;
+      try {
+        key = watchservice.take();
+      }
+      catch (InterruptedException e) {
+        return;
+      }
+      Path dir = (Path) key.watchable();
+      List events = key.pollEvents();
+      for (int i = 0; i < events.size(); ++i) {
+        WatchEvent event = (WatchEvent) events.get(i);
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+          invalidateAll();
+        }
+        else {
+          Path changed = dir.resolve((Path) event.context());
+          invalidate((List) entries.get(changed));
+        }
+      }
+      if (!key.reset()) {
+        abandonDirectory(dir);
+      }
+    }
+  }
+}
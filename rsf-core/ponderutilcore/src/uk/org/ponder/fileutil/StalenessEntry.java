@@ -3,7 +3,70 @@
  */
 package uk.org.ponder.fileutil;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Records the freshness of a resource loaded from the filesystem. Entries may
+ * be shared between threads - a thread wishing to poll the filesystem should
+ * first acquire the right to do so via {@link #beginCheck()}, so that only one
+ * thread at a time performs the check, while others continue to use the
+ * previous answer.
+ */
+
 public class StalenessEntry {
-  public long lastchecked; // millisecond datestamp that filesystem freshness was checked
-  public long modtime; // modification time of the file giving rise to current tree
+  // millisecond datestamp that filesystem freshness was checked, or a 
+  // distinct value no greater than 0 if it has not been since last invalidated
+  public volatile long lastchecked;
+  public volatile long modtime; // modification time of the file giving rise to current tree
+  // true if changes to the file will be signalled by a FileChangeWatcher
+  public volatile boolean watched;
+  
+  private static final AtomicLongFieldUpdater LASTCHECKED = 
+    AtomicLongFieldUpdater.newUpdater(StalenessEntry.class, "lastchecked");
+  
+  private final AtomicBoolean checking = new AtomicBoolean();
+  
+  /** Returns <code>true</code> if the filesystem needs to be consulted again
+   * at the time <code>now</code> given a polling lag of <code>lagmillis</code>.
+   */
+  public boolean isExpired(long now, long lagmillis) {
+    long checked = lastchecked;
+    return checked <= 0 || !watched && now > checked + lagmillis;
+  }
+  
+  /** Attempt to acquire the right to check this entry. If this returns 
+   * <code>true</code> the caller must later call {@link #endCheck()}.
+   */
+  public boolean beginCheck() {
+    return checking.compareAndSet(false, true);
+  }
+  
+  public void endCheck() {
+    checking.set(false);
+  }
+  
+  /** Records that the filesystem was checked at the time <code>now</code>,
+   * provided that <code>lastchecked</code> still holds the value 
+   * <code>expected</code> read before the check began. Returns 
+   * <code>false</code> if the entry was invalidated in the meantime, in which
+   * case it remains expired.
+   */
+  public boolean markChecked(long expected, long now) {
+    return LASTCHECKED.compareAndSet(this, expected, now);
+  }
+  
+  /** Forces the filesystem to be consulted on the next access to this entry.
+   * Each invalidation leaves <code>lastchecked</code> at a value it has not
+   * held before, so that it will be seen by a check already in progress.
+   */
+  public void invalidate() {
+    while (true) {
+      long checked = lastchecked;
+      if (LASTCHECKED.compareAndSet(this, checked, checked > 0 ? -1
+          : checked - 1)) {
+        return;
+      }
+    }
+  }
 }
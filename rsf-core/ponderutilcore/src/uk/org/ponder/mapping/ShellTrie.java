@@ -0,0 +1,91 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.mapping;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.org.ponder.beanutil.BeanUtil;
+import uk.org.ponder.beanutil.CompiledELPath;
+import uk.org.ponder.saxalizer.SAXalizerMappingContext;
+
+/**
+ * A trie of the "shells" met along a set of EL paths navigated from a common
+ * root, so that the shells along a prefix shared by several paths are
+ * resolved only once. Each node holds the object found at the path leading to
+ * it.
+ * <p>
+ * Shells are never refreshed, so the trie is valid only for a read-only pass
+ * over a set of paths during which the model is not altered, such as the
+ * lookup of converters for the entries of a submission. It is not
+ * thread-safe.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class ShellTrie {
+  // The shell resolved at a particular path, which may be null or
+  // BeanUtil.UNREADABLE_PROPERTY
+  private static class Node {
+    Object shell;
+    private Map children;
+
+    Node(Object shell) {
+      this.shell = shell;
+    }
+  }
+
+  private Node root;
+  private SAXalizerMappingContext mappingcontext;
+
+  public ShellTrie(Object rootobj, SAXalizerMappingContext mappingcontext) {
+    this.root = new Node(rootobj);
+    this.mappingcontext = mappingcontext;
+  }
+
+  // Returns the node reached by navigating the segment of the supplied path
+  // with the supplied index, from the supplied node, which must hold the shell
+  // reached along the path up to that segment
+  private Node descend(Node parent, CompiledELPath path, int index) {
+    if (parent.children == null) {
+      parent.children = new HashMap();
+    }
+    String segment = path.getSegment(index);
+    Node togo = (Node) parent.children.get(segment);
+    if (togo == null) {
+      togo = new Node(path.navigateOne(parent.shell, index, mappingcontext));
+      parent.children.put(segment, togo);
+    }
+    return togo;
+  }
+
+  /**
+   * Fetches the shells along the supplied path, with the same results as
+   * {@link uk.org.ponder.beanutil.BeanModelAlterer#fetchShells(String, Object, boolean)}
+   * for a path not expected to end in a method.
+   */
+  public ShellInfo fetchShells(String fullpath) {
+    CompiledELPath path = CompiledELPath.compile(fullpath);
+    List shells = new ArrayList();
+    shells.add(root.shell);
+    Node node = root;
+    for (int i = 0; i < path.size(); ++i) {
+      node = descend(node, path, i);
+      Object moveobj = node.shell;
+      if (moveobj == null || moveobj == BeanUtil.UNREADABLE_PROPERTY) {
+        break;
+      }
+      shells.add(moveobj);
+      if (moveobj instanceof DARReceiver) {
+        break;
+      }
+    }
+    ShellInfo togo = new ShellInfo();
+    togo.segments = path.getSegments();
+    togo.shells = shells.toArray();
+    return togo;
+  }
+}
@@ -11,6 +11,7 @@ import uk.org.ponder.beanutil.BeanModelAlterer;
 import uk.org.ponder.beanutil.BeanPredicateModel;
 import uk.org.ponder.beanutil.BeanResolver;
 import uk.org.ponder.beanutil.BeanUtil;
+import uk.org.ponder.beanutil.CompiledELPath;
 import uk.org.ponder.beanutil.CoreELReference;
 import uk.org.ponder.beanutil.PathUtil;
 import uk.org.ponder.beanutil.PropertyAccessor;
@@ -24,6 +25,7 @@ import uk.org.ponder.mapping.DARList;
 import uk.org.ponder.mapping.DARReceiver;
 import uk.org.ponder.mapping.DataAlterationRequest;
 import uk.org.ponder.mapping.ShellInfo;
+import uk.org.ponder.mapping.ShellTrie;
 import uk.org.ponder.messageutil.TargettedMessage;
 import uk.org.ponder.messageutil.TargettedMessageException;
 import uk.org.ponder.messageutil.TargettedMessageList;
@@ -186,9 +188,8 @@ public class DARApplier implements BeanModelAlterer {
   }
 
   private void applyAlterationImpl(final Object moveobj, final String tail,
-      final DataAlterationRequest dar, final DAREnvironment darenv) {
-    final PropertyAccessor pa = MethodAnalyser.getPropertyAccessor(moveobj,
-        mappingcontext);
+      final PropertyAccessor pa, final DataAlterationRequest dar,
+      final DAREnvironment darenv) {
     BeanInvalidationBracketer bib = darenv == null || darenv.bib == null ? NullBeanInvalidationBracketer.instance
         : darenv.bib;
 
@@ -219,13 +220,13 @@ public class DARApplier implements BeanModelAlterer {
     Object moveobj = rootobj;
     List shells = new ArrayList();
     shells.add(rootobj);
-    String[] segments = PathUtil.splitPath(fullpath);
-    for (int i = 0; i < segments.length; ++i) {
+    CompiledELPath path = CompiledELPath.compile(fullpath);
+    for (int i = 0; i < path.size(); ++i) {
       if (expectMethod) {
-        if (ReflectUtils.hasMethod(moveobj, segments[i]))
+        if (ReflectUtils.hasMethod(moveobj, path.getSegment(i)))
           break;
       }
-      moveobj = BeanUtil.navigateOne(moveobj, segments[i], mappingcontext);
+      moveobj = path.navigateOne(moveobj, i, mappingcontext);
       if (moveobj == null || moveobj == BeanUtil.UNREADABLE_PROPERTY) {
         break;
       }
@@ -235,11 +236,25 @@ public class DARApplier implements BeanModelAlterer {
       }
     }
     ShellInfo togo = new ShellInfo();
-    togo.segments = segments;
+    togo.segments = path.getSegments();
     togo.shells = shells.toArray();
     return togo;
   }
 
+  /**
+   * Returns a {@link ShellTrie} which will fetch the shells for many paths
+   * from the supplied root, resolving any prefix shared between them only
+   * once. The trie is valid only so long as the model is not altered, and so
+   * serves read-only passes such as the lookup of converters for the entries
+   * of a submission.
+   * 
+   * @param rootobj the root object
+   * @return the trie
+   */
+  public ShellTrie getShellTrie(Object rootobj) {
+    return new ShellTrie(rootobj, mappingcontext);
+  }
+
   public void applyAlteration(final Object rootobj, final DataAlterationRequest dar,
       final DAREnvironment darenv) {
     Logger.log.debug("Applying DAR " + dar.type + " to path " + dar.path + ": "
@@ -259,15 +274,16 @@ public class DARApplier implements BeanModelAlterer {
       // Do not check for receivers if this is an interceptor-only trigger
       if (dar.data != DataAlterationRequest.INAPPLICABLE_VALUE) {
         Object moveobj = rootobj;
-        String[] segments = PathUtil.splitPath(oldpath);
-        for (int i = 0; i < segments.length - 1; ++i) {
-          moveobj = BeanUtil.navigateOne(moveobj, segments[i], mappingcontext);
+        CompiledELPath path = CompiledELPath.compile(oldpath);
+        int last = path.size() - 1;
+        for (int i = 0; i < last; ++i) {
+          moveobj = path.navigateOne(moveobj, i, mappingcontext);
           if (moveobj == null) {
             throw new NullPointerException("Null value in EL path at path '"
-                + PathUtil.buildPath(segments, 0, i + 1) + "'");
+                + PathUtil.buildPath(path.getSegments(), 0, i + 1) + "'");
           }
           if (moveobj instanceof DARReceiver) {
-            dar.path = PathUtil.buildPath(segments, i + 1, segments.length);
+            dar.path = PathUtil.buildPath(path.getSegments(), i + 1, last + 1);
             boolean accepted = ((DARReceiver) moveobj).addDataAlterationRequest(dar);
             if (accepted)
               return;
@@ -275,10 +291,12 @@ public class DARApplier implements BeanModelAlterer {
               dar.path = oldpath;
           }
         }
-        applyAlterationImpl(moveobj, segments[segments.length - 1], dar, darenv);
+        applyAlterationImpl(moveobj, path.getSegment(last), path.getAccessor(
+            last, moveobj, mappingcontext), dar, darenv);
       }
       else {
-        applyAlterationImpl(rootobj, dar.path, dar, darenv);
+        applyAlterationImpl(rootobj, dar.path, MethodAnalyser
+            .getPropertyAccessor(rootobj, mappingcontext), dar, darenv);
       }
 
     }
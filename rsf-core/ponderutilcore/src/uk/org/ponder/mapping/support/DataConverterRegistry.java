@@ -5,8 +5,11 @@ package uk.org.ponder.mapping.support;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import uk.org.ponder.arrayutil.ListUtil;
 import uk.org.ponder.arrayutil.MapUtil;
@@ -25,7 +28,10 @@ import uk.org.ponder.util.Logger;
  * assessing for any proposed operation which of the converters are applicable.
  * <p>
  * The registry of converters is assumed static and will be fully evaluated when
- * this bean starts up.
+ * this bean starts up. The converter chosen for a path is remembered for all
+ * paths which would be matched identically, that is, those passing through
+ * shells of the same classes, and differing only in segments which are not
+ * named literally by any converter's target path.
  * </p>
  * @author Antranig Basman (amb26@ponder.org.uk)
  */
@@ -33,6 +39,10 @@ public class DataConverterRegistry {
   // A false key representing the converters which are registered at the root
   // EL path, not associated with any particular Class
   private static final Class ROOT_CLASS = Math.class;
+  // Represents a path for which no converter applies
+  private static final Object NO_CONVERTER = new Object();
+  /** The maximum number of distinct path signatures which will be remembered **/
+  public static final int MAX_CHOSEN = 4096;
   private List converters;
 
   public void setELEvaluator(BeanGetter beanGetter) {
@@ -41,13 +51,19 @@ public class DataConverterRegistry {
 
   public void setConverters(List converters) {
     this.converters = converters;
+    chosen.clear();
   }
 
   private BeanGetter beanGetter;
 
   private Map byClass = new HashMap();
+  // all segments named literally by converter target paths
+  private Set literals = new HashSet();
+  // map of path signature to the DataConverter chosen for it
+  private Map chosen = new ConcurrentHashMap();
 
   public void init() {
+    chosen.clear();
     if (converters == null) return;
     for (int i = 0; i < converters.size(); ++i) {
       DataConverter converter = (DataConverter) converters.get(i);
@@ -59,6 +75,14 @@ public class DataConverterRegistry {
       if (key == null)
         key = ROOT_CLASS;
       MapUtil.putMultiMap(byClass, key, converter);
+      if (converter.getTargetPath() != null) {
+        String[] segments = PathUtil.splitPath(converter.getTargetPath());
+        for (int j = 0; j < segments.length; ++j) {
+          if (!segments[j].equals("*")) {
+            literals.add(segments[j]);
+          }
+        }
+      }
     }
   }
 
@@ -76,6 +100,43 @@ public class DataConverterRegistry {
   }
 
   public Object fetchConverter(ShellInfo shellinfo) {
+    if (byClass.isEmpty()) return null;
+    List signature = getSignature(shellinfo);
+    Object choice = chosen.get(signature);
+    if (choice == null) {
+      DataConverter converter = chooseConverter(shellinfo);
+      choice = converter == null ? NO_CONVERTER : converter;
+      if (chosen.size() < MAX_CHOSEN) {
+        chosen.put(signature, choice);
+      }
+    }
+    if (choice == NO_CONVERTER) return null;
+    DataConverter converter = (DataConverter) choice;
+    Object togo = converter.getConverter();
+    if (togo != null) {
+      return togo;
+    }
+    String el = converter.getConverterEL();
+    if (el != null) {
+      return beanGetter.getBean(el);
+    }
+    else return null;
+  }
+
+  // Everything about a path which could influence the choice of converter
+  private List getSignature(ShellInfo shellinfo) {
+    String[] segments = shellinfo.segments;
+    List togo = new ArrayList(segments.length * 2);
+    for (int i = 0; i < segments.length; ++i) {
+      Object shell = (i + 1) >= shellinfo.shells.length ? null
+          : shellinfo.shells[i + 1];
+      togo.add(literals.contains(segments[i]) ? segments[i] : null);
+      togo.add(shell == null ? null : shell.getClass());
+    }
+    return togo;
+  }
+
+  private DataConverter chooseConverter(ShellInfo shellinfo) {
     String[] segments = shellinfo.segments;
     List candidates = new ArrayList();
     List rootconverters = fetchConverters(ListUtil.instance(ROOT_CLASS));
@@ -96,15 +157,7 @@ public class DataConverterRegistry {
           + PathUtil.buildPath(shellinfo.segments) + " only the last (probably the most specific) entry will be applied.");
     }
     ConverterCandidate candidate = (ConverterCandidate) candidates.get(candidates.size() - 1);
-    Object converter = candidate.converter.getConverter();
-    if (converter != null) {
-      return converter;
-    }
-    String el = candidate.converter.getConverterEL();
-    if (el != null) {
-      return beanGetter.getBean(el);
-    }
-    else return null;
+    return candidate.converter;
   }
 
   private void filterCandidates(List candidates, String segment) {
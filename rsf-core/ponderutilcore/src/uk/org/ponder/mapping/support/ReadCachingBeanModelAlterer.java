@@ -0,0 +1,187 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.mapping.support;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import uk.org.ponder.beanutil.BeanModelAlterer;
+import uk.org.ponder.beanutil.BeanPredicateModel;
+import uk.org.ponder.beanutil.BeanResolver;
+import uk.org.ponder.mapping.DAREnvironment;
+import uk.org.ponder.mapping.DARList;
+import uk.org.ponder.mapping.DataAlterationRequest;
+import uk.org.ponder.mapping.ShellInfo;
+import uk.org.ponder.messageutil.TargettedMessageList;
+
+/**
+ * A request scope BeanModelAlterer which remembers the values read through
+ * it, keyed by EL path and the identity of the root object, so that a path
+ * which is read several times in the course of a request is navigated only
+ * once. Flattened values are converted afresh from the remembered value on
+ * each read. The shells fetched along a path other than for method
+ * invocation are remembered in the same way, and supply the value of the
+ * path where they extend along the whole of it.
+ * <p>
+ * All remembered values are discarded whenever the model is written or a
+ * method invoked through this alterer, or on a call to {@link #invalidate()}.
+ * Since alterations made to the model directly by application code cannot be
+ * observed, the cache is disabled by default, and should only be enabled
+ * where beans are altered only through EL.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class ReadCachingBeanModelAlterer implements BeanModelAlterer {
+  private static final Object NULL_VALUE = new Object();
+
+  private static class ReadKey {
+    String path;
+    Object root;
+
+    ReadKey(String path, Object root) {
+      this.path = path;
+      this.root = root;
+    }
+
+    public int hashCode() {
+      return path.hashCode() * 31 + System.identityHashCode(root);
+    }
+
+    public boolean equals(Object other) {
+      if (!(other instanceof ReadKey)) {
+        return false;
+      }
+      ReadKey okey = (ReadKey) other;
+      return root == okey.root && path.equals(okey.path);
+    }
+  }
+
+  private BeanModelAlterer target;
+  private boolean enabled = false;
+  // reads may arrive from the workers of parallel producers
+  private Map values = new HashMap();
+  private Map shellinfos = new HashMap();
+
+  public void setBeanModelAlterer(BeanModelAlterer target) {
+    this.target = target;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /** Discards all remembered values **/
+  public void invalidate() {
+    synchronized (values) {
+      values.clear();
+      shellinfos.clear();
+    }
+  }
+
+  public Object getBeanValue(String fullpath, Object root,
+      BeanPredicateModel addressibleModel) {
+    if (!enabled || addressibleModel != null || fullpath == null
+        || fullpath.equals("")) {
+      return target.getBeanValue(fullpath, root, addressibleModel);
+    }
+    ReadKey key = new ReadKey(fullpath, root);
+    Object togo;
+    synchronized (values) {
+      togo = values.get(key);
+    }
+    if (togo == null) {
+      togo = target.getBeanValue(fullpath, root, null);
+      synchronized (values) {
+        values.put(key, togo == null ? NULL_VALUE : togo);
+      }
+    }
+    else if (togo == NULL_VALUE) {
+      togo = null;
+    }
+    return togo;
+  }
+
+  public Object getFlattenedValue(String fullpath, Object root,
+      Class targetclazz, BeanResolver resolver) {
+    if (!enabled || fullpath == null || fullpath.equals("")) {
+      return target.getFlattenedValue(fullpath, root, targetclazz, resolver);
+    }
+    Object value = getBeanValue(fullpath, root, null);
+    return target.getFlattenedValue("", value, targetclazz, resolver);
+  }
+
+  public ShellInfo fetchShells(String fullpath, Object rootobj,
+      boolean expectMethod) {
+    if (!enabled || expectMethod) {
+      return target.fetchShells(fullpath, rootobj, expectMethod);
+    }
+    ReadKey key = new ReadKey(fullpath, rootobj);
+    ShellInfo togo;
+    synchronized (values) {
+      togo = (ShellInfo) shellinfos.get(key);
+    }
+    if (togo == null) {
+      togo = target.fetchShells(fullpath, rootobj, expectMethod);
+      synchronized (values) {
+        shellinfos.put(key, togo);
+        // shells fetched along the whole path end with its value
+        if (togo.shells.length == togo.segments.length + 1) {
+          values.put(key, togo.shells[togo.segments.length]);
+        }
+      }
+    }
+    return togo;
+  }
+
+  public void setBeanValue(String fullpath, Object root, Object value,
+      TargettedMessageList messages, boolean applyconversion) {
+    try {
+      target.setBeanValue(fullpath, root, value, messages, applyconversion);
+    }
+    finally {
+      invalidate();
+    }
+  }
+
+  public void applyAlteration(Object rootobj, DataAlterationRequest dar,
+      DAREnvironment darenv) {
+    try {
+      target.applyAlteration(rootobj, dar, darenv);
+    }
+    finally {
+      invalidate();
+    }
+  }
+
+  public void applyAlterations(Object rootobj, DARList toapply,
+      DAREnvironment darenv) {
+    try {
+      target.applyAlterations(rootobj, toapply, darenv);
+    }
+    finally {
+      invalidate();
+    }
+  }
+
+  public Object invokeBeanMethod(ShellInfo shells,
+      BeanPredicateModel addressibleModel) {
+    try {
+      return target.invokeBeanMethod(shells, addressibleModel);
+    }
+    finally {
+      invalidate();
+    }
+  }
+
+  public Object invokeBeanMethod(String methodEL, Object rootobj) {
+    try {
+      return target.invokeBeanMethod(methodEL, rootobj);
+    }
+    finally {
+      invalidate();
+    }
+  }
+
+}
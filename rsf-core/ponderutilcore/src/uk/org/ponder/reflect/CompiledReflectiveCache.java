@@ -0,0 +1,105 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.reflect;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import uk.org.ponder.util.ObjectFactory;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * A ReflectiveCache which compiles the methods and constructors it resolves
+ * into direct bytecode accessors via the {@link LambdaAccessorCompiler}, so
+ * that bean property access, no-arg method invocation and construction avoid
+ * <code>java.lang.reflect</code> once warmed up. Any member which cannot be
+ * compiled is handled reflectively exactly as for {@link JDKReflectiveCache}.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class CompiledReflectiveCache extends JDKReflectiveCache {
+  /**
+   * The key used into per-class caches for the compiled no-arg constructor.
+   * This is distinct from CONSTRUCTOR_KEY since the concurrent map class is
+   * bootstrapped with its raw Constructor.
+   */
+  public static final String COMPILED_CONSTRUCTOR_KEY = "<compiled-init>";
+  // marker stored for members which have been found to be uncompilable
+  private static final Object UNCOMPILABLE = new Object();
+
+  public PropertyGetter getGetter(Method method) {
+    PropertyGetter togo = LambdaAccessorCompiler.compileGetter(method);
+    return togo == null ? super.getGetter(method) : togo;
+  }
+
+  public PropertySetter getSetter(Method method) {
+    PropertySetter togo = LambdaAccessorCompiler.compileSetter(method);
+    return togo == null ? super.getSetter(method) : togo;
+  }
+
+  public ObjectFactory getInstantiator(final Class clazz) {
+    final Supplier supplier = LambdaAccessorCompiler
+        .compileConstructor(getConstructor(clazz));
+    if (supplier == null) {
+      return super.getInstantiator(clazz);
+    }
+    return new ObjectFactory() {
+      public Object getObject() {
+        try {
+          return supplier.get();
+        }
+        catch (Throwable t) {
+          throw UniversalRuntimeException.accumulate(t,
+              "Error constructing instance of " + clazz);
+        }
+      }
+    };
+  }
+
+  public Object construct(Class clazz) {
+    Map classmap = getClassMap(clazz);
+    Object compiled = classmap.get(COMPILED_CONSTRUCTOR_KEY);
+    if (compiled == null) {
+      Constructor cons = getConstructor(clazz);
+      compiled = LambdaAccessorCompiler.compileConstructor(cons);
+      if (compiled == null) {
+        compiled = UNCOMPILABLE;
+        classmap.put(CONSTRUCTOR_KEY, cons);
+      }
+      classmap.put(COMPILED_CONSTRUCTOR_KEY, compiled);
+    }
+    if (compiled == UNCOMPILABLE) {
+      return super.construct(clazz);
+    }
+    try {
+      return ((Supplier) compiled).get();
+    }
+    catch (Throwable t) {
+      throw UniversalRuntimeException.accumulate(t,
+          "Error constructing instance of " + clazz);
+    }
+  }
+
+  public Object invokeMethod(Object target, String name) {
+    if (target instanceof MethodInvokingProxy) {
+      return ((MethodInvokingProxy) target).invokeMethod(name, null);
+    }
+    Class clazz = target.getClass();
+    Map classmap = getClassMap(clazz);
+    PropertyGetter getter = (PropertyGetter) classmap.get(name);
+    if (getter == null) {
+      getter = getGetter(ReflectiveCache.getMethod(clazz, name));
+      classmap.put(name, getter);
+    }
+    try {
+      return getter.get(target);
+    }
+    catch (Throwable t) {
+      throw UniversalRuntimeException.accumulate(t);
+    }
+  }
+}
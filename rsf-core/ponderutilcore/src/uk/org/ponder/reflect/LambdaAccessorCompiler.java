@@ -0,0 +1,137 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.reflect;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Compiles Methods and Constructors into direct bytecode accessors by means
+ * of the JDK LambdaMetafactory, avoiding the overhead of
+ * <code>java.lang.reflect</code> on each invocation. Each method returns
+ * <code>null</code> if the member cannot be compiled, for example if it is
+ * not public or its types are not visible from this ClassLoader, in which
+ * case callers should fall back to reflection.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class LambdaAccessorCompiler {
+  private static final MethodType FUNCTION_TYPE = MethodType.methodType(
+      Object.class, Object.class);
+  private static final MethodType BICONSUMER_TYPE = MethodType.methodType(
+      Void.TYPE, Object.class, Object.class);
+  private static final MethodType SUPPLIER_TYPE = MethodType
+      .methodType(Object.class);
+
+  private static boolean isVisible(Class clazz) {
+    while (clazz.isArray()) {
+      clazz = clazz.getComponentType();
+    }
+    if (clazz.isPrimitive()) return true;
+    try {
+      return Class.forName(clazz.getName(), false,
+          LambdaAccessorCompiler.class.getClassLoader()) == clazz;
+    }
+    catch (Throwable t) {
+      return false;
+    }
+  }
+
+  private static boolean isCompilable(Class declaring, int modifiers,
+      Class[] types) {
+    if (!Modifier.isPublic(modifiers) || !Modifier.isPublic(declaring.getModifiers()) 
+        || !isVisible(declaring)) {
+      return false;
+    }
+    for (int i = 0; i < types.length; ++i) {
+      if (!isVisible(types[i])) return false;
+    }
+    return true;
+  }
+
+  /** Compile a public no-argument instance method */
+  public static PropertyGetter compileGetter(Method method) {
+    if (method.getParameterTypes().length != 0
+        || Modifier.isStatic(method.getModifiers())
+        || method.getReturnType() == Void.TYPE
+        || !isCompilable(method.getDeclaringClass(), method.getModifiers(),
+            new Class[] { method.getReturnType() })) {
+      return null;
+    }
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      MethodHandle handle = lookup.unreflect(method);
+      CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+          MethodType.methodType(Function.class), FUNCTION_TYPE, handle, handle
+              .type().wrap());
+      final Function function = (Function) site.getTarget().invoke();
+      return new PropertyGetter() {
+        public Object get(Object target) {
+          return function.apply(target);
+        }
+      };
+    }
+    catch (Throwable t) {
+      return null;
+    }
+  }
+
+  /** Compile a public single-argument instance method */
+  public static PropertySetter compileSetter(Method method) {
+    Class[] params = method.getParameterTypes();
+    if (params.length != 1 || Modifier.isStatic(method.getModifiers())
+        || !isCompilable(method.getDeclaringClass(), method.getModifiers(),
+            new Class[] { params[0], method.getReturnType() })) {
+      return null;
+    }
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      MethodHandle handle = lookup.unreflect(method);
+      CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+          MethodType.methodType(BiConsumer.class), BICONSUMER_TYPE, handle,
+          handle.type().wrap().changeReturnType(Void.TYPE));
+      final BiConsumer consumer = (BiConsumer) site.getTarget().invoke();
+      return new PropertySetter() {
+        public void set(Object target, Object value) {
+          consumer.accept(target, value);
+        }
+      };
+    }
+    catch (Throwable t) {
+      return null;
+    }
+  }
+
+  /** Compile a public no-argument constructor */
+  public static Supplier compileConstructor(Constructor cons) {
+    Class declaring = cons.getDeclaringClass();
+    if (cons.getParameterTypes().length != 0
+        || Modifier.isAbstract(declaring.getModifiers())
+        || (declaring.getEnclosingClass() != null && !Modifier
+            .isStatic(declaring.getModifiers()))
+        || !isCompilable(declaring, cons.getModifiers(), new Class[0])) {
+      return null;
+    }
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      MethodHandle handle = lookup.unreflectConstructor(cons);
+      CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType
+          .methodType(Supplier.class), SUPPLIER_TYPE, handle, handle.type());
+      return (Supplier) site.getTarget().invoke();
+    }
+    catch (Throwable t) {
+      return null;
+    }
+  }
+}
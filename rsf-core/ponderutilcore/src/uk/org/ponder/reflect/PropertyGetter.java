@@ -0,0 +1,16 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.reflect;
+
+/**
+ * A resolved accessor invoking a no-argument method (typically a bean "get"
+ * method) on a target object. Implementations are issued by a
+ * {@link ReflectiveCache} and may be either reflective or compiled.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public interface PropertyGetter {
+  public Object get(Object target) throws Throwable;
+}
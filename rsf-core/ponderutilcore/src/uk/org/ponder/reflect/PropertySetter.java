@@ -0,0 +1,16 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.reflect;
+
+/**
+ * A resolved accessor invoking a single-argument method (typically a bean 
+ * "set" method) on a target object. Implementations are issued by a
+ * {@link ReflectiveCache} and may be either reflective or compiled.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public interface PropertySetter {
+  public void set(Object target, Object value) throws Throwable;
+}
@@ -11,6 +11,7 @@ import uk.org.ponder.arrayutil.ArrayUtil;
 import uk.org.ponder.conversion.GeneralLeafParser;
 import uk.org.ponder.saxalizer.support.SAXAccessMethod;
 import uk.org.ponder.util.Logger;
+import uk.org.ponder.util.ObjectFactory;
 import uk.org.ponder.util.UniversalRuntimeException;
 
 /**
@@ -25,7 +26,9 @@ import uk.org.ponder.util.UniversalRuntimeException;
  * in this class, or in SAXAccessMethod.
  * 
  * 
- * This implementation will probably shortly be replaced by a FastClass variant.
+ * Accessors for bean properties are issued via {@link #getGetter(Method)} and
+ * {@link #getSetter(Method)}, allowing subclasses such as 
+ * {@link CompiledReflectiveCache} to replace reflection by generated code.
  * 
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  * 
@@ -124,6 +127,46 @@ public abstract class ReflectiveCache {
     } 
   }
   
+  /**
+   * Returns an accessor which will invoke the supplied no-argument method. 
+   * This implementation invokes it reflectively - subclasses may return a
+   * compiled accessor.
+   */
+  public PropertyGetter getGetter(final Method method) {
+    return new PropertyGetter() {
+      public Object get(Object target) throws Throwable {
+        return method.invoke(target, SAXAccessMethod.emptyobj);
+      }
+    };
+  }
+
+  /**
+   * Returns an accessor which will invoke the supplied single-argument method.
+   * This implementation invokes it reflectively - subclasses may return a
+   * compiled accessor.
+   */
+  public PropertySetter getSetter(final Method method) {
+    return new PropertySetter() {
+      public void set(Object target, Object value) throws Throwable {
+        method.invoke(target, new Object[] { value });
+      }
+    };
+  }
+
+  /**
+   * Returns a factory which will construct new instances of the supplied
+   * class via its no-arg constructor, for use by clients which construct the
+   * same class repeatedly. This implementation delegates to 
+   * {@link #construct(Class)}.
+   */
+  public ObjectFactory getInstantiator(final Class clazz) {
+    return new ObjectFactory() {
+      public Object getObject() {
+        return construct(clazz);
+      }
+    };
+  }
+
   public abstract Object construct(Class clazz);
   public abstract Object invokeMethod(Object bean, String method);
   protected abstract Object invokeMethod(Object target, String name, Class[] infer, Object[] args);
@@ -14,6 +14,7 @@ import uk.org.ponder.beanutil.support.IndexedPropertyAccessor;
 import uk.org.ponder.beanutil.support.MapPropertyAccessor;
 import uk.org.ponder.errorutil.PropertyException;
 import uk.org.ponder.reflect.ClassGetter;
+import uk.org.ponder.reflect.ReflectiveCache;
 import uk.org.ponder.saxalizer.AccessMethod;
 import uk.org.ponder.saxalizer.DeSAXalizable;
 import uk.org.ponder.saxalizer.DeSAXalizableAttrs;
@@ -359,10 +360,11 @@ public class MethodAnalyser implements PropertyAccessor {
       absorbSAMSList(entry, tagMethods, attrMethods);
     }
 
-    tagmethods = new SAXAccessMethodHash(tagMethods, objclass);
-    attrmethods = new SAXAccessMethodHash(attrMethods, objclass);
+    ReflectiveCache reflectivecache = context.getReflectiveCache();
+    tagmethods = new SAXAccessMethodHash(tagMethods, objclass, reflectivecache);
+    attrmethods = new SAXAccessMethodHash(attrMethods, objclass, reflectivecache);
     if (bodymethodspec != null) {
-      bodymethod = new SAXAccessMethod(bodymethodspec, objclass);
+      bodymethod = new SAXAccessMethod(bodymethodspec, objclass, reflectivecache);
     }
     bodymethodspec = null;
     assembleGetters();
@@ -8,6 +8,9 @@ import java.util.Comparator;
 import java.util.List;
 
 import uk.org.ponder.iterationutil.EnumerationConverter;
+import uk.org.ponder.reflect.PropertyGetter;
+import uk.org.ponder.reflect.PropertySetter;
+import uk.org.ponder.reflect.ReflectiveCache;
 import uk.org.ponder.saxalizer.AccessMethod;
 import uk.org.ponder.saxalizer.SAXAccessMethodSpec;
 import uk.org.ponder.util.AssertionException;
@@ -31,6 +34,10 @@ public class SAXAccessMethod implements AccessMethod {
   Field field; 
   Method getmethod; // The actual Method object to be invoked
   Method setmethod;
+  /** Accessors for getmethod and setmethod issued by a ReflectiveCache, if
+   * one was supplied on construction */
+  PropertyGetter getter;
+  PropertySetter setter;
   /** The type of subobject (or superclass thereof) handled by this method */
   Class clazz;
   /** The actual (declared) return or field type in code (maybe container) */
@@ -116,6 +123,23 @@ public class SAXAccessMethod implements AccessMethod {
     
   }
 
+  /**
+   * Constructs a SAXAccessMethod whose get and set methods will be invoked
+   * through accessors issued by the supplied ReflectiveCache.
+   */
+  public SAXAccessMethod(SAXAccessMethodSpec m, Class parentclazz,
+      ReflectiveCache reflectivecache) {
+    this(m, parentclazz);
+    if (reflectivecache != null) {
+      if (getmethod != null) {
+        getter = reflectivecache.getGetter(getmethod);
+      }
+      if (setmethod != null) {
+        setter = reflectivecache.getSetter(setmethod);
+      }
+    }
+  }
+
   public SAXAccessMethod(SAXAccessMethodSpec m, Class parentclazz) {
     this(parentclazz, m.xmlname);
 
@@ -265,6 +289,9 @@ public class SAXAccessMethod implements AccessMethod {
       if (field != null) {
         return field.get(parent);
       }
+      else if (getter != null) {
+        return getter.get(parent);
+      }
       else
         return getmethod.invoke(parent, emptyobj);
     }
@@ -280,6 +307,9 @@ public class SAXAccessMethod implements AccessMethod {
       if (field != null) {
         field.set(parent, newchild);
       }
+      else if (setter != null) {
+        setter.set(parent, newchild);
+      }
       else if (setmethod != null) {
         setmethod.invoke(parent, new Object[] { newchild });
       }
@@ -1,5 +1,6 @@
 package uk.org.ponder.saxalizer.support;
 
+import uk.org.ponder.reflect.ReflectiveCache;
 import uk.org.ponder.saxalizer.SAMSList;
 
 /* SAXAccessMethodHash provides a quick lookup of an XML tag name to a
@@ -32,9 +33,15 @@ public class SAXAccessMethodHash {
   }
     
   public SAXAccessMethodHash(SAMSList samslist, Class parentclass) {
+    this(samslist, parentclass, null);
+  }
+  
+  public SAXAccessMethodHash(SAMSList samslist, Class parentclass, 
+      ReflectiveCache reflectivecache) {
     methods = new SAXAccessMethod[samslist.size()];
     for (int i = 0; i < samslist.size(); ++i) {
-      this.methods[i] = new SAXAccessMethod(samslist.SAMSAt(i), parentclass);
+      this.methods[i] = new SAXAccessMethod(samslist.SAMSAt(i), parentclass,
+          reflectivecache);
     }
   }
   /** An iterator for all gettable methods */
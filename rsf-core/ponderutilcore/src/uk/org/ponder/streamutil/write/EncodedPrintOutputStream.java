@@ -0,0 +1,23 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.streamutil.write;
+
+/**
+ * A PrintOutputStream which is backed by a byte-oriented target with a fixed
+ * character encoding. Clients holding material which has already been encoded
+ * in this encoding (for example, the static sections of a parsed template) may
+ * write it directly, bypassing the character conversion stage.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+public interface EncodedPrintOutputStream extends PrintOutputStream {
+  /** The canonical name of the Charset in which this stream encodes its output */
+  public String getEncoding();
+
+  /**
+   * Write a span of bytes, already encoded in the encoding reported by
+   * {@link #getEncoding()}, after any pending character output.
+   */
+  public void writeEncoded(byte[] storage, int offset, int size);
+}
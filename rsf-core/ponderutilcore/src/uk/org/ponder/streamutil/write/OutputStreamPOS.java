@@ -15,13 +15,15 @@ import uk.org.ponder.util.UniversalRuntimeException;
 
 /**
  * A combination of OutputStreamWriter and BufferedWriter - converts and outputs
- * characters to an OutputStream with the minimum of fuss.
+ * characters to an OutputStream with the minimum of fuss. Material which has
+ * already been encoded may be sent straight through to the stream via
+ * {@link #writeEncoded(byte[], int, int)}.
  * 
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  * 
  */
 
-public class OutputStreamPOS implements PrintOutputStream {
+public class OutputStreamPOS implements EncodedPrintOutputStream {
   public int BUFFER_MAX = 1024;
   private OutputStream os;
   private static String DEFAULT_ENCODING = "UTF-8";
@@ -29,6 +31,7 @@ public class OutputStreamPOS implements PrintOutputStream {
   private char[] bufchars;
   private CharsetEncoder ce;
   private ByteBuffer bytebuffer;
+  private String encoding;
 
   public OutputStreamPOS(OutputStream os) {
     this(os, DEFAULT_ENCODING);
@@ -37,6 +40,7 @@ public class OutputStreamPOS implements PrintOutputStream {
   public OutputStreamPOS(OutputStream os, String encoding) {
     this.os = os;
     Charset cs = Charset.forName(encoding);
+    this.encoding = cs.name();
     ce = cs.newEncoder();
     charbuffer = CharBuffer.allocate(BUFFER_MAX);
     bufchars = charbuffer.array();
@@ -135,6 +139,22 @@ public class OutputStreamPOS implements PrintOutputStream {
     }
   }
 
+  public String getEncoding() {
+    return encoding;
+  }
+
+  public void writeEncoded(byte[] storage, int offset, int size) {
+    if (charbuffer.position() > 0) {
+      flushInternal();
+    }
+    try {
+      os.write(storage, offset, size);
+    }
+    catch (IOException e) {
+      throw UniversalRuntimeException.accumulate(e);
+    }
+  }
+
   public void println() {
     print("\n");
   }
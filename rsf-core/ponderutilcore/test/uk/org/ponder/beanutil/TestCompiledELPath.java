@@ -0,0 +1,33 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.beanutil;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that paths in constant use stay interned while a stream of distinct
+ * paths, such as might be supplied by requests, passes through the table.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class TestCompiledELPath extends TestCase {
+
+  public void testHotPathsStayInterned() {
+    CompiledELPath hot = CompiledELPath.compile("bean.hot.path");
+    assertEquals(3, hot.size());
+    CompiledELPath cold = CompiledELPath.compile("bean.field0");
+    assertSame(cold, CompiledELPath.compile("bean.field0"));
+    for (int i = 1; i < CompiledELPath.MAX_INTERNED * 4; ++i) {
+      CompiledELPath.compile("bean.field" + i);
+      if (i % 64 == 0) {
+        assertSame(hot, CompiledELPath.compile("bean.hot.path"));
+      }
+    }
+    // a path met only at the start has made way for later ones
+    CompiledELPath recompiled = CompiledELPath.compile("bean.field0");
+    assertNotSame(cold, recompiled);
+    assertEquals("field0", recompiled.getSegment(1));
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.mapping;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import uk.org.ponder.saxalizer.SAXalizerMappingContext;
+
+/**
+ * Checks that shells along shared prefixes are navigated once, and that
+ * navigation stops at a missing shell.
+ *
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+public class TestShellTrie extends TestCase {
+  private SAXalizerMappingContext mappingcontext = SAXalizerMappingContext
+      .instance();
+
+  public static class Row {
+    public int reads;
+    private Map child = new HashMap();
+
+    public Map getChild() {
+      ++reads;
+      return child;
+    }
+
+    public void setChild(Map child) {
+      this.child = child;
+    }
+  }
+
+  public void testSharedPrefix() {
+    Row row = new Row();
+    row.getChild().put("title", "First");
+    row.getChild().put("label", "Second");
+    row.reads = 0;
+    Map root = new HashMap();
+    root.put("row", row);
+    root.put("alias", row);
+
+    ShellTrie trie = new ShellTrie(root, mappingcontext);
+    ShellInfo title = trie.fetchShells("row.child.title");
+    ShellInfo label = trie.fetchShells("row.child.label");
+    assertEquals(1, row.reads);
+    assertEquals(4, title.shells.length);
+    assertEquals("First", title.shells[3]);
+    assertEquals("Second", label.shells[3]);
+    assertEquals("label", label.segments[2]);
+
+    // the same row reached along a different prefix is navigated afresh
+    ShellInfo alias = trie.fetchShells("alias.child.title");
+    assertEquals(2, row.reads);
+    assertSame(row, alias.shells[1]);
+    trie.fetchShells("row.child.title");
+    trie.fetchShells("alias.child.label");
+    assertEquals(2, row.reads);
+  }
+
+  public void testTermination() {
+    Map root = new HashMap();
+    ShellTrie trie = new ShellTrie(root, mappingcontext);
+    ShellInfo absent = trie.fetchShells("absent.child");
+    assertEquals(1, absent.shells.length);
+    assertEquals(2, absent.segments.length);
+  }
+}
@@ -0,0 +1,55 @@
+package uk.org.ponder.reflect;
+
+import junit.framework.TestCase;
+import uk.org.ponder.saxalizer.SAXAccessMethodSpec;
+import uk.org.ponder.saxalizer.support.SAXAccessMethod;
+
+public class TestCompiledReflectiveCache extends TestCase {
+
+    public void testCompiledAccessors() throws Throwable {
+        CompiledReflectiveCache cache = new CompiledReflectiveCache();
+        cache.getConcurrentMap(1);
+        PropertyGetter getter = cache.getGetter(TestBean.class.getMethod("getCount"));
+        PropertySetter setter = cache.getSetter(TestBean.class.getMethod("setCount", Integer.TYPE));
+        assertTrue(getter.getClass().getEnclosingClass() == LambdaAccessorCompiler.class);
+        TestBean bean = (TestBean) cache.construct(TestBean.class);
+        setter.set(bean, new Integer(3));
+        assertEquals(new Integer(3), getter.get(bean));
+        assertEquals("name3", cache.invokeMethod(bean, "getName"));
+    }
+
+    public void testSAXAccessMethod() {
+        SAXAccessMethodSpec spec = new SAXAccessMethodSpec();
+        spec.getmethodname = "getName";
+        spec.setmethodname = "setName";
+        SAXAccessMethod accessMethod = new SAXAccessMethod(spec, TestBean.class,
+            new CompiledReflectiveCache());
+        TestBean bean = new TestBean();
+        accessMethod.setChildObject(bean, "value");
+        assertEquals("value", accessMethod.getChildObject(bean));
+    }
+
+    public void testUncompilable() throws Throwable {
+        // a non-public class cannot be compiled, and falls back to reflection
+        CompiledReflectiveCache cache = new CompiledReflectiveCache();
+        cache.getConcurrentMap(1);
+        PropertyGetter getter = cache.getGetter(HiddenBean.class.getMethod("getValue"));
+        assertFalse(getter.getClass().getEnclosingClass() == LambdaAccessorCompiler.class);
+        assertEquals("hidden", cache.invokeMethod(new HiddenBean(), "getValue"));
+    }
+
+    public static class TestBean {
+        private int count;
+        private String name;
+
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+
+        public String getName() { return name == null ? "name" + count : name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+    static class HiddenBean {
+        public String getValue() { return "hidden"; }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.test.hashutil;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import uk.org.ponder.hashutil.ThreadLocalIDGenerator;
+import uk.org.ponder.stringutil.CharToByteBase64;
+import uk.org.ponder.xml.XMLUtil;
+
+public class TestThreadLocalIDGenerator extends TestCase {
+
+  public void testFormat() {
+    ThreadLocalIDGenerator generator = new ThreadLocalIDGenerator();
+    generator.setBatchSize(3);
+    generator.setReseedInterval(5);
+    Set ids = new HashSet();
+    for (int i = 0; i < 100; ++i) {
+      String id = generator.generateID();
+      assertEquals(24, id.length());
+      for (int j = 0; j < id.length(); ++j) {
+        assertTrue(CharToByteBase64.pem_reverse_array[id.charAt(j)] != -1);
+      }
+      XMLUtil.produceXMLID(id);
+      assertTrue(ids.add(id));
+    }
+  }
+
+  public void testConcurrentUniqueness() throws InterruptedException {
+    final ThreadLocalIDGenerator generator = new ThreadLocalIDGenerator();
+    final Set ids = Collections.synchronizedSet(new HashSet());
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = new Thread() {
+        public void run() {
+          for (int j = 0; j < 1000; ++j) {
+            ids.add(generator.generateID());
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i].join();
+    }
+    assertEquals(4000, ids.size());
+  }
+
+  // Nothing reachable from a thread's value may have been loaded by the
+  // webapp's ClassLoader, else the thread would keep it from being collected
+  public void testStateHoldsOnlyJDKTypes() throws Exception {
+    ThreadLocalIDGenerator generator = new ThreadLocalIDGenerator();
+    generator.generateID();
+    Field statefield = ThreadLocalIDGenerator.class.getDeclaredField("state");
+    statefield.setAccessible(true);
+    ThreadLocal state = (ThreadLocal) statefield.get(generator);
+    assertSame(ThreadLocal.class, state.getClass());
+    Object[] value = (Object[]) state.get();
+    for (int i = 0; i < value.length; ++i) {
+      assertNull(value[i].getClass().getClassLoader());
+    }
+  }
+}
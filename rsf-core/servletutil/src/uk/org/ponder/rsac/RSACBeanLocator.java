@@ -73,4 +73,25 @@ public interface RSACBeanLocator {
    */
   public IterableWriteableBeanLocator getDeadBeanLocator();
 
+  /**
+   * Returns an opaque handle to the request-scope container of the current
+   * thread, which may be attached to other threads via 
+   * {@link #attachRequestContext(Object)} so that they may work on behalf of
+   * the same request. Once this method has been called, access to the 
+   * container is synchronized for the remainder of the request.
+   */
+  public Object getRequestContext();
+
+  /**
+   * Attaches the supplied request-scope container, acquired from 
+   * {@link #getRequestContext()}, to the current thread. Work performed on
+   * the thread must be complete before the owning request ends.
+   * 
+   * @param context The request context to attach, or <code>null</code> to
+   *          detach the current one.
+   * @return The context previously attached to this thread, which should be
+   *         restored once the work is complete.
+   */
+  public Object attachRequestContext(Object context);
+
 }
\ No newline at end of file
@@ -10,30 +10,44 @@ import java.util.Map;
 import org.springframework.aop.framework.ProxyFactoryBean;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.FactoryBean;
 
 import uk.org.ponder.beanutil.WriteableBeanLocator;
-import uk.org.ponder.beanutil.support.ConcreteWBL;
 import uk.org.ponder.springutil.TLABPostProcessor;
 import uk.org.ponder.stringutil.StringList;
 import uk.org.ponder.util.UniversalRuntimeException;
 
+/**
+ * The complete state of RSAC for one thread. This is allocated once per thread
+ * and reset by {@link #clear()} at the end of each request, so that a thread
+ * serving successive requests reuses the same slot array, lists and lazy
+ * proxies rather than allocating them afresh.
+ */
 class PerRequestInfo {
   // HashMap beans = new HashMap();
   int cbeans = 0;
-  ConcreteWBL beans = new ConcreteWBL(); // the raw bean container
+  boolean started = false;
+  // set when this container has been shared with further threads, after
+  // which all bean creation is synchronized on it
+  boolean shared = false;
+  RSACBeanStore beans; // the raw bean container
   WriteableBeanLocator requestwbl; // "active" container with lazy-init
   ArrayList postprocessors = new ArrayList();
-  StringList todestroy = new StringList();
+  // list of RSACBeanInfo for beans requiring destruction
+  ArrayList todestroy = new ArrayList();
   // a cached BeanFactory corresponding to the lazy container, for any
   // BeanFactoryAware beans
   BeanFactory blfactory;
   TLABPostProcessor tlabpp;
-  // the container of RSACLazyTargetSources, permanent in this ThreadLocal.
-  Map lazysources;
+  // the container of RSACLazyTargetSources, permanent in this ThreadLocal,
+  // indexed by bean slot
+  FactoryBean[] lazysources;
   Map seedbeans = new HashMap();
 
   public void clear() {
     cbeans = 0;
+    started = false;
+    shared = false;
     // we now know that all of this stuff is actually SLOWER than throwing the
     // whole entry away. But we NEED to cache the lazytargets, so what the
     // heck...
@@ -43,6 +57,8 @@ class PerRequestInfo {
   }
 
   public PerRequestInfo(final RSACBeanLocatorImpl rsacbl, StringList lazysources, TLABPostProcessor tlabpp) {
+    RSACBeanInfo[] slotted = rsacbl.getSlottedBeans();
+    beans = new RSACBeanStore(rsacbl.getRBIIndex(), slotted);
 
     requestwbl = new WriteableBeanLocator() {
       public Object locateBean(String beanname) {
@@ -50,16 +66,29 @@ class PerRequestInfo {
       }
 
       public boolean remove(String beanname) {
+        if (shared) {
+          synchronized (PerRequestInfo.this) {
+            return beans.remove(beanname);
+          }
+        }
         return beans.remove(beanname);
       }
 
       public void set(String beanname, Object toset) {
-        seedbeans.put(beanname, toset);
-        beans.set(beanname, toset);
+        if (shared) {
+          synchronized (PerRequestInfo.this) {
+            seedbeans.put(beanname, toset);
+            beans.set(beanname, toset);
+          }
+        }
+        else {
+          seedbeans.put(beanname, toset);
+          beans.set(beanname, toset);
+        }
       }
     };
 
-    HashMap thislazies = new HashMap();
+    FactoryBean[] thislazies = new FactoryBean[slotted.length];
     blfactory = new RSACBeanFactory(rsacbl, requestwbl);
     for (int i = 0; i < lazysources.size(); ++i) {
       String lazysource = lazysources.stringAt(i);
@@ -86,7 +115,8 @@ class PerRequestInfo {
         pfb.setTargetSource(rlts);
         pfb.setBeanFactory(blfactory);
 
-        thislazies.put(lazysource, pfb);
+        RSACBeanInfo rbi = (RSACBeanInfo) rsacbl.getRBIIndex().get(lazysource);
+        thislazies[rbi.slot] = pfb;
       }
       catch (Exception e) {
         throw UniversalRuntimeException.accumulate(e,
@@ -8,6 +8,8 @@ import java.util.Iterator;
 
 import org.springframework.beans.factory.config.ConstructorArgumentValues;
 
+import uk.org.ponder.util.ObjectFactory;
+
 class RSACBeanInfo {
   // The ACTUAL class of the bean to be FIRST constructed. The class of the
   // resultant bean may differ for a factory bean.
@@ -22,11 +24,16 @@ class RSACBeanInfo {
   String factorymethod;
   String[] dependson;
   String[] aliases;
+  // index of this bean in the per-request storage - see RSACBeanStore
+  int slot;
   boolean islazyinit;
   // key is dependent bean name, value is property name.
   // ultimately we will cache introspection info here.
   private HashMap localdepends = new HashMap();
   public ConstructorArgumentValues.ValueHolder[] constructorargvals;
+  // compiled on first creation of the bean - see RSACBeanLocatorImpl.createBean
+  volatile RSACBeanPlan plan;
+  volatile ObjectFactory instantiator;
   // each member is either an app-static RunnableWrapper or a reference to
   // one which can be fetched
   public Object[] fetchwrappers;
@@ -39,6 +46,10 @@ class RSACBeanInfo {
     localdepends.put(propertyname, beanref);
   }
 
+  public int dependencyCount() {
+    return localdepends.size();
+  }
+
   public Iterator dependencies() {
     return localdepends.keySet().iterator();
   }
@@ -3,23 +3,19 @@
  */
 package uk.org.ponder.rsac.support;
 
-import java.beans.PropertyChangeEvent;
 import java.lang.reflect.Method;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
 import org.apache.log4j.Level;
 import org.springframework.beans.BeanInstantiationException;
 import org.springframework.beans.BeansException;
-import org.springframework.beans.TypeMismatchException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.InitializingBean;
-import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
@@ -37,9 +33,7 @@ import uk.org.ponder.reflect.ReflectUtils;
 import uk.org.ponder.reflect.ReflectiveCache;
 import uk.org.ponder.rsac.GlobalBeanAccessor;
 import uk.org.ponder.rsac.RSACBeanLocator;
-import uk.org.ponder.saxalizer.AccessMethod;
 import uk.org.ponder.saxalizer.SAXalizerMappingContext;
-import uk.org.ponder.saxalizer.support.MethodAnalyser;
 import uk.org.ponder.springutil.BeanDefinitionSource;
 import uk.org.ponder.springutil.TLABPostProcessor;
 import uk.org.ponder.stringutil.StringList;
@@ -76,7 +70,6 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
     BeanDefinitionSource, RSACBeanLocator {
 
   private static CreationMarker BEAN_IN_CREATION_OBJECT = new CreationMarker(0);
-  private static String REQUEST_STARTED_KEY = ".request  started";
   private ConfigurableApplicationContext blankcontext;
   private ApplicationContext parentcontext;
   private SAXalizerMappingContext smc;
@@ -133,7 +126,7 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
     }
     GlobalBeanAccessor.startRequest(parentcontext);
     PerRequestInfo pri = getPerRequest();
-    pri.beans.set(REQUEST_STARTED_KEY, BEAN_IN_CREATION_OBJECT);
+    pri.started = true;
   }
 
   /**
@@ -143,7 +136,7 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
 
   public boolean isStarted() {
     PerRequestInfo pri = getPerRequest();
-    return pri.beans.locateBean(REQUEST_STARTED_KEY) != null;
+    return pri.started;
   }
 
   private void assertIsStarted() {
@@ -163,11 +156,11 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
     GlobalBeanAccessor.endRequest(); // cannot throw
 
     for (int i = 0; i < pri.todestroy.size(); ++i) {
-      String todestroyname = pri.todestroy.stringAt(i);
-      RSACBeanInfo destroybean = (RSACBeanInfo) rbimap.get(todestroyname);
+      RSACBeanInfo destroybean = (RSACBeanInfo) pri.todestroy.get(i);
+      String todestroyname = destroybean.beanname;
       Object todestroy = null;
       try {
-        todestroy = getBean(pri, todestroyname, false);
+        todestroy = getLocalBean(pri, destroybean, false);
         if (todestroy instanceof DisposableBean) {
           ((DisposableBean) todestroy).destroy();
         }
@@ -196,8 +189,10 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
   private StringList lazysources;
   // this is a list of "fallback" beans that have already been queried
   private StringList fallbacks;
-  // this is a map of alias names to "canonical" bean names
-  private Map aliasMap;
+  // this is a map of bean names AND aliases to RSACBeanInfo
+  private Map rbiindex;
+  // RSACBeanInfo indexed by their slot in the per-request bean storage
+  private RSACBeanInfo[] slotted;
 
   public void init() {
     // at this point we actually expect that the "Dead" factory is FULLY
@@ -209,7 +204,7 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
     rbimap = new HashMap();
     lazysources = new StringList();
     fallbacks = new StringList();
-    aliasMap = new HashMap();
+    rbiindex = new HashMap();
 
     RBIBeanDefConverter converter = new RBIBeanDefConverter(factory, smc);
 
@@ -227,10 +222,20 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
       RSACBeanInfo rbi = (RSACBeanInfo) converter.rbilist.get(i);
       String beanname = rbi.beanname;
       rbimap.put(beanname, rbi);
+      rbiindex.put(beanname, rbi);
+      rbi.slot = i;
+    }
+    // Aliases are entered second so that they may never shadow a real bean name
+    for (int i = 0; i < converter.rbilist.size(); ++i) {
+      RSACBeanInfo rbi = (RSACBeanInfo) converter.rbilist.get(i);
       for (int j = 0; j < rbi.aliases.length; ++j) {
-        aliasMap.put(rbi.aliases[j], beanname);
+        if (!rbiindex.containsKey(rbi.aliases[j])) {
+          rbiindex.put(rbi.aliases[j], rbi);
+        }
       }
     }
+    slotted = (RSACBeanInfo[]) converter.rbilist
+        .toArray(new RSACBeanInfo[converter.rbilist.size()]);
 
     // Make a last-ditch attempt to infer bean types.
     for (int i = 0; i < converter.rbilist.size(); ++i) {
@@ -320,21 +325,14 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
     getPerRequest().postprocessors.add(beanpp);
   }
 
-  private String getTransformedBeanName(String beanname) {
-    String alias = (String) aliasMap.get(beanname);
-    return alias == null ? beanname
-        : alias;
-  }
-
-  private Object getLocalBean(PerRequestInfo pri, String beanname,
+  private Object getLocalBean(PerRequestInfo pri, RSACBeanInfo rbi,
       boolean nolazy) {
-    beanname = getTransformedBeanName(beanname);
-    Object bean = pri.beans.locateBean(beanname);
+    Object bean = pri.shared ? getShared(pri, rbi) : pri.beans.get(rbi);
     if (bean instanceof CreationMarker) {
-      throw new BeanCurrentlyInCreationException(beanname);
+      throw new BeanCurrentlyInCreationException(rbi.beanname);
     }
     else if (bean == null) {
-      FactoryBean pfb = (FactoryBean) pri.lazysources.get(beanname);
+      FactoryBean pfb = pri.lazysources[rbi.slot];
       if (pfb != null && !nolazy) {
         try {
           return pfb.getObject();
@@ -345,12 +343,33 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
         }
       }
       else {
-        bean = createBean(pri, beanname, BEAN_IN_CREATION_OBJECT);
+        bean = pri.shared ? createShared(pri, rbi)
+            : createBean(pri, rbi, BEAN_IN_CREATION_OBJECT);
       }
     }
     return bean;
   }
 
+  // Once a container is shared between threads, its store is only read and
+  // its beans only created whilst holding its monitor. Creation holds it 
+  // throughout, so that a creation marker is only ever seen by the thread 
+  // which set it. Lazy proxies and beans from the parent context are fetched
+  // without it.
+  private static Object getShared(PerRequestInfo pri, RSACBeanInfo rbi) {
+    synchronized (pri) {
+      return pri.beans.get(rbi);
+    }
+  }
+
+  private Object createShared(PerRequestInfo pri, RSACBeanInfo rbi) {
+    synchronized (pri) {
+      // another thread may have created the bean whilst we waited
+      Object bean = pri.beans.get(rbi);
+      return bean == null ? createBean(pri, rbi, BEAN_IN_CREATION_OBJECT)
+          : bean;
+    }
+  }
+
   // package access ensures visibility from RSACLazarusList
   Map getSeedMap() {
     return getPerRequest().seedbeans;
@@ -361,6 +380,15 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
     return rbimap;
   }
   
+  // package access ensures visibility from PerRequestInfo
+  Map getRBIIndex() {
+    return rbiindex;
+  }
+
+  RSACBeanInfo[] getSlottedBeans() {
+    return slotted;
+  }
+
   ConfigurableApplicationContext getBlankContext() {
     return blankcontext;
   }
@@ -375,10 +403,19 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
     // contexts.
     // NB - we check the container since some fiend might have thrown it in
     // manually on inchuck - but actually this is faster than Spring anyway.
-    if (pri.beans.locateBean(beanname) != null || rbimap.containsKey(beanname)) {
-      bean = getLocalBean(pri, beanname, nolazy);
+    RSACBeanInfo rbi = (RSACBeanInfo) rbiindex.get(beanname);
+    if (rbi != null) {
+      bean = getLocalBean(pri, rbi, nolazy);
     }
     else {
+      if (pri.shared) {
+        synchronized (pri) {
+          bean = pri.beans.locateBean(beanname);
+        }
+      }
+      else {
+        bean = pri.beans.locateBean(beanname);
+      }
       if (bean == null && this.parentcontext.containsBean(beanname)) {
         bean = this.parentcontext.getBean(beanname);
       }
@@ -405,15 +442,11 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
     return deliver;
   }
 
-  private Object createBean(final PerRequestInfo pri, final String beanname,
+  private Object createBean(final PerRequestInfo pri, final RSACBeanInfo rbi,
       CreationMarker marker) {
+    final String beanname = rbi.beanname;
     boolean success = false;
     try {
-      RSACBeanInfo rbi = (RSACBeanInfo) rbimap.get(beanname);
-      if (rbi == null) {
-        throw new NoSuchBeanDefinitionException(beanname,
-            "Bean definition not found");
-      }
       if (rbi.isabstract) {
         throw new BeanInstantiationException(rbi.beanclass, "Abstract bean "
             + rbi.beanname + " cannot be instantiated");
@@ -422,7 +455,7 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
       if (marker == null) {
         marker = BEAN_IN_CREATION_OBJECT;
         if (rbi.issingleton) {
-          pri.beans.set(beanname, marker);
+          pri.beans.set(rbi, marker);
         }
       }
 
@@ -434,7 +467,7 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
         if (marker.wrapperindex == 0) {
           marker = new CreationMarker(1);
           if (rbi.issingleton) {
-            pri.beans.set(beanname, marker);
+            pri.beans.set(rbi, marker);
           }
         }
         else {
@@ -446,7 +479,7 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
         final CreationMarker nextmarker = marker;
         wrapper.invokeRunnable(new Runnable() {
           public void run() {
-            togo[0] = createBean(pri, beanname, nextmarker);
+            togo[0] = createBean(pri, rbi, nextmarker);
           }
 
         });
@@ -500,41 +533,33 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
         // All the same, the following line will cost us close to 1us - unless
         // it invokes manual code!
         if (rbi.constructorargvals == null) {
-          newbean = reflectivecache.construct(rbi.beanclass);
+          ObjectFactory instantiator = rbi.instantiator;
+          if (instantiator == null) {
+            instantiator = reflectivecache.getInstantiator(rbi.beanclass);
+            rbi.instantiator = instantiator;
+          }
+          newbean = instantiator.getObject();
         }
         else {
           newbean = null;
         }
       }
-      if (rbi.hasDependencies()) {
-        // guard this block since if it is a factory-method bean it may be
-        // something
-        // extremely undesirable (like an inner class) that we should not even
-        // dream of reflecting over. If on the other hand the user has specified
-        // some dependencies they doubtless know what they are doing.
-        MethodAnalyser ma = smc.getAnalyser(newbean.getClass());
-        // Object clonebean = deadbean.copy();
+      // The plan is compiled against the concrete class of the first instance, 
+      // since for a factory-method bean this is only known now. 
+      RSACBeanPlan plan = newbean == null ? null : getPlan(rbi, newbean);
+      if (plan != null) {
         // iterate over each LOCAL dependency of the bean with given name.
-        for (Iterator depit = rbi.dependencies(); depit.hasNext();) {
-          String propertyname = (String) depit.next();
-      
+        for (int i = 0; i < plan.setters.length; ++i) {
           try {
-            AccessMethod setter = ma.getAccessMethod(propertyname);
-            if (setter == null) {
-              throw new IllegalArgumentException(newbean.getClass()
-                  + " has no writeable property named " + propertyname);
-            }
-            Object beanref = rbi.beanref(propertyname);
-            Class targetclazz = setter.getAccessedType();
-            Object depbean = resolveDependent(beanref, pri, targetclazz, setter.getDeclaredType());
-        
-            // Lose another 500ns here, until we bring on FastClass.
-            setter.setChildObject(newbean, depbean);
+            Object depbean = plan.isprecomputed[i] ? plan.values[i]
+                : resolveDependent(plan, i, pri);
+            // Invoked through a compiled accessor if the ReflectiveCache issues one.
+            plan.setters[i].setChildObject(newbean, depbean);
           }
           catch (Exception e) {
             throw UniversalRuntimeException.accumulate(e,
-                "Error setting dependency " + propertyname + " of bean "
-                    + beanname);
+                "Error setting dependency " + plan.propertynames[i]
+                    + " of bean " + beanname);
           }
         }
       }
@@ -545,7 +570,8 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
       }
       // process it FIRST since it will be the factory that is expecting the
       // dependencies set!
-      newbean = processNewBean(pri, beanname, newbean);
+      newbean = processNewBean(pri, beanname, newbean, plan);
+      int lifecycle = lifecycleFor(plan, newbean);
       // now the bean is initialised, attempt to call any init-method or
       // InitBean.
       if (rbi.initmethod != null) {
@@ -558,7 +584,7 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
                   + beanname);
         }
       }
-      if (newbean instanceof InitializingBean) {
+      if ((lifecycle & RSACBeanPlan.INITIALIZING) != 0) {
         try {
           ((InitializingBean) newbean).afterPropertiesSet();
         }
@@ -566,11 +592,12 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
           throw UniversalRuntimeException.accumulate(e);
         }
       }
-      if (rbi.destroymethod != null || (newbean instanceof DisposableBean)) {
-        pri.todestroy.add(beanname);
+      if (rbi.destroymethod != null
+          || (lifecycle & RSACBeanPlan.DISPOSABLE) != 0) {
+        pri.todestroy.add(rbi);
       }
       
-      if (newbean instanceof FactoryBean) {
+      if ((lifecycle & RSACBeanPlan.FACTORY_BEAN) != 0) {
         FactoryBean factorybean = (FactoryBean) newbean;
         try {
           newbean = factorybean.getObject();
@@ -581,7 +608,7 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
       }
       // enter the bean into the req-specific map.
       if (rbi.issingleton) {
-        pri.beans.set(beanname, newbean);
+        pri.beans.set(rbi, newbean);
       }
       success = true;
       return newbean;
@@ -590,71 +617,73 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
       if (marker.wrapperindex > 0) {
         --marker.wrapperindex;
         if (marker.wrapperindex == 0 && !success) {
-          pri.beans.remove(beanname);
+          pri.beans.remove(rbi);
         }
       }
     }
 
   }
 
-  private Object resolveDependent(Object beanref, PerRequestInfo pri, 
-       Class accessedType, Class declaredType) {
-    Object depbean = null;
-    if (beanref instanceof String) {
-      String depbeanname = (String) beanref;
-      depbean = fetchDependent(pri, depbeanname, accessedType);
-      BeanUtil.censorNullBean(depbeanname, depbean);
-    }
-    else if (beanref instanceof ValueHolder) {
-      String value = ((ValueHolder) beanref).value;
-      if (smc.generalLeafParser.isLeafType(accessedType)) {
-        depbean = value == null? null : smc.generalLeafParser.parse(accessedType, value);
-      }
-      else {
-        // exception def copied from the beast BeanWrapperImpl!
-        throw new TypeMismatchException(new PropertyChangeEvent(
-            //newbean, propertyname,
-            null, null, 
-            null, value), accessedType, null);
-      }
+  private RSACBeanPlan getPlan(RSACBeanInfo rbi, Object newbean) {
+    RSACBeanPlan plan = rbi.plan;
+    // a factory-method may in principle return beans of varying class - the 
+    // plan is then simply recompiled for the latest one.
+    if (plan == null || plan.beanclass != newbean.getClass()) {
+      plan = new RSACBeanPlan(rbi, newbean.getClass(), smc);
+      rbi.plan = plan;
     }
-    else {
-      // Really need generalised conversion of vector values here.
-      // The code to do this is actually WITHIN the grotty
-      // BeanWrapperImpl
-      // itself in a protected method with 5 arguments!!
-      // This is a sort of 50% solution. It will deal with all 1-d array
-      // types and collections, and values of parseable types.
-      depbean = assembleVectorProperty(pri, (StringList) beanref,
-          declaredType);
-    }
-    return depbean;
+    return plan;
   }
 
-  private Object fetchDependent(final PerRequestInfo pri,
-      final String beanname, Class targetclazz) {
-  
-    if (ObjectFactory.class.isAssignableFrom(targetclazz)) {
+  private static int lifecycleFor(RSACBeanPlan plan, Object newbean) {
+    return newbean == null ? 0
+        : (plan == null ? RSACBeanPlan.lifecycleFlags(newbean.getClass())
+            : plan.lifecycleFor(newbean));
+  }
+
+  private Object resolveDependent(RSACBeanPlan plan, int i,
+      final PerRequestInfo pri) {
+    Object beanref = plan.beanrefs[i];
+    switch (plan.kinds[i]) {
+    case RSACBeanPlan.BEAN_REFERENCE: {
+      String depbeanname = (String) beanref;
+      Object depbean = getBean(pri, depbeanname, false);
+      BeanUtil.censorNullBean(depbeanname, depbean);
+      return depbean;
+    }
+    case RSACBeanPlan.OBJECT_FACTORY_REFERENCE: {
+      final String depbeanname = (String) beanref;
       return new ObjectFactory() {
         public Object getObject() {
-          return getBean(pri, beanname, false);
+          return getBean(pri, depbeanname, false);
         }
       };
     }
-    else if (org.springframework.beans.factory.ObjectFactory.class
-        .isAssignableFrom(targetclazz)) {
+    case RSACBeanPlan.SPRING_FACTORY_REFERENCE: {
+      final String depbeanname = (String) beanref;
       return new org.springframework.beans.factory.ObjectFactory() {
         public Object getObject() throws BeansException {
-          return getBean(pri, beanname, false);
+          return getBean(pri, depbeanname, false);
         }
       };
     }
-    else
-      return getBean(pri, beanname, false);
+    case RSACBeanPlan.VALUE:
+      return RSACBeanPlan.convertValue(smc, (ValueHolder) beanref,
+          plan.accessedtypes[i]);
+    default:
+      // Really need generalised conversion of vector values here.
+      // The code to do this is actually WITHIN the grotty
+      // BeanWrapperImpl
+      // itself in a protected method with 5 arguments!!
+      // This is a sort of 50% solution. It will deal with all 1-d array
+      // types and collections, and values of parseable types.
+      return assembleVectorProperty(pri, (StringList) beanref,
+          plan.declaredtypes[i]);
+    }
   }
 
   private Object processNewBean(PerRequestInfo pri, String beanname,
-      Object newbean) {
+      Object newbean, RSACBeanPlan plan) {
     pri.tlabpp.postProcessBeforeInitialization(newbean, beanname);
     for (int i = 0; i < pri.postprocessors.size(); ++i) {
       BeanPostProcessor beanpp = (BeanPostProcessor) pri.postprocessors.get(i);
@@ -669,13 +698,14 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
             + newbean.getClass().getName(), e);
       }
     }
-    if (newbean instanceof BeanFactoryAware) {
+    int lifecycle = lifecycleFor(plan, newbean);
+    if ((lifecycle & RSACBeanPlan.BEAN_FACTORY_AWARE) != 0) {
       ((BeanFactoryAware) newbean).setBeanFactory(pri.blfactory);
     }
-    if (newbean instanceof BeanNameAware) {
+    if ((lifecycle & RSACBeanPlan.BEAN_NAME_AWARE) != 0) {
       ((BeanNameAware) newbean).setBeanName(beanname);
     }
-    if (newbean instanceof ApplicationContextAware) {
+    if ((lifecycle & RSACBeanPlan.APPLICATION_CONTEXT_AWARE) != 0) {
       ((ApplicationContextAware) newbean).setApplicationContext(parentcontext);
     }
     return newbean;
@@ -702,4 +732,23 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
     return pri.beans;
   }
 
+  public Object getRequestContext() {
+    assertIsStarted();
+    PerRequestInfo pri = getPerRequest();
+    pri.shared = true;
+    return pri;
+  }
+
+  public Object attachRequestContext(Object context) {
+    Object previous = threadlocal.get();
+    threadlocal.set(context);
+    if (context == null) {
+      GlobalBeanAccessor.endRequest();
+    }
+    else {
+      GlobalBeanAccessor.startRequest(parentcontext);
+    }
+    return previous;
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsac.support;
+
+import java.beans.PropertyChangeEvent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Iterator;
+
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationContextAware;
+
+import uk.org.ponder.saxalizer.AccessMethod;
+import uk.org.ponder.saxalizer.SAXalizerMappingContext;
+import uk.org.ponder.saxalizer.support.MethodAnalyser;
+import uk.org.ponder.util.ObjectFactory;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * An immutable "construction plan" for a request-scope bean, compiled once
+ * from its {@link RSACBeanInfo} and the concrete class of its first instance.
+ * It holds the resolved setter for each dependency in a fixed order, any 
+ * literal values already converted, and the lifecycle interfaces of the class,
+ * so that each request need only execute the plan rather than repeat the 
+ * introspection.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+class RSACBeanPlan {
+  static final int INITIALIZING = 1;
+  static final int DISPOSABLE = 2;
+  static final int FACTORY_BEAN = 4;
+  static final int BEAN_FACTORY_AWARE = 8;
+  static final int BEAN_NAME_AWARE = 16;
+  static final int APPLICATION_CONTEXT_AWARE = 32;
+
+  static final int BEAN_REFERENCE = 0;
+  static final int OBJECT_FACTORY_REFERENCE = 1;
+  static final int SPRING_FACTORY_REFERENCE = 2;
+  static final int VALUE = 3;
+  static final int VECTOR = 4;
+
+  // The class of the constructed bean for which this plan was compiled
+  final Class beanclass;
+  final int lifecycle;
+
+  final String[] propertynames;
+  final AccessMethod[] setters;
+  // each member is one of a String bean name, ValueHolder or StringList
+  final Object[] beanrefs;
+  // one of the reference kinds above, determining how beanrefs is resolved
+  final int[] kinds;
+  final Class[] accessedtypes;
+  final Class[] declaredtypes;
+  // for each ValueHolder dependency, whether its converted value is immutable
+  // and has been computed in advance into values
+  final boolean[] isprecomputed;
+  final Object[] values;
+
+  RSACBeanPlan(RSACBeanInfo rbi, Class beanclass, SAXalizerMappingContext smc) {
+    this.beanclass = beanclass;
+    this.lifecycle = lifecycleFlags(beanclass);
+    int deps = rbi.dependencyCount();
+    propertynames = new String[deps];
+    setters = new AccessMethod[deps];
+    beanrefs = new Object[deps];
+    kinds = new int[deps];
+    accessedtypes = new Class[deps];
+    declaredtypes = new Class[deps];
+    isprecomputed = new boolean[deps];
+    values = new Object[deps];
+    // guard this block since if it is a factory-method bean it may be
+    // something extremely undesirable (like an inner class) that we should not 
+    // even dream of reflecting over. If on the other hand the user has 
+    // specified some dependencies they doubtless know what they are doing.
+    if (deps == 0) return;
+
+    MethodAnalyser ma = smc.getAnalyser(beanclass);
+    int i = 0;
+    for (Iterator depit = rbi.dependencies(); depit.hasNext(); ++i) {
+      String propertyname = (String) depit.next();
+      propertynames[i] = propertyname;
+      try {
+        AccessMethod setter = ma.getAccessMethod(propertyname);
+        if (setter == null) {
+          throw new IllegalArgumentException(beanclass
+              + " has no writeable property named " + propertyname);
+        }
+        setters[i] = setter;
+        beanrefs[i] = rbi.beanref(propertyname);
+        accessedtypes[i] = setter.getAccessedType();
+        declaredtypes[i] = setter.getDeclaredType();
+        kinds[i] = referenceKind(beanrefs[i], accessedtypes[i]);
+        if (kinds[i] == VALUE) {
+          Object value = convertValue(smc, (ValueHolder) beanrefs[i],
+              accessedtypes[i]);
+          if (value == null || isImmutable(value)) {
+            isprecomputed[i] = true;
+            values[i] = value;
+          }
+        }
+      }
+      catch (Exception e) {
+        throw UniversalRuntimeException.accumulate(e,
+            "Error setting dependency " + propertyname + " of bean "
+                + rbi.beanname);
+      }
+    }
+  }
+
+  private static int referenceKind(Object beanref, Class accessedType) {
+    if (beanref instanceof String) {
+      if (ObjectFactory.class.isAssignableFrom(accessedType)) {
+        return OBJECT_FACTORY_REFERENCE;
+      }
+      else if (org.springframework.beans.factory.ObjectFactory.class
+          .isAssignableFrom(accessedType)) {
+        return SPRING_FACTORY_REFERENCE;
+      }
+      else return BEAN_REFERENCE;
+    }
+    else if (beanref instanceof ValueHolder) {
+      return VALUE;
+    }
+    else return VECTOR;
+  }
+
+  /**
+   * Returns the lifecycle flags for the supplied bean, which may differ from
+   * those of the plan if a BeanPostProcessor has substituted another object.
+   */
+  int lifecycleFor(Object bean) {
+    return bean.getClass() == beanclass ? lifecycle
+        : lifecycleFlags(bean.getClass());
+  }
+
+  static int lifecycleFlags(Class clazz) {
+    int togo = 0;
+    if (InitializingBean.class.isAssignableFrom(clazz)) togo |= INITIALIZING;
+    if (DisposableBean.class.isAssignableFrom(clazz)) togo |= DISPOSABLE;
+    if (FactoryBean.class.isAssignableFrom(clazz)) togo |= FACTORY_BEAN;
+    if (BeanFactoryAware.class.isAssignableFrom(clazz)) togo |= BEAN_FACTORY_AWARE;
+    if (BeanNameAware.class.isAssignableFrom(clazz)) togo |= BEAN_NAME_AWARE;
+    if (ApplicationContextAware.class.isAssignableFrom(clazz)) {
+      togo |= APPLICATION_CONTEXT_AWARE;
+    }
+    return togo;
+  }
+
+  static Object convertValue(SAXalizerMappingContext smc, ValueHolder holder,
+      Class accessedType) {
+    String value = holder.value;
+    if (smc.generalLeafParser.isLeafType(accessedType)) {
+      return value == null ? null
+          : smc.generalLeafParser.parse(accessedType, value);
+    }
+    else {
+      // exception def copied from the beast BeanWrapperImpl!
+      throw new TypeMismatchException(new PropertyChangeEvent(
+      // newbean, propertyname,
+          null, null, null, value), accessedType, null);
+    }
+  }
+
+  // Only values of these types may be shared between beans of different requests
+  private static boolean isImmutable(Object value) {
+    Class clazz = value.getClass();
+    return clazz == String.class || clazz == Boolean.class
+        || clazz == Integer.class || clazz == Long.class
+        || clazz == Double.class || clazz == Float.class
+        || clazz == Short.class || clazz == Byte.class
+        || clazz == Character.class || clazz == BigDecimal.class
+        || clazz == BigInteger.class || clazz == Class.class
+        || value instanceof Enum;
+  }
+}
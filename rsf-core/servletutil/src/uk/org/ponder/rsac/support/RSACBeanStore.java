@@ -0,0 +1,97 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsac.support;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import uk.org.ponder.beanutil.IterableWriteableBeanLocator;
+import uk.org.ponder.stringutil.StringList;
+
+/**
+ * The raw per-request bean container for RSAC. Each bean with a request-scope
+ * definition is held in a flat array at the dense slot assigned to its
+ * {@link RSACBeanInfo} when the container starts, so that the container itself
+ * never needs to hash a bean name. Any other names (for example beans seeded
+ * into the request by hand) are held in a map to the side.
+ * <p>
+ * The String-keyed {@link IterableWriteableBeanLocator} interface is retained
+ * for external clients, with aliases resolved to the slot of their bean.
+ * 
+ * @author Antranig Basman (antranig@caret.cam.ac.uk)
+ */
+
+class RSACBeanStore implements IterableWriteableBeanLocator {
+  // shared and read-only - map of bean names and aliases to RSACBeanInfo
+  private Map rbiindex;
+  private RSACBeanInfo[] slotted;
+  private Object[] slots;
+  private Map overflow = new HashMap();
+
+  RSACBeanStore(Map rbiindex, RSACBeanInfo[] slotted) {
+    this.rbiindex = rbiindex;
+    this.slotted = slotted;
+    this.slots = new Object[slotted.length];
+  }
+
+  Object get(RSACBeanInfo rbi) {
+    return slots[rbi.slot];
+  }
+
+  void set(RSACBeanInfo rbi, Object bean) {
+    slots[rbi.slot] = bean;
+  }
+
+  void remove(RSACBeanInfo rbi) {
+    slots[rbi.slot] = null;
+  }
+
+  public Object locateBean(String beanname) {
+    RSACBeanInfo rbi = (RSACBeanInfo) rbiindex.get(beanname);
+    return rbi == null ? overflow.get(beanname)
+        : slots[rbi.slot];
+  }
+
+  public void set(String beanname, Object toset) {
+    RSACBeanInfo rbi = (RSACBeanInfo) rbiindex.get(beanname);
+    if (rbi == null) {
+      overflow.put(beanname, toset);
+    }
+    else {
+      slots[rbi.slot] = toset;
+    }
+  }
+
+  public boolean remove(String beanname) {
+    RSACBeanInfo rbi = (RSACBeanInfo) rbiindex.get(beanname);
+    if (rbi == null) {
+      return overflow.remove(beanname) != null;
+    }
+    else {
+      boolean togo = slots[rbi.slot] != null;
+      slots[rbi.slot] = null;
+      return togo;
+    }
+  }
+
+  public void clear() {
+    Arrays.fill(slots, null);
+    if (!overflow.isEmpty()) {
+      overflow.clear();
+    }
+  }
+
+  public Iterator iterator() {
+    StringList togo = new StringList();
+    for (int i = 0; i < slots.length; ++i) {
+      if (slots[i] != null) {
+        togo.add(slotted[i].beanname);
+      }
+    }
+    togo.addAll(overflow.keySet());
+    return togo.iterator();
+  }
+}
@@ -6,13 +6,14 @@ package uk.org.ponder.springutil;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 
+import uk.org.ponder.fileutil.FileChangeWatcher;
 import uk.org.ponder.fileutil.StalenessEntry;
 import uk.org.ponder.streamutil.StreamResolver;
 import uk.org.ponder.util.UniversalRuntimeException;
@@ -21,7 +22,8 @@ import uk.org.ponder.util.UniversalRuntimeException;
  * A "caching" source of InputStreams that will only poll the filesystem for
  * changes after a specified lag. Currently any non-filesystem resources are
  * assumed to be ALWAYS STALE, that is, they will always have their streams
- * returned rather than the marker.
+ * returned rather than the marker. This class is safe for use from multiple
+ * threads.
  * 
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  */
@@ -52,11 +54,25 @@ public class CachingInputStreamSource implements StreamResolver {
     this.cachesecs = cachesecs;
   }
 
+  /**
+   * If set, filesystem resources will be watched for changes using a 
+   * {@link FileChangeWatcher} rather than being polled after every
+   * <code>cacheSeconds</code>. Resources for which a watch cannot be 
+   * established continue to be polled.
+   */
+  public void setWatchFilesystem(boolean watchfilesystem) {
+    this.watchfilesystem = watchfilesystem;
+  }
+
   private ResourceLoader resourceloader;
 
   private StreamResolver baseresolver;
 
-  private Map stalenesses = new HashMap();
+  // map of path onto StalenessEntry - entries are shared between request 
+  // threads, and only one thread at a time will poll for any one entry.
+  private Map stalenesses = new ConcurrentHashMap();
+  
+  private boolean watchfilesystem;
 
   // The first argument here is typically the ApplicationContext - note that
   // it will stubbornly interpret ALL paths as relative to the ServletContext,
@@ -77,44 +93,67 @@ public class CachingInputStreamSource implements StreamResolver {
 
   public InputStream openStream(String fullpath) {
     StalenessEntry staleness = (StalenessEntry) stalenesses.get(fullpath);
-    boolean isnew = false;
+    long now = System.currentTimeMillis();
     if (staleness == null) {
-      isnew = true;
-      staleness = new StalenessEntry();
+      return checkStaleness(fullpath, new StalenessEntry(), true, now);
     }
-    long now = System.currentTimeMillis();
+    if (staleness.modtime == NEVER_STALE_MODTIME
+        || !staleness.isExpired(now, cachesecs * 1000L)) {
+      return UP_TO_DATE;
+    }
+    // If another thread is already polling for this resource, rely on the
+    // answer it will give rather than hitting the filesystem again.
+    if (!staleness.beginCheck()) {
+      return UP_TO_DATE;
+    }
+    try {
+      return checkStaleness(fullpath, staleness, false, now);
+    }
+    finally {
+      staleness.endCheck();
+    }
+  }
+
+  private InputStream checkStaleness(String fullpath, StalenessEntry staleness,
+      boolean isnew, long now) {
     boolean isstale = false;
+    long lastchecked = staleness.lastchecked;
 
     Resource res = null;
     try {
-      if (staleness.modtime != NEVER_STALE_MODTIME
-          && now > staleness.lastchecked + cachesecs * 1000) {
-        res = resourceloader.getResource(fullpath);
-        if (res == null || !res.exists())
-          return null;
-        try {
-          if (res instanceof ClassPathResource) {
-            staleness.modtime = NEVER_STALE_MODTIME;
-          }
-          else {
-            // Logger.log.debug("Trying to load from path " + fullpath);
-            File f = res.getFile(); // throws IOException
-            long modtime = f.lastModified();
-            if (modtime > staleness.modtime) {
-              staleness.modtime = modtime;
-              isstale = true;
-            }
+      res = resourceloader.getResource(fullpath);
+      if (res == null || !res.exists())
+        return null;
+      try {
+        if (res instanceof ClassPathResource) {
+          staleness.modtime = NEVER_STALE_MODTIME;
+        }
+        else {
+          // Logger.log.debug("Trying to load from path " + fullpath);
+          File f = res.getFile(); // throws IOException
+          // mark the check before reading the datestamp, so that any
+          // change notified during the read will cause a further check - 
+          // as will any notified since the check began
+          staleness.markChecked(lastchecked, now);
+          if (watchfilesystem && !staleness.watched) {
+            FileChangeWatcher.instance().watch(f, staleness);
           }
-          if (isnew) {
-            stalenesses.put(fullpath, staleness);
+          long modtime = f.lastModified();
+          if (modtime > staleness.modtime) {
+            staleness.modtime = modtime;
+            isstale = true;
           }
         }
-        catch (Exception e) {
-          // If it's not a file, it's always stale.
-          return res.getInputStream();
+        if (isnew) {
+          // if another thread has raced us to discover a new resource, it
+          // will have been reported stale to both, which is harmless
+          stalenesses.putIfAbsent(fullpath, staleness);
         }
       }
-      staleness.lastchecked = now;
+      catch (Exception e) {
+        // If it's not a file, it's always stale.
+        return res.getInputStream();
+      }
 
       return isstale ? res.getInputStream()
           : UP_TO_DATE;
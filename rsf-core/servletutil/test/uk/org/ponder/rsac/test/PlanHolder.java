@@ -0,0 +1,38 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.rsac.test;
+
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.InitializingBean;
+
+public class PlanHolder implements BeanNameAware, InitializingBean {
+  public int count;
+  public String name;
+  public NullHolder nullHolder;
+  public String beanName;
+  public boolean initialised;
+
+  public void setCount(int count) {
+    this.count = count;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public void setNullHolder(NullHolder nullHolder) {
+    this.nullHolder = nullHolder;
+  }
+
+  public void setBeanName(String beanName) {
+    this.beanName = beanName;
+  }
+
+  public void afterPropertiesSet() {
+    if (nullHolder == null) {
+      throw new IllegalStateException("Dependencies not set before init");
+    }
+    initialised = true;
+  }
+}
@@ -3,10 +3,15 @@
  */
 package uk.org.ponder.rsac.test;
 
+import java.util.Iterator;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.test.context.ContextConfiguration;
 
+import uk.org.ponder.beanutil.IterableWriteableBeanLocator;
+import uk.org.ponder.stringutil.StringList;
+
 @ContextConfiguration()
 public class TestRSAC extends AbstractRSACTests {
 
@@ -21,4 +26,46 @@ public class TestRSAC extends AbstractRSACTests {
     
     Assert.assertTrue(obj instanceof NullHolder);
   }
+
+  @Test
+  public void testPlanAcrossRequests() {
+    PlanHolder first = (PlanHolder) locateRequestBean("planTest");
+    checkPlanHolder(first);
+    // a fresh request executes the plan compiled by the first
+    getRSACBeanLocator().endRequest();
+    getRSACBeanLocator().startRequest();
+    PlanHolder second = (PlanHolder) locateRequestBean("planTest");
+    checkPlanHolder(second);
+    Assert.assertNotSame(first, second);
+    Assert.assertNotSame(first.nullHolder, second.nullHolder);
+  }
+
+  @Test
+  public void testSlottedStorage() {
+    PlanHolder holder = (PlanHolder) locateRequestBean("planTest");
+    Assert.assertSame(holder, locateRequestBean("planAlias"));
+    IterableWriteableBeanLocator dead = getRSACBeanLocator().getDeadBeanLocator();
+    Assert.assertSame(holder, dead.locateBean("planTest"));
+    // a bean with no definition is held outside the slots
+    dead.set("seeded", "value");
+    Assert.assertEquals("value", locateRequestBean("seeded"));
+    StringList names = new StringList();
+    for (Iterator it = dead.iterator(); it.hasNext();) {
+      names.add((String) it.next());
+    }
+    Assert.assertTrue(names.contains("planTest"));
+    Assert.assertTrue(names.contains("seeded"));
+    getRSACBeanLocator().endRequest();
+    getRSACBeanLocator().startRequest();
+    Assert.assertNull(dead.locateBean("planTest"));
+    Assert.assertNull(dead.locateBean("seeded"));
+  }
+
+  private void checkPlanHolder(PlanHolder holder) {
+    Assert.assertEquals(3, holder.count);
+    Assert.assertEquals("plan", holder.name);
+    Assert.assertSame(locateRequestBean("nullTest"), holder.nullHolder);
+    Assert.assertEquals("planTest", holder.beanName);
+    Assert.assertTrue(holder.initialised);
+  }
 }
@@ -0,0 +1,128 @@
+/*
+ * Created on Oct 17, 2026
+ */
+package uk.org.ponder.springutil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import uk.org.ponder.fileutil.StalenessEntry;
+
+/** Checks the staleness tracking of a CachingInputStreamSource shared between
+ * many threads opening the same resource at once.
+ */
+
+public class TestCachingInputStreamSource {
+  private static final int THREADS = 16;
+
+  private File file;
+  private String path;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("template", ".html");
+    writeFile("<html/>");
+    path = file.toURI().toString();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  private void writeFile(String content) throws Exception {
+    FileOutputStream fos = new FileOutputStream(file);
+    try {
+      fos.write(content.getBytes("UTF-8"));
+    }
+    finally {
+      fos.close();
+    }
+  }
+
+  // Opens the resource from all threads at once, returning the number which
+  // were handed a stream rather than the UP_TO_DATE marker
+  private int openConcurrently(final CachingInputStreamSource source)
+      throws Exception {
+    final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+    final AtomicInteger stale = new AtomicInteger();
+    final List errors = new ArrayList();
+    Thread[] threads = new Thread[THREADS];
+    for (int i = 0; i < THREADS; ++i) {
+      threads[i] = new Thread() {
+        public void run() {
+          try {
+            barrier.await();
+            InputStream is = source.openStream(path);
+            if (is != CachingInputStreamSource.UP_TO_DATE) {
+              is.close();
+              stale.incrementAndGet();
+            }
+          }
+          catch (Throwable t) {
+            synchronized (errors) {
+              errors.add(t);
+            }
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (int i = 0; i < THREADS; ++i) {
+      threads[i].join();
+    }
+    Assert.assertEquals(errors.toString(), 0, errors.size());
+    return stale.get();
+  }
+
+  @Test
+  public void testConcurrentStaleness() throws Exception {
+    CachingInputStreamSource source = new CachingInputStreamSource(
+        new DefaultResourceLoader(), 3600);
+    // threads racing to discover the resource may each be told it is stale
+    Assert.assertTrue(openConcurrently(source) >= 1);
+    Assert.assertEquals(0, openConcurrently(source));
+    Assert.assertSame(CachingInputStreamSource.UP_TO_DATE,
+        source.openStream(path));
+
+    // once polled again, a change is reported to exactly one thread
+    source.setCacheSeconds(CachingInputStreamSource.ALWAYS_STALE);
+    writeFile("<html></html>");
+    file.setLastModified(file.lastModified() + 10000);
+    Thread.sleep(2);
+    Assert.assertEquals(1, openConcurrently(source));
+    Thread.sleep(2);
+    Assert.assertEquals(0, openConcurrently(source));
+  }
+
+  @Test
+  public void testInvalidationDuringCheck() {
+    StalenessEntry entry = new StalenessEntry();
+    entry.watched = true;
+    // a change notified while a check is in progress, even of an entry
+    // which has never been checked, leaves the entry expired
+    long lastchecked = entry.lastchecked;
+    entry.invalidate();
+    Assert.assertFalse(entry.markChecked(lastchecked, 1000));
+    Assert.assertTrue(entry.isExpired(1000, 0));
+
+    lastchecked = entry.lastchecked;
+    Assert.assertTrue(entry.markChecked(lastchecked, 2000));
+    Assert.assertFalse(entry.isExpired(3000, 0));
+    lastchecked = entry.lastchecked;
+    entry.invalidate();
+    Assert.assertFalse(entry.markChecked(lastchecked, 3000));
+    Assert.assertTrue(entry.isExpired(3000, 0));
+  }
+}